@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Completes the responses of actions that return a {@link CompletionStage} or a
+ * {@link Future}.<br>
+ * <br>
+ * The request is put in asynchronous mode, so the container thread is released
+ * while the result is computed, and the response is written from a container
+ * thread when it's done, the same way as a synchronous result. A failed result is
+ * serialized as the exception thrown by the action would be. Requests that don't
+ * finish in 'async.timeout' milliseconds, or before their deadline, are answered
+ * with 504 (Gateway Timeout) and their result is cancelled.<br>
+ * <br>
+ * A Future can't notify its completion, so it's waited for in a small pool of
+ * threads ('async.future.threads'). If the container doesn't support asynchronous
+ * requests, results are waited for in the request thread.
+ * 
+ * @author agent
+ */
+class AsyncResults {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResults.class);
+
+    private Config config;
+    private ExecutorService waiters;
+
+    public AsyncResults(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Says if the result of an action is completed asynchronously.
+     */
+    public static boolean isAsync(Object result) {
+        return result instanceof CompletionStage<?> || result instanceof Future<?>;
+    }
+
+    /**
+     * Completes the response of an action returning a CompletionStage or a Future.
+     * 
+     * @param responseHelper
+     *            Response of the action.
+     * @return true if the response will be completed later, in asynchronous mode,
+     *         false if the result isn't asynchronous or it has been already waited
+     *         for, so the response must be written as usual.
+     */
+    public boolean suspend(final ResponseHelper responseHelper) throws IOException {
+        Object result = responseHelper.getResult();
+        if (!isAsync(result)) {
+            return false;
+        }
+        long timeout = this.config.getLong(Config.ASYNC_TIMEOUT);
+        long remaining = responseHelper.getRemainingTime();
+        if (remaining != Long.MAX_VALUE && (timeout == 0 || remaining < timeout)) {
+            // The deadline of the request comes first
+            timeout = Math.max(1, remaining);
+        }
+        final AsyncContext async = responseHelper.startAsync();
+        if (async == null) {
+            LOGGER.debug("Asynchronous requests aren't supported, waiting for the result");
+            Future<?> future = result instanceof Future<?> ? (Future<?>) result : toFuture((CompletionStage<?>) result);
+            this.await(responseHelper, future, timeout);
+            return false;
+        }
+        final CompletableFuture<?> future = this.toCompletableFuture(result, timeout);
+        final AtomicBoolean done = new AtomicBoolean();
+        async.setTimeout(timeout);
+        async.addListener(new AsyncListener() {
+            public void onComplete(AsyncEvent event) {
+                // Nothing to do
+            }
+
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (done.compareAndSet(false, true)) {
+                    cancel(future, responseHelper);
+                    finish(responseHelper, async);
+                }
+            }
+
+            public void onError(AsyncEvent event) {
+                if (done.compareAndSet(false, true)) {
+                    LOGGER.warn("Asynchronous request failed", event.getThrowable());
+                    future.cancel(true);
+                    responseHelper.finish();
+                }
+            }
+
+            public void onStartAsync(AsyncEvent event) {
+                // Nothing to do
+            }
+        });
+        future.whenComplete((value, error) -> {
+            if (done.compareAndSet(false, true)) {
+                async.start(() -> complete(responseHelper, async, value, error));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Stops the threads waiting for Futures, if any.
+     */
+    public synchronized void shutdown() {
+        if (this.waiters != null) {
+            this.waiters.shutdownNow();
+            this.waiters = null;
+        }
+    }
+
+    /**
+     * Writes the response once the result is done.
+     */
+    private void complete(ResponseHelper responseHelper, AsyncContext async, Object value, Throwable error) {
+        long[] segment = responseHelper.getTimer().startSegment();
+        try {
+            responseHelper.serialize(error == null ? value : unwrap(error));
+            responseHelper.doResponse();
+        } catch (Exception e) {
+            LOGGER.error("Can't complete asynchronous response", e);
+            HttpServletResponse response = responseHelper.getResponse();
+            if (!response.isCommitted()) {
+                try {
+                    response.sendError(HttpURLConnection.HTTP_INTERNAL_ERROR);
+                } catch (IOException ignored) {
+                    LOGGER.debug("Can't send error", ignored);
+                }
+            }
+        } finally {
+            finish(responseHelper, async);
+            responseHelper.getTimer().endSegment(segment);
+        }
+    }
+
+    private static void finish(ResponseHelper responseHelper, AsyncContext async) {
+        responseHelper.finish();
+        if (!responseHelper.isDispatched()) {
+            async.complete();
+        }
+    }
+
+    /**
+     * Waits for a result in the request thread.
+     */
+    private void await(ResponseHelper responseHelper, Future<?> future, long timeout) throws IOException {
+        try {
+            responseHelper.serialize(timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get());
+        } catch (ExecutionException e) {
+            responseHelper.serialize(unwrap(e));
+        } catch (TimeoutException e) {
+            cancel(future, responseHelper);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the result");
+        }
+    }
+
+    private static void cancel(Future<?> future, ResponseHelper responseHelper) throws IOException {
+        LOGGER.warn("Result not available in time, cancelling it");
+        future.cancel(true);
+        responseHelper.serialize(null);
+        HttpServletResponse response = responseHelper.getResponse();
+        if (!response.isCommitted()) {
+            response.sendError(HttpURLConnection.HTTP_GATEWAY_TIMEOUT,
+                    responseHelper.isExpired() ? "Request deadline exceeded" : "Result not available in time");
+        }
+    }
+
+    private CompletableFuture<?> toCompletableFuture(Object result, final long timeout) {
+        if (result instanceof CompletableFuture<?>) {
+            return (CompletableFuture<?>) result;
+        } else if (result instanceof CompletionStage<?>) {
+            return toFuture((CompletionStage<?>) result);
+        }
+        final Future<?> future = (Future<?>) result;
+        final CompletableFuture<Object> completable = new CompletableFuture<Object>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        this.getWaiters().execute(() -> {
+            try {
+                completable.complete(timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get());
+            } catch (ExecutionException e) {
+                completable.completeExceptionally(e.getCause());
+            } catch (Exception e) {
+                // Timeouts and interruptions are handled by the asynchronous context
+                LOGGER.debug("Stopped waiting for a result", e);
+            }
+        });
+        return completable;
+    }
+
+    /**
+     * Converts a CompletionStage that may not support toCompletableFuture().
+     */
+    static CompletableFuture<?> toFuture(CompletionStage<?> stage) {
+        if (stage instanceof CompletableFuture<?>) {
+            return (CompletableFuture<?>) stage;
+        }
+        final CompletableFuture<Object> future = new CompletableFuture<Object>();
+        stage.whenComplete((value, error) -> {
+            if (error == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the exception that made the result fail, as thrown by the action.
+     */
+    static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private synchronized ExecutorService getWaiters() {
+        if (this.waiters == null) {
+            int threads = this.config.getInt(Config.ASYNC_FUTURE_THREADS);
+            final AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+                Thread thread = new Thread(runnable, "serfj-async-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            this.waiters = executor;
+        }
+        return this.waiters;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.serfj.serializers.Escaper;
+import net.sf.serfj.serializers.EventsSerializer;
+import net.sf.serfj.util.UrlUtils;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves many requests in a single one. A POST to 'batch.path' with a Json array
+ * like:<br>
+ * <br>
+ * <code>[{"method": "GET", "url": "/banks/1.json"},<br>
+ * &nbsp;{"method": "POST", "url": "/banks/1/accounts.json", "body": {...}},<br>
+ * &nbsp;{"url": "/holders.json?name=Smith", "params": {"page": "2"}, "headers": {...}}]</code><br>
+ * <br>
+ * is answered with a Json array of the responses, in the same order:<br>
+ * <br>
+ * <code>[{"status": 200, "contentType": "application/json", "body": {...}}, ...]</code><br>
+ * <br>
+ * Every request goes through the servlet in-process, as if it had been sent on its
+ * own, with the headers of the batch request (but Content-Type, Content-Length and
+ * the Idempotency-Key) plus its own ones. Requests run in parallel in a pool of
+ * 'batch.threads' threads, or in the batch's thread when the pool is busy, so they
+ * mustn't depend on each other. A failed request doesn't affect the others. Json
+ * bodies are embedded as they are, other bodies are written as strings.
+ * 
+ * @author agent
+ */
+class Batch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Batch.class);
+
+    private static final String JSON = "application/json";
+
+    private Servlet servlet;
+    private String path;
+    private int maxRequests;
+    private long maxBodySize;
+    private String idempotencyHeader;
+    private ExecutorService executor;
+
+    /**
+     * Constructor.
+     * 
+     * @param servlet
+     *            Servlet that serves the requests of a batch.
+     */
+    public Batch(Config config, Servlet servlet) {
+        this.servlet = servlet;
+        this.path = config.getString(Config.BATCH_PATH).trim();
+        this.maxRequests = config.getInt(Config.BATCH_MAX_REQUESTS);
+        this.maxBodySize = config.getLong(Config.MAX_BODY_SIZE);
+        this.idempotencyHeader = config.getString(Config.IDEMPOTENCY_HEADER).toLowerCase();
+        int threads = config.getInt(Config.BATCH_THREADS);
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(threads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "serfj-batch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Says if an URL is the batch's one.
+     */
+    public boolean matches(String url) {
+        return this.path.equals(url);
+    }
+
+    /**
+     * Serves the requests of a batch and writes their responses.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"POST".equals(request.getMethod())) {
+            response.setHeader("Allow", "POST");
+            response.sendError(HttpURLConnection.HTTP_BAD_METHOD);
+            return;
+        }
+        JSONArray entries;
+        try {
+            entries = new JSONArray(this.read(request));
+        } catch (RequestBodyException e) {
+            response.sendError(e.getStatus(), e.getMessage());
+            return;
+        } catch (JSONException e) {
+            response.sendError(HttpURLConnection.HTTP_BAD_REQUEST, "Batch must be a Json array of requests: " + e.getMessage());
+            return;
+        }
+        if (entries.length() > this.maxRequests) {
+            response.sendError(LimitedInputStream.HTTP_ENTITY_TOO_LARGE, "Batch has more than " + this.maxRequests + " requests");
+            return;
+        }
+        Map<String, List<String>> headers = this.getHeaders(request);
+        List<Future<String>> results = new ArrayList<Future<String>>(entries.length());
+        for (int i = 0; i < entries.length(); i++) {
+            try {
+                final BatchRequest subRequest = this.newRequest(request, entries.optJSONObject(i), headers);
+                final BatchResponse subResponse = new BatchResponse(response);
+                results.add(this.executor.submit(() -> this.execute(subRequest, subResponse)));
+            } catch (Exception e) {
+                results.add(CompletableFuture.completedFuture(toJson(HttpURLConnection.HTTP_BAD_REQUEST, null, e.getMessage())));
+            }
+        }
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            try {
+                out.append(results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the batch");
+            } catch (ExecutionException e) {
+                LOGGER.error(e.getCause().getLocalizedMessage(), e.getCause());
+                out.append(toJson(HttpURLConnection.HTTP_INTERNAL_ERROR, null, String.valueOf(e.getCause().getMessage())));
+            }
+        }
+        out.append(']');
+        response.setContentType(JSON);
+        response.setCharacterEncoding("UTF-8");
+        response.getOutputStream().write(out.toString().getBytes("UTF-8"));
+    }
+
+    /**
+     * Stops the threads serving batches.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private String execute(BatchRequest request, BatchResponse response) {
+        LOGGER.debug("Batch request {} {}", request.getMethod(), request.getPath());
+        try {
+            this.servlet.service(request, response);
+            if (response.getStatus() >= HttpURLConnection.HTTP_MULT_CHOICE && response.getStatus() < HttpURLConnection.HTTP_BAD_REQUEST) {
+                return toJson(response.getStatus(), null, response.getLocation());
+            }
+            return toJson(response.getStatus(), response.getContentType(), response.getBody());
+        } catch (Exception e) {
+            LOGGER.error(e.getLocalizedMessage(), e);
+            return toJson(HttpURLConnection.HTTP_INTERNAL_ERROR, null, e.getMessage());
+        }
+    }
+
+    private BatchRequest newRequest(HttpServletRequest request, JSONObject entry, Map<String, List<String>> batchHeaders) throws IOException,
+            JSONException {
+        if (entry == null) {
+            throw new IllegalArgumentException("Requests must be Json objects");
+        }
+        String url = entry.optString("url", null);
+        if (url == null || !url.startsWith("/")) {
+            throw new IllegalArgumentException("Request URL must start with '/'");
+        }
+        String method = entry.optString("method", "GET").toUpperCase();
+        HttpMethod.valueOf(method);
+        String path = url.indexOf('?') < 0 ? url : url.substring(0, url.indexOf('?'));
+        if (this.matches(path)) {
+            throw new IllegalArgumentException("Batches can't be nested");
+        }
+        if ("events".equals(UrlUtils.getInstance().getExtension(path))) {
+            throw new IllegalArgumentException("Events can't be requested in a batch");
+        }
+        Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+        JSONObject values = entry.optJSONObject("params");
+        if (values != null) {
+            for (Iterator<?> names = values.keys(); names.hasNext();) {
+                String name = (String) names.next();
+                JSONArray array = values.optJSONArray(name);
+                if (array == null) {
+                    params.put(name, new String[] { values.getString(name) });
+                } else {
+                    String[] strings = new String[array.length()];
+                    for (int i = 0; i < strings.length; i++) {
+                        strings[i] = array.getString(i);
+                    }
+                    params.put(name, strings);
+                }
+            }
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>(batchHeaders);
+        values = entry.optJSONObject("headers");
+        if (values != null) {
+            for (Iterator<?> names = values.keys(); names.hasNext();) {
+                String name = (String) names.next();
+                headers.put(name.toLowerCase(), Collections.singletonList(values.getString(name)));
+            }
+        }
+        byte[] body = null;
+        String contentType = null;
+        Object content = entry.opt("body");
+        if (content != null && content != JSONObject.NULL) {
+            body = content.toString().getBytes("UTF-8");
+            contentType = entry.optString("contentType", JSON);
+            headers.put("content-type", Collections.singletonList(contentType));
+        }
+        return new BatchRequest(request, method, url, params, headers, body, contentType);
+    }
+
+    private Map<String, List<String>> getHeaders(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+        for (Enumeration<String> names = request.getHeaderNames(); names != null && names.hasMoreElements();) {
+            String name = names.nextElement().toLowerCase();
+            if (!"content-type".equals(name) && !"content-length".equals(name) && !this.idempotencyHeader.equals(name)) {
+                headers.put(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    private String read(HttpServletRequest request) throws IOException {
+        if (request.getContentLength() > this.maxBodySize) {
+            throw new RequestBodyException(LimitedInputStream.HTTP_ENTITY_TOO_LARGE, "Request body is larger than " + this.maxBodySize + " bytes");
+        }
+        InputStream in = new LimitedInputStream(request.getInputStream(), this.maxBodySize);
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+            return body.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String toJson(int status, String contentType, String body) {
+        StringBuilder json = new StringBuilder("{\"status\":").append(status);
+        if (contentType != null) {
+            json.append(",\"contentType\":");
+            Escaper.appendJson(json, contentType);
+        }
+        if (body != null && body.length() > 0) {
+            json.append(",\"body\":");
+            if (JSON.equals(contentType)) {
+                json.append(body);
+            } else {
+                Escaper.appendJson(json, body);
+            }
+        }
+        return json.append('}').toString();
+    }
+}
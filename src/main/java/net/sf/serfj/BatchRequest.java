@@ -0,0 +1,264 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * A request of a batch. It has its own method, URL, parameters, body and
+ * attributes, and takes the headers from the batch request, so it can be served
+ * in another thread without touching the original request. Sub-requests can't be
+ * asynchronous, their results are waited for.
+ * 
+ * @author agent
+ */
+class BatchRequest extends HttpServletRequestWrapper {
+
+    private String method;
+    private String path;
+    private String queryString;
+    private Map<String, String[]> parameters;
+    private Map<String, List<String>> headers;
+    private byte[] body;
+    private String contentType;
+    private Map<String, Object> attributes = new HashMap<String, Object>();
+
+    /**
+     * Constructor.
+     * 
+     * @param request
+     *            The batch request.
+     * @param method
+     *            HTTP method of the sub-request.
+     * @param url
+     *            URL of the sub-request, without the context, with an optional query
+     *            string.
+     * @param parameters
+     *            Parameters besides the ones in the query string.
+     * @param headers
+     *            Headers, with lower case names.
+     * @param body
+     *            Body, it can be null.
+     * @param contentType
+     *            Content-Type of the body.
+     */
+    BatchRequest(HttpServletRequest request, String method, String url, Map<String, String[]> parameters, Map<String, List<String>> headers,
+            byte[] body, String contentType) throws UnsupportedEncodingException {
+        super(request);
+        this.method = method;
+        this.headers = headers;
+        this.body = body == null ? new byte[0] : body;
+        this.contentType = contentType;
+        this.parameters = new LinkedHashMap<String, String[]>();
+        int question = url.indexOf('?');
+        if (question < 0) {
+            this.path = url;
+        } else {
+            this.path = url.substring(0, question);
+            this.queryString = url.substring(question + 1);
+            for (String pair : this.queryString.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), "UTF-8");
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                if (name.length() > 0) {
+                    String[] values = this.parameters.get(name);
+                    if (values == null) {
+                        this.parameters.put(name, new String[] { value });
+                    } else {
+                        String[] more = Arrays.copyOf(values, values.length + 1);
+                        more[values.length] = value;
+                        this.parameters.put(name, more);
+                    }
+                }
+            }
+        }
+        this.parameters.putAll(parameters);
+    }
+
+    /**
+     * Gets the URL of the sub-request, without the context.
+     */
+    String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public String getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return this.getContextPath() + this.path;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer(this.getScheme()).append("://").append(this.getServerName());
+        return url.append(':').append(this.getServerPort()).append(this.getRequestURI());
+    }
+
+    @Override
+    public String getServletPath() {
+        return this.path;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return this.queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = this.parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return this.parameters.get(name);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(this.parameters);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(this.parameters.keySet());
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = this.headers.get(name.toLowerCase());
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = this.headers.get(name.toLowerCase());
+        return Collections.enumeration(values == null ? Collections.<String> emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(this.headers.keySet());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = this.getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        return this.getHeader(name) == null ? -1 : super.getDateHeader(name);
+    }
+
+    @Override
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return this.body.length;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "UTF-8";
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        final ByteArrayInputStream in = new ByteArrayInputStream(this.body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws UnsupportedEncodingException {
+        return new BufferedReader(new InputStreamReader(this.getInputStream(), this.getCharacterEncoding()));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return this.attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new TreeMap<String, Object>(this.attributes).keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            this.attributes.remove(name);
+        } else {
+            this.attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        this.attributes.remove(name);
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+}
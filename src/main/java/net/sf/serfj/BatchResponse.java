@@ -0,0 +1,252 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.util.Locale;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response of a request of a batch. It's kept in memory and nothing reaches the
+ * batch response, which is wrapped only because the wrapper needs a response.
+ * Headers other than Content-Type and Location are ignored.
+ * 
+ * @author agent
+ */
+class BatchResponse extends HttpServletResponseWrapper {
+
+    private int status = HttpURLConnection.HTTP_OK;
+    private String message;
+    private String contentType;
+    private String characterEncoding = "UTF-8";
+    private String location;
+    private boolean committed;
+    private ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ServletOutputStream out;
+    private PrintWriter writer;
+
+    BatchResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Gets the body written, or the error message if an error was sent.
+     */
+    String getBody() throws UnsupportedEncodingException {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        if (this.message != null && this.body.size() == 0) {
+            return this.message;
+        }
+        return this.body.toString(this.characterEncoding);
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    String getLocation() {
+        return this.location;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        this.status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        this.status = sc;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        this.sendError(sc, null);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        this.status = sc;
+        this.message = msg;
+        this.body.reset();
+        this.committed = true;
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        this.status = HttpURLConnection.HTTP_MOVED_TEMP;
+        this.location = location;
+        this.committed = true;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Type".equalsIgnoreCase(name)) {
+            this.setContentType(value);
+        } else if ("Location".equalsIgnoreCase(name)) {
+            this.location = value;
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        this.setHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        // Ignored
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        // Ignored
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        // Ignored
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        // Ignored
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        // Ignored
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return ("Content-Type".equalsIgnoreCase(name) && this.contentType != null) || ("Location".equalsIgnoreCase(name) && this.location != null);
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (type == null) {
+            this.contentType = null;
+            return;
+        }
+        int charset = type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+        if (charset > 0) {
+            this.characterEncoding = type.substring(charset + 8).trim();
+            this.contentType = type.substring(0, type.lastIndexOf(';', charset)).trim();
+        } else {
+            this.contentType = type.trim();
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (charset != null && this.writer == null) {
+            this.characterEncoding = charset;
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return this.characterEncoding;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // Ignored
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        // Ignored
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        // Ignored
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return this.committed;
+    }
+
+    @Override
+    public void reset() {
+        this.resetBuffer();
+        this.status = HttpURLConnection.HTTP_OK;
+        this.message = null;
+        this.contentType = null;
+        this.location = null;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        this.body.reset();
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        this.committed = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (this.out == null) {
+            this.out = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+            };
+        }
+        return this.out;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (this.writer == null) {
+            this.writer = new PrintWriter(new OutputStreamWriter(this.getOutputStream(), this.characterEncoding));
+        }
+        return this.writer;
+    }
+}
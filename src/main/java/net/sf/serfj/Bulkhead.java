@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maximum number of requests served at the same time by a controller or an action.
+ * Permits are counted without locks, and a request that doesn't get one is rejected
+ * instead of waiting for it.
+ * 
+ * @author agent
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            Controller (Account) or action (Account.show) limited.
+     * @param limit
+     *            Maximum number of requests served at the same time.
+     */
+    public Bulkhead(String name, int limit) {
+        this.name = name;
+        this.limit = limit;
+    }
+
+    /**
+     * Takes a permit, if there is any left.
+     * 
+     * @return true if the request can be served, false if it must be rejected.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.limit) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit taken with {@link #tryAcquire()}.
+     */
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the number of requests being served right now.
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Gets the number of requests rejected since the application started.
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " [" + this.inFlight.get() + "/" + this.limit + ", rejected: " + this.rejected.get() + "]";
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.serfj.annotations.MaxConcurrency;
+
+/**
+ * Bulkheads of the controllers and actions served by a {@link RestServlet}. Limits
+ * come from {@link MaxConcurrency} annotations and from 'bulkheads' in
+ * serfj.properties, a list like 'Account=10, Account.show=5'. The servlet keeps
+ * this object in the ServletContext attribute {@link #ATTRIBUTE}, so the
+ * application can read how many requests are in flight.
+ * 
+ * @author agent
+ */
+public class Bulkheads {
+
+    /**
+     * ServletContext attribute with the bulkheads of the application.
+     */
+    public static final String ATTRIBUTE = Bulkheads.class.getName();
+
+    private static final Bulkhead[] NONE = new Bulkhead[0];
+
+    /**
+     * Limits from the configuration: name => limit.
+     */
+    private Map<String, Long> limits = new HashMap<String, Long>();
+
+    /**
+     * Name => bulkhead.
+     */
+    private ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<String, Bulkhead>();
+
+    /**
+     * Controller.action => bulkheads to pass, the controller's one first.
+     */
+    private Map<String, Bulkhead[]> routes = new ConcurrentHashMap<String, Bulkhead[]>();
+
+    private int retryAfter = 1;
+
+    /**
+     * Bulkheads declared by annotations only.
+     */
+    public Bulkheads() {
+        super();
+    }
+
+    public Bulkheads(Config config) {
+        this.retryAfter = config.getInt(Config.BULKHEAD_RETRY_AFTER);
+        this.limits = RouteSettings.parse(config.getString(Config.BULKHEADS), "bulkheads");
+    }
+
+    /**
+     * Gets the bulkheads a request must pass to call an action.
+     * 
+     * @param controller
+     *            Controller's class.
+     * @param action
+     *            Action's method.
+     * @return the bulkheads, an empty array if the action isn't limited.
+     */
+    Bulkhead[] get(Class<?> controller, Method action) {
+        String route = controller.getName() + "." + action.getName();
+        Bulkhead[] routeBulkheads = this.routes.get(route);
+        if (routeBulkheads == null) {
+            List<Bulkhead> found = new ArrayList<Bulkhead>(2);
+            String name = controller.getSimpleName();
+            MaxConcurrency annotation = controller.getAnnotation(MaxConcurrency.class);
+            this.add(found, name, annotation == null ? null : annotation.value());
+            annotation = action.getAnnotation(MaxConcurrency.class);
+            this.add(found, name + "." + action.getName(), annotation == null ? null : annotation.value());
+            routeBulkheads = found.isEmpty() ? NONE : found.toArray(new Bulkhead[found.size()]);
+            this.routes.put(route, routeBulkheads);
+        }
+        return routeBulkheads;
+    }
+
+    private void add(List<Bulkhead> found, String name, Integer annotated) {
+        Integer limit = this.limits.containsKey(name) ? Integer.valueOf(this.limits.get(name).intValue()) : annotated;
+        if (limit != null) {
+            found.add(this.bulkheads.computeIfAbsent(name, key -> new Bulkhead(key, limit)));
+        }
+    }
+
+    /**
+     * Takes a permit from every bulkhead, or none of them.
+     * 
+     * @throws RequestRejectedException
+     *             with status 503 if a bulkhead is full.
+     */
+    void acquire(Bulkhead[] routeBulkheads) throws RequestRejectedException {
+        for (int i = 0; i < routeBulkheads.length; i++) {
+            if (!routeBulkheads[i].tryAcquire()) {
+                this.release(routeBulkheads, i);
+                throw new RequestRejectedException(HttpURLConnection.HTTP_UNAVAILABLE, "Too many concurrent requests for " + routeBulkheads[i].getName(),
+                        this.retryAfter);
+            }
+        }
+    }
+
+    /**
+     * Gives back the permits taken from the first <code>count</code> bulkheads.
+     */
+    void release(Bulkhead[] routeBulkheads, int count) {
+        for (int i = 0; i < count; i++) {
+            routeBulkheads[i].release();
+        }
+    }
+
+    /**
+     * Gets a bulkhead.
+     * 
+     * @param name
+     *            Controller (Account) or action (Account.show).
+     * @return the bulkhead, or null if it hasn't been used yet or there isn't a limit
+     *         for that name.
+     */
+    public Bulkhead getBulkhead(String name) {
+        return this.bulkheads.get(name);
+    }
+
+    /**
+     * Gets the number of requests in flight for a controller or an action.
+     */
+    public int getInFlight(String name) {
+        Bulkhead bulkhead = this.bulkheads.get(name);
+        return bulkhead == null ? 0 : bulkhead.getInFlight();
+    }
+
+    /**
+     * Gets the bulkheads used until now.
+     */
+    public Collection<Bulkhead> getBulkheads() {
+        return Collections.unmodifiableCollection(this.bulkheads.values());
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Writes a response and keeps a copy of it, as long as it's an ordinary response
+ * (not an error or a redirection) no larger than a maximum size. Set-Cookie
+ * headers aren't copied, because they belong to the client of this request.
+ * 
+ * @author agent
+ */
+class CapturingResponse extends HttpServletResponseWrapper {
+
+    private int maxSize;
+    private int status = HttpURLConnection.HTTP_OK;
+    private boolean copyable = true;
+    private List<String[]> headers = new ArrayList<String[]>();
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    private ServletOutputStream out;
+    private PrintWriter writer;
+    private SimpleDateFormat dateFormat;
+
+    CapturingResponse(HttpServletResponse response, int maxSize) {
+        super(response);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the copy of the response, once it has been written.
+     * 
+     * @return the copy, or null if the response can't be copied.
+     */
+    StoredResponse finish() {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        if (!this.copyable) {
+            return null;
+        }
+        return new StoredResponse(this.status, this.getContentType(), this.getCharacterEncoding(), this.headers, this.copy.toByteArray());
+    }
+
+    private void copy(byte[] bytes, int offset, int length) {
+        if (this.copyable) {
+            if (this.copy.size() + length > this.maxSize) {
+                this.copyable = false;
+                this.copy = null;
+            } else {
+                this.copy.write(bytes, offset, length);
+            }
+        }
+    }
+
+    private void header(String name, String value, boolean add) {
+        if ("Set-Cookie".equalsIgnoreCase(name)) {
+            return;
+        }
+        if (!add) {
+            for (int i = this.headers.size() - 1; i >= 0; i--) {
+                if (this.headers.get(i)[0].equalsIgnoreCase(name)) {
+                    this.headers.remove(i);
+                }
+            }
+        }
+        this.headers.add(new String[] { name, value });
+    }
+
+    private String formatDate(long date) {
+        if (this.dateFormat == null) {
+            this.dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            this.dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        }
+        return this.dateFormat.format(new Date(date));
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        this.status = sc;
+        super.setStatus(sc);
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        this.status = sc;
+        super.setStatus(sc, sm);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        this.copyable = false;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        this.copyable = false;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        this.copyable = false;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        this.header(name, value, false);
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        this.header(name, value, true);
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        this.header(name, String.valueOf(value), false);
+        super.setIntHeader(name, value);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        this.header(name, String.valueOf(value), true);
+        super.addIntHeader(name, value);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        this.header(name, this.formatDate(date), false);
+        super.setDateHeader(name, date);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        this.header(name, this.formatDate(date), true);
+        super.addDateHeader(name, date);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (this.out == null) {
+            final ServletOutputStream target = super.getOutputStream();
+            this.out = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    copy(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    copy(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+            };
+        }
+        return this.out;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (this.writer == null) {
+            this.writer = new PrintWriter(new OutputStreamWriter(this.getOutputStream(), this.getCharacterEncoding()));
+        }
+        return this.writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+        super.flushBuffer();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Serves identical GET requests arriving at the same time with a single call to
+ * the action. The first request is served as usual, and the requests that arrive
+ * while it's in flight wait for it and get a copy of the same status, headers (but
+ * Set-Cookie) and bytes.<br>
+ * <br>
+ * Requests are identical if they have the same URL, query string, extension and
+ * values for the headers in 'coalescing.headers'. Only 200 responses no larger than
+ * 'coalescing.max.size' are shared, and requests that can't wait any longer for
+ * the first one are served on their own.
+ * 
+ * @author agent
+ */
+class Coalescer {
+
+    private InFlightRequests inFlight;
+    private String[] headers;
+
+    public Coalescer(Config config) {
+        List<String> names = new ArrayList<String>();
+        for (String name : config.getString(Config.COALESCING_HEADERS).split(",")) {
+            if (name.trim().length() > 0) {
+                names.add(name.trim());
+            }
+        }
+        this.headers = names.toArray(new String[names.size()]);
+        this.inFlight = new InFlightRequests(config, config.getInt(Config.COALESCING_MAX_SIZE));
+    }
+
+    /**
+     * Serves a request, or waits for an identical one in flight and copies its
+     * response.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, UrlInfo urlInfo, InFlightRequests.Responder responder) throws ServletException,
+            IOException {
+        this.inFlight.serve(this.getKey(request, urlInfo), request, response, responder);
+    }
+
+    private String getKey(HttpServletRequest request, UrlInfo urlInfo) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        key.append(" [").append(urlInfo.getExtension()).append(']');
+        for (String header : this.headers) {
+            Enumeration<?> values = request.getHeaders(header);
+            while (values != null && values.hasMoreElements()) {
+                key.append(' ').append(header).append(": ").append(values.nextElement());
+            }
+        }
+        return key.toString();
+    }
+}
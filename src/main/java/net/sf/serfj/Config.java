@@ -15,6 +15,12 @@
  */
 package net.sf.serfj;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import net.sf.serfj.config.ConfigFileIOException;
 import net.sf.serfj.config.ConfigParam;
 import net.sf.serfj.config.SystemConfig;
@@ -71,7 +77,418 @@ public class Config extends SystemConfig {
 	 */
 	public static final ConfigParam VIEWS_DIRECTORY = new ConfigParam("views.directory", "views");
 
+	/**
+	 * Chooses the serializer from the Accept header when the URL doesn't have
+	 * an extension. Default is true.
+	 */
+	public static final ConfigParam CONTENT_NEGOTIATION = new ConfigParam("content.negotiation", "true");
+
+	/**
+	 * Other content-types for content negotiation, as a comma separated list of
+	 * content-type=extension pairs. For example: application/vnd.bank+json=json
+	 */
+	public static final ConfigParam NEGOTIATION_CONTENT_TYPES = new ConfigParam("negotiation.content.types", "");
+
+	/**
+	 * Maximum size in bytes of a request body that will be deserialized. Default
+	 * is 10MB.
+	 */
+	public static final ConfigParam MAX_BODY_SIZE = new ConfigParam("max.body.size", "10485760");
+
+	/**
+	 * Other classes, besides the action's parameter type and the types of its
+	 * fields, that request bodies can instantiate: comma separated class names, or
+	 * packages ending with '.*'. Default is empty.
+	 */
+	public static final ConfigParam BODY_ALLOWED_TYPES = new ConfigParam("body.allowed.types", "");
+
+	/**
+	 * Whether request bodies serialized with Java serialization (base64,
+	 * application/octect-stream) are accepted. They're only read if their classes
+	 * are allowed. Default is false.
+	 */
+	public static final ConfigParam BODY_JAVA_SERIALIZATION = new ConfigParam("body.java.serialization", "false");
+
+	/**
+	 * Maximum size in bytes of a part of a multipart request kept in memory.
+	 * Larger parts are written into temporary files. Default is 64KB.
+	 */
+	public static final ConfigParam MULTIPART_THRESHOLD = new ConfigParam("multipart.threshold", "65536");
+
+	/**
+	 * Directory for the temporary files of multipart requests. By default it's
+	 * the temporary directory of the servlet container.
+	 */
+	public static final ConfigParam MULTIPART_DIRECTORY = new ConfigParam("multipart.directory", "");
+
+	/**
+	 * Maximum size in bytes of a multipart request, -1 means no limit. Default
+	 * is -1.
+	 */
+	public static final ConfigParam MAX_UPLOAD_SIZE = new ConfigParam("max.upload.size", "-1");
+
+	/**
+	 * Query string parameter with the fields of the serialized object that will
+	 * be written (sparse fieldsets), like ?fields=id,name,accounts.balance.
+	 * Default is 'fields'.
+	 */
+	public static final ConfigParam FIELDS_PARAMETER = new ConfigParam("fields.parameter", "fields");
+
+	/**
+	 * Number of objects of a page when the request doesn't have a 'limit'
+	 * parameter. Default is 20.
+	 */
+	public static final ConfigParam PAGE_DEFAULT_LIMIT = new ConfigParam("page.default.limit", "20");
+
+	/**
+	 * Maximum number of objects of a page, whatever the 'limit' parameter says.
+	 * Default is 100.
+	 */
+	public static final ConfigParam PAGE_MAX_LIMIT = new ConfigParam("page.max.limit", "100");
+
+	/**
+	 * Number of objects written before flushing the response, when results are
+	 * streamed. Default is 100.
+	 */
+	public static final ConfigParam STREAM_FLUSH_ITEMS = new ConfigParam("stream.flush.items", "100");
+
+	/**
+	 * Maximum milliseconds between flushes of the response, when results are
+	 * streamed. Default is 1000.
+	 */
+	public static final ConfigParam STREAM_FLUSH_INTERVAL = new ConfigParam("stream.flush.interval", "1000");
+
+	/**
+	 * Milliseconds between batches of Server-Sent Events written to subscribers.
+	 * Default is 100.
+	 */
+	public static final ConfigParam EVENTS_FLUSH_INTERVAL = new ConfigParam("events.flush.interval", "100");
+
+	/**
+	 * Milliseconds without events before a heartbeat is sent to a subscriber, so
+	 * proxies don't close idle connections. Default is 15000.
+	 */
+	public static final ConfigParam EVENTS_HEARTBEAT_INTERVAL = new ConfigParam("events.heartbeat.interval", "15000");
+
+	/**
+	 * Maximum number of events waiting to be written to a subscriber. Slower
+	 * subscribers are disconnected. Default is 1000.
+	 */
+	public static final ConfigParam EVENTS_MAX_PENDING = new ConfigParam("events.max.pending", "1000");
+
+	/**
+	 * Threads writing Server-Sent Events to subscribers. Default is 4.
+	 */
+	public static final ConfigParam EVENTS_WRITER_THREADS = new ConfigParam("events.writer.threads", "4");
+
+	/**
+	 * Milliseconds a batch of events can take to be written before its subscriber,
+	 * which isn't reading, is disconnected. Default is 10000.
+	 */
+	public static final ConfigParam EVENTS_WRITE_TIMEOUT = new ConfigParam("events.write.timeout", "10000");
+
+	/**
+	 * Milliseconds to wait for the result of an action returning a CompletionStage
+	 * or a Future before answering with 504 (Gateway Timeout). 0 means that
+	 * there is no timeout. Default is 30000.
+	 */
+	public static final ConfigParam ASYNC_TIMEOUT = new ConfigParam("async.timeout", "30000");
+
+	/**
+	 * Maximum number of threads waiting for Futures returned by actions. Default
+	 * is 16.
+	 */
+	public static final ConfigParam ASYNC_FUTURE_THREADS = new ConfigParam("async.future.threads", "16");
+
+	/**
+	 * Runs actions in virtual threads, releasing container threads while they
+	 * block. It needs Java 21 and asynchronous requests. Default is false.
+	 */
+	public static final ConfigParam ACTIONS_VIRTUAL_THREADS = new ConfigParam("actions.virtual.threads", "false");
+
+	/**
+	 * Maximum number of requests served at the same time by controllers or actions,
+	 * as a list like 'Account=10, Account.show=5'. They take precedence over
+	 * MaxConcurrency annotations.
+	 */
+	public static final ConfigParam BULKHEADS = new ConfigParam("bulkheads", "");
+
+	/**
+	 * Seconds sent in the Retry-After header of requests rejected by a bulkhead or
+	 * a concurrency limiter. Default is 1.
+	 */
+	public static final ConfigParam BULKHEAD_RETRY_AFTER = new ConfigParam("bulkhead.retry.after", "1");
+
+	/**
+	 * Algorithm limiting the concurrent requests of every route from their latency:
+	 * 'aimd', 'gradient' or a class implementing net.sf.serfj.limits.ConcurrencyLimit.
+	 * Routes aren't limited if it's empty, the default.
+	 */
+	public static final ConfigParam LIMITER = new ConfigParam("limiter", "");
+
+	/**
+	 * Initial concurrency limit of every route. Default is 20.
+	 */
+	public static final ConfigParam LIMITER_INITIAL = new ConfigParam("limiter.initial", "20");
+
+	/**
+	 * Minimum concurrency limit of every route. Default is 1.
+	 */
+	public static final ConfigParam LIMITER_MIN = new ConfigParam("limiter.min", "1");
+
+	/**
+	 * Maximum concurrency limit of every route. Default is 200.
+	 */
+	public static final ConfigParam LIMITER_MAX = new ConfigParam("limiter.max", "200");
+
+	/**
+	 * Milliseconds above which a request lowers the limit of the 'aimd' algorithm.
+	 * Default is 500.
+	 */
+	public static final ConfigParam LIMITER_LATENCY = new ConfigParam("limiter.latency", "500");
+
+	/**
+	 * Milliseconds to serve the requests of controllers or actions, as a list like
+	 * 'Account=5000, Account.show=2000'. They take precedence over Deadline
+	 * annotations.
+	 */
+	public static final ConfigParam DEADLINES = new ConfigParam("deadlines", "");
+
+	/**
+	 * Header where clients send the milliseconds they will wait for a response.
+	 * Default is X-Request-Timeout.
+	 */
+	public static final ConfigParam DEADLINE_HEADER = new ConfigParam("deadline.header", "X-Request-Timeout");
+
+	/**
+	 * Serves identical GET requests arriving at the same time with a single call to
+	 * the action. Default is false.
+	 */
+	public static final ConfigParam COALESCING = new ConfigParam("coalescing", "false");
+
+	/**
+	 * Headers that must be equal in two requests to share their response. Default
+	 * is 'Accept, Authorization, Cookie'.
+	 */
+	public static final ConfigParam COALESCING_HEADERS = new ConfigParam("coalescing.headers", "Accept, Authorization, Cookie");
+
+	/**
+	 * Maximum size in bytes of a response shared between identical requests.
+	 * Default is 1048576.
+	 */
+	public static final ConfigParam COALESCING_MAX_SIZE = new ConfigParam("coalescing.max.size", "1048576");
+
+	/**
+	 * Whether POST, PUT and DELETE requests with the same Idempotency-Key get the
+	 * response of the first one instead of calling the action again. Default is
+	 * false.
+	 */
+	public static final ConfigParam IDEMPOTENCY = new ConfigParam("idempotency", "false");
+
+	/**
+	 * Where responses to requests with an Idempotency-Key are kept: 'memory', 'file'
+	 * or the name of a class implementing net.sf.serfj.idempotency.IdempotencyStore.
+	 * Default is 'memory'.
+	 */
+	public static final ConfigParam IDEMPOTENCY_STORE = new ConfigParam("idempotency.store", "memory");
+
+	/**
+	 * Header with the idempotency key. Default is 'Idempotency-Key'.
+	 */
+	public static final ConfigParam IDEMPOTENCY_HEADER = new ConfigParam("idempotency.header", "Idempotency-Key");
+
+	/**
+	 * Headers identifying the client, whose values scope the idempotency keys, so
+	 * clients can't get the responses of others. Default is 'Authorization, Cookie'.
+	 */
+	public static final ConfigParam IDEMPOTENCY_HEADERS = new ConfigParam("idempotency.headers", "Authorization, Cookie");
+
+	/**
+	 * Milliseconds a response to a request with an idempotency key is kept. Default
+	 * is 86400000 (a day).
+	 */
+	public static final ConfigParam IDEMPOTENCY_TTL = new ConfigParam("idempotency.ttl", "86400000");
+
+	/**
+	 * Maximum number of responses kept in memory. Default is 10000.
+	 */
+	public static final ConfigParam IDEMPOTENCY_MAX_ENTRIES = new ConfigParam("idempotency.max.entries", "10000");
+
+	/**
+	 * Directory where the 'file' store writes responses. Default is a serfj-idempotency
+	 * directory in the temporary directory of the web application.
+	 */
+	public static final ConfigParam IDEMPOTENCY_DIRECTORY = new ConfigParam("idempotency.directory", "");
+
+	/**
+	 * Maximum size in bytes of a stored response. Larger responses aren't stored, so
+	 * retries call the action again. Default is 1048576.
+	 */
+	public static final ConfigParam IDEMPOTENCY_MAX_SIZE = new ConfigParam("idempotency.max.size", "1048576");
+
+	/**
+	 * URL (without the context) where batches of requests are sent, as /batch. By
+	 * default it's empty and batches aren't accepted.
+	 */
+	public static final ConfigParam BATCH_PATH = new ConfigParam("batch.path", "");
+
+	/**
+	 * Threads serving the requests of batches in parallel. Default is 8.
+	 */
+	public static final ConfigParam BATCH_THREADS = new ConfigParam("batch.threads", "8");
+
+	/**
+	 * Maximum number of requests in a batch. Default is 50.
+	 */
+	public static final ConfigParam BATCH_MAX_REQUESTS = new ConfigParam("batch.max.requests", "50");
+
+	/**
+	 * Threads calling the show action in parallel for the Ids of a multi-get
+	 * (/banks/1,2,3), when the controller hasn't a showMany action. Default is 8.
+	 */
+	public static final ConfigParam MULTIGET_THREADS = new ConfigParam("multiget.threads", "8");
+
+	/**
+	 * Maximum number of Ids in a multi-get. Default is 100.
+	 */
+	public static final ConfigParam MULTIGET_MAX_IDS = new ConfigParam("multiget.max.ids", "100");
+
+	/**
+	 * Classes of the interceptors that run around every action, in order, separated
+	 * by commas. By default there isn't any.
+	 */
+	public static final ConfigParam INTERCEPTORS = new ConfigParam("interceptors", "");
+
+	/**
+	 * Whether exceptions thrown by actions are serialized as any other object, with
+	 * their stack trace and causes, and status 200 (OK), as in older versions.
+	 * Default is false, a small error response is written with the status of the
+	 * exception.
+	 */
+	public static final ConfigParam ERRORS_LEGACY = new ConfigParam("errors.legacy", "false");
+
+	/**
+	 * Whether error responses include the stack trace of the exception. It should
+	 * only be enabled while debugging. Default is false.
+	 */
+	public static final ConfigParam ERRORS_TRACE = new ConfigParam("errors.trace", "false");
+
+	/**
+	 * HTTP status codes of exceptions, as class=status pairs separated by commas.
+	 * Subclasses get the status of their closest superclass, and other exceptions
+	 * get 500. Default maps IllegalArgumentException to 400, SecurityException to
+	 * 403, NoSuchElementException to 404 and UnsupportedOperationException to 501.
+	 */
+	public static final ConfigParam ERRORS_STATUS = new ConfigParam("errors.status", "java.lang.IllegalArgumentException=400, "
+	        + "java.lang.SecurityException=403, java.util.NoSuchElementException=404, java.lang.UnsupportedOperationException=501");
+
+	/**
+	 * Whether the duration of every phase of the requests (URL parsing, controller,
+	 * action, serialization, forward and write) is recorded per route. It's cheap
+	 * enough to be always enabled. Default is true.
+	 */
+	public static final ConfigParam TIMING = new ConfigParam("timing", "true");
+
+	/**
+	 * Who publishes the timings of the routes: 'log', or the name of a class
+	 * implementing net.sf.serfj.metrics.TimingReporter. Default is empty, timings
+	 * aren't published, but the application can read them.
+	 */
+	public static final ConfigParam TIMING_REPORTER = new ConfigParam("timing.reporter", "");
+
+	/**
+	 * Seconds between reports of timings. Default is 60.
+	 */
+	public static final ConfigParam TIMING_REPORT_INTERVAL = new ConfigParam("timing.report.interval", "60");
+
+	/**
+	 * Maximum number of routes timed. Requests of other routes, and of routes that
+	 * don't exist, are timed together as 'unmatched'. Default is 1000.
+	 */
+	public static final ConfigParam TIMING_MAX_ROUTES = new ConfigParam("timing.max.routes", "1000");
+
+	/**
+	 * Whether the bytes allocated and the CPU time used by the threads serving a
+	 * request are recorded in the timings of its route. It needs a JVM with
+	 * com.sun.management.ThreadMXBean. Default is false.
+	 */
+	public static final ConfigParam TIMING_RESOURCES = new ConfigParam("timing.resources", "false");
+
+	/**
+	 * Maximum number of URL parts and extensions whose controller and serializer
+	 * classes are cached, and of routes looked up to be timed. The caches are
+	 * emptied when they are full. Default is 1024.
+	 */
+	public static final ConfigParam RESOLUTION_CACHE_SIZE = new ConfigParam("resolution.cache.size", "1024");
+
+	/**
+	 * Whether the servlet registers an MXBean (net.sf.serfj:type=RestServlet) with
+	 * its statistics, caches and configuration in the platform MBeanServer. Default
+	 * is true.
+	 */
+	public static final ConfigParam JMX = new ConfigParam("jmx", "true");
+
+	/**
+	 * URL where the timings and counters of the routes are written in Prometheus
+	 * text format. It must be mapped to RestServlet. Default is empty, there isn't
+	 * metrics endpoint.
+	 */
+	public static final ConfigParam METRICS_PATH = new ConfigParam("metrics.path", "");
+
+	/**
+	 * Upper bounds, in seconds and separated by commas, of the buckets of the
+	 * request duration histograms. Default is 0.005, 0.01, 0.025, 0.05, 0.1, 0.25,
+	 * 0.5, 1, 2.5, 5, 10.
+	 */
+	public static final ConfigParam METRICS_BUCKETS = new ConfigParam("metrics.buckets", "0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10");
+
+	/**
+	 * Whether the phases of the requests emit Java Flight Recorder events
+	 * (net.sf.serfj.RouteResolved, ActionInvoked, Serialized, ViewForwarded and
+	 * FileSent), which recordings can enable. It needs Java 11 or 8u272. Default is
+	 * false.
+	 */
+	public static final ConfigParam JFR = new ConfigParam("jfr", "false");
+
+	/**
+	 * Milliseconds from which requests are logged as slow, with the time spent in
+	 * every phase. 0 doesn't log requests because of their duration. Default is 0.
+	 */
+	public static final ConfigParam SLOW_REQUEST_THRESHOLD = new ConfigParam("slow.request.threshold", "0");
+
+	/**
+	 * Fraction (from 0 to 1) of the requests that aren't slow that are logged too,
+	 * chosen at random. Default is 0.
+	 */
+	public static final ConfigParam SLOW_REQUEST_SAMPLE = new ConfigParam("slow.request.sample", "0");
+
+	/**
+	 * Slow requests waiting to be written to the log. Requests that don't fit are
+	 * dropped. Default is 1024.
+	 */
+	public static final ConfigParam SLOW_REQUEST_BUFFER = new ConfigParam("slow.request.buffer", "1024");
+
 	public Config(String filename) throws ConfigFileIOException {
 		super(filename);
 	}
+
+	/**
+	 * Gets the values of every parameter of the framework, from system properties,
+	 * the configuration file or their defaults.
+	 * 
+	 * @return parameter => value, sorted by parameter.
+	 */
+	public Map<String, String> getValues() {
+		List<ConfigParam> params = new ArrayList<ConfigParam>();
+		for (Field field : Config.class.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == ConfigParam.class) {
+				try {
+					params.add((ConfigParam) field.get(null));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return this.getValues(params);
+	}
 }
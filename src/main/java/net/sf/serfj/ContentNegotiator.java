@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.serfj.finders.SerializerFinder;
+import net.sf.serfj.serializers.EventsSerializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the extension (and so, the serializer) for a request from its Accept
+ * header, with q-values support.<br>
+ * <br>
+ * Content-types are resolved through a table built when the framework starts, and
+ * the result for every Accept header is cached, so negotiating a request usually
+ * costs a map lookup. HTML content-types and wildcards mean that a page must be
+ * rendered, as when the URL doesn't have an extension.
+ *
+ * @author agent
+ */
+class ContentNegotiator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentNegotiator.class);
+
+	/**
+	 * Value for content-types that are answered rendering a page.
+	 */
+	private static final String PAGE = "";
+
+	/**
+	 * Maximum number of Accept headers cached.
+	 */
+	private static final int CACHE_SIZE = 256;
+
+	/**
+	 * Content-type => extension.
+	 */
+	private Map<String, String> contentTypes = new HashMap<String, String>();
+
+	/**
+	 * Accept header => extension.
+	 */
+	private ResolutionCache cache = new ResolutionCache(CACHE_SIZE);
+
+	/**
+	 * A media range of the Accept header.
+	 */
+	private static class MediaRange implements Comparable<MediaRange> {
+		private String type;
+		private float quality = 1;
+		private int specificity;
+		private int position;
+
+		/**
+		 * Higher quality first, then the more specific ranges, then the first written.
+		 */
+		public int compareTo(MediaRange other) {
+			if (quality != other.quality) {
+				return quality > other.quality ? -1 : 1;
+			}
+			if (specificity != other.specificity) {
+				return other.specificity - specificity;
+			}
+			return position - other.position;
+		}
+	}
+
+	public ContentNegotiator(Config config) {
+		contentTypes.put("text/html", PAGE);
+		contentTypes.put("application/xhtml+xml", PAGE);
+		contentTypes.putAll(SerializerFinder.getContentTypes());
+		// EventSource asks for text/event-stream, but request bodies can't be events
+		contentTypes.put(EventsSerializer.CONTENT_TYPE, "events");
+		String others = config.getString(Config.NEGOTIATION_CONTENT_TYPES);
+		if (others != null) {
+			for (String pair : others.split(",")) {
+				int equals = pair.indexOf('=');
+				if (equals > 0) {
+					contentTypes.put(pair.substring(0, equals).trim().toLowerCase(), pair.substring(equals + 1).trim());
+				} else if (pair.trim().length() > 0) {
+					LOGGER.warn("Content-type for negotiation [{}] must be content-type=extension", pair);
+				}
+			}
+		}
+		LOGGER.debug("Content negotiation types: {}", contentTypes);
+	}
+
+	/**
+	 * Gets the extension for an Accept header.
+	 *
+	 * @param accept
+	 *            Accept header.
+	 * @return the extension of the preferred content-type, or null if a page
+	 *         must be rendered.
+	 */
+	public String negotiate(String accept) {
+		String extension = cache.get(accept, this::resolve);
+		return extension.length() == 0 ? null : extension;
+	}
+
+	/**
+	 * Gets the cache of negotiated Accept headers.
+	 */
+	ResolutionCache getCache() {
+		return cache;
+	}
+
+	private String resolve(String accept) {
+		List<MediaRange> ranges = this.parse(accept);
+		Collections.sort(ranges);
+		for (MediaRange range : ranges) {
+			if (range.quality <= 0) {
+				break;
+			}
+			if (range.specificity < 2) {
+				// Wildcards don't prefer any representation
+				return PAGE;
+			}
+			String extension = contentTypes.get(range.type);
+			if (extension != null) {
+				LOGGER.debug("Accept [{}] negotiated to extension [{}]", accept, extension);
+				return extension.length() == 0 ? PAGE : extension;
+			}
+		}
+		return PAGE;
+	}
+
+	private List<MediaRange> parse(String accept) {
+		List<MediaRange> ranges = new ArrayList<MediaRange>();
+		String[] elements = accept.split(",");
+		for (int i = 0; i < elements.length; i++) {
+			String[] params = elements[i].split(";");
+			MediaRange range = new MediaRange();
+			range.type = params[0].trim().toLowerCase();
+			range.position = i;
+			if (range.type.length() == 0) {
+				continue;
+			}
+			if ("*/*".equals(range.type) || "*".equals(range.type)) {
+				range.specificity = 0;
+			} else if (range.type.endsWith("/*")) {
+				range.specificity = 1;
+			} else {
+				range.specificity = 2;
+			}
+			for (int j = 1; j < params.length; j++) {
+				String param = params[j].trim();
+				if (param.startsWith("q=")) {
+					try {
+						range.quality = Float.parseFloat(param.substring(2));
+					} catch (NumberFormatException e) {
+						LOGGER.debug("Wrong q-value in Accept header [{}]", accept);
+						range.quality = 0;
+					}
+				}
+			}
+			ranges.add(range);
+		}
+		return ranges;
+	}
+}
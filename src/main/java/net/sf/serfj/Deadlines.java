@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.serfj.annotations.Deadline;
+
+/**
+ * Deadlines of the routes served by a {@link RestServlet}, from {@link Deadline}
+ * annotations and from 'deadlines' in serfj.properties. It interrupts the threads
+ * running actions whose deadline has passed, so blocking calls that honor
+ * interruptions (sleeps, locks, NIO channels, most JDBC drivers) stop.
+ * 
+ * @author agent
+ */
+class Deadlines {
+
+    /**
+     * Controller or Controller.action => milliseconds, from the configuration.
+     */
+    private Map<String, Long> timeouts = new HashMap<String, Long>();
+
+    /**
+     * Controller.action => milliseconds, 0 if it hasn't a deadline.
+     */
+    private Map<String, Long> routes = new ConcurrentHashMap<String, Long>();
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Deadlines declared by annotations only.
+     */
+    public Deadlines() {
+        super();
+    }
+
+    public Deadlines(Config config) {
+        this.timeouts = RouteSettings.parse(config.getString(Config.DEADLINES), "deadlines");
+    }
+
+    /**
+     * Gets the deadline of a route.
+     * 
+     * @return milliseconds to serve a request, 0 if there is no deadline.
+     */
+    public long getTimeout(Class<?> controller, Method action) {
+        String route = controller.getName() + "." + action.getName();
+        Long timeout = this.routes.get(route);
+        if (timeout == null) {
+            String name = controller.getSimpleName();
+            timeout = this.timeouts.get(name + "." + action.getName());
+            if (timeout == null && action.getAnnotation(Deadline.class) != null) {
+                timeout = action.getAnnotation(Deadline.class).value();
+            }
+            if (timeout == null) {
+                timeout = this.timeouts.get(name);
+            }
+            if (timeout == null && controller.getAnnotation(Deadline.class) != null) {
+                timeout = controller.getAnnotation(Deadline.class).value();
+            }
+            if (timeout == null) {
+                timeout = 0L;
+            }
+            this.routes.put(route, timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * Interrupts the current thread when some time passes, unless
+     * {@link Interruption#cancel()} is called before.
+     * 
+     * @param remaining
+     *            Milliseconds until the interruption.
+     */
+    public Interruption interruptIn(long remaining) {
+        Interruption interruption = new Interruption(Thread.currentThread());
+        interruption.future = this.getScheduler().schedule(interruption, remaining, TimeUnit.MILLISECONDS);
+        return interruption;
+    }
+
+    /**
+     * Stops the thread that interrupts actions, if it was started.
+     */
+    public synchronized void shutdown() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    private synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "serfj-deadlines");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return this.scheduler;
+    }
+
+    /**
+     * Pending interruption of a thread running an action.
+     */
+    static class Interruption implements Runnable {
+        private static final int WAITING = 0;
+        private static final int INTERRUPTING = 1;
+        private static final int INTERRUPTED = 2;
+        private static final int CANCELLED = 3;
+
+        private final Thread thread;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private ScheduledFuture<?> future;
+
+        Interruption(Thread thread) {
+            this.thread = thread;
+        }
+
+        public void run() {
+            if (this.state.compareAndSet(WAITING, INTERRUPTING)) {
+                this.thread.interrupt();
+                this.state.set(INTERRUPTED);
+            }
+        }
+
+        /**
+         * Called by the action's thread when the action ends. If the thread was
+         * interrupted, the flag is cleared so it doesn't reach the container.
+         */
+        public void cancel() {
+            if (this.state.compareAndSet(WAITING, CANCELLED)) {
+                this.future.cancel(false);
+            } else {
+                while (this.state.get() == INTERRUPTING) {
+                    Thread.yield();
+                }
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.Serializable;
+
+/**
+ * What the client gets when an action throws an exception: the class of the
+ * exception, its message, the HTTP status code of the response and, only if
+ * 'errors.trace' is enabled, the stack trace.
+ * 
+ * @author agent
+ */
+public class ErrorResponse implements Serializable {
+
+    private static final long serialVersionUID = 6126431207587306371L;
+
+    private String type;
+    private String message;
+    private int code;
+    private String trace;
+
+    public ErrorResponse() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param type
+     *            Class of the exception.
+     * @param message
+     *            Message of the exception, it can be null.
+     * @param code
+     *            HTTP status code.
+     * @param trace
+     *            Stack trace, it can be null.
+     */
+    public ErrorResponse(String type, String message, int code, String trace) {
+        this.type = type;
+        this.message = message;
+        this.code = code;
+        this.trace = trace;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public int getCode() {
+        return this.code;
+    }
+
+    public String getTrace() {
+        return this.trace;
+    }
+
+    @Override
+    public String toString() {
+        return this.type + (this.message == null ? "" : ": " + this.message) + " (" + this.code + ")";
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.serfj.serializers.Escaper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns the exceptions thrown by actions into {@link ErrorResponse} objects, with
+ * the HTTP status code given by 'errors.status' to their classes (or to their
+ * closest superclass there), or 500 (Internal Server Error).<br>
+ * <br>
+ * Json and Xml error responses are written directly, in the same format the
+ * default serializers use, so they can be read by them. If 'errors.legacy' is
+ * enabled, exceptions are serialized as any other object, with their stack trace
+ * and causes, and the status is 200 (OK).
+ * 
+ * @author agent
+ */
+class Errors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Errors.class);
+
+    private static final String ELEMENT = ErrorResponse.class.getName();
+
+    private boolean legacy;
+    private boolean trace;
+
+    /**
+     * Exception class name => status.
+     */
+    private Map<String, Integer> statuses = new HashMap<String, Integer>();
+
+    /**
+     * Exception class => status, for every class that has been thrown.
+     */
+    private Map<Class<?>, Integer> cache = new ConcurrentHashMap<Class<?>, Integer>();
+
+    public Errors(Config config) {
+        this.legacy = config.getBoolean(Config.ERRORS_LEGACY);
+        this.trace = config.getBoolean(Config.ERRORS_TRACE);
+        for (String pair : config.getString(Config.ERRORS_STATUS).split(",")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                try {
+                    this.statuses.put(pair.substring(0, equals).trim(), Integer.valueOf(pair.substring(equals + 1).trim()));
+                    continue;
+                } catch (NumberFormatException e) {
+                    // Warned below
+                }
+            }
+            if (pair.trim().length() > 0) {
+                LOGGER.warn("Status of exceptions [{}] must be class=status", pair);
+            }
+        }
+    }
+
+    /**
+     * Says if exceptions are serialized as any other object.
+     */
+    public boolean isLegacy() {
+        return this.legacy;
+    }
+
+    /**
+     * Gets the status code of the responses to an exception.
+     */
+    public int getStatus(Throwable exception) {
+        if (exception instanceof RequestRejectedException) {
+            return ((RequestRejectedException) exception).getStatus();
+        }
+        if (exception instanceof RequestBodyException) {
+            return ((RequestBodyException) exception).getStatus();
+        }
+        Integer status = this.cache.get(exception.getClass());
+        if (status == null) {
+            status = HttpURLConnection.HTTP_INTERNAL_ERROR;
+            for (Class<?> clazz = exception.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+                Integer mapped = this.statuses.get(clazz.getName());
+                if (mapped != null) {
+                    status = mapped;
+                    break;
+                }
+            }
+            this.cache.put(exception.getClass(), status);
+        }
+        return status;
+    }
+
+    /**
+     * Creates the error response to an exception.
+     */
+    public ErrorResponse toResponse(Throwable exception) {
+        String stackTrace = null;
+        if (this.trace) {
+            StringWriter writer = new StringWriter();
+            exception.printStackTrace(new PrintWriter(writer));
+            stackTrace = writer.toString();
+        }
+        return new ErrorResponse(exception.getClass().getName(), exception.getMessage(), this.getStatus(exception), stackTrace);
+    }
+
+    /**
+     * Writes an error response as Json.
+     */
+    public String toJson(ErrorResponse error) {
+        StringBuilder out = new StringBuilder(128);
+        out.append("{\"").append(ELEMENT).append("\":{\"type\":");
+        Escaper.appendJson(out, error.getType());
+        if (error.getMessage() != null) {
+            out.append(",\"message\":");
+            Escaper.appendJson(out, error.getMessage());
+        }
+        out.append(",\"code\":").append(error.getCode());
+        if (error.getTrace() != null) {
+            out.append(",\"trace\":");
+            Escaper.appendJson(out, error.getTrace());
+        }
+        return out.append("}}").toString();
+    }
+
+    /**
+     * Writes an error response as Xml.
+     */
+    public String toXml(ErrorResponse error) {
+        StringBuilder out = new StringBuilder(128);
+        out.append('<').append(ELEMENT).append(">\n  <type>");
+        Escaper.appendXml(out, error.getType());
+        out.append("</type>\n");
+        if (error.getMessage() != null) {
+            out.append("  <message>");
+            Escaper.appendXml(out, error.getMessage());
+            out.append("</message>\n");
+        }
+        out.append("  <code>").append(error.getCode()).append("</code>\n");
+        if (error.getTrace() != null) {
+            out.append("  <trace>");
+            Escaper.appendXml(out, error.getTrace());
+            out.append("</trace>\n");
+        }
+        return out.append("</").append(ELEMENT).append('>').toString();
+    }
+}
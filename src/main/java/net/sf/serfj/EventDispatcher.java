@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the events queued for every {@link EventSubscriber} in batches, so
+ * thousands of subscribers don't need thousands of threads, and every response is
+ * flushed once per batch instead of once per event.<br>
+ * <br>
+ * A single thread schedules the batches, and 'events.writer.threads' threads write
+ * them, one batch of a subscriber at a time. Writes block while a client doesn't
+ * read, so a subscriber that has been writing for more than 'events.write.timeout'
+ * milliseconds is disconnected, and it never stops the batches of the others.
+ * 
+ * @author agent
+ */
+class EventDispatcher implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatcher.class);
+
+    private static EventDispatcher instance;
+
+    private Set<EventSubscriber> subscribers = Collections.newSetFromMap(new ConcurrentHashMap<EventSubscriber, Boolean>());
+    private ScheduledExecutorService executor;
+    private ThreadPoolExecutor writers;
+    private long heartbeat;
+    private long writeTimeout;
+
+    private EventDispatcher(Config config) {
+        this.heartbeat = TimeUnit.MILLISECONDS.toNanos(config.getLong(Config.EVENTS_HEARTBEAT_INTERVAL));
+        this.writeTimeout = TimeUnit.MILLISECONDS.toNanos(config.getLong(Config.EVENTS_WRITE_TIMEOUT));
+        int threads = config.getInt(Config.EVENTS_WRITER_THREADS);
+        this.writers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "serfj-events-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.writers.allowCoreThreadTimeOut(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "serfj-events");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long interval = config.getLong(Config.EVENTS_FLUSH_INTERVAL);
+        this.executor.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the dispatcher, starting it the first time.
+     */
+    public static synchronized EventDispatcher getInstance(Config config) {
+        if (instance == null) {
+            instance = new EventDispatcher(config);
+        }
+        return instance;
+    }
+
+    /**
+     * Ends every subscription and stops the dispatcher, if it was started.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance.writers.shutdownNow();
+            for (EventSubscriber subscriber : instance.subscribers) {
+                subscriber.finish();
+            }
+            instance = null;
+        }
+    }
+
+    public void add(EventSubscriber subscriber) {
+        this.subscribers.add(subscriber);
+    }
+
+    /**
+     * Gets the number of open subscriptions.
+     */
+    public int size() {
+        return this.subscribers.size();
+    }
+
+    /**
+     * Schedules a batch of events for every subscriber that isn't writing the
+     * previous one, and disconnects the ones that are stuck writing.
+     */
+    public void run() {
+        final long now = System.nanoTime();
+        for (Iterator<EventSubscriber> it = this.subscribers.iterator(); it.hasNext();) {
+            final EventSubscriber subscriber = it.next();
+            if (subscriber.isClosed()) {
+                it.remove();
+                subscriber.finish();
+            } else if (subscriber.isWriting()) {
+                if (now - subscriber.getWriteStart() >= this.writeTimeout) {
+                    LOGGER.warn("Subscriber hasn't read events for {} ms, closing it", TimeUnit.NANOSECONDS.toMillis(now - subscriber.getWriteStart()));
+                    it.remove();
+                    subscriber.finish();
+                }
+            } else if (subscriber.startWrite(now)) {
+                this.writers.execute(new Runnable() {
+                    public void run() {
+                        EventDispatcher.this.write(subscriber, now);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of events of a subscriber. Subscribers that fail are closed, and
+     * ended by the next run of the dispatcher.
+     */
+    private void write(EventSubscriber subscriber, long now) {
+        try {
+            if (!subscriber.isClosed()) {
+                subscriber.flush(now, this.heartbeat);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Can't write events, closing subscriber", e);
+            subscriber.close();
+        } finally {
+            subscriber.endWrite();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes events to clients subscribed with Server-Sent Events.<br>
+ * <br>
+ * An action subscribes the client returning a publisher (usually shared by all the
+ * clients interested in the same events), with the .events extension or any other
+ * one. The framework keeps the response open, and every object published is
+ * serialized with the serializer of the request and written as an event:<br>
+ * <br>
+ * <code>
+ * private static final EventPublisher&lt;Stats&gt; STATS = new EventPublisher&lt;Stats&gt;();<br>
+ * <br>
+ * &#64;GET<br>
+ * public EventPublisher&lt;Stats&gt; stats() {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;return STATS;<br>
+ * }<br>
+ * </code> <br>
+ * Publishing doesn't write anything: events are serialized once for every format,
+ * queued, and written by a single thread that flushes every subscriber in batches,
+ * every 'events.flush.interval' milliseconds, and sends heartbeats to idle ones.
+ * If the servlet container supports asynchronous requests (Servlet 3.0, with
+ * async-supported in web.xml), subscribers don't hold a container thread.
+ * 
+ * @author agent
+ * @param <T>
+ *            Type of the events.
+ */
+public class EventPublisher<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventPublisher.class);
+
+    private Set<EventSubscriber> subscribers = Collections.newSetFromMap(new ConcurrentHashMap<EventSubscriber, Boolean>());
+
+    private AtomicLong ids = new AtomicLong();
+
+    /**
+     * Publishes an event to every subscriber.
+     * 
+     * @param event
+     *            Object to publish.
+     */
+    public void publish(T event) {
+        this.publish(null, event);
+    }
+
+    /**
+     * Publishes a named event to every subscriber.
+     * 
+     * @param name
+     *            Event name, clients listen to it with addEventListener(name).
+     * @param event
+     *            Object to publish.
+     */
+    public void publish(String name, T event) {
+        Long id = this.ids.incrementAndGet();
+        // Every format is serialized only once
+        Map<String, String> frames = new HashMap<String, String>();
+        for (EventSubscriber subscriber : this.subscribers) {
+            String format = subscriber.getFormat();
+            String frame = frames.get(format);
+            if (frame == null) {
+                try {
+                    frame = subscriber.frame(id, name, event);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Can't serialize event " + id + " with " + format, e);
+                    frame = "";
+                }
+                frames.put(format, frame);
+            }
+            if (frame.length() > 0) {
+                subscriber.offer(frame);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of clients subscribed.
+     */
+    public int getSubscribers() {
+        return this.subscribers.size();
+    }
+
+    /**
+     * Ends the responses of every subscriber.
+     */
+    public void close() {
+        for (EventSubscriber subscriber : this.subscribers) {
+            subscriber.close();
+        }
+    }
+
+    void subscribe(EventSubscriber subscriber) {
+        this.subscribers.add(subscriber);
+    }
+
+    void unsubscribe(EventSubscriber subscriber) {
+        this.subscribers.remove(subscriber);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.PrintWriter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+
+import net.sf.serfj.serializers.EventsSerializer;
+import net.sf.serfj.serializers.ObjectSerializer;
+import net.sf.serfj.serializers.ProjectingSerializer;
+import net.sf.serfj.serializers.Projection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A client subscribed to an {@link EventPublisher}. Events are queued by the
+ * publisher, and written by a thread of the {@link EventDispatcher}, only one at a
+ * time.
+ * 
+ * @author agent
+ */
+class EventSubscriber {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSubscriber.class);
+
+    private static final String HEARTBEAT = ":\n\n";
+
+    private EventPublisher<?> publisher;
+    private PrintWriter writer;
+    private ObjectSerializer serializer;
+    private Projection projection;
+    private String format;
+    private int maxPending;
+    private Queue<String> frames = new ConcurrentLinkedQueue<String>();
+    private AtomicInteger pending = new AtomicInteger();
+    private long lastWrite = System.nanoTime();
+    private AtomicBoolean writing = new AtomicBoolean();
+    private volatile long writeStart;
+    private volatile boolean closed = false;
+    private AsyncContext async;
+    private CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Constructor.
+     * 
+     * @param publisher
+     *            Publisher of the events.
+     * @param writer
+     *            Response writer.
+     * @param serializer
+     *            Serializer for the events.
+     * @param projection
+     *            Fields of the events to serialize, null for all of them.
+     * @param maxPending
+     *            Maximum number of events waiting to be written. Subscribers that
+     *            can't read as fast as events are published are closed.
+     */
+    public EventSubscriber(EventPublisher<?> publisher, PrintWriter writer, ObjectSerializer serializer, Projection projection, int maxPending) {
+        this.publisher = publisher;
+        this.writer = writer;
+        this.serializer = serializer;
+        this.projection = projection;
+        this.maxPending = maxPending;
+        this.format = serializer.getClass().getName() + (projection == null ? "" : "?" + projection);
+    }
+
+    /**
+     * Gets a key for the serializer and fields of the events, subscribers with the same
+     * format share the serialized events.
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Serializes an event.
+     */
+    public String frame(Long id, String name, Object event) {
+        if (this.serializer instanceof EventsSerializer) {
+            return EventsSerializer.frame(id, name, ((EventsSerializer) this.serializer).serializeData(event, this.projection));
+        } else if (this.projection != null && this.serializer instanceof ProjectingSerializer) {
+            return EventsSerializer.frame(id, name, ((ProjectingSerializer) this.serializer).serialize(event, this.projection));
+        }
+        return EventsSerializer.frame(id, name, this.serializer.serialize(event));
+    }
+
+    /**
+     * Queues an event to be written.
+     */
+    public void offer(String frame) {
+        if (this.pending.incrementAndGet() > this.maxPending) {
+            LOGGER.warn("Subscriber has more than {} events waiting, closing it", this.maxPending);
+            this.close();
+        } else {
+            this.frames.offer(frame);
+        }
+    }
+
+    /**
+     * Writes the queued events, or a heartbeat if there aren't events and it has been
+     * idle for a while, and flushes the response.
+     * 
+     * @param now
+     *            Current time, in nanoseconds.
+     * @param heartbeat
+     *            Nanoseconds without writing before sending a heartbeat.
+     * @return false if the client has gone.
+     */
+    public boolean flush(long now, long heartbeat) {
+        boolean written = false;
+        String frame;
+        while ((frame = this.frames.poll()) != null) {
+            this.pending.decrementAndGet();
+            this.writer.write(frame);
+            written = true;
+        }
+        if (!written && now - this.lastWrite >= heartbeat) {
+            this.writer.write(HEARTBEAT);
+            written = true;
+        }
+        if (written) {
+            this.writer.flush();
+            this.lastWrite = now;
+            // PrintWriter doesn't throw exceptions, so a closed connection is only known this way
+            if (this.writer.checkError()) {
+                LOGGER.debug("Subscriber has gone");
+                this.close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the subscriber as writing a batch, unless it's already writing one.
+     * 
+     * @param now
+     *            Current time, in nanoseconds.
+     * @return true if the subscriber wasn't writing.
+     */
+    boolean startWrite(long now) {
+        if (this.writing.compareAndSet(false, true)) {
+            this.writeStart = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the batch being written as finished.
+     */
+    void endWrite() {
+        this.writing.set(false);
+    }
+
+    /**
+     * Says if a batch is being written, or waiting to be written.
+     */
+    boolean isWriting() {
+        return this.writing.get();
+    }
+
+    /**
+     * Gets when the batch being written was scheduled, in nanoseconds.
+     */
+    long getWriteStart() {
+        return this.writeStart;
+    }
+
+    /**
+     * Marks the subscriber to be closed. It can be called from any thread, the
+     * response is ended by the dispatcher.
+     */
+    public void close() {
+        this.closed = true;
+        this.publisher.unsubscribe(this);
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Sets the asynchronous context of the request, if the container supports it.
+     */
+    public void setAsyncContext(AsyncContext async) {
+        this.async = async;
+    }
+
+    /**
+     * Ends the response. It's called by the dispatcher.
+     */
+    public void finish() {
+        this.close();
+        if (this.async != null) {
+            try {
+                this.async.complete();
+            } catch (IllegalStateException e) {
+                LOGGER.debug("Request was already completed");
+            }
+        }
+        this.finished.countDown();
+    }
+
+    /**
+     * Waits until the response ends, when the request isn't asynchronous.
+     */
+    public void await() throws InterruptedException {
+        this.finished.await();
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.serfj.idempotency.FileStore;
+import net.sf.serfj.idempotency.IdempotencyStore;
+import net.sf.serfj.idempotency.MemoryStore;
+
+import org.apache.commons.codec.binary.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Honors the Idempotency-Key header of POST, PUT and DELETE requests. The response
+ * given to the first request with a key is stored for 'idempotency.ttl'
+ * milliseconds, and the requests with the same key get a copy of it instead of
+ * calling the action again, with an Idempotent-Replayed header. Requests with a
+ * key in flight wait for it, and are answered with 409 (Conflict) if it isn't
+ * done before their deadline (or 'async.timeout'), so the action isn't called
+ * twice at the same time.<br>
+ * <br>
+ * Keys are scoped by HTTP method, URL and the values of the headers in
+ * 'idempotency.headers' (the credentials of the client by default), so a client
+ * can't get the response given to another one. The response is stored with a hash
+ * of the request body and parameters, and a request reusing a key with another
+ * payload is answered with 422 (Unprocessable Entity). Bodies are hashed while
+ * the action reads them, and what it leaves unread when the response is stored,
+ * so they aren't kept in memory and uploads are still streamed. Forms are hashed
+ * by their parameters, which the container may have read from the body.<br>
+ * <br>
+ * Errors sent by the framework, server errors (5xx) and responses larger than
+ * 'idempotency.max.size' aren't stored, so those requests can be retried.
+ * 
+ * @author agent
+ */
+class Idempotency {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Idempotency.class);
+
+    /**
+     * Header of the responses copied from a stored one.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * HTTP status code for Unprocessable Entity.
+     */
+    static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
+    /**
+     * Serves a request with an Idempotency-Key.
+     */
+    interface Handler {
+        /**
+         * @param request
+         *            Request, whose body is hashed while it's read.
+         */
+        void respond(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Request with an Idempotency-Key, whose body is hashed as it's read.
+     */
+    private static class KeyedRequest extends HttpServletRequestWrapper {
+        private final String key;
+        private final MessageDigest digest = newDigest();
+        private ServletInputStream in;
+        private BufferedReader reader;
+        private boolean ended;
+        private String fingerprint;
+        private boolean replayed;
+
+        KeyedRequest(HttpServletRequest request, String key) {
+            super(request);
+            this.key = key;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (this.in == null) {
+                final ServletInputStream body = super.getInputStream();
+                this.in = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int read = body.read();
+                        if (read == -1) {
+                            ended = true;
+                        } else {
+                            digest.update((byte) read);
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = body.read(b, off, len);
+                        if (read == -1) {
+                            ended = true;
+                        } else {
+                            digest.update(b, off, read);
+                        }
+                        return read;
+                    }
+                };
+            }
+            return this.in;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (this.reader == null) {
+                String encoding = this.getCharacterEncoding();
+                this.reader = new BufferedReader(new InputStreamReader(this.getInputStream(), encoding == null ? "ISO-8859-1" : encoding));
+            }
+            return this.reader;
+        }
+
+        /**
+         * Hashes the body and the parameters of the request. The part of the body
+         * that hasn't been read yet is read to be hashed, so this must be called once
+         * the action is done with it.
+         */
+        @SuppressWarnings("unchecked")
+        synchronized String getFingerprint() throws IOException {
+            if (this.fingerprint == null) {
+                String contentType = this.getContentType();
+                // Form bodies may be read by the container as parameters
+                if (contentType == null || !contentType.startsWith("application/x-www-form-urlencoded")) {
+                    InputStream is = this.getInputStream();
+                    byte[] buffer = new byte[4096];
+                    while (!this.ended && is.read(buffer) != -1) {
+                        // Hashed while it's read
+                    }
+                }
+                Map<String, String[]> parameters = new TreeMap<String, String[]>(this.getParameterMap());
+                for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+                    for (String value : parameter.getValue()) {
+                        this.digest.update((byte) 0);
+                        this.digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+                        this.digest.update((byte) '=');
+                        this.digest.update(value.getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                this.fingerprint = new String(Hex.encodeHex(this.digest.digest()));
+            }
+            return this.fingerprint;
+        }
+    }
+
+    /**
+     * Requests with a key in flight, they don't call the action while the first one
+     * is running.
+     */
+    private class KeysInFlight extends InFlightRequests {
+        KeysInFlight(Config config) {
+            super(config, config.getInt(Config.IDEMPOTENCY_MAX_SIZE));
+        }
+
+        @Override
+        protected boolean isShareable(StoredResponse stored) {
+            return stored.getStatus() < HttpURLConnection.HTTP_INTERNAL_ERROR;
+        }
+
+        @Override
+        protected StoredResponse shared(HttpServletRequest leader, StoredResponse stored) {
+            KeyedRequest keyed = (KeyedRequest) leader;
+            if (keyed.replayed) {
+                return stored;
+            }
+            String fingerprint;
+            try {
+                fingerprint = keyed.getFingerprint();
+            } catch (IOException e) {
+                LOGGER.warn("Can't read the rest of the body of {}, its response won't be stored", keyed.key, e);
+                return stored;
+            }
+            StoredResponse fingerprinted = stored.withFingerprint(fingerprint);
+            store.put(keyed.key, fingerprinted, ttl);
+            return fingerprinted;
+        }
+
+        @Override
+        protected void copy(HttpServletRequest request, StoredResponse stored, HttpServletResponse response) throws IOException {
+            replay((KeyedRequest) request, stored, response);
+        }
+
+        @Override
+        protected void late(HttpServletRequest request, HttpServletResponse response, InFlightRequests.Responder responder) throws IOException {
+            response.sendError(HttpURLConnection.HTTP_CONFLICT, "A request with the same key is in progress");
+        }
+    }
+
+    private IdempotencyStore store;
+    private InFlightRequests inFlight;
+    private String header;
+    private String[] headers;
+    private long ttl;
+
+    public Idempotency(Config config, IdempotencyStore store) {
+        this.store = store;
+        this.inFlight = new KeysInFlight(config);
+        this.header = config.getString(Config.IDEMPOTENCY_HEADER);
+        List<String> names = new ArrayList<String>();
+        for (String name : config.getString(Config.IDEMPOTENCY_HEADERS).split(",")) {
+            if (name.trim().length() > 0) {
+                names.add(name.trim());
+            }
+        }
+        this.headers = names.toArray(new String[names.size()]);
+        this.ttl = config.getLong(Config.IDEMPOTENCY_TTL);
+    }
+
+    /**
+     * Creates the store set in 'idempotency.store': 'memory', 'file' or the name of
+     * a class implementing {@link IdempotencyStore}.
+     * 
+     * @param tempDirectory
+     *            Temporary directory of the web application, where the 'file' store
+     *            keeps responses if 'idempotency.directory' isn't set. It can be null.
+     * @return the store, or null if it can't be created.
+     */
+    public static IdempotencyStore newStore(Config config, File tempDirectory) {
+        String name = config.getString(Config.IDEMPOTENCY_STORE).trim();
+        try {
+            if ("memory".equals(name)) {
+                return new MemoryStore(config);
+            } else if ("file".equals(name)) {
+                return new FileStore(config, tempDirectory);
+            }
+            Class<?> clazz = Class.forName(name);
+            try {
+                return (IdempotencyStore) clazz.getConstructor(Config.class).newInstance(config);
+            } catch (NoSuchMethodException e) {
+                return (IdempotencyStore) clazz.newInstance();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Can't create idempotency store [{}], Idempotency-Key won't be honored", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the Idempotency-Key of a request, if it has to be honored.
+     * 
+     * @return the key, or null if the request hasn't a key or its method isn't
+     *         POST, PUT or DELETE.
+     */
+    public String getKey(HttpServletRequest request, HttpMethod method) {
+        if (method != HttpMethod.POST && method != HttpMethod.PUT && method != HttpMethod.DELETE) {
+            return null;
+        }
+        String key = request.getHeader(this.header);
+        if (key == null || key.trim().length() == 0) {
+            return null;
+        }
+        StringBuilder scoped = new StringBuilder(method.name()).append(' ').append(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            scoped.append('?').append(request.getQueryString());
+        }
+        scoped.append(' ').append(key.trim());
+        for (String header : this.headers) {
+            Enumeration<?> values = request.getHeaders(header);
+            while (values != null && values.hasMoreElements()) {
+                scoped.append(' ').append(header).append(": ").append(values.nextElement());
+            }
+        }
+        return scoped.toString();
+    }
+
+    /**
+     * Serves a request with an Idempotency-Key, or gives it the response stored for
+     * its key.
+     */
+    public void serve(final String key, HttpServletRequest request, HttpServletResponse response, final Handler handler) throws ServletException,
+            IOException {
+        final KeyedRequest keyed = new KeyedRequest(request, key);
+        StoredResponse stored = this.store.get(key);
+        if (stored != null) {
+            this.replay(keyed, stored, response);
+            return;
+        }
+        this.inFlight.serve(key, keyed, response, leader -> {
+            // The first attempt may have ended after checking the store
+            StoredResponse done = this.store.get(key);
+            if (done == null) {
+                handler.respond(keyed, leader);
+            } else {
+                keyed.replayed = true;
+                this.replay(keyed, done, leader);
+            }
+        });
+    }
+
+    /**
+     * Gives a request the response stored for its key, if it's the same request.
+     */
+    private void replay(KeyedRequest request, StoredResponse stored, HttpServletResponse response) throws IOException {
+        if (stored.getFingerprint() != null && !stored.getFingerprint().equals(request.getFingerprint())) {
+            LOGGER.debug("Key of {} reused with another payload", request.key);
+            response.sendError(HTTP_UNPROCESSABLE_ENTITY, "The idempotency key was used by a request with another payload");
+            return;
+        }
+        LOGGER.debug("Replaying response of {}", request.key);
+        response.setHeader(REPLAYED_HEADER, "true");
+        stored.replay(response);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't available", e);
+        }
+    }
+}
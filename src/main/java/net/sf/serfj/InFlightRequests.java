@@ -0,0 +1,244 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Requests in flight that share their response with the requests with the same key
+ * arriving meanwhile. The first request (the leader) is served as usual while its
+ * response is captured, and the others wait for it and get a copy. If the leader's
+ * response can't be shared (it fails, its status isn't accepted or it's too large),
+ * the waiting requests are served on their own. A response written asynchronously
+ * is shared when the request is completed.<br>
+ * <br>
+ * Waiting requests don't wait longer than the milliseconds their client sent in
+ * 'deadline.header', or 'async.timeout' if they didn't send it.<br>
+ * <br>
+ * By default only 200 (OK) responses are shared, and requests that get tired of
+ * waiting are served on their own. Subclasses can change it.
+ * 
+ * @author agent
+ */
+class InFlightRequests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InFlightRequests.class);
+
+    /**
+     * Writes the response of a request.
+     */
+    interface Responder {
+        void respond(HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Key => response of the leader.
+     */
+    private ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<String, CompletableFuture<StoredResponse>>();
+
+    private int maxSize;
+    private long maxWait;
+    private String deadlineHeader;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            Maximum size in bytes of a shared response.
+     */
+    public InFlightRequests(Config config, int maxSize) {
+        this.maxSize = maxSize;
+        this.maxWait = config.getLong(Config.ASYNC_TIMEOUT);
+        this.deadlineHeader = config.getString(Config.DEADLINE_HEADER);
+    }
+
+    /**
+     * Serves a request, or waits for the request in flight with the same key and
+     * copies its response.
+     * 
+     * @param key
+     *            Key of the request.
+     */
+    public void serve(String key, HttpServletRequest request, HttpServletResponse response, Responder responder) throws ServletException, IOException {
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<StoredResponse>();
+        CompletableFuture<StoredResponse> leader = this.inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            long wait = this.getWait(request);
+            StoredResponse stored;
+            try {
+                stored = wait > 0 ? leader.get(wait, TimeUnit.MILLISECONDS) : leader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + key);
+            } catch (ExecutionException e) {
+                stored = null;
+            } catch (TimeoutException e) {
+                LOGGER.debug("Request in flight {} not done in {} ms", key, wait);
+                this.late(request, response, responder);
+                return;
+            }
+            if (stored != null) {
+                LOGGER.debug("Response of {} copied from a request in flight", key);
+                this.copy(request, stored, response);
+            } else {
+                responder.respond(response);
+            }
+            return;
+        }
+        StoredResponse stored = null;
+        boolean async = false;
+        try {
+            CapturingResponse capturing = new CapturingResponse(response, this.maxSize);
+            responder.respond(capturing);
+            if (isAsyncStarted(request)) {
+                // The response is written later, it's shared when it's completed
+                this.shareWhenComplete(key, mine, request, capturing);
+                async = true;
+            } else {
+                stored = this.share(request, capturing);
+            }
+        } finally {
+            if (!async) {
+                this.done(key, mine, stored);
+            }
+        }
+    }
+
+    private StoredResponse share(HttpServletRequest request, CapturingResponse capturing) {
+        StoredResponse stored = capturing.finish();
+        if (stored == null || !this.isShareable(stored)) {
+            return null;
+        }
+        return this.shared(request, stored);
+    }
+
+    private void shareWhenComplete(final String key, final CompletableFuture<StoredResponse> mine, final HttpServletRequest request,
+            final CapturingResponse capturing) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+            public void onComplete(AsyncEvent event) {
+                StoredResponse stored = null;
+                try {
+                    stored = share(request, capturing);
+                } finally {
+                    done(key, mine, stored);
+                }
+            }
+
+            public void onTimeout(AsyncEvent event) {
+                // The request is completed after the timeout
+            }
+
+            public void onError(AsyncEvent event) {
+                done(key, mine, null);
+            }
+
+            public void onStartAsync(AsyncEvent event) {
+                // Nothing to do
+            }
+        });
+    }
+
+    /**
+     * Ends the leader, giving its response to the waiting requests.
+     */
+    private void done(String key, CompletableFuture<StoredResponse> mine, StoredResponse stored) {
+        this.inFlight.remove(key, mine);
+        mine.complete(stored);
+    }
+
+    /**
+     * Says if the leader's response can be copied to the waiting requests.
+     */
+    protected boolean isShareable(StoredResponse stored) {
+        return stored.getStatus() == HttpURLConnection.HTTP_OK;
+    }
+
+    /**
+     * Called with the leader's response before the waiting requests get it.
+     * 
+     * @param leader
+     *            Request of the leader.
+     * @return the response the waiting requests get.
+     */
+    protected StoredResponse shared(HttpServletRequest leader, StoredResponse stored) {
+        return stored;
+    }
+
+    /**
+     * Writes the leader's response as the response of a waiting request.
+     */
+    protected void copy(HttpServletRequest request, StoredResponse stored, HttpServletResponse response) throws IOException {
+        stored.replay(response);
+    }
+
+    /**
+     * Writes the response of a request that got tired of waiting for the leader.
+     */
+    protected void late(HttpServletRequest request, HttpServletResponse response, Responder responder) throws ServletException, IOException {
+        responder.respond(response);
+    }
+
+    /**
+     * Gets the milliseconds a request can wait for the leader.
+     * 
+     * @return the milliseconds, or 0 if it can wait for ever.
+     */
+    private long getWait(HttpServletRequest request) {
+        String header = request.getHeader(this.deadlineHeader);
+        if (header != null) {
+            try {
+                long deadline = Math.max(1, Long.parseLong(header.trim()));
+                return this.maxWait > 0 ? Math.min(deadline, this.maxWait) : deadline;
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Wrong request timeout [{}]", header);
+            }
+        }
+        return this.maxWait;
+    }
+
+    /**
+     * Gets the number of different requests in flight.
+     */
+    public int size() {
+        return this.inFlight.size();
+    }
+
+    private static boolean isAsyncStarted(HttpServletRequest request) {
+        try {
+            return request.isAsyncStarted();
+        } catch (AbstractMethodError e) {
+            // Containers implementing Servlet 2.5 or older
+            return false;
+        }
+    }
+}
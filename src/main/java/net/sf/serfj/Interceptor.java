@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+/**
+ * Runs around the actions of controllers, with the information of the URL already
+ * resolved, for cross-cutting concerns like authorization, timing or caching.<br>
+ * <br>
+ * Interceptors are listed in serfj.properties ('interceptors'), for every action,
+ * or with {@link net.sf.serfj.annotations.Intercept} on a controller or an action.
+ * There is one instance of every interceptor class, so they must be thread-safe.
+ * They can have a public constructor with a {@link Config} argument, or without
+ * arguments.
+ * 
+ * @author agent
+ */
+public interface Interceptor {
+
+    /**
+     * Next interceptors of the chain, and the action at its end.
+     */
+    interface Chain {
+
+        /**
+         * Calls the next interceptor, or the action if this is the last one.
+         * 
+         * @return the object returned by the action, which will be serialized.
+         * @throws Exception
+         *             if an interceptor fails,
+         *             java.lang.reflect.InvocationTargetException with the
+         *             exception thrown by the action, or another exception if the
+         *             action couldn't be called (the request was rejected, for
+         *             example), which interceptors should let through.
+         */
+        Object proceed() throws Exception;
+    }
+
+    /**
+     * Intercepts a request to an action. The interceptor calls
+     * <code>chain.proceed()</code> to go on, or doesn't call it to short-circuit
+     * the request, returning another object to serialize (for example, a cached
+     * one) or writing the response itself through
+     * {@link ResponseHelper#getResponse()}. Exceptions thrown here are answered as
+     * the ones thrown by actions.
+     * 
+     * @param urlInfo
+     *            Information of the URL: controller, action, Ids, serializer...
+     * @param response
+     *            Helper of the request.
+     * @param chain
+     *            The rest of the chain.
+     * @return the object to serialize, usually the one returned by the chain.
+     */
+    Object intercept(UrlInfo urlInfo, ResponseHelper response, Chain chain) throws Exception;
+}
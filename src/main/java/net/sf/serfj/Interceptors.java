@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.serfj.annotations.Intercept;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Interceptors of every route (controller and action). The chain of a route is
+ * resolved the first time it's requested, from serfj.properties and from the
+ * {@link Intercept} annotations, and kept as an array, so the following requests
+ * only look it up.<br>
+ * <br>
+ * If an interceptor can't be created, requests to its routes fail instead of
+ * skipping it, since it may be protecting them.
+ * 
+ * @author agent
+ */
+class Interceptors {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Interceptors.class);
+
+    private static final Interceptor[] NONE = new Interceptor[0];
+
+    /**
+     * Calls the interceptors of a route one after another, and then the action.
+     */
+    private static class Invocation implements Interceptor.Chain {
+        private final Interceptor[] interceptors;
+        private final UrlInfo urlInfo;
+        private final ResponseHelper responseHelper;
+        private final Interceptor.Chain action;
+        private int next;
+
+        Invocation(Interceptor[] interceptors, UrlInfo urlInfo, ResponseHelper responseHelper, Interceptor.Chain action) {
+            this.interceptors = interceptors;
+            this.urlInfo = urlInfo;
+            this.responseHelper = responseHelper;
+            this.action = action;
+        }
+
+        public Object proceed() throws Exception {
+            if (this.next == this.interceptors.length) {
+                return this.action.proceed();
+            }
+            return this.interceptors[this.next++].intercept(this.urlInfo, this.responseHelper, this);
+        }
+    }
+
+    private Config config;
+    private Interceptor[] global = NONE;
+
+    /**
+     * Interceptor class => instance.
+     */
+    private ConcurrentMap<Class<?>, Interceptor> instances = new ConcurrentHashMap<Class<?>, Interceptor>();
+
+    /**
+     * Controller.action => interceptors.
+     */
+    private ConcurrentMap<String, Interceptor[]> routes = new ConcurrentHashMap<String, Interceptor[]>();
+
+    /**
+     * Only interceptors in annotations.
+     */
+    public Interceptors() {
+        super();
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if an interceptor in 'interceptors' can't be created.
+     */
+    public Interceptors(Config config) {
+        this.config = config;
+        List<Interceptor> global = new ArrayList<Interceptor>();
+        for (String name : config.getString(Config.INTERCEPTORS).split(",")) {
+            if (name.trim().length() > 0) {
+                try {
+                    this.add(global, Class.forName(name.trim()));
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Can't create interceptor " + name.trim(), e);
+                }
+            }
+        }
+        this.global = global.toArray(new Interceptor[global.size()]);
+        LOGGER.debug("Interceptors of every route: {}", global);
+    }
+
+    /**
+     * Calls an action through the interceptors of its route.
+     * 
+     * @param interceptors
+     *            Interceptors of the route.
+     * @param action
+     *            Calls the action.
+     * @return the object returned by the chain.
+     */
+    public static Object invoke(Interceptor[] interceptors, UrlInfo urlInfo, ResponseHelper responseHelper, Interceptor.Chain action) throws Exception {
+        return new Invocation(interceptors, urlInfo, responseHelper, action).proceed();
+    }
+
+    /**
+     * Gets the interceptors of a route.
+     * 
+     * @throws IllegalStateException
+     *             if an interceptor can't be created.
+     */
+    public Interceptor[] get(UrlInfo urlInfo) {
+        String route = urlInfo.getController() + "." + urlInfo.getAction();
+        Interceptor[] interceptors = this.routes.get(route);
+        if (interceptors == null) {
+            Class<?> controller;
+            try {
+                controller = Class.forName(urlInfo.getController());
+            } catch (ClassNotFoundException e) {
+                return this.global;
+            }
+            List<Method> actions = new ArrayList<Method>();
+            for (Method method : controller.getMethods()) {
+                if (method.getName().equals(urlInfo.getAction())) {
+                    actions.add(method);
+                }
+            }
+            interceptors = this.resolve(controller, actions);
+            if (!actions.isEmpty()) {
+                // Routes of actions that don't exist aren't kept, there could be any number of them
+                Interceptor[] other = this.routes.putIfAbsent(route, interceptors);
+                if (other != null) {
+                    interceptors = other;
+                }
+                LOGGER.debug("Interceptors of {}: {}", route, interceptors.length);
+            }
+        }
+        return interceptors;
+    }
+
+    private Interceptor[] resolve(Class<?> controller, List<Method> actions) {
+        List<Interceptor> interceptors = new ArrayList<Interceptor>();
+        for (Interceptor interceptor : this.global) {
+            interceptors.add(interceptor);
+        }
+        try {
+            Intercept intercept = controller.getAnnotation(Intercept.class);
+            if (intercept != null) {
+                for (Class<?> clazz : intercept.value()) {
+                    this.add(interceptors, clazz);
+                }
+            }
+            for (Method action : actions) {
+                intercept = action.getAnnotation(Intercept.class);
+                if (intercept != null) {
+                    for (Class<?> clazz : intercept.value()) {
+                        this.add(interceptors, clazz);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't create the interceptors of " + controller.getName(), e);
+        }
+        return interceptors.isEmpty() ? NONE : interceptors.toArray(new Interceptor[interceptors.size()]);
+    }
+
+    /**
+     * Adds the instance of an interceptor class to a chain, unless it's already in it.
+     */
+    private void add(List<Interceptor> interceptors, Class<?> clazz) throws Exception {
+        Interceptor interceptor = this.instances.get(clazz);
+        if (interceptor == null) {
+            if (this.config != null) {
+                try {
+                    interceptor = (Interceptor) clazz.getConstructor(Config.class).newInstance(this.config);
+                } catch (NoSuchMethodException e) {
+                    interceptor = (Interceptor) clazz.newInstance();
+                }
+            } else {
+                interceptor = (Interceptor) clazz.newInstance();
+            }
+            Interceptor other = this.instances.putIfAbsent(clazz, interceptor);
+            if (other != null) {
+                interceptor = other;
+            }
+        }
+        if (!interceptors.contains(interceptor)) {
+            interceptors.add(interceptor);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream that fails as soon as more than a maximum number of bytes are read,
+ * so a request body is never read beyond the configured limit.
+ * 
+ * @author agent
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    /**
+     * HTTP status code for Request Entity Too Large.
+     */
+    static final int HTTP_ENTITY_TOO_LARGE = 413;
+
+    private long maxSize;
+    private long count;
+
+    /**
+     * Constructor.
+     * 
+     * @param is
+     *            Stream to read.
+     * @param maxSize
+     *            Maximum number of bytes that can be read.
+     */
+    public LimitedInputStream(InputStream is, long maxSize) {
+        super(is);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read != -1) {
+            this.count(1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            this.count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        this.count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws RequestBodyException {
+        count += read;
+        if (count > maxSize) {
+            throw new RequestBodyException(HTTP_ENTITY_TOO_LARGE, "Request body is larger than " + maxSize + " bytes");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.serfj.limits.ConcurrencyLimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive concurrency limiter of a route. Requests over the current limit of its
+ * {@link ConcurrencyLimit} are rejected, and the latency of every request served
+ * is given to the algorithm to update the limit.
+ * 
+ * @author agent
+ */
+public class Limiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Limiter.class);
+
+    private final String name;
+    private final ConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            Route limited (Account.show).
+     * @param limit
+     *            Algorithm deciding the limit.
+     */
+    public Limiter(String name, ConcurrencyLimit limit) {
+        this.name = name;
+        this.limit = limit;
+    }
+
+    /**
+     * Lets a request in, if the route is under its limit.
+     * 
+     * @return true if the request can be served, false if it must be rejected.
+     */
+    public boolean tryAcquire() {
+        return this.acquire() > 0;
+    }
+
+    /**
+     * Lets a request in, if the route is under its limit.
+     * 
+     * @return the requests being served with this one, or 0 if it must be rejected.
+     */
+    public int acquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.limit.getLimit()) {
+                this.rejected.incrementAndGet();
+                return 0;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Ends a request let in with {@link #acquire()}.
+     * 
+     * @param start
+     *            System.nanoTime() when the request started.
+     * @param inFlight
+     *            Requests being served when the request started, as returned by
+     *            {@link #acquire()}.
+     */
+    public void release(long start, int inFlight) {
+        this.inFlight.decrementAndGet();
+        int before = this.limit.getLimit();
+        this.limit.onSample(System.nanoTime() - start, inFlight);
+        if (LOGGER.isDebugEnabled() && before != this.limit.getLimit()) {
+            LOGGER.debug("Concurrency limit of {} changed from {} to {}", new Object[] { this.name, before, this.limit.getLimit() });
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the current limit.
+     */
+    public int getLimit() {
+        return this.limit.getLimit();
+    }
+
+    /**
+     * Gets the number of requests being served right now.
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Gets the number of requests rejected since the application started.
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " [" + this.inFlight.get() + "/" + this.limit.getLimit() + ", rejected: " + this.rejected.get() + "]";
+    }
+}
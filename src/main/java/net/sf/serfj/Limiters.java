@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.serfj.limits.AimdLimit;
+import net.sf.serfj.limits.ConcurrencyLimit;
+import net.sf.serfj.limits.GradientLimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive concurrency limiters of the routes served by a {@link RestServlet}.
+ * Every route (Controller.action) gets its own {@link Limiter} the first time it's
+ * called, with the algorithm set in 'limiter': 'aimd', 'gradient', or the name of
+ * a class implementing {@link ConcurrencyLimit}. Routes aren't limited if it's
+ * empty.<br>
+ * <br>
+ * The servlet keeps this object in the ServletContext attribute
+ * {@link #ATTRIBUTE}, so the application can read the current limits.
+ * 
+ * @author agent
+ */
+public class Limiters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Limiters.class);
+
+    /**
+     * ServletContext attribute with the limiters of the application.
+     */
+    public static final String ATTRIBUTE = Limiters.class.getName();
+
+    private Config config;
+    private Class<?> algorithm;
+    private int retryAfter = 1;
+
+    /**
+     * Controller.action => limiter.
+     */
+    private ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<String, Limiter>();
+
+    /**
+     * Routes aren't limited.
+     */
+    public Limiters() {
+        super();
+    }
+
+    public Limiters(Config config) {
+        this.config = config;
+        this.retryAfter = config.getInt(Config.BULKHEAD_RETRY_AFTER);
+        String name = config.getString(Config.LIMITER).trim();
+        if ("aimd".equals(name)) {
+            this.algorithm = AimdLimit.class;
+        } else if ("gradient".equals(name)) {
+            this.algorithm = GradientLimit.class;
+        } else if (name.length() > 0) {
+            try {
+                this.algorithm = Class.forName(name);
+                // Fails now instead of in the first request
+                this.newLimit();
+            } catch (Exception e) {
+                LOGGER.error("Can't create concurrency limits [{}], routes won't be limited", name, e);
+                this.algorithm = null;
+            }
+        }
+        LOGGER.debug("Concurrency limit: {}", this.algorithm);
+    }
+
+    /**
+     * Gets the limiter of a route.
+     * 
+     * @param controller
+     *            Controller's class.
+     * @param action
+     *            Action's method.
+     * @return the limiter, or null if routes aren't limited.
+     */
+    Limiter get(Class<?> controller, Method action) {
+        if (this.algorithm == null) {
+            return null;
+        }
+        return this.limiters.computeIfAbsent(controller.getSimpleName() + "." + action.getName(), name -> new Limiter(name, this.newLimit()));
+    }
+
+    /**
+     * Lets a request in.
+     * 
+     * @return the requests being served with this one, to be given back to
+     *         {@link Limiter#release(long, int)}.
+     * @throws RequestRejectedException
+     *             with status 503 if the route is at its limit.
+     */
+    int acquire(Limiter limiter) throws RequestRejectedException {
+        int inFlight = limiter.acquire();
+        if (inFlight == 0) {
+            throw new RequestRejectedException(HttpURLConnection.HTTP_UNAVAILABLE, "Too many concurrent requests for " + limiter.getName() + ", limit is "
+                    + limiter.getLimit(), this.retryAfter);
+        }
+        return inFlight;
+    }
+
+    private ConcurrencyLimit newLimit() {
+        try {
+            try {
+                return (ConcurrencyLimit) this.algorithm.getConstructor(Config.class).newInstance(this.config);
+            } catch (NoSuchMethodException e) {
+                return (ConcurrencyLimit) this.algorithm.newInstance();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't create " + this.algorithm.getName(), e);
+        }
+    }
+
+    /**
+     * Gets the limiter of a route.
+     * 
+     * @param name
+     *            Controller.action, like Account.show.
+     * @return the limiter, or null if the route hasn't been called yet or routes
+     *         aren't limited.
+     */
+    public Limiter getLimiter(String name) {
+        return this.limiters.get(name);
+    }
+
+    /**
+     * Gets the limiters of the routes called until now.
+     */
+    public Collection<Limiter> getLimiters() {
+        return Collections.unmodifiableCollection(this.limiters.values());
+    }
+}
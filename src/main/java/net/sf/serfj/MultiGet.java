@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.InvocationTargetException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers a multi-get (/banks/1,2,3) of a controller without a showMany action,
+ * calling its show action once per identifier. The calls run in parallel in a
+ * pool of 'multiget.threads' threads (or in the request's thread when the pool is
+ * busy), and their results are returned in the order of the identifiers, so they
+ * are serialized as a single list.<br>
+ * The request is let in once for the whole multi-get, by the route of the show
+ * action, so the calls don't take permits of their own. Results completed
+ * asynchronously, as CompletionStages or Futures, are waited for within the
+ * deadline of the request and 'async.timeout'.
+ * 
+ * @author agent
+ */
+class MultiGet {
+
+    /**
+     * Calls the show action for an identifier.
+     */
+    interface Show {
+        /**
+         * @return the result of the action.
+         */
+        Object show(UrlInfo urlInfo, ResponseHelper responseHelper) throws Exception;
+    }
+
+    private int threads = 8;
+    private int maxIds = 100;
+    private long timeout = 30000;
+    private ExecutorService executor;
+
+    public MultiGet() {
+        super();
+    }
+
+    public MultiGet(Config config) {
+        this.threads = config.getInt(Config.MULTIGET_THREADS);
+        this.maxIds = config.getInt(Config.MULTIGET_MAX_IDS);
+        this.timeout = config.getLong(Config.ASYNC_TIMEOUT);
+    }
+
+    /**
+     * Calls the show action for every identifier of a multi-get.
+     * 
+     * @return the results of the actions, in the order of the identifiers.
+     * @throws RequestRejectedException
+     *             if there are more than 'multiget.max.ids' identifiers, or a
+     *             result completed asynchronously isn't available in time.
+     * @throws Exception
+     *             the first exception thrown by an action.
+     */
+    public List<Object> showEach(UrlInfo urlInfo, ResponseHelper responseHelper, final Show show) throws Exception {
+        String[] ids = urlInfo.getIds();
+        if (ids.length > this.maxIds) {
+            throw new RequestRejectedException(HttpURLConnection.HTTP_BAD_REQUEST, "Can't get more than " + this.maxIds + " objects at once", 0);
+        }
+        List<Future<Object>> others = new ArrayList<Future<Object>>(ids.length - 1);
+        for (int i = 1; i < ids.length; i++) {
+            final UrlInfo single = urlInfo.forId(ids[i], UrlInspector.SHOW_ACTION);
+            final ResponseHelper helper = responseHelper.forUrl(single);
+            others.add(this.getExecutor().submit(() -> this.showOne(show, single, helper)));
+        }
+        List<Object> objects = new ArrayList<Object>(ids.length);
+        try {
+            // The request's thread does its share of the work
+            UrlInfo single = urlInfo.forId(ids[0], UrlInspector.SHOW_ACTION);
+            objects.add(this.showOne(show, single, responseHelper.forUrl(single)));
+            for (Future<Object> other : others) {
+                objects.add(other.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            if (objects.size() < ids.length) {
+                for (Future<Object> other : others) {
+                    other.cancel(true);
+                }
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Stops the threads of the pool.
+     */
+    public synchronized void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private Object showOne(Show show, UrlInfo urlInfo, ResponseHelper responseHelper) throws Exception {
+        Object result = show.show(urlInfo, responseHelper);
+        // Actions may have asked to serialize the object instead of returning it
+        if (result == null) {
+            result = responseHelper.getResult();
+        }
+        return AsyncResults.isAsync(result) ? this.await(result, urlInfo, responseHelper) : result;
+    }
+
+    /**
+     * Waits for a result completed asynchronously, so it's serialized in the list
+     * as the other ones.
+     */
+    private Object await(Object result, UrlInfo urlInfo, ResponseHelper responseHelper) throws Exception {
+        Future<?> future = result instanceof Future<?> ? (Future<?>) result : AsyncResults.toFuture((CompletionStage<?>) result);
+        long timeout = this.timeout;
+        long remaining = responseHelper.getRemainingTime();
+        if (remaining != Long.MAX_VALUE && (timeout == 0 || remaining < timeout)) {
+            timeout = Math.max(1, remaining);
+        }
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (ExecutionException e) {
+            // Answered as an exception thrown by the action
+            throw new InvocationTargetException(AsyncResults.unwrap(e));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RequestRejectedException(HttpURLConnection.HTTP_GATEWAY_TIMEOUT, "Result of " + urlInfo.getController() + ".show for Id "
+                    + urlInfo.getId() + " not available in time", 0);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(
+                    this.threads), runnable -> {
+                Thread thread = new Thread(runnable, "serfj-multiget-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+        }
+        return this.executor;
+    }
+}
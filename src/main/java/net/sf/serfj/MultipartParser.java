@@ -0,0 +1,320 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses a multipart/form-data request body (RFC 2388) while it's read.<br>
+ * <br>
+ * The body goes through a fixed buffer, where boundaries are searched for, and
+ * the content between them is written to {@link Part} objects, which keep it in
+ * memory or in temporary files. The memory used doesn't depend on the size of the
+ * uploaded files.
+ * 
+ * @author agent
+ */
+class MultipartParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultipartParser.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Maximum size of the headers of a part.
+     */
+    private static final int MAX_HEADERS_SIZE = 8192;
+
+    private InputStream is;
+    private byte[] delimiter;
+    private byte[] buffer;
+    private int head = 0;
+    private int tail = 0;
+    private String encoding;
+    private int threshold;
+    private File directory;
+
+    /**
+     * Constructor.
+     * 
+     * @param is
+     *            Request body.
+     * @param boundary
+     *            Boundary from the request content-type.
+     * @param encoding
+     *            Encoding for headers and fields.
+     * @param threshold
+     *            Maximum size of a part kept in memory.
+     * @param directory
+     *            Directory for temporary files, null for the default one.
+     */
+    public MultipartParser(InputStream is, String boundary, String encoding, int threshold, File directory) throws IOException {
+        this.is = is;
+        this.delimiter = ("\r\n--" + boundary).getBytes("ISO-8859-1");
+        this.buffer = new byte[Math.max(BUFFER_SIZE, this.delimiter.length * 2)];
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.directory = directory;
+        // The first boundary doesn't come after a CRLF, so it's added to find all
+        // boundaries the same way
+        this.buffer[this.tail++] = '\r';
+        this.buffer[this.tail++] = '\n';
+    }
+
+    /**
+     * Gets the boundary parameter of a multipart content-type.
+     * 
+     * @return the boundary, or null if it hasn't.
+     */
+    public static String getBoundary(String contentType) {
+        for (String param : contentType.split(";")) {
+            param = param.trim();
+            if (param.regionMatches(true, 0, "boundary=", 0, 9)) {
+                String boundary = param.substring(9).trim();
+                if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.length() == 0 ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads all the parts of the body. If the body can't be read, the temporary
+     * files already written are deleted.
+     * 
+     * @throws RequestBodyException
+     *             if the body isn't well formed.
+     * @throws IOException
+     *             if the body can't be read.
+     */
+    public List<Part> parse() throws IOException {
+        List<Part> parts = new ArrayList<Part>();
+        boolean parsed = false;
+        try {
+            // Preamble is discarded
+            if (!this.readPart(null)) {
+                throw this.malformed("there isn't any boundary");
+            }
+            while (true) {
+                int first = this.read();
+                int second = this.read();
+                if (first == '-' && second == '-') {
+                    break;
+                }
+                // Transport padding after the boundary
+                while (first == ' ' || first == '\t') {
+                    first = second;
+                    second = this.read();
+                }
+                if (first != '\r' || second != '\n') {
+                    throw this.malformed("wrong boundary");
+                }
+                Part part = this.readHeaders();
+                parts.add(part);
+                try {
+                    if (!this.readPart(part)) {
+                        throw this.malformed("it's truncated");
+                    }
+                } finally {
+                    part.close();
+                }
+                LOGGER.debug("Read {}", part);
+            }
+            parsed = true;
+            return parts;
+        } finally {
+            if (!parsed) {
+                for (Part part : parts) {
+                    part.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the content until the next boundary into the part, or discards it if
+     * part is null.
+     * 
+     * @return false if the body finished before any boundary was found.
+     */
+    private boolean readPart(Part part) throws IOException {
+        while (true) {
+            int index = this.indexOfDelimiter();
+            if (index >= 0) {
+                this.write(part, index);
+                this.head = index + this.delimiter.length;
+                return true;
+            }
+            // The last bytes could be the beginning of a boundary
+            int safe = this.tail - this.delimiter.length + 1;
+            if (safe > this.head) {
+                this.write(part, safe);
+                this.head = safe;
+            }
+            if (this.fill() < 0) {
+                return false;
+            }
+        }
+    }
+
+    private void write(Part part, int end) throws IOException {
+        if (part != null && end > this.head) {
+            part.write(this.buffer, this.head, end - this.head);
+        }
+    }
+
+    private int indexOfDelimiter() {
+        int last = this.tail - this.delimiter.length;
+        byte first = this.delimiter[0];
+        for (int i = this.head; i <= last; i++) {
+            if (this.buffer[i] == first) {
+                int j = 1;
+                while (j < this.delimiter.length && this.buffer[i + j] == this.delimiter[j]) {
+                    j++;
+                }
+                if (j == this.delimiter.length) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Part readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<String, String>();
+        int size = 0;
+        String line;
+        while ((line = this.readLine()).length() > 0) {
+            size += line.length();
+            if (size > MAX_HEADERS_SIZE) {
+                throw this.malformed("headers of a part are larger than " + MAX_HEADERS_SIZE + " bytes");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+        }
+        String disposition = headers.get("content-disposition");
+        if (disposition == null) {
+            throw this.malformed("a part doesn't have Content-Disposition");
+        }
+        Map<String, String> params = this.parseParams(disposition);
+        String filename = params.get("filename");
+        if (filename != null) {
+            // Some browsers send the full path of the file
+            filename = filename.substring(Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\')) + 1);
+        }
+        return new Part(params.get("name"), filename, headers, this.encoding, this.threshold, this.directory);
+    }
+
+    /**
+     * Parses parameters of a header like: form-data; name="file"; filename="a.txt"
+     */
+    private Map<String, String> parseParams(String header) {
+        Map<String, String> params = new HashMap<String, String>();
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int equals = header.indexOf('=', i);
+            if (equals < 0) {
+                break;
+            }
+            String name = header.substring(i + 1, equals).trim().toLowerCase();
+            StringBuilder value = new StringBuilder();
+            i = equals + 1;
+            while (i < header.length() && header.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < header.length() && header.charAt(i) == '"') {
+                for (i++; i < header.length() && header.charAt(i) != '"'; i++) {
+                    char c = header.charAt(i);
+                    if (c == '\\' && i + 1 < header.length()) {
+                        c = header.charAt(++i);
+                    }
+                    value.append(c);
+                }
+                i = header.indexOf(';', i);
+            } else {
+                int semicolon = header.indexOf(';', i);
+                value.append(header.substring(i, semicolon < 0 ? header.length() : semicolon).trim());
+                i = semicolon;
+            }
+            params.put(name, value.toString());
+        }
+        return params;
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = this.read()) != '\n') {
+            if (c < 0) {
+                throw this.malformed("it's truncated");
+            }
+            if (line.size() > MAX_HEADERS_SIZE) {
+                throw this.malformed("headers of a part are larger than " + MAX_HEADERS_SIZE + " bytes");
+            }
+            line.write(c);
+        }
+        int length = line.size();
+        byte[] bytes = line.toByteArray();
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, this.encoding);
+    }
+
+    private int read() throws IOException {
+        if (this.head == this.tail && this.fill() < 0) {
+            return -1;
+        }
+        return this.buffer[this.head++] & 0xFF;
+    }
+
+    /**
+     * Moves the unread bytes to the beginning of the buffer and reads more.
+     * 
+     * @return the number of bytes read, or -1 if the body finished.
+     */
+    private int fill() throws IOException {
+        if (this.head > 0) {
+            System.arraycopy(this.buffer, this.head, this.buffer, 0, this.tail - this.head);
+            this.tail -= this.head;
+            this.head = 0;
+        }
+        int read = this.is.read(this.buffer, this.tail, this.buffer.length - this.tail);
+        if (read > 0) {
+            this.tail += read;
+        }
+        return read;
+    }
+
+    private RequestBodyException malformed(String reason) {
+        return new RequestBodyException(HttpURLConnection.HTTP_BAD_REQUEST, "Multipart body is malformed, " + reason);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.Iterator;
+
+/**
+ * Source of a list of objects that can be read by pages, usually returned by
+ * 'index' actions instead of the whole list.<br>
+ * <br>
+ * When an action returns a PageSource, the framework reads the 'limit' and
+ * 'cursor' parameters of the request, fetches just one page, writes its objects
+ * one by one in the response, and adds a Link header (rel="next") with the URL of
+ * the next page, if there is one. Cursors are opaque tokens for clients, built from
+ * the value returned by {@link #getCursor(Object)}.<br>
+ * <br>
+ * If the iterator returned by {@link #fetch(String, int)} is
+ * {@link java.io.Closeable}, it's closed once the page is read.
+ * 
+ * @author agent
+ * @param <T>
+ *            Type of the objects.
+ */
+public interface PageSource<T> {
+
+    /**
+     * Gets the objects after a cursor.
+     * 
+     * @param cursor
+     *            Value returned by {@link #getCursor(Object)} for the last object
+     *            of the previous page, or null for the first page.
+     * @param limit
+     *            Maximum number of objects to return.
+     * @return an iterator over, at most, <code>limit</code> objects.
+     */
+    public Iterator<T> fetch(String cursor, int limit);
+
+    /**
+     * Gets the cursor of an object, that is, the value that identifies its position
+     * in the list (a key for keyset pagination, or an offset).
+     * 
+     * @param item
+     *            An object of the list.
+     * @return the position of the object.
+     */
+    public String getCursor(T item);
+}
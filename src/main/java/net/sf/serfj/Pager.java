@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.UnsupportedEncodingException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Reads the paging parameters of a request ('limit' and 'cursor'), and builds
+ * the URL of the next page.
+ * 
+ * @author agent
+ */
+class Pager {
+
+    public static final String LIMIT_PARAM = "limit";
+    public static final String CURSOR_PARAM = "cursor";
+
+    private static final String CURSOR_ENCODING = "UTF-8";
+
+    private HttpServletRequest request;
+    private int limit;
+    private String cursor;
+
+    /**
+     * Constructor.
+     * 
+     * @param request
+     *            Request with the paging parameters.
+     * @param defaultLimit
+     *            Limit when the request doesn't have one.
+     * @param maxLimit
+     *            Maximum limit, larger limits are reduced to it.
+     * @throws IllegalArgumentException
+     *             if the limit isn't a number or the cursor isn't valid.
+     */
+    public Pager(HttpServletRequest request, int defaultLimit, int maxLimit) {
+        this.request = request;
+        String limitParam = request.getParameter(LIMIT_PARAM);
+        this.limit = defaultLimit;
+        if (limitParam != null && limitParam.length() > 0) {
+            try {
+                this.limit = Integer.parseInt(limitParam.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameter 'limit' must be a number: " + limitParam);
+            }
+        }
+        this.limit = Math.max(1, Math.min(this.limit, maxLimit));
+        String token = request.getParameter(CURSOR_PARAM);
+        if (token != null && token.length() > 0) {
+            this.cursor = decode(token);
+        }
+    }
+
+    /**
+     * Gets the maximum number of objects of the page.
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the cursor that came in the request, decoded, or null for the first page.
+     */
+    public String getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Gets the URL of the page that starts after a cursor, with the same path and
+     * parameters than the current one.
+     */
+    public String getNextUrl(String nextCursor) {
+        StringBuilder url = new StringBuilder(this.request.getRequestURI());
+        char separator = '?';
+        String query = this.request.getQueryString();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.length() > 0 && !param.startsWith(LIMIT_PARAM + "=") && !param.startsWith(CURSOR_PARAM + "=")) {
+                    url.append(separator).append(param);
+                    separator = '&';
+                }
+            }
+        }
+        url.append(separator).append(CURSOR_PARAM).append('=').append(encode(nextCursor));
+        url.append('&').append(LIMIT_PARAM).append('=').append(this.limit);
+        return url.toString();
+    }
+
+    /**
+     * Encodes a cursor as an opaque token, safe for URLs.
+     */
+    static String encode(String cursor) {
+        try {
+            return Base64.encodeBase64URLSafeString(cursor.getBytes(CURSOR_ENCODING));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes a token built by {@link #encode(String)}.
+     */
+    static String decode(String token) {
+        if (!Base64.isBase64(token)) {
+            throw new IllegalArgumentException("Parameter 'cursor' isn't valid: " + token);
+        }
+        try {
+            return new String(Base64.decodeBase64(token), CURSOR_ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A part of a multipart/form-data request: an uploaded file or a form field.<br>
+ * <br>
+ * Its content is kept in memory while it's small, and it's moved to a temporary
+ * file once it grows beyond 'multipart.threshold' bytes, so large uploads don't
+ * use the heap. The content isn't read until it's asked for, and temporary files
+ * are deleted when the request finishes, unless they were moved with
+ * {@link #transferTo(File)}.
+ * 
+ * @author agent
+ */
+public class Part {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Part.class);
+
+    private String name;
+    private String filename;
+    private Map<String, String> headers;
+    private String encoding;
+    private int threshold;
+    private File directory;
+    private byte[] memory = new byte[0];
+    private long size;
+    private File file;
+    private FileChannel channel;
+    private boolean moved = false;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            Name of the form field.
+     * @param filename
+     *            Name of the uploaded file, null for fields that aren't files.
+     * @param headers
+     *            Headers of the part, names in lower case.
+     * @param encoding
+     *            Encoding used to read the part as a String.
+     * @param threshold
+     *            Maximum size of the content kept in memory.
+     * @param directory
+     *            Directory for temporary files, null for the default one.
+     */
+    Part(String name, String filename, Map<String, String> headers, String encoding, int threshold, File directory) {
+        this.name = name;
+        this.filename = filename;
+        this.headers = headers;
+        this.encoding = encoding;
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the name of the form field.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the name of the uploaded file, without any path, or null if this part
+     * isn't a file.
+     */
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Checks if this part is an uploaded file.
+     */
+    public boolean isFile() {
+        return this.filename != null;
+    }
+
+    /**
+     * Gets the content type of the part, or null if the client didn't send it.
+     */
+    public String getContentType() {
+        return this.headers.get("content-type");
+    }
+
+    /**
+     * Gets a header of the part.
+     * 
+     * @param name
+     *            Header name, it isn't case sensitive.
+     */
+    public String getHeader(String name) {
+        return this.headers.get(name.toLowerCase());
+    }
+
+    /**
+     * Gets the size of the content, in bytes.
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Checks if the content is kept in memory instead of a temporary file.
+     */
+    public boolean isInMemory() {
+        return this.file == null;
+    }
+
+    /**
+     * Opens a stream to read the content. Every call opens a new stream that must
+     * be closed by the caller.
+     */
+    public InputStream getInputStream() throws IOException {
+        if (this.file == null) {
+            return new ByteArrayInputStream(this.memory, 0, (int) this.size);
+        }
+        return new FileInputStream(this.file);
+    }
+
+    /**
+     * Reads the content as a String, with the encoding of the request.
+     */
+    public String getString() throws IOException {
+        return this.getString(this.encoding);
+    }
+
+    /**
+     * Reads the content as a String.
+     * 
+     * @param encoding
+     *            Encoding of the content.
+     */
+    public String getString(String encoding) throws IOException {
+        if (this.file == null) {
+            return new String(this.memory, 0, (int) this.size, encoding);
+        }
+        if (this.size > Integer.MAX_VALUE) {
+            throw new IOException("Part " + this.name + " is too large to be read as a String");
+        }
+        byte[] content = new byte[(int) this.size];
+        FileChannel in = new FileInputStream(this.file).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining() && in.read(buffer) != -1) {
+                // Reading until the buffer is full
+            }
+        } finally {
+            in.close();
+        }
+        return new String(content, encoding);
+    }
+
+    /**
+     * Writes the content into a file. If the content is in a temporary file, it's
+     * moved when possible, otherwise it's copied between channels, without going
+     * through the heap.
+     * 
+     * @param destination
+     *            File to write.
+     */
+    public void transferTo(File destination) throws IOException {
+        if (this.file != null && !this.moved && this.file.renameTo(destination)) {
+            LOGGER.debug("Part {} moved to {}", this.name, destination);
+            this.file = destination;
+            this.moved = true;
+            return;
+        }
+        FileChannel out = new FileOutputStream(destination).getChannel();
+        try {
+            if (this.file == null) {
+                ByteBuffer buffer = ByteBuffer.wrap(this.memory, 0, (int) this.size);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            } else {
+                FileChannel in = new FileInputStream(this.file).getChannel();
+                try {
+                    long position = 0;
+                    while (position < this.size) {
+                        position += in.transferTo(position, this.size - position, out);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+        LOGGER.debug("Part {} copied to {}", this.name, destination);
+    }
+
+    /**
+     * Deletes the temporary file, if any. It's called by the framework when the
+     * request finishes.
+     */
+    public void delete() {
+        this.close();
+        if (this.file != null && !this.moved && !this.file.delete() && this.file.exists()) {
+            LOGGER.warn("Can't delete temporary file {}", this.file);
+        }
+    }
+
+    /**
+     * Appends content while the request is parsed.
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        if (this.channel == null && this.size + length > this.threshold) {
+            this.spill();
+        }
+        if (this.channel == null) {
+            if (this.size + length > this.memory.length) {
+                byte[] grown = new byte[(int) Math.min(this.threshold, Math.max(this.memory.length * 2, this.size + length))];
+                System.arraycopy(this.memory, 0, grown, 0, (int) this.size);
+                this.memory = grown;
+            }
+            System.arraycopy(bytes, offset, this.memory, (int) this.size, length);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+        this.size += length;
+    }
+
+    /**
+     * Closes the temporary file once the part has been read from the request.
+     */
+    void close() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Can't close temporary file " + this.file, e);
+            }
+            this.channel = null;
+        }
+    }
+
+    private void spill() throws IOException {
+        this.file = File.createTempFile("serfj", ".part", this.directory);
+        LOGGER.debug("Part {} is larger than {} bytes, writing it into {}", new Object[] { this.name, this.threshold, this.file });
+        this.channel = new FileOutputStream(this.file).getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(this.memory, 0, (int) this.size);
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.memory = null;
+    }
+
+    @Override
+    public String toString() {
+        return "Part [name=" + name + ", filename=" + filename + ", size=" + size + (file == null ? "" : ", file=" + file) + "]";
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.serfj.metrics.Histogram;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RouteTimings;
+
+/**
+ * Writes the timings and counters of the routes in the Prometheus text format, in
+ * 'metrics.path':<br>
+ * <br>
+ * - serfj_requests_total{route, status}: responses written.<br>
+ * - serfj_request_duration_seconds{route}: histogram of the whole requests, with
+ * the buckets in 'metrics.buckets'.<br>
+ * - serfj_phase_duration_seconds{route, phase}: time spent in every
+ * {@link Phase}, as a summary without quantiles.<br>
+ * - serfj_serialized_bytes_total{route}: bytes of serialized responses and files.<br>
+ * - serfj_request_allocated_bytes{route} and serfj_request_cpu_seconds{route}:
+ * memory allocated and CPU time used by every request, as summaries with the
+ * 0.5, 0.9 and 0.99 quantiles, if 'timing.resources' is enabled.<br>
+ * - serfj_errors_total{route, exception}: exceptions thrown by actions.<br>
+ * - serfj_bulkhead_limit, serfj_bulkhead_in_flight and
+ * serfj_bulkhead_rejected_total{bulkhead}: state of the bulkheads used until now.<br>
+ * - serfj_limiter_limit, serfj_limiter_in_flight and
+ * serfj_limiter_rejected_total{route}: current concurrency limit, requests in
+ * flight and rejections of the routes with a 'limiter'.<br>
+ * <br>
+ * Metrics are rendered into a buffer that is kept between scrapes, one scrape at a
+ * time, and written to the client once rendered, so a slow scraper doesn't hold
+ * back the other ones.
+ * 
+ * @author agent
+ */
+class Prometheus {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1000000000d;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * Values of the phase label.
+     */
+    private static final String[] PHASE_LABELS = new String[PHASES.length];
+
+    static {
+        for (Phase phase : PHASES) {
+            PHASE_LABELS[phase.ordinal()] = phase.name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    /**
+     * Percentiles of the summaries, and their quantile labels.
+     */
+    private static final int[] PERCENTILES = { 50, 90, 99 };
+    private static final String[] QUANTILES = { "0.5", "0.9", "0.99" };
+
+    private String path;
+    private Timings timings;
+    private Bulkheads bulkheads;
+    private Limiters limiters;
+
+    /**
+     * Buckets of the request durations, in nanoseconds, and their 'le' labels.
+     */
+    private long[] limits;
+    private String[] labels;
+
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+    private final long[] counts;
+
+    public Prometheus(Config config, Timings timings, Bulkheads bulkheads, Limiters limiters) {
+        this.path = config.getString(Config.METRICS_PATH).trim();
+        this.timings = timings;
+        this.bulkheads = bulkheads;
+        this.limiters = limiters;
+        String[] buckets = config.getString(Config.METRICS_BUCKETS).split(",");
+        this.limits = new long[buckets.length];
+        this.labels = new String[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            this.labels[i] = buckets[i].trim();
+            this.limits[i] = (long) (Double.parseDouble(this.labels[i]) * NANOS_PER_SECOND);
+            if (i > 0 && this.limits[i] <= this.limits[i - 1]) {
+                throw new IllegalArgumentException("Buckets in metrics.buckets must be in ascending order: " + config.getString(Config.METRICS_BUCKETS));
+            }
+        }
+        this.counts = new long[this.limits.length];
+    }
+
+    /**
+     * Says if an URL is the metrics' one.
+     */
+    public boolean matches(String url) {
+        return this.path.equals(url);
+    }
+
+    /**
+     * Writes the metrics.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!"GET".equals(request.getMethod())) {
+            response.setHeader("Allow", "GET");
+            response.sendError(HttpURLConnection.HTTP_BAD_METHOD);
+            return;
+        }
+        String metrics;
+        synchronized (this) {
+            this.buffer.setLength(0);
+            this.render(this.buffer);
+            metrics = this.buffer.toString();
+        }
+        // The client may be slow, so it isn't written while holding the lock
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-cache");
+        PrintWriter writer = response.getWriter();
+        writer.write(metrics);
+        writer.flush();
+    }
+
+    /**
+     * Writes the metrics of every route.
+     */
+    void render(StringBuilder out) {
+        Iterable<RouteTimings> routes = this.timings.getRoutes();
+        header(out, "serfj_requests_total", "counter", "Responses written, by route and status.");
+        for (RouteTimings route : routes) {
+            for (int status : route.getStatuses()) {
+                out.append("serfj_requests_total{route=\"");
+                escape(out, route.getName()).append("\",status=\"").append(status).append("\"} ").append(route.getResponses(status)).append('\n');
+            }
+        }
+        header(out, "serfj_request_duration_seconds", "histogram", "Time to answer requests, by route.");
+        for (RouteTimings route : routes) {
+            Histogram histogram = route.getHistogram(Phase.REQUEST);
+            long count = histogram.getCumulativeCounts(this.limits, this.counts);
+            if (count == 0) {
+                continue;
+            }
+            for (int i = 0; i < this.limits.length; i++) {
+                out.append("serfj_request_duration_seconds_bucket{route=\"");
+                escape(out, route.getName()).append("\",le=\"").append(this.labels[i]).append("\"} ").append(this.counts[i]).append('\n');
+            }
+            out.append("serfj_request_duration_seconds_bucket{route=\"");
+            escape(out, route.getName()).append("\",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("serfj_request_duration_seconds_sum{route=\"");
+            escape(out, route.getName()).append("\"} ").append(histogram.getTotal() / NANOS_PER_SECOND).append('\n');
+            out.append("serfj_request_duration_seconds_count{route=\"");
+            escape(out, route.getName()).append("\"} ").append(count).append('\n');
+        }
+        header(out, "serfj_phase_duration_seconds", "summary", "Time spent in every phase of the requests, by route.");
+        for (RouteTimings route : routes) {
+            for (Phase phase : PHASES) {
+                Histogram histogram = route.getHistogram(phase);
+                long count = histogram.getCount();
+                if (phase == Phase.REQUEST || count == 0) {
+                    continue;
+                }
+                out.append("serfj_phase_duration_seconds_sum{route=\"");
+                escape(out, route.getName()).append("\",phase=\"").append(PHASE_LABELS[phase.ordinal()]).append("\"} ")
+                        .append(histogram.getTotal() / NANOS_PER_SECOND).append('\n');
+                out.append("serfj_phase_duration_seconds_count{route=\"");
+                escape(out, route.getName()).append("\",phase=\"").append(PHASE_LABELS[phase.ordinal()]).append("\"} ").append(count).append('\n');
+            }
+        }
+        header(out, "serfj_serialized_bytes_total", "counter", "Bytes of serialized responses and files sent, by route.");
+        for (RouteTimings route : routes) {
+            long bytes = route.getBytes();
+            if (bytes > 0) {
+                out.append("serfj_serialized_bytes_total{route=\"");
+                escape(out, route.getName()).append("\"} ").append(bytes).append('\n');
+            }
+        }
+        if (this.timings.getResources() != null) {
+            header(out, "serfj_request_allocated_bytes", "summary", "Memory allocated by the thread serving the requests, by route.");
+            for (RouteTimings route : routes) {
+                summary(out, "serfj_request_allocated_bytes", route.getName(), route.getAllocated(), 1);
+            }
+            header(out, "serfj_request_cpu_seconds", "summary", "CPU time used by the thread serving the requests, by route.");
+            for (RouteTimings route : routes) {
+                summary(out, "serfj_request_cpu_seconds", route.getName(), route.getCpu(), NANOS_PER_SECOND);
+            }
+        }
+        header(out, "serfj_errors_total", "counter", "Exceptions thrown by actions, by route and exception.");
+        for (RouteTimings route : routes) {
+            for (String type : route.getErrorTypes()) {
+                out.append("serfj_errors_total{route=\"");
+                escape(out, route.getName()).append("\",exception=\"");
+                escape(out, type).append("\"} ").append(route.getErrors(type)).append('\n');
+            }
+        }
+        Collection<Bulkhead> bulkheads = this.bulkheads.getBulkheads();
+        if (!bulkheads.isEmpty()) {
+            header(out, "serfj_bulkhead_limit", "gauge", "Maximum number of requests served at the same time, by bulkhead.");
+            for (Bulkhead bulkhead : bulkheads) {
+                sample(out, "serfj_bulkhead_limit", "bulkhead", bulkhead.getName(), bulkhead.getLimit());
+            }
+            header(out, "serfj_bulkhead_in_flight", "gauge", "Requests being served, by bulkhead.");
+            for (Bulkhead bulkhead : bulkheads) {
+                sample(out, "serfj_bulkhead_in_flight", "bulkhead", bulkhead.getName(), bulkhead.getInFlight());
+            }
+            header(out, "serfj_bulkhead_rejected_total", "counter", "Requests rejected, by bulkhead.");
+            for (Bulkhead bulkhead : bulkheads) {
+                sample(out, "serfj_bulkhead_rejected_total", "bulkhead", bulkhead.getName(), bulkhead.getRejected());
+            }
+        }
+        Collection<Limiter> limiters = this.limiters.getLimiters();
+        if (!limiters.isEmpty()) {
+            header(out, "serfj_limiter_limit", "gauge", "Current concurrency limit, by route.");
+            for (Limiter limiter : limiters) {
+                sample(out, "serfj_limiter_limit", "route", limiter.getName(), limiter.getLimit());
+            }
+            header(out, "serfj_limiter_in_flight", "gauge", "Requests being served under the concurrency limit, by route.");
+            for (Limiter limiter : limiters) {
+                sample(out, "serfj_limiter_in_flight", "route", limiter.getName(), limiter.getInFlight());
+            }
+            header(out, "serfj_limiter_rejected_total", "counter", "Requests rejected by the concurrency limit, by route.");
+            for (Limiter limiter : limiters) {
+                sample(out, "serfj_limiter_rejected_total", "route", limiter.getName(), limiter.getRejected());
+            }
+        }
+    }
+
+    /**
+     * Writes a value with a single label.
+     */
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(name).append('{').append(label).append("=\"");
+        escape(out, value).append("\"} ").append(sample).append('\n');
+    }
+
+    /**
+     * Writes a summary with quantiles of a route.
+     * 
+     * @param unit
+     *            Units of the histogram in a unit of the metric, 1 to write
+     *            integers.
+     */
+    private static void summary(StringBuilder out, String name, String route, Histogram histogram, double unit) {
+        long count = histogram.getCount();
+        if (count == 0) {
+            return;
+        }
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            out.append(name).append("{route=\"");
+            escape(out, route).append("\",quantile=\"").append(QUANTILES[i]).append("\"} ");
+            value(out, histogram.getValueAtPercentile(PERCENTILES[i]), unit).append('\n');
+        }
+        out.append(name).append("_sum{route=\"");
+        value(escape(out, route).append("\"} "), histogram.getTotal(), unit).append('\n');
+        out.append(name).append("_count{route=\"");
+        escape(out, route).append("\"} ").append(count).append('\n');
+    }
+
+    private static StringBuilder value(StringBuilder out, long value, double unit) {
+        return unit == 1 ? out.append(value) : out.append(value / unit);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends a label value, escaping backslashes, quotes and new lines.
+     */
+    private static StringBuilder escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        return out;
+    }
+}
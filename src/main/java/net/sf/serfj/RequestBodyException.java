@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+
+/**
+ * The body of a request can't be accepted, because it's too large or because it
+ * can't be deserialized. It has the HTTP status code that will be answered.
+ * 
+ * @author agent
+ */
+public class RequestBodyException extends IOException {
+
+    private static final long serialVersionUID = -3081942137498123370L;
+
+    private int status;
+
+    /**
+     * Constructor.
+     * 
+     * @param status
+     *            HTTP status code (413, 400, etc.)
+     * @param message
+     *            Exception message.
+     */
+    public RequestBodyException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param status
+     *            HTTP status code (413, 400, etc.)
+     * @param message
+     *            Exception message.
+     * @param cause
+     *            An exception.
+     */
+    public RequestBodyException(int status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    /**
+     * Gets the HTTP status code for the response.
+     */
+    public int getStatus() {
+        return this.status;
+    }
+}
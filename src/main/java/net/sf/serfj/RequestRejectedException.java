@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+
+/**
+ * A request is rejected without calling the action, because the server can't serve
+ * it now. It has the HTTP status code that will be answered, and the seconds the
+ * client should wait before trying again.
+ * 
+ * @author agent
+ */
+public class RequestRejectedException extends IOException {
+
+    private static final long serialVersionUID = 5120930464392812474L;
+
+    private int status;
+    private int retryAfter;
+
+    /**
+     * Constructor.
+     * 
+     * @param status
+     *            HTTP status code (503, etc.)
+     * @param message
+     *            Exception message.
+     * @param retryAfter
+     *            Seconds before trying again, it's sent in the Retry-After header
+     *            if it's greater than 0.
+     */
+    public RequestRejectedException(int status, String message, int retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the HTTP status code for the response.
+     */
+    public int getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Gets the seconds the client should wait before trying again.
+     */
+    public int getRetryAfter() {
+        return this.retryAfter;
+    }
+}
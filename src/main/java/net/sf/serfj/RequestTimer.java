@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import net.sf.serfj.jfr.RequestEvents;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RouteTimings;
+
+/**
+ * Durations of the phases of a request, the bytes it serialized and the exception
+ * its action threw, which are recorded in the timings of its route when the
+ * response is written. Phases are timed by the thread serving the request, so the
+ * timer isn't thread safe.<br>
+ * <br>
+ * If the JVM resources of the requests are accounted, the bytes allocated and the
+ * CPU time used by every thread that serves a part of the request (the container
+ * thread, the virtual thread of the action or the thread writing an asynchronous
+ * result) are added up, sampling them when that segment starts and ends. The
+ * request is recorded when its response is finished and its last segment has
+ * ended.<br>
+ * <br>
+ * Phases are also timed when slow requests are logged, whatever the timings are
+ * enabled or not. Flight Recorder events time themselves, the timer only carries
+ * them.
+ * 
+ * @author agent
+ */
+class RequestTimer {
+
+    /**
+     * Timer that doesn't record anything, for requests that aren't timed.
+     */
+    static final RequestTimer DISABLED = new RequestTimer(null, RequestEvents.NONE, null);
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Timings timings;
+    private final RequestEvents events;
+    private final SlowRequestLog slowRequests;
+    private final boolean clocked;
+    private final long start;
+    private final ThreadResources resources;
+    private long allocated;
+    private long cpu;
+    private int segments;
+    private boolean segmented;
+    private long[] phases;
+    private long bytes;
+    private String error;
+
+    /**
+     * Durations of a finished request waiting for its segments to end.
+     */
+    private long[] pending;
+    private UrlInfo pendingUrlInfo;
+    private int pendingStatus;
+
+    /**
+     * Constructor.
+     * 
+     * @param timings
+     *            Timings where the request is recorded, or null if it isn't.
+     * @param events
+     *            Flight Recorder events of the request.
+     * @param slowRequests
+     *            Log where the request is written if it's slow, or null if slow
+     *            requests aren't logged.
+     */
+    RequestTimer(Timings timings, RequestEvents events, SlowRequestLog slowRequests) {
+        this.timings = timings;
+        this.events = events;
+        this.slowRequests = slowRequests;
+        this.clocked = timings != null || slowRequests != null;
+        this.start = this.clocked ? System.nanoTime() : 0;
+        if (timings != null || slowRequests != null) {
+            this.phases = new long[PHASES.length];
+        }
+        this.resources = timings != null ? timings.getResources() : null;
+    }
+
+    /**
+     * Starts a segment of the request in the current thread, whose resources are
+     * accounted to the request when it ends.
+     * 
+     * @return the resources used by the thread until now, to give them to
+     *         {@link #endSegment(long[])}, or null if they aren't accounted.
+     */
+    long[] startSegment() {
+        if (this.resources == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (this.phases == null) {
+                return null;
+            }
+            this.segments++;
+            this.segmented = true;
+        }
+        return new long[] { this.resources.getAllocatedBytes(), this.resources.getCpuTime() };
+    }
+
+    /**
+     * Ends a segment of the request in the thread that started it. If the request
+     * is finished and this was its last segment, it's recorded.
+     * 
+     * @param start
+     *            Value returned by {@link #startSegment()}.
+     */
+    void endSegment(long[] start) {
+        if (start == null) {
+            return;
+        }
+        long allocated = this.resources.getAllocatedBytes() - start[0];
+        long cpu = this.resources.getCpuTime() - start[1];
+        long[] durations;
+        synchronized (this) {
+            this.allocated += allocated;
+            this.cpu += cpu;
+            if (--this.segments > 0 || this.pending == null) {
+                return;
+            }
+            durations = this.pending;
+            this.pending = null;
+        }
+        this.publish(this.pendingUrlInfo, durations, this.pendingStatus);
+    }
+
+    /**
+     * Gets the Flight Recorder events of the request.
+     */
+    RequestEvents getEvents() {
+        return this.events;
+    }
+
+    /**
+     * Starts timing a phase.
+     * 
+     * @return the start of the phase, to give it to {@link #stop(Phase, long)}.
+     */
+    long start() {
+        return this.clocked ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing a phase. Phases timed several times in a request add up.
+     * 
+     * @param phase
+     *            Phase.
+     * @param start
+     *            Value returned by {@link #start()}.
+     * @return nanoseconds the phase took, or 0 if phases aren't timed.
+     */
+    long stop(Phase phase, long start) {
+        if (!this.clocked) {
+            return 0;
+        }
+        // Phases that took 0 ns are recorded too
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        if (this.phases != null) {
+            this.phases[phase.ordinal()] += elapsed;
+        }
+        return elapsed;
+    }
+
+    /**
+     * Says if the request is being timed, so its counters are recorded or logged.
+     */
+    boolean isRecording() {
+        return this.phases != null;
+    }
+
+    /**
+     * Adds the size of a serialized response or a file sent.
+     */
+    void addBytes(long bytes) {
+        if (this.phases != null) {
+            this.bytes += bytes;
+        }
+    }
+
+    /**
+     * Keeps the exception thrown by the action, which is answered with an error.
+     */
+    void failed(Throwable exception) {
+        if (this.phases != null) {
+            this.error = exception.getClass().getName();
+        }
+    }
+
+    /**
+     * Records the durations of the phases and the counters of the request, once,
+     * and logs it if it's slow.
+     * 
+     * @param urlInfo
+     *            Information of the request URL, to find its route.
+     * @param status
+     *            HTTP status of the response.
+     */
+    void finish(UrlInfo urlInfo, int status) {
+        if (this.phases == null) {
+            return;
+        }
+        long[] durations;
+        synchronized (this) {
+            durations = this.phases;
+            this.phases = null;
+            durations[Phase.REQUEST.ordinal()] = Math.max(1, System.nanoTime() - this.start);
+            if (this.segments > 0) {
+                // Recorded when the threads serving the request are done
+                this.pending = durations;
+                this.pendingUrlInfo = urlInfo;
+                this.pendingStatus = status;
+                return;
+            }
+        }
+        this.publish(urlInfo, durations, status);
+    }
+
+    private void publish(UrlInfo urlInfo, long[] durations, int status) {
+        if (this.timings != null) {
+            this.record(urlInfo, durations, status);
+        }
+        if (this.slowRequests != null) {
+            this.slowRequests.log(urlInfo, durations, status, this.bytes, this.error);
+        }
+    }
+
+    private void record(UrlInfo urlInfo, long[] durations, int status) {
+        RouteTimings route = this.timings.get(urlInfo);
+        for (int i = 0; i < durations.length; i++) {
+            if (durations[i] > 0) {
+                route.record(PHASES[i], durations[i]);
+            }
+        }
+        route.countResponse(status);
+        if (this.bytes > 0) {
+            route.addBytes(this.bytes);
+        }
+        if (this.error != null) {
+            route.countError(this.error);
+        }
+        if (this.segmented) {
+            synchronized (this) {
+                route.recordResources(this.allocated, this.cpu);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of names resolved from parts of the requests, as controller and serializer
+ * classes. Keys come from URLs and headers sent by clients, so the cache is
+ * emptied when it's full instead of growing without limit. Hits and misses are
+ * counted with LongAdders, so reading them doesn't contend with requests.
+ * 
+ * @author agent
+ */
+class ResolutionCache {
+
+    /**
+     * Value of keys that were resolved to null.
+     */
+    private static final Object NONE = new Object();
+
+    private final int maxSize;
+    private final Map<String, Object> values = new ConcurrentHashMap<String, Object>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            Maximum number of keys cached.
+     */
+    public ResolutionCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the value of a key, resolving it if it isn't cached.
+     * 
+     * @param key
+     *            Key.
+     * @param resolver
+     *            Resolves the key when it isn't cached. It could return null.
+     * @return the value of the key.
+     */
+    public String get(String key, Function<String, String> resolver) {
+        Object value = this.values.get(key);
+        if (value != null) {
+            this.hits.increment();
+            return value == NONE ? null : (String) value;
+        }
+        this.misses.increment();
+        String resolved = resolver.apply(key);
+        if (this.values.size() >= this.maxSize) {
+            this.values.clear();
+        }
+        this.values.put(key, resolved == null ? NONE : resolved);
+        return resolved;
+    }
+
+    public int size() {
+        return this.values.size();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Removes every key, so they are resolved again. Counters are kept.
+     */
+    public void clear() {
+        this.values.clear();
+    }
+}
@@ -15,15 +15,31 @@
  */
 package net.sf.serfj;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -32,8 +48,20 @@ import javax.servlet.http.HttpServletResponse;
 
 import net.sf.serfj.annotations.DoNotRenderPage;
 import net.sf.serfj.config.ConfigFileIOException;
+import net.sf.serfj.finders.SerializerFinder;
+import net.sf.serfj.jfr.RequestEvents;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.serializers.AllowedTypes;
+import net.sf.serfj.serializers.Base64Serializer;
+import net.sf.serfj.serializers.EventsSerializer;
 import net.sf.serfj.serializers.FileSerializer;
 import net.sf.serfj.serializers.ObjectSerializer;
+import net.sf.serfj.serializers.ProjectingSerializer;
+import net.sf.serfj.serializers.Projection;
+import net.sf.serfj.serializers.Serializer;
+import net.sf.serfj.serializers.StreamingSerializer;
+import net.sf.serfj.serializers.StreamDeserializer;
+import net.sf.serfj.serializers.TypedDeserializer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +76,7 @@ import org.slf4j.LoggerFactory;
 public class ResponseHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ResponseHelper.class);
+
     private ServletContext context;
     private HttpServletRequest request;
     private HttpServletResponse response;
@@ -61,22 +90,97 @@ public class ResponseHelper {
     private String attachmentFilename;
     private String contentType;
     private Config config;
+    private AsyncContext asyncContext;
+    private boolean dispatched;
+    private boolean suspended;
+    private long start = System.nanoTime();
+    private long timeout;
+    private Object body;
+    private boolean bodyRead = false;
+    private List<Part> parts;
+    private RequestTimer timer = RequestTimer.DISABLED;
+    private Errors errors;
+    private List<Runnable> finishers = new ArrayList<Runnable>();
+    private boolean admitted;
     
     /**
      * Constructor.
      */
     protected ResponseHelper(ServletContext context, HttpServletRequest request, HttpServletResponse response, UrlInfo urlInfo, String viewsPath) {
+        this(context, request, response, urlInfo, viewsPath, null);
+    }
+
+    /**
+     * Constructor with the framework configuration, so it hasn't to be read again.
+     */
+    protected ResponseHelper(ServletContext context, HttpServletRequest request, HttpServletResponse response, UrlInfo urlInfo, String viewsPath, Config config) {
         this.context = context;
         this.request = request;
         this.response = response;
         this.urlInfo = urlInfo;
         this.viewsPath = viewsPath;
-		try {
-			this.config = new Config("/config/serfj.properties");
-		} catch (ConfigFileIOException e) {
-			LOGGER.error("Can't load framework configuration", e);
-		}
+        this.config = config;
+        if (this.config == null) {
+            try {
+                this.config = new Config("/config/serfj.properties");
+            } catch (ConfigFileIOException e) {
+                LOGGER.error("Can't load framework configuration", e);
+            }
+        }
         this.initParams();
+        if (this.config != null) {
+            this.initTimeout();
+        }
+    }
+
+    /**
+     * Reads the deadline the client asked for, in milliseconds.
+     */
+    private void initTimeout() {
+        String header = request.getHeader(this.config.getString(Config.DEADLINE_HEADER));
+        if (header != null) {
+            try {
+                this.timeout = Math.max(1, Long.parseLong(header.trim()));
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Wrong request timeout [{}]", header);
+            }
+        }
+    }
+
+    /**
+     * Sets the deadline of the route. The request has to be served before the
+     * deadline of the route and the one the client asked for.
+     * 
+     * @param timeout
+     *            Milliseconds since the request arrived, 0 if there is no deadline.
+     */
+    void setTimeout(long timeout) {
+        if (timeout > 0 && (this.timeout == 0 || timeout < this.timeout)) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Gets the time left to serve the request. Actions doing long work should
+     * check it, or pass it as timeout to the services they call.
+     * 
+     * @return milliseconds until the deadline, 0 if it has passed, or
+     *         Long.MAX_VALUE if the request hasn't a deadline.
+     */
+    public long getRemainingTime() {
+        if (this.timeout == 0) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = this.timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start);
+        return remaining > 0 ? remaining : 0;
+    }
+
+    /**
+     * Says if the deadline of the request has passed. The response won't be
+     * serialized, the client gets a 504 (Gateway Timeout) instead.
+     */
+    public boolean isExpired() {
+        return this.getRemainingTime() == 0;
     }
 
     /**
@@ -272,6 +376,281 @@ public class ResponseHelper {
         return this.urlInfo.getId(resource);
     }
 
+    /**
+     * Gets the Ids of a multi-get, which is answered by the showMany action.<br>
+     * <br>
+     * /sessions/1,2,3 -> Ids: 1, 2 and 3<br>
+     * /sessions/1 -> null<br>
+     */
+    public String[] getIds() {
+        return this.urlInfo.getIds();
+    }
+
+    /**
+     * Gets the fields of the serialized object that the client asked for in the
+     * 'fields' parameter (?fields=id,name,accounts.balance). Only these fields will
+     * be written, so actions can use it to avoid loading the other ones.
+     * 
+     * @return the projection, or null if all fields will be serialized.
+     */
+    public Projection getProjection() {
+        return Projection.compile(request.getParameter(this.config.getString(Config.FIELDS_PARAMETER)));
+    }
+
+    /**
+     * Gets the object that came in the request body, deserialized by the serializer
+     * for its Content-Type (application/json, text/xml, etc.), the same that would
+     * serialize the resource for that extension.<br>
+     * <br>
+     * The body is deserialized while it's read from the request, only once, the first
+     * time this method is called. It can't be larger than 'max.body.size' bytes.<br>
+     * <br>
+     * As the type of the body isn't known, it can only be made of harmless JDK types
+     * and the ones in 'body.allowed.types'. Actions that declare the body as their
+     * last parameter get it built from the classes reachable from that type.
+     * 
+     * @return the deserialized object, or null if there isn't a body or its
+     *         Content-Type has no serializer.
+     * @throws RequestBodyException
+     *             if the body is too large or it can't be deserialized.
+     */
+    public Object getBody() throws RequestBodyException {
+        return this.getBody(Object.class);
+    }
+
+    /**
+     * Gets the object that came in the request body, instantiating only the type
+     * expected and the types of its fields.
+     * 
+     * @param type
+     *            Type of the body, with its generic arguments.
+     */
+    Object getBody(Type type) throws RequestBodyException {
+        if (!this.bodyRead) {
+            this.bodyRead = true;
+            this.body = this.readBody(type);
+        }
+        return this.body;
+    }
+
+    private Object readBody(Type type) throws RequestBodyException {
+        String mediaType = this.getMediaType();
+        String extension = mediaType == null ? null : SerializerFinder.getExtension(mediaType);
+        if (extension == null) {
+            LOGGER.debug("There isn't a serializer for the request body's content-type {}", mediaType);
+            return null;
+        }
+        long maxSize = this.config.getLong(Config.MAX_BODY_SIZE);
+        if (request.getContentLength() > maxSize) {
+            throw new RequestBodyException(LimitedInputStream.HTTP_ENTITY_TOO_LARGE, "Request body is larger than " + maxSize + " bytes");
+        }
+        String serializerClass = new SerializerFinder(this.config, extension).findResource(urlInfo.getResource());
+        String encoding = request.getCharacterEncoding();
+        if (encoding == null) {
+            encoding = this.config.getString(Config.ENCODING);
+        }
+        InputStream is = null;
+        try {
+            LOGGER.debug("Deserializing request body using {}", serializerClass);
+            Object serializer = Class.forName(serializerClass).newInstance();
+            if (serializer instanceof Base64Serializer && !this.config.getBoolean(Config.BODY_JAVA_SERIALIZATION)) {
+                throw new RequestBodyException(HttpURLConnection.HTTP_UNSUPPORTED_TYPE, "Java serialized request bodies aren't accepted");
+            }
+            is = new LimitedInputStream(request.getInputStream(), maxSize);
+            if (serializer instanceof TypedDeserializer) {
+                AllowedTypes types = new AllowedTypes(type, this.config.getString(Config.BODY_ALLOWED_TYPES));
+                return ((TypedDeserializer) serializer).deserialize(is, encoding, types);
+            } else if (serializer instanceof StreamDeserializer) {
+                return ((StreamDeserializer) serializer).deserialize(is, encoding);
+            } else if (serializer instanceof ObjectSerializer) {
+                return ((ObjectSerializer) serializer).deserialize(this.read(is, encoding));
+            }
+            LOGGER.warn("{} can't deserialize request bodies", serializerClass);
+            return null;
+        } catch (Exception e) {
+            // The limit could be exceeded inside the serializer, so it could come wrapped
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof RequestBodyException) {
+                    throw (RequestBodyException) cause;
+                }
+            }
+            throw new RequestBodyException(HttpURLConnection.HTTP_BAD_REQUEST, "Can't deserialize request body: " + e.getLocalizedMessage(), e);
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Can't close request body", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the request content-type without parameters (charset, boundary, etc.)
+     */
+    String getMediaType() {
+        String mediaType = request.getContentType();
+        if (mediaType != null) {
+            int semicolon = mediaType.indexOf(';');
+            if (semicolon >= 0) {
+                mediaType = mediaType.substring(0, semicolon);
+            }
+            mediaType = mediaType.trim().toLowerCase();
+        }
+        return mediaType;
+    }
+
+    private String read(InputStream is, String encoding) throws IOException {
+        Reader reader = new InputStreamReader(is, encoding);
+        StringBuilder string = new StringBuilder();
+        char[] buffer = new char[4096];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            string.append(buffer, 0, read);
+        }
+        return string.toString();
+    }
+
+    /**
+     * Gets the parts of a multipart/form-data request, that is, the uploaded files
+     * and the form fields.<br>
+     * <br>
+     * The request is parsed the first time this method is called. Every part is kept
+     * in memory until it's larger than 'multipart.threshold' bytes, then it's written
+     * into a temporary file that will be deleted when the request finishes.
+     * 
+     * @return parts in the same order they came, or an empty list if the request
+     *         isn't multipart/form-data.
+     * @throws RequestBodyException
+     *             if the request is larger than 'max.upload.size' or it's malformed.
+     */
+    public List<Part> getParts() throws RequestBodyException {
+        if (this.parts == null) {
+            this.parts = this.readParts();
+        }
+        return this.parts;
+    }
+
+    /**
+     * Gets a part of a multipart/form-data request.
+     * 
+     * @param name
+     *            Name of the form field.
+     * @return the first part with that name, or null if there isn't anyone.
+     * @throws RequestBodyException
+     *             if the request is larger than 'max.upload.size' or it's malformed.
+     */
+    public Part getPart(String name) throws RequestBodyException {
+        for (Part part : this.getParts()) {
+            if (name.equals(part.getName())) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ends the request, deleting the temporary files of the multipart request and
+     * recording its timings. It's called once the response has been written.
+     */
+    void finish() {
+        this.deleteParts();
+        this.runFinishers();
+        if (this.timer.isRecording()) {
+            this.timer.finish(this.urlInfo, this.getStatus());
+        }
+    }
+
+    /**
+     * Runs something when the response is finished, as giving back the permits the
+     * request took to be let in. Helpers created with {@link #forUrl(UrlInfo)} run
+     * it when the helper of the request is finished.
+     */
+    void onFinish(Runnable finisher) {
+        synchronized (this.finishers) {
+            this.finishers.add(finisher);
+        }
+    }
+
+    private void runFinishers() {
+        List<Runnable> pending;
+        synchronized (this.finishers) {
+            pending = new ArrayList<Runnable>(this.finishers);
+            this.finishers.clear();
+        }
+        for (Runnable finisher : pending) {
+            try {
+                finisher.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Can't finish the response", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the status of the response.
+     * 
+     * @return the status, or 200 (OK) if the container implements Servlet 2.5 or
+     *         older, which can't tell it.
+     */
+    private int getStatus() {
+        try {
+            return response.getStatus();
+        } catch (IncompatibleClassChangeError e) {
+            return HttpURLConnection.HTTP_OK;
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the multipart request, if any.
+     */
+    void deleteParts() {
+        if (this.parts != null) {
+            for (Part part : this.parts) {
+                part.delete();
+            }
+        }
+    }
+
+    private List<Part> readParts() throws RequestBodyException {
+        if (!"multipart/form-data".equals(this.getMediaType())) {
+            return Collections.emptyList();
+        }
+        String boundary = MultipartParser.getBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new RequestBodyException(HttpURLConnection.HTTP_BAD_REQUEST, "Multipart request without boundary");
+        }
+        long maxSize = this.config.getLong(Config.MAX_UPLOAD_SIZE);
+        if (maxSize < 0) {
+            maxSize = Long.MAX_VALUE;
+        } else if (request.getContentLength() > maxSize) {
+            throw new RequestBodyException(LimitedInputStream.HTTP_ENTITY_TOO_LARGE, "Request body is larger than " + maxSize + " bytes");
+        }
+        String encoding = request.getCharacterEncoding();
+        if (encoding == null) {
+            encoding = this.config.getString(Config.ENCODING);
+        }
+        try {
+            InputStream is = new LimitedInputStream(request.getInputStream(), maxSize);
+            return new MultipartParser(is, boundary, encoding, this.config.getInt(Config.MULTIPART_THRESHOLD), this.getMultipartDirectory()).parse();
+        } catch (RequestBodyException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RequestBodyException(HttpURLConnection.HTTP_BAD_REQUEST, "Can't read multipart request: " + e.getLocalizedMessage(), e);
+        }
+    }
+
+    private File getMultipartDirectory() {
+        String directory = this.config.getString(Config.MULTIPART_DIRECTORY);
+        if (directory != null && directory.length() > 0) {
+            return new File(directory);
+        }
+        // Every servlet container has a temporary directory for the web application
+        Object tempDir = context == null ? null : context.getAttribute("javax.servlet.context.tempdir");
+        return tempDir instanceof File ? (File) tempDir : null;
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Object> initParams() {
         params = new HashMap<String, Object>();
@@ -290,7 +669,10 @@ public class ResponseHelper {
 
     protected void doResponse() throws IOException, ServletException {
         if (!response.isCommitted()) {
-            if (urlInfo.getSerializer() == null) {
+            if (this.isExpired()) {
+                LOGGER.warn("Deadline of {} ms exceeded, the response won't be written", this.timeout);
+                response.sendError(HttpURLConnection.HTTP_GATEWAY_TIMEOUT, "Request deadline exceeded");
+            } else if (urlInfo.getSerializer() == null) {
                 if (this.notRenderPage) {
                     response.setStatus(HttpURLConnection.HTTP_NO_CONTENT);
                     response.getWriter().flush();
@@ -298,12 +680,20 @@ public class ResponseHelper {
                     if (requestedPage == null) {
                         requestedPage = this.getPage();
                     }
+                    long start = this.timer.start();
+                    Object event = this.timer.getEvents().begin(Phase.FORWARD);
                     this.forward();
+                    this.timer.stop(Phase.FORWARD, start);
+                    this.timer.getEvents().viewForwarded(event, urlInfo, requestedPage);
                 }
             } else {
                 if (this.object2Serialize == null) {
                     if (this.file != null) {
+                        long start = this.timer.start();
+                        Object event = this.timer.getEvents().begin(Phase.WRITE);
                         this.sendFile();
+                        this.timer.stop(Phase.WRITE, start);
+                        this.timer.getEvents().fileSent(event, urlInfo, this.file.getName(), this.file.length());
                     } else {
                         LOGGER.warn("There is not object to serialize, returning no content response code: {}", HttpURLConnection.HTTP_NO_CONTENT);
                         response.setCharacterEncoding(this.config.getString(Config.ENCODING));
@@ -318,15 +708,398 @@ public class ResponseHelper {
     }
 
     protected void serialize() throws IOException {
+        if (this.object2Serialize instanceof Throwable) {
+            Errors errors = this.getErrors();
+            if (!errors.isLegacy()) {
+                this.writeError(errors, (Throwable) this.object2Serialize);
+                return;
+            }
+        }
+        if (this.object2Serialize instanceof PageSource<?>) {
+            this.writePage((PageSource<?>) this.object2Serialize);
+            return;
+        }
+        if (this.object2Serialize instanceof EventPublisher<?>) {
+            this.writeEvents((EventPublisher<?>) this.object2Serialize);
+            return;
+        }
+        Iterator<?> items = this.getLazyIterator(this.object2Serialize);
+        if (items != null) {
+            this.writeStream(this.object2Serialize, items);
+            return;
+        }
         try {
             LOGGER.debug("Serializing using {}", urlInfo.getSerializer());
             Class<?> clazz = Class.forName(urlInfo.getSerializer());
             LOGGER.debug("Creating a new instance of {}", urlInfo.getSerializer());
             ObjectSerializer serializer = (ObjectSerializer) clazz.newInstance();
             LOGGER.debug("Calling {}.serialize()", urlInfo.getSerializer());
-            String serialized = serializer.serialize(this.object2Serialize);
+            Projection projection = this.getProjection();
+            String serialized;
+            long start = this.timer.start();
+            Object event = this.timer.getEvents().begin(Phase.SERIALIZE);
+            if (projection != null && serializer instanceof ProjectingSerializer) {
+                serialized = ((ProjectingSerializer) serializer).serialize(this.object2Serialize, projection);
+            } else {
+                serialized = serializer.serialize(this.object2Serialize);
+            }
+            this.timer.stop(Phase.SERIALIZE, start);
             LOGGER.debug("Writing object in the response: {}", serialized);
-            this.writeObject(serializer.getContentType(), serialized);
+            this.writeSerialized(serializer.getContentType(), serialized, event);
+        } catch (Exception e) {
+            LOGGER.error("Can't serialize object with {} serializer: {}", urlInfo.getSerializer(), e.getLocalizedMessage());
+            throw new IOException(e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Writes the error response to an exception thrown by the action, with the
+     * status of the exception. Json and Xml are written directly, other formats are
+     * written by their serializer.
+     */
+    protected void writeError(Errors errors, Throwable exception) throws IOException {
+        ErrorResponse error = errors.toResponse(exception);
+        this.timer.failed(exception);
+        LOGGER.debug("Answering exception with {}", error);
+        response.setStatus(error.getCode());
+        long start = this.timer.start();
+        if ("json".equals(urlInfo.getExtension())) {
+            Object event = this.timer.getEvents().begin(Phase.SERIALIZE);
+            String serialized = errors.toJson(error);
+            this.timer.stop(Phase.SERIALIZE, start);
+            this.writeSerialized("application/json", serialized, event);
+        } else if ("xml".equals(urlInfo.getExtension())) {
+            Object event = this.timer.getEvents().begin(Phase.SERIALIZE);
+            String serialized = errors.toXml(error);
+            this.timer.stop(Phase.SERIALIZE, start);
+            this.writeSerialized("text/xml", serialized, event);
+        } else {
+            this.object2Serialize = error;
+            this.serialize();
+        }
+    }
+
+    /**
+     * Writes a page of a {@link PageSource}. The page is fetched with one more object
+     * than the limit to know if there is a next page, so the Link header can be set
+     * before writing the objects, which are serialized one by one if the serializer
+     * is a {@link StreamingSerializer}.
+     */
+    protected <T> void writePage(PageSource<T> source) throws IOException {
+        Pager pager;
+        try {
+            pager = new Pager(request, this.config.getInt(Config.PAGE_DEFAULT_LIMIT), this.config.getInt(Config.PAGE_MAX_LIMIT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn(e.getLocalizedMessage());
+            response.sendError(HttpURLConnection.HTTP_BAD_REQUEST, e.getLocalizedMessage());
+            return;
+        }
+        int limit = pager.getLimit();
+        List<T> page = new ArrayList<T>(limit + 1);
+        Iterator<T> items = source.fetch(pager.getCursor(), limit + 1);
+        try {
+            while (page.size() <= limit && items.hasNext()) {
+                page.add(items.next());
+            }
+        } finally {
+            if (items instanceof Closeable) {
+                ((Closeable) items).close();
+            }
+        }
+        if (page.size() > limit) {
+            page.remove(limit);
+            String next = pager.getNextUrl(source.getCursor(page.get(limit - 1)));
+            LOGGER.debug("Next page: {}", next);
+            response.setHeader("Link", "<" + next + ">; rel=\"next\"");
+        }
+        Object serializer = this.newSerializer();
+        if (serializer instanceof StreamingSerializer && serializer instanceof Serializer) {
+            this.writeItems(serializer, page.iterator());
+        } else {
+            this.object2Serialize = page;
+            this.serialize();
+        }
+    }
+
+    /**
+     * Subscribes the client to a publisher of Server-Sent Events. The response is kept
+     * open, and if the container supports asynchronous requests, this thread is
+     * released, otherwise it waits until the subscription ends.
+     */
+    protected void writeEvents(EventPublisher<?> publisher) throws IOException {
+        Object serializer = this.newSerializer();
+        if (!(serializer instanceof ObjectSerializer)) {
+            throw new IOException(urlInfo.getSerializer() + " can't serialize events");
+        }
+        response.setContentType(EventsSerializer.CONTENT_TYPE);
+        response.setCharacterEncoding(this.config.getString(Config.ENCODING));
+        response.setHeader("Cache-Control", "no-cache");
+        PrintWriter writer = response.getWriter();
+        // Headers are sent right now, so the client knows it's subscribed
+        writer.write(":\n\n");
+        writer.flush();
+        final EventSubscriber subscriber = new EventSubscriber(publisher, writer, (ObjectSerializer) serializer, this.getProjection(),
+                this.config.getInt(Config.EVENTS_MAX_PENDING));
+        AsyncContext async = this.startAsync();
+        if (async != null) {
+            async.setTimeout(0);
+            async.addListener(new AsyncListener() {
+                public void onComplete(AsyncEvent event) {
+                    subscriber.close();
+                }
+
+                public void onTimeout(AsyncEvent event) {
+                    subscriber.close();
+                }
+
+                public void onError(AsyncEvent event) {
+                    subscriber.close();
+                }
+
+                public void onStartAsync(AsyncEvent event) {
+                    // Nothing to do
+                }
+            });
+            subscriber.setAsyncContext(async);
+        }
+        EventDispatcher.getInstance(this.config).add(subscriber);
+        publisher.subscribe(subscriber);
+        if (async == null) {
+            LOGGER.debug("Asynchronous requests aren't supported, waiting for the end of the subscription");
+            try {
+                subscriber.await();
+            } catch (InterruptedException e) {
+                subscriber.close();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Puts the request in asynchronous mode, if the container and the servlet
+     * configuration (async-supported) allow it. Who calls this method is in charge
+     * of completing the response.
+     * 
+     * @return the asynchronous context, or null if the request can't be asynchronous.
+     */
+    AsyncContext startAsync() {
+        if (this.asyncContext == null) {
+            try {
+                if (!request.isAsyncSupported()) {
+                    return null;
+                }
+            } catch (AbstractMethodError e) {
+                // Containers implementing Servlet 2.5 or older
+                return null;
+            }
+            this.asyncContext = request.startAsync(request, response);
+        }
+        this.suspended = true;
+        return this.asyncContext;
+    }
+
+    /**
+     * Puts the request in asynchronous mode to run the action in another thread,
+     * which completes the response unless the action's result calls
+     * {@link #startAsync()} too.
+     * 
+     * @return the asynchronous context, or null if the request can't be asynchronous.
+     */
+    AsyncContext detach() {
+        AsyncContext async = this.startAsync();
+        this.suspended = false;
+        return async;
+    }
+
+    /**
+     * Says if the response is completed by whoever called {@link #startAsync()}.
+     */
+    boolean isSuspended() {
+        return this.suspended;
+    }
+
+    /**
+     * Says if the request has been let in by the bulkheads and the concurrency
+     * limiter of its route.
+     */
+    boolean isAdmitted() {
+        return this.admitted;
+    }
+
+    /**
+     * Marks the request as let in, so the helpers created later with
+     * {@link #forUrl(UrlInfo)} don't take permits again.
+     */
+    void setAdmitted() {
+        this.admitted = true;
+    }
+
+    /**
+     * Creates a helper for the same request with other URL information, as one of
+     * the Ids of a multi-get. It shares the deadline of this helper, and the
+     * permits it has taken.
+     */
+    ResponseHelper forUrl(UrlInfo urlInfo) {
+        ResponseHelper helper = new ResponseHelper(this.context, this.request, this.response, urlInfo, this.viewsPath, this.config);
+        helper.start = this.start;
+        helper.timeout = this.timeout;
+        helper.finishers = this.finishers;
+        helper.admitted = this.admitted;
+        helper.errors = this.errors;
+        return helper;
+    }
+
+    /**
+     * Gets the timer of the request.
+     */
+    RequestTimer getTimer() {
+        return this.timer;
+    }
+
+    /**
+     * Sets the timer of the request, which isn't timed by default.
+     */
+    void setTimer(RequestTimer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Gets the error responses of the servlet, or of the configuration of this
+     * helper if it hasn't been created by the servlet.
+     */
+    private Errors getErrors() {
+        if (this.errors == null) {
+            this.errors = new Errors(this.config);
+        }
+        return this.errors;
+    }
+
+    /**
+     * Sets the error responses of the servlet, which are created once.
+     */
+    void setErrors(Errors errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Gets the object the action asked to serialize.
+     */
+    Object getResult() {
+        return this.object2Serialize;
+    }
+
+    /**
+     * Says if the response was forwarded to a page through the asynchronous context,
+     * so the container completes it when the page is rendered.
+     */
+    boolean isDispatched() {
+        return this.dispatched;
+    }
+
+    /**
+     * Writes the objects of a result that is produced lazily (an Iterator, an
+     * Iterable that isn't a collection, or a java.util.stream.Stream). If the
+     * serializer is a {@link StreamingSerializer}, objects are written while they
+     * are produced, otherwise they are collected in a list and serialized at once.
+     * The result is closed at the end, if it can be closed.
+     */
+    protected void writeStream(Object result, Iterator<?> items) throws IOException {
+        try {
+            Object serializer = this.newSerializer();
+            if (serializer instanceof StreamingSerializer && serializer instanceof Serializer) {
+                this.writeItems(serializer, items);
+            } else {
+                LOGGER.debug("{} can't stream objects, so they are collected", urlInfo.getSerializer());
+                List<Object> list = new ArrayList<Object>();
+                while (items.hasNext()) {
+                    list.add(items.next());
+                }
+                this.object2Serialize = list;
+                this.serialize();
+            }
+        } finally {
+            this.close(items);
+            if (result != items) {
+                this.close(result);
+            }
+        }
+    }
+
+    /**
+     * Writes objects one by one. The response is flushed every 'stream.flush.items'
+     * objects or 'stream.flush.interval' milliseconds, and writing stops if the client
+     * has gone.
+     */
+    private void writeItems(Object serializer, Iterator<?> items) throws IOException {
+        long start = this.timer.start();
+        try {
+            StreamingSerializer streaming = (StreamingSerializer) serializer;
+            Projection projection = this.getProjection();
+            int flushItems = this.config.getInt(Config.STREAM_FLUSH_ITEMS);
+            long flushInterval = this.config.getLong(Config.STREAM_FLUSH_INTERVAL) * 1000000L;
+            response.setHeader("Content-Transfer-Encoding", "binary");
+            response.setContentType(((Serializer) serializer).getContentType());
+            response.setCharacterEncoding(this.config.getString(Config.ENCODING));
+            PrintWriter writer = response.getWriter();
+            streaming.writeStart(writer);
+            int index = 0;
+            int pending = 0;
+            long lastFlush = System.nanoTime();
+            while (items.hasNext()) {
+                streaming.writeItem(writer, items.next(), index++, projection);
+                if (++pending >= flushItems || System.nanoTime() - lastFlush >= flushInterval) {
+                    writer.flush();
+                    // PrintWriter doesn't throw exceptions, so a closed connection is only known this way
+                    if (writer.checkError()) {
+                        LOGGER.debug("Client has gone after {} objects, stop writing", index);
+                        return;
+                    }
+                    pending = 0;
+                    lastFlush = System.nanoTime();
+                }
+            }
+            streaming.writeEnd(writer);
+            writer.flush();
+        } finally {
+            this.timer.stop(Phase.WRITE, start);
+        }
+    }
+
+    /**
+     * Gets an iterator for results produced lazily: Iterators, Iterables that aren't
+     * collections, and java.util.stream.Stream.
+     * 
+     * @return the iterator, or null if the result isn't lazy.
+     */
+    private Iterator<?> getLazyIterator(Object result) {
+        if (result instanceof Iterator<?>) {
+            return (Iterator<?>) result;
+        } else if (result instanceof Iterable<?> && !(result instanceof Collection<?>)) {
+            return ((Iterable<?>) result).iterator();
+        } else if (result instanceof BaseStream<?, ?>) {
+            return ((BaseStream<?, ?>) result).iterator();
+        }
+        return null;
+    }
+
+    /**
+     * Closes a result if it's Closeable or a java.util.stream.Stream.
+     */
+    private void close(Object result) {
+        try {
+            if (result instanceof Closeable) {
+                ((Closeable) result).close();
+            } else if (result instanceof BaseStream<?, ?>) {
+                ((BaseStream<?, ?>) result).close();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Can't close the result", e);
+        }
+    }
+
+    private Object newSerializer() throws IOException {
+        try {
+            return Class.forName(urlInfo.getSerializer()).newInstance();
         } catch (Exception e) {
             LOGGER.error("Can't serialize object with {} serializer: {}", urlInfo.getSerializer(), e.getLocalizedMessage());
             throw new IOException(e.getLocalizedMessage());
@@ -352,6 +1125,12 @@ public class ResponseHelper {
         } else {
             try {
                 request.setAttribute("identifiers", urlInfo.getIdentifiers());
+                if (this.asyncContext != null) {
+                    LOGGER.debug("Dispatching to {}", requestedPage);
+                    this.asyncContext.dispatch(requestedPage);
+                    this.dispatched = true;
+                    return;
+                }
                 RequestDispatcher dispatcher = context.getRequestDispatcher(requestedPage);
                 LOGGER.debug("Forwarding to {}", requestedPage);
                 dispatcher.forward(request, response);
@@ -363,11 +1142,28 @@ public class ResponseHelper {
     }
 
     protected void writeObject(String contentType, String serialized) throws IOException {
+        long start = this.timer.start();
         response.setHeader("Content-Transfer-Encoding", "binary");
         response.setContentType(contentType);
         response.setCharacterEncoding(this.config.getString(Config.ENCODING));
         response.getWriter().write(serialized);
         response.getWriter().flush();
+        this.timer.stop(Phase.WRITE, start);
+    }
+
+    /**
+     * Writes a serialized object and accounts its size to the timings and the
+     * Flight Recorder event begun when it started to be serialized, which is
+     * committed before writing, so it lasts as long as the serialization.
+     */
+    private void writeSerialized(String contentType, String serialized, Object event) throws IOException {
+        RequestEvents events = this.timer.getEvents();
+        if (this.timer.isRecording() || event != null) {
+            long size = this.getSize(serialized);
+            this.timer.addBytes(size);
+            events.serialized(event, urlInfo, size);
+        }
+        this.writeObject(contentType, serialized);
     }
 
     protected void writeFile(FileSerializer serializer) throws IOException {
@@ -383,6 +1179,34 @@ public class ResponseHelper {
         response.setHeader("Content-Disposition", "attachment; filename=" + this.attachmentFilename);
         response.setContentLength((int) this.file.length());
         serializer.sendFile(this.file, this.response.getOutputStream());
+        this.timer.addBytes(this.file.length());
+    }
+
+    /**
+     * Gets the bytes of a serialized object in the response encoding, counting them
+     * without encoding it again if it's UTF-8. Other encodings are supposed to take
+     * a byte per character.
+     */
+    private long getSize(String serialized) {
+        if (!"UTF-8".equalsIgnoreCase(this.config.getString(Config.ENCODING))) {
+            return serialized.length();
+        }
+        long size = 0;
+        for (int i = 0; i < serialized.length(); i++) {
+            char c = serialized.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                // The low surrogate comes next, both are encoded in 4 bytes
+                size += 4;
+                i++;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
     }
 
     private String searchPage(String pageWithoutExtension) {
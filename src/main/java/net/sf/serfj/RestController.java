@@ -16,6 +16,7 @@
 package net.sf.serfj;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -62,6 +63,59 @@ public class RestController {
         return this.response.getParam(name);
     }
 
+    /**
+     * Gets the time left to serve the request.
+     * 
+     * @return milliseconds until the deadline, 0 if it has passed, or
+     *         Long.MAX_VALUE if the request hasn't a deadline.
+     */
+    protected long getRemainingTime() {
+        return this.response.getRemainingTime();
+    }
+
+    /**
+     * Says if the deadline of the request has passed.
+     */
+    protected boolean isExpired() {
+        return this.response.isExpired();
+    }
+
+    /**
+     * Gets the object that came in the request body, deserialized with the serializer
+     * for its Content-Type.
+     * 
+     * @return the deserialized object, or null if there isn't any.
+     * @throws RequestBodyException
+     *             if the body is too large or it can't be deserialized.
+     */
+    protected Object getBody() throws RequestBodyException {
+        return this.response.getBody();
+    }
+
+    /**
+     * Gets the parts (uploaded files and fields) of a multipart/form-data request.
+     * 
+     * @return parts of the request, or an empty list if it isn't multipart.
+     * @throws RequestBodyException
+     *             if the request is too large or it's malformed.
+     */
+    protected List<Part> getParts() throws RequestBodyException {
+        return this.response.getParts();
+    }
+
+    /**
+     * Gets a part of a multipart/form-data request.
+     * 
+     * @param name
+     *            Name of the form field.
+     * @return the part, or null if there isn't anyone with that name.
+     * @throws RequestBodyException
+     *             if the request is too large or it's malformed.
+     */
+    protected Part getPart(String name) throws RequestBodyException {
+        return this.response.getPart(name);
+    }
+
     /**
      * Adds an object to the request. If a page will be renderer and it needs some objects
      * to work, with this method a developer can add objects to the request, so the page can
@@ -134,6 +188,15 @@ public class RestController {
         return this.response.getId(resource);
     }
 
+    /**
+     * Gets the Ids of a multi-get, to be used by a showMany action.<br><br>
+     * 
+     * /sessions/1,2,3 -> Ids: 1, 2 and 3<br>
+     */
+    protected String[] getIds() {
+        return this.response.getIds();
+    }
+
 	/**
 	 * Renders the predefined page.
 	 * 
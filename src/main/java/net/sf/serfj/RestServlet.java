@@ -15,14 +15,23 @@
  */
 package net.sf.serfj;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import net.sf.serfj.config.ConfigFileIOException;
+import net.sf.serfj.idempotency.IdempotencyStore;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.serializers.EventsSerializer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,7 +69,52 @@ public class RestServlet extends HttpServlet {
 	 */
 	private UrlInspector urlInspector;
 
-	private ServletHelper helper = new ServletHelper();
+	private ServletHelper helper;
+
+	/**
+	 * Turns the exceptions thrown by actions into error responses.
+	 */
+	private Errors errors;
+
+	/**
+	 * Completes responses of actions returning a CompletionStage or a Future.
+	 */
+	private AsyncResults asyncResults;
+
+	/**
+	 * Executor running actions in virtual threads, if they are enabled.
+	 */
+	private ExecutorService virtualThreads;
+
+	/**
+	 * Shares responses between identical GET requests, if it's enabled.
+	 */
+	private Coalescer coalescer;
+
+	/**
+	 * Replays responses to requests with an Idempotency-Key, if it's enabled.
+	 */
+	private Idempotency idempotency;
+
+	/**
+	 * Serves batches of requests, if they are enabled.
+	 */
+	private Batch batch;
+
+	/**
+	 * Timings of the routes.
+	 */
+	private Timings timings;
+
+	/**
+	 * Writes the metrics of the routes, if it's enabled.
+	 */
+	private Prometheus prometheus;
+
+	/**
+	 * MXBean of the servlet, if JMX is enabled.
+	 */
+	private ServletManagement management;
 
 	/**
 	 * Reads configuration from /serfj.properties.
@@ -77,6 +131,84 @@ public class RestServlet extends HttpServlet {
 			throw new ServletException(e);
 		}
 		urlInspector = new UrlInspector(config);
+		Bulkheads bulkheads = new Bulkheads(config);
+		this.getServletContext().setAttribute(Bulkheads.ATTRIBUTE, bulkheads);
+		Limiters limiters = new Limiters(config);
+		this.getServletContext().setAttribute(Limiters.ATTRIBUTE, limiters);
+		timings = new Timings(config);
+		this.getServletContext().setAttribute(Timings.ATTRIBUTE, timings);
+		helper = new ServletHelper(bulkheads, limiters, new Deadlines(config), new MultiGet(config), new Interceptors(config));
+		asyncResults = new AsyncResults(config);
+		errors = new Errors(config);
+		if (config.getBoolean(Config.COALESCING)) {
+			coalescer = new Coalescer(config);
+		}
+		if (config.getBoolean(Config.IDEMPOTENCY)) {
+			// Every servlet container has a temporary directory for the web application
+			Object tempDir = this.getServletContext().getAttribute("javax.servlet.context.tempdir");
+			IdempotencyStore store = Idempotency.newStore(config, tempDir instanceof File ? (File) tempDir : null);
+			if (store != null) {
+				idempotency = new Idempotency(config, store);
+			}
+		}
+		if (config.getString(Config.BATCH_PATH).trim().length() > 0) {
+			batch = new Batch(config, this);
+		}
+		if (config.getBoolean(Config.ACTIONS_VIRTUAL_THREADS)) {
+			virtualThreads = this.newVirtualThreadExecutor();
+		}
+		if (config.getString(Config.METRICS_PATH).trim().length() > 0) {
+			prometheus = new Prometheus(config, timings, bulkheads, limiters);
+		}
+		if (config.getBoolean(Config.JMX)) {
+			management = new ServletManagement(config, timings, urlInspector, bulkheads, limiters);
+			management.register(this.getServletName(), this.getServletContext().getServletContextName());
+		}
+	}
+
+	/**
+	 * Creates an executor that starts a virtual thread per action. Virtual threads
+	 * are looked up by reflection, so the framework still runs on Java 8.
+	 * 
+	 * @return the executor, or null if the JVM doesn't have virtual threads.
+	 */
+	private ExecutorService newVirtualThreadExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			LOGGER.info("Actions will run in virtual threads");
+			return executor;
+		} catch (Exception e) {
+			LOGGER.warn("Virtual threads need Java 21, actions will run in container threads");
+			return null;
+		}
+	}
+
+	/**
+	 * Ends Server-Sent Events subscriptions, stops waiting for asynchronous
+	 * results and stops the threads of the framework, if any.
+	 */
+	@Override
+	public void destroy() {
+		EventDispatcher.shutdown();
+		if (asyncResults != null) {
+			asyncResults.shutdown();
+		}
+		if (helper != null) {
+			helper.shutdown();
+		}
+		if (virtualThreads != null) {
+			virtualThreads.shutdownNow();
+		}
+		if (batch != null) {
+			batch.shutdown();
+		}
+		if (timings != null) {
+			timings.shutdown();
+		}
+		if (management != null) {
+			management.unregister();
+		}
+		super.destroy();
 	}
 
 	/**
@@ -95,23 +227,138 @@ public class RestServlet extends HttpServlet {
 			LOGGER.debug("queryString => {}", request.getQueryString());
 			LOGGER.debug("Context [{}]", request.getContextPath());
 		}
+		if (management != null) {
+			management.received();
+		}
+		if (batch != null && batch.matches(url)) {
+			batch.serve(request, response);
+			return;
+		}
+		if (prometheus != null && prometheus.matches(url)) {
+			prometheus.serve(request, response);
+			return;
+		}
 
-		HttpMethod requestMethod = HttpMethod.valueOf(request.getMethod());
-		if (requestMethod == HttpMethod.POST) {
-			String httpMethodParam = request.getParameter(HTTP_METHOD_PARAM);
-			LOGGER.debug("param: http_method => {}", httpMethodParam);
-			if (httpMethodParam != null) {
-				requestMethod = HttpMethod.valueOf(httpMethodParam);
+		RequestTimer timer = timings.newTimer();
+		// Resources used by the container thread, the action may go on in others
+		long[] segment = timer.startSegment();
+		try {
+			HttpMethod requestMethod = HttpMethod.valueOf(request.getMethod());
+			if (requestMethod == HttpMethod.POST) {
+				String httpMethodParam = request.getParameter(HTTP_METHOD_PARAM);
+				LOGGER.debug("param: http_method => {}", httpMethodParam);
+				if (httpMethodParam != null) {
+					requestMethod = HttpMethod.valueOf(httpMethodParam);
+				}
+			}
+			// Getting all the information from the URL
+			long start = timer.start();
+			Object event = timer.getEvents().begin(Phase.URL);
+			UrlInfo urlInfo = urlInspector.getUrlInfo(url, requestMethod, request.getHeader("Accept"));
+			timer.stop(Phase.URL, start);
+			timer.getEvents().routeResolved(event, urlInfo);
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("URL info {}", urlInfo.toString());
+			}
+			if (urlInfo.isNegotiated()) {
+				// Caches must know that the response depends on the Accept header
+				response.setHeader("Vary", "Accept");
 			}
+			String idempotencyKey = idempotency == null ? null : idempotency.getKey(request, requestMethod);
+			if (idempotencyKey != null) {
+				// Retries of a request get the response of the first attempt
+				idempotency.serve(idempotencyKey, request, response, (buffered, first) -> this.respond(buffered, first, urlInfo, timer));
+			} else if (coalescer != null && requestMethod == HttpMethod.GET && urlInfo.getSerializer() != null
+			        && !EventsSerializer.class.getName().equals(urlInfo.getSerializer())) {
+				// Identical requests in flight share the same response
+				coalescer.serve(request, response, urlInfo, coalesced -> this.respond(request, coalesced, urlInfo, timer));
+			} else {
+				this.respond(request, response, urlInfo, timer);
+			}
+		} finally {
+			timer.endSegment(segment);
 		}
-		// Getting all the information from the URL
-		UrlInfo urlInfo = urlInspector.getUrlInfo(url, requestMethod);
-		if (LOGGER.isDebugEnabled()) {
-			LOGGER.debug("URL info {}", urlInfo.toString());
+	}
+
+	/**
+	 * Calls the controller's action and writes its response.
+	 */
+	private void respond(HttpServletRequest request, HttpServletResponse response, UrlInfo urlInfo, RequestTimer timer) throws ServletException, IOException {
+		ResponseHelper responseHelper = new ResponseHelper(this.getServletContext(), request, response, urlInfo, config.getString(Config.VIEWS_DIRECTORY), config);
+		responseHelper.setTimer(timer);
+		responseHelper.setErrors(errors);
+		if (virtualThreads != null) {
+			AsyncContext async = responseHelper.detach();
+			if (async != null) {
+				this.dispatch(urlInfo, responseHelper, async);
+				return;
+			}
+		}
+		this.process(urlInfo, responseHelper);
+	}
+
+	/**
+	 * Invokes the action and writes its response.
+	 */
+	private void process(UrlInfo urlInfo, ResponseHelper responseHelper) throws ServletException, IOException {
+		boolean suspended = false;
+		if (management != null) {
+			management.started(urlInfo);
+			// Asynchronous results are still in flight when this method returns
+			responseHelper.onFinish(() -> management.finished(urlInfo));
+		}
+		try {
+			helper.invokeAction(urlInfo, responseHelper);
+			// Asynchronous results are written when they are done
+			suspended = asyncResults.suspend(responseHelper);
+			if (!suspended) {
+				responseHelper.doResponse();
+			}
+		} finally {
+			if (!suspended) {
+				responseHelper.finish();
+			}
+		}
+	}
+
+	/**
+	 * Processes the request in a virtual thread, releasing the container thread. Errors
+	 * that would reach the container are answered with 500 (Internal Server Error).
+	 */
+	private void dispatch(final UrlInfo urlInfo, final ResponseHelper responseHelper, final AsyncContext async) throws IOException {
+		async.setTimeout(0);
+		try {
+			virtualThreads.execute(new Runnable() {
+				public void run() {
+					long[] segment = responseHelper.getTimer().startSegment();
+					try {
+						process(urlInfo, responseHelper);
+					} catch (Exception e) {
+						LOGGER.error(e.getLocalizedMessage(), e);
+						sendError(responseHelper, HttpURLConnection.HTTP_INTERNAL_ERROR);
+					} finally {
+						if (!responseHelper.isSuspended() && !responseHelper.isDispatched()) {
+							async.complete();
+						}
+						responseHelper.getTimer().endSegment(segment);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Can't run the action, the servlet is stopping");
+			sendError(responseHelper, HttpURLConnection.HTTP_UNAVAILABLE);
+			async.complete();
+		}
+	}
+
+	private static void sendError(ResponseHelper responseHelper, int status) {
+		HttpServletResponse response = responseHelper.getResponse();
+		if (!response.isCommitted()) {
+			try {
+				response.sendError(status);
+			} catch (IOException e) {
+				LOGGER.debug("Can't send error", e);
+			}
 		}
-		// Calling the controller's action
-		ResponseHelper responseHelper = new ResponseHelper(this.getServletContext(), request, response, urlInfo, config.getString(Config.VIEWS_DIRECTORY));
-		helper.invokeAction(urlInfo, responseHelper);
-		responseHelper.doResponse();
 	}
 }
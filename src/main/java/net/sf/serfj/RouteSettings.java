@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads settings given per controller or action in serfj.properties, as a list
+ * like 'Account=10, Account.show=5'.
+ * 
+ * @author agent
+ */
+final class RouteSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RouteSettings.class);
+
+    private RouteSettings() {
+        super();
+    }
+
+    /**
+     * Parses a list of settings. Wrong elements are logged and skipped.
+     * 
+     * @param value
+     *            Value of the setting, it can be null.
+     * @param setting
+     *            Name of the setting, for the log.
+     * @return Controller or Controller.action => number.
+     */
+    public static Map<String, Long> parse(String value, String setting) {
+        Map<String, Long> routes = new HashMap<String, Long>();
+        if (value != null) {
+            for (String pair : value.split(",")) {
+                int equals = pair.indexOf('=');
+                try {
+                    if (equals > 0) {
+                        routes.put(pair.substring(0, equals).trim(), Long.valueOf(pair.substring(equals + 1).trim()));
+                        continue;
+                    }
+                } catch (NumberFormatException e) {
+                    // Logged below
+                }
+                if (pair.trim().length() > 0) {
+                    LOGGER.warn("Wrong element [{}] in {}, it must be Controller=number or Controller.action=number", pair, setting);
+                }
+            }
+        }
+        LOGGER.debug("{}: {}", setting, routes);
+        return routes;
+    }
+}
@@ -15,8 +15,10 @@
  */
 package net.sf.serfj;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -25,6 +27,7 @@ import net.sf.serfj.annotations.DELETE;
 import net.sf.serfj.annotations.GET;
 import net.sf.serfj.annotations.POST;
 import net.sf.serfj.annotations.PUT;
+import net.sf.serfj.metrics.Phase;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,12 +53,78 @@ public class ServletHelper {
 		INHERIT, INTERFACE, SIGNATURE
 	};
 
+	/**
+	 * Concurrency limits of controllers and actions.
+	 */
+	private Bulkheads bulkheads;
+
+	/**
+	 * Adaptive concurrency limits of routes.
+	 */
+	private Limiters limiters;
+
+	/**
+	 * Deadlines of routes.
+	 */
+	private Deadlines deadlines;
+
+	/**
+	 * Calls the show action for every Id of a multi-get.
+	 */
+	private MultiGet multiGet;
+
+	/**
+	 * Interceptors of routes.
+	 */
+	private Interceptors interceptors;
+
+	/**
+	 * Helper whose only concurrency limits, deadlines and interceptors are annotations.
+	 */
+	public ServletHelper() {
+		this(new Bulkheads(), new Limiters(), new Deadlines(), new MultiGet(), new Interceptors());
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param bulkheads
+	 *            Concurrency limits of controllers and actions.
+	 * @param limiters
+	 *            Adaptive concurrency limits of routes.
+	 * @param deadlines
+	 *            Deadlines of routes.
+	 * @param multiGet
+	 *            Calls the show action for every Id of a multi-get.
+	 * @param interceptors
+	 *            Interceptors of routes.
+	 */
+	ServletHelper(Bulkheads bulkheads, Limiters limiters, Deadlines deadlines, MultiGet multiGet, Interceptors interceptors) {
+		this.bulkheads = bulkheads;
+		this.limiters = limiters;
+		this.deadlines = deadlines;
+		this.multiGet = multiGet;
+		this.interceptors = interceptors;
+	}
+
+	/**
+	 * Stops the threads used by the helper, if any.
+	 */
+	void shutdown() {
+		this.deadlines.shutdown();
+		this.multiGet.shutdown();
+	}
+
 	/**
 	 * Calls the controller that must answers the request whose information is in
 	 * <code>urlInfo</code>. This method calculates the strategy used to write the
 	 * controller, then calls the controller and finally if there was any object 
 	 * returned by the controller's action, this method store that object into
-	 * <code>responseHelper</code>.  
+	 * <code>responseHelper</code>.<br>
+	 * <br>
+	 * A multi-get (/banks/1,2,3) is answered by the showMany action, or if the
+	 * controller hasn't it, by calling show for every Id and serializing the list
+	 * of results.
 	 * 
 	 * @param urlInfo
 	 *             Information extracted from the request URL.
@@ -63,23 +132,36 @@ public class ServletHelper {
 	 *             ResponseHelper object used in this transaction.
 	 * @throws ServletException
 	 *             If something went wrong in the communication.
+	 * @throws IOException
+	 *             If the response can't be written.
 	 */
-	void invokeAction(UrlInfo urlInfo, ResponseHelper responseHelper) throws ServletException {
+	void invokeAction(UrlInfo urlInfo, ResponseHelper responseHelper) throws ServletException, IOException {
         try {
             // May be there isn't any controller, so the page will be rendered
             // without calling any action
             if (urlInfo.getController() != null) {
-                Strategy strategy = calculateStrategy(urlInfo.getController());
+                RequestTimer timer = responseHelper.getTimer();
+                long start = timer.start();
+                final Strategy strategy = calculateStrategy(urlInfo.getController());
                 LOGGER.debug("Strategy: {}", strategy);
+                Method show = this.getShownOneByOne(urlInfo);
+                timer.stop(Phase.CONTROLLER, start);
                 Object result = null;
                 try {
-                    switch (strategy) {
-                    case INHERIT:
-                        result = inheritedStrategy(urlInfo, responseHelper);
-                        break;
-                    default:
-                        result = signatureStrategy(urlInfo, responseHelper);
-                        break;
+                    start = timer.start();
+                    Object event = timer.getEvents().begin(Phase.ACTION);
+                    try {
+                        if (show != null) {
+                            LOGGER.debug("Calling {}.show for Ids {}", urlInfo.getController(), urlInfo.getId());
+                            // The calls for every Id share the permits of the request
+                            this.admit(Class.forName(urlInfo.getController()), show, urlInfo, responseHelper);
+                            result = this.multiGet.showEach(urlInfo, responseHelper, (single, helper) -> this.callAction(strategy, single, helper));
+                        } else {
+                            result = this.callAction(strategy, urlInfo, responseHelper);
+                        }
+                    } finally {
+                        timer.stop(Phase.ACTION, start);
+                        timer.getEvents().actionInvoked(event, urlInfo);
                     }
                     // Si hay un resultado, lo serializamos, así no lo tiene que hacer el
                     // desarrollador en el método del controlador
@@ -87,6 +169,10 @@ public class ServletHelper {
                         responseHelper.serialize(result);
                     }
                 } catch (InvocationTargetException e) {
+                    if (e.getTargetException() instanceof RequestBodyException) {
+                        // The action read a body (e.g. an upload) that can't be accepted
+                        throw (RequestBodyException) e.getTargetException();
+                    }
                     responseHelper.serialize(e.getTargetException());
                 }
             } else {
@@ -96,12 +182,85 @@ public class ServletHelper {
             LOGGER.warn(e.getLocalizedMessage(), e);
         } catch (NoSuchMethodException e) {
             LOGGER.warn("NoSuchMethodException {}", e.getLocalizedMessage());
+        } catch (RequestBodyException e) {
+            LOGGER.warn("Request body rejected: {}", e.getLocalizedMessage());
+            responseHelper.getResponse().sendError(e.getStatus(), e.getLocalizedMessage());
+        } catch (RequestRejectedException e) {
+            LOGGER.warn("Request rejected: {}", e.getLocalizedMessage());
+            if (e.getRetryAfter() > 0) {
+                responseHelper.getResponse().setHeader("Retry-After", String.valueOf(e.getRetryAfter()));
+            }
+            responseHelper.getResponse().sendError(e.getStatus(), e.getLocalizedMessage());
         } catch (Exception e) {
             LOGGER.warn(e.getLocalizedMessage(), e);
             throw new ServletException(e);
         }
 	}
 	
+	/**
+	 * Calls an action through the interceptors of its route. Exceptions thrown by
+	 * interceptors are wrapped as the ones thrown by actions, so they are answered
+	 * the same way.
+	 */
+	private Object callAction(final Strategy strategy, final UrlInfo urlInfo, final ResponseHelper responseHelper) throws Exception {
+		Interceptor[] routeInterceptors = this.interceptors.get(urlInfo);
+		if (routeInterceptors.length == 0) {
+			return this.callStrategy(strategy, urlInfo, responseHelper);
+		}
+		try {
+			return Interceptors.invoke(routeInterceptors, urlInfo, responseHelper, () -> {
+				try {
+					return this.callStrategy(strategy, urlInfo, responseHelper);
+				} catch (InvocationTargetException | IOException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new NotCalledException(e);
+				}
+			});
+		} catch (InvocationTargetException | IOException e) {
+			throw e;
+		} catch (NotCalledException e) {
+			throw (Exception) e.getCause();
+		} catch (Exception e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	private Object callStrategy(Strategy strategy, UrlInfo urlInfo, ResponseHelper responseHelper) throws Exception {
+		switch (strategy) {
+		case INHERIT:
+			return inheritedStrategy(urlInfo, responseHelper);
+		default:
+			return signatureStrategy(urlInfo, responseHelper);
+		}
+	}
+
+	/**
+	 * Checks if a multi-get must be answered calling show for every Id, because the
+	 * controller hasn't a showMany action.
+	 * 
+	 * @return the show action, or null if the request isn't answered that way.
+	 * @throws NoSuchMethodException
+	 *             if the controller hasn't a show action either.
+	 */
+	private Method getShownOneByOne(UrlInfo urlInfo) throws ClassNotFoundException, NoSuchMethodException {
+		if (!UrlInspector.SHOW_MANY_ACTION.equals(urlInfo.getAction()) || urlInfo.getIds() == null) {
+			return null;
+		}
+		Method show = null;
+		for (Method method : Class.forName(urlInfo.getController()).getMethods()) {
+			if (method.getName().equals(UrlInspector.SHOW_MANY_ACTION)) {
+				return null;
+			} else if (method.getName().equals(UrlInspector.SHOW_ACTION) && (show == null || method.getAnnotation(GET.class) != null)) {
+				show = method;
+			}
+		}
+		if (show == null) {
+			throw new NoSuchMethodException(urlInfo.getController() + "." + UrlInspector.SHOW_ACTION + "()");
+		}
+		return show;
+	}
+
 	/**
 	 * Checks if a class method exists.
 	 * 
@@ -121,6 +280,60 @@ public class ServletHelper {
 		}
 	}
 
+	/**
+	 * Checks if a class has a method whose last argument is the object that comes
+	 * in the request body, that is action(SomeClass) or, if
+	 * <code>withResponseHelper</code> is true, action(ResponseHelper, SomeClass).
+	 * 
+	 * @param clazz
+	 *            Class.
+	 * @param method
+	 *            Method.
+	 * @param withResponseHelper
+	 *            If methods with a ResponseHelper as first argument are accepted.
+	 * @return the method, or null if it doesn't exist.
+	 */
+	private Method bodyMethodExists(Class<?> clazz, String method, boolean withResponseHelper) {
+		for (Method candidate : clazz.getMethods()) {
+			if (candidate.getName().equals(method)) {
+				Class<?>[] params = candidate.getParameterTypes();
+				if (params.length == 1 && this.isBodyType(params[0])) {
+					return candidate;
+				}
+				if (withResponseHelper && params.length == 2 && params[0] == ResponseHelper.class && this.isBodyType(params[1])) {
+					return candidate;
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isBodyType(Class<?> type) {
+		return type != ResponseHelper.class && !Map.class.isAssignableFrom(type) && !type.isPrimitive();
+	}
+
+	/**
+	 * Gets the object that came in the request body for a method found by
+	 * bodyMethodExists. The body is only read if the method accepts the request's
+	 * HTTP_METHOD.
+	 * 
+	 * @throws RequestBodyException
+	 *             if the body can't be read, or it isn't of the expected class.
+	 */
+	private Object getBody(Method method, UrlInfo urlInfo, ResponseHelper responseHelper) throws RequestBodyException {
+		if (!this.isRequestMethodServed(method, urlInfo.getRequestMethod())) {
+			return null;
+		}
+		Class<?>[] params = method.getParameterTypes();
+		Class<?> type = params[params.length - 1];
+		Object body = responseHelper.getBody(method.getGenericParameterTypes()[params.length - 1]);
+		if (body != null && !type.isInstance(body)) {
+			throw new RequestBodyException(HttpURLConnection.HTTP_BAD_REQUEST, "Request body is a " + body.getClass().getName() + " but " 
+			        + urlInfo.getController() + "." + urlInfo.getAction() + " expects a " + type.getName());
+		}
+		return body;
+	}
+
 	/**
 	 * Calculates the strategy controller has choice to implement REST actions.
 	 * There are 3 different strategies: INHERIT, SIGNATURE and INJECTION.
@@ -146,7 +359,7 @@ public class ServletHelper {
 	 * inherits from {@link RestController}, so the framework will inject
 	 * {@link ResponseHelper} to controller by RestAction.setResposeHelper
 	 * method. Furthermore, controller's actions signatures don't have
-	 * arguments.
+	 * arguments, or only one with the object that came in the request body.
 	 * 
 	 * 
 	 * @param urlInfo
@@ -168,17 +381,28 @@ public class ServletHelper {
 	 *             if it isn't possible to instantiate the controller.
 	 */
 	private Object inheritedStrategy(UrlInfo urlInfo, ResponseHelper responseHelper) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException,
-	        InvocationTargetException, InstantiationException {
+	        InvocationTargetException, InstantiationException, RequestBodyException, RequestRejectedException {
 		Class<?> clazz = Class.forName(urlInfo.getController());
 		Method setResponseHelper = clazz.getMethod("setResponseHelper", new Class<?>[] { ResponseHelper.class });
 		LOGGER.debug("Instantiating controller {}", clazz.getCanonicalName());
 		Object controllerInstance = clazz.newInstance();
 		LOGGER.debug("Calling {}.setResponseHelper(ResponseHelper)", clazz.getCanonicalName());
 		setResponseHelper.invoke(controllerInstance, responseHelper);
-		Method action = clazz.getMethod(urlInfo.getAction(), new Class[] {});
+		Method action = this.methodExists(clazz, urlInfo.getAction(), new Class[] {});
+		if (action == null) {
+			// action(SomeClass), where the argument is the request body
+			action = this.bodyMethodExists(clazz, urlInfo.getAction(), false);
+			if (action != null) {
+				LOGGER.debug("Calling {}.{}(Body)", urlInfo.getController(), urlInfo.getAction());
+				responseHelper.notRenderPage(action);
+				this.admit(clazz, action, urlInfo, responseHelper);
+				return this.invoke(controllerInstance, action, responseHelper, new Object[] { this.getBody(action, urlInfo, responseHelper) });
+			}
+			throw new NoSuchMethodException(urlInfo.getController() + "." + urlInfo.getAction() + "()");
+		}
 		LOGGER.debug("Calling {}.{}()", urlInfo.getController(), urlInfo.getAction());
 		responseHelper.notRenderPage(action);
-		return this.invokeAction(controllerInstance, action, urlInfo);
+		return this.invokeAction(controllerInstance, action, urlInfo, responseHelper);
 	}
 
 	/**
@@ -186,7 +410,8 @@ public class ServletHelper {
 	 * method could have these signatures:
 	 * 
 	 * - action(ResponseHelper, Map<String,Object>). - action(ResponseHelper). -
-	 * action(Map<String,Object>). - action().
+	 * action(Map<String,Object>). - action(). - action(ResponseHelper, SomeClass). -
+	 * action(SomeClass), where SomeClass is the class of the request body.
 	 * 
 	 * 
 	 * @param urlInfo
@@ -209,7 +434,7 @@ public class ServletHelper {
 	 *             if it isn't possible to instantiate the controller.
 	 */
 	private Object signatureStrategy(UrlInfo urlInfo, ResponseHelper responseHelper) throws ClassNotFoundException, IllegalAccessException, InvocationTargetException,
-	        InstantiationException, NoSuchMethodException {
+	        InstantiationException, NoSuchMethodException, RequestBodyException, RequestRejectedException {
 		Class<?> clazz = Class.forName(urlInfo.getController());
 		Object result = null;
 		// action(ResponseHelper, Map<String,Object>)
@@ -217,27 +442,46 @@ public class ServletHelper {
 		if (method != null) {
 			LOGGER.debug("Calling {}.{}(ResponseHelper, Map<String,Object>)", urlInfo.getController(), urlInfo.getAction());
 			responseHelper.notRenderPage(method);
-			result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper, responseHelper.getParams());
+			result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper, responseHelper, responseHelper.getParams());
 		} else {
 			// action(ResponseHelper)
 			method = this.methodExists(clazz, urlInfo.getAction(), new Class[] { ResponseHelper.class });
 			if (method != null) {
 				LOGGER.debug("Calling {}.{}(ResponseHelper)", urlInfo.getController(), urlInfo.getAction());
 				responseHelper.notRenderPage(method);
-				result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper);
+				result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper, responseHelper);
 			} else {
 				// action(Map<String,Object>)
 				method = this.methodExists(clazz, urlInfo.getAction(), new Class[] { Map.class });
 				if (method != null) {
 					LOGGER.debug("Calling {}.{}(Map<String,Object>)", urlInfo.getController(), urlInfo.getAction());
 					responseHelper.notRenderPage(method);
-					result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper.getParams());
+					result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper, responseHelper.getParams());
 				} else {
 					// action()
-					method = clazz.getMethod(urlInfo.getAction(), new Class[] {});
-					LOGGER.debug("Calling {}.{}()", urlInfo.getController(), urlInfo.getAction());
-					responseHelper.notRenderPage(method);
-					result = this.invokeAction(clazz.newInstance(), method, urlInfo);
+					method = this.methodExists(clazz, urlInfo.getAction(), new Class[] {});
+					if (method != null) {
+						LOGGER.debug("Calling {}.{}()", urlInfo.getController(), urlInfo.getAction());
+						responseHelper.notRenderPage(method);
+						result = this.invokeAction(clazz.newInstance(), method, urlInfo, responseHelper);
+					} else {
+						// action(ResponseHelper, SomeClass) or action(SomeClass), where SomeClass is the request body
+						method = this.bodyMethodExists(clazz, urlInfo.getAction(), true);
+						if (method == null) {
+							throw new NoSuchMethodException(urlInfo.getController() + "." + urlInfo.getAction() + "()");
+						}
+						responseHelper.notRenderPage(method);
+						// The body isn't read until the request is let in
+						this.admit(clazz, method, urlInfo, responseHelper);
+						Object body = this.getBody(method, urlInfo, responseHelper);
+						if (method.getParameterTypes().length == 2) {
+							LOGGER.debug("Calling {}.{}(ResponseHelper, Body)", urlInfo.getController(), urlInfo.getAction());
+							result = this.invoke(clazz.newInstance(), method, responseHelper, new Object[] { responseHelper, body });
+						} else {
+							LOGGER.debug("Calling {}.{}(Body)", urlInfo.getController(), urlInfo.getAction());
+							result = this.invoke(clazz.newInstance(), method, responseHelper, new Object[] { body });
+						}
+					}
 				}
 			}
 		}
@@ -254,19 +498,77 @@ public class ServletHelper {
 	 *            A method to invoke.
 	 * @param urlInfo
 	 *            URL information extracted by the framework.
+	 * @param responseHelper
+	 *            ResponseHelper object used in this transaction.
 	 * @param args
 	 *            Arguments for the method which will be invoked.
 	 * @return the object returned by the method onvoked, or null.
 	 * @throws IllegalArgumentException
 	 *             if the HTTP_METHOD that comes in the request is not accepted
 	 *             by class's method.
+	 * @throws RequestRejectedException
+	 *             if the controller, the action or the route are serving as many
+	 *             requests as they can, or the deadline of the request has passed.
 	 */
-	private Object invokeAction(Object clazz, Method method, UrlInfo urlInfo, Object... args) throws IllegalAccessException, InvocationTargetException {
-		if (this.isRequestMethodServed(method, urlInfo.getRequestMethod())) {
-			return method.invoke(clazz, args);
-		} else {
+	private Object invokeAction(Object clazz, Method method, UrlInfo urlInfo, ResponseHelper responseHelper, Object... args) throws IllegalAccessException,
+	        InvocationTargetException, RequestRejectedException {
+		this.admit(clazz.getClass(), method, urlInfo, responseHelper);
+		return this.invoke(clazz, method, responseHelper, args);
+	}
+
+	/**
+	 * Lets a request in its route. The permits of the bulkheads and the concurrency
+	 * limiter are held until the response is finished, so an action returning a
+	 * CompletionStage or a Future keeps them until its result is written, and the
+	 * limiter samples the latency of the whole request. They are taken once per
+	 * request, so the calls for the Ids of a multi-get only check the method and the
+	 * deadline.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the HTTP_METHOD that comes in the request is not accepted
+	 *             by class's method.
+	 * @throws RequestRejectedException
+	 *             if the controller, the action or the route are serving as many
+	 *             requests as they can, or the deadline of the request has passed.
+	 */
+	private void admit(Class<?> clazz, Method method, UrlInfo urlInfo, ResponseHelper responseHelper) throws RequestRejectedException {
+		if (!this.isRequestMethodServed(method, urlInfo.getRequestMethod())) {
 			throw new IllegalArgumentException("Method " + urlInfo.getController() + "." + urlInfo.getAction() + " doesn't accept requests by " + urlInfo.getRequestMethod() + " HTTP_METHOD");
 		}
+		responseHelper.setTimeout(this.deadlines.getTimeout(clazz, method));
+		if (responseHelper.isExpired()) {
+			throw new RequestRejectedException(HttpURLConnection.HTTP_GATEWAY_TIMEOUT, "Request deadline exceeded before calling " + urlInfo.getController()
+			        + "." + urlInfo.getAction(), 0);
+		}
+		if (responseHelper.isAdmitted()) {
+			return;
+		}
+		final Bulkhead[] routeBulkheads = this.bulkheads.get(clazz, method);
+		this.bulkheads.acquire(routeBulkheads);
+		responseHelper.onFinish(() -> this.bulkheads.release(routeBulkheads, routeBulkheads.length));
+		final Limiter limiter = this.limiters.get(clazz, method);
+		if (limiter != null) {
+			final int inFlight = this.limiters.acquire(limiter);
+			final long start = System.nanoTime();
+			responseHelper.onFinish(() -> limiter.release(start, inFlight));
+		}
+		responseHelper.setAdmitted();
+	}
+
+	/**
+	 * Invokes an action, interrupting it if the deadline of the request passes.
+	 */
+	private Object invoke(Object clazz, Method method, ResponseHelper responseHelper, Object[] args) throws IllegalAccessException, InvocationTargetException {
+		long remaining = responseHelper.getRemainingTime();
+		if (remaining == Long.MAX_VALUE) {
+			return method.invoke(clazz, args);
+		}
+		Deadlines.Interruption interruption = this.deadlines.interruptIn(remaining);
+		try {
+			return method.invoke(clazz, args);
+		} finally {
+			interruption.cancel();
+		}
 	}
 
 	/**
@@ -305,4 +607,18 @@ public class ServletHelper {
 		}
 		return accepts;
 	}
+
+	/**
+	 * The action couldn't be called, as when the request is rejected by a bulkhead
+	 * or the action doesn't exist. It carries the exception through the
+	 * interceptors, so it's answered as if there weren't any, and not as an
+	 * exception thrown by them.
+	 */
+	private static final class NotCalledException extends Exception {
+		private static final long serialVersionUID = -6279461530184127714L;
+
+		NotCalledException(Exception cause) {
+			super(cause);
+		}
+	}
 }
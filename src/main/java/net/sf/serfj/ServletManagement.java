@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import net.sf.serfj.management.AdmissionStatistics;
+import net.sf.serfj.management.CacheStatistics;
+import net.sf.serfj.management.RestServletMXBean;
+import net.sf.serfj.management.RouteStatistics;
+import net.sf.serfj.metrics.Histogram;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RouteTimings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MXBean of a {@link RestServlet}. Requests are counted with LongAdders, so
+ * counting doesn't contend between request threads, and reading the counters
+ * doesn't block them. Latencies are read from the {@link Timings} of the servlet.
+ * 
+ * @author agent
+ */
+class ServletManagement implements RestServletMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServletManagement.class);
+
+    private static final String DOMAIN = "net.sf.serfj";
+
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    private Config config;
+    private Timings timings;
+    private UrlInspector urlInspector;
+    private Bulkheads bulkheads;
+    private Limiters limiters;
+    private ObjectName name;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+
+    /**
+     * Controller => requests being processed.
+     */
+    private final ConcurrentMap<String, LongAdder> controllers = new ConcurrentHashMap<String, LongAdder>();
+
+    public ServletManagement(Config config, Timings timings, UrlInspector urlInspector, Bulkheads bulkheads, Limiters limiters) {
+        this.config = config;
+        this.timings = timings;
+        this.urlInspector = urlInspector;
+        this.bulkheads = bulkheads;
+        this.limiters = limiters;
+    }
+
+    /**
+     * Registers the MXBean in the platform MBeanServer. If there is already one with
+     * the same name, as when a servlet is reloaded without being destroyed, it's
+     * replaced.
+     * 
+     * @param servletName
+     *            Name of the servlet.
+     * @param contextName
+     *            Name of the web application, it could be null.
+     */
+    public void register(String servletName, String contextName) {
+        try {
+            String properties = "type=RestServlet,name=" + ObjectName.quote(servletName);
+            if (contextName != null) {
+                properties += ",context=" + ObjectName.quote(contextName);
+            }
+            ObjectName objectName = new ObjectName(DOMAIN + ":" + properties);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            this.name = objectName;
+            LOGGER.info("Registered MXBean {}", objectName);
+        } catch (JMException e) {
+            LOGGER.warn("Can't register the MXBean of servlet {}", servletName, e);
+        }
+    }
+
+    /**
+     * Unregisters the MXBean, if it was registered.
+     */
+    public void unregister() {
+        if (this.name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+            } catch (JMException e) {
+                LOGGER.debug("Can't unregister MXBean {}", this.name, e);
+            }
+            this.name = null;
+        }
+    }
+
+    /**
+     * Counts a request received by the servlet.
+     */
+    void received() {
+        this.requests.increment();
+    }
+
+    /**
+     * Counts a request whose action starts being processed.
+     */
+    void started(UrlInfo urlInfo) {
+        this.inFlight.increment();
+        if (urlInfo.getController() != null) {
+            LongAdder counter = this.controllers.get(urlInfo.getController());
+            if (counter == null) {
+                counter = this.controllers.computeIfAbsent(urlInfo.getController(), controller -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    /**
+     * Counts a request whose processing has ended.
+     */
+    void finished(UrlInfo urlInfo) {
+        this.inFlight.decrement();
+        if (urlInfo.getController() != null) {
+            this.controllers.get(urlInfo.getController()).decrement();
+        }
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getInFlight() {
+        return this.inFlight.sum();
+    }
+
+    public Map<String, Long> getInFlightByController() {
+        Map<String, Long> inFlightByController = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : this.controllers.entrySet()) {
+            inFlightByController.put(entry.getKey(), entry.getValue().sum());
+        }
+        return inFlightByController;
+    }
+
+    public Map<String, RouteStatistics> getRoutes() {
+        Map<String, RouteStatistics> routes = new TreeMap<String, RouteStatistics>();
+        for (RouteTimings route : this.timings.getRoutes()) {
+            Histogram histogram = route.getHistogram(Phase.REQUEST);
+            routes.put(route.getName(), new RouteStatistics(histogram.getCount(), histogram.getMean() / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI, histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI, histogram.getMax() / NANOS_PER_MILLI, route.getAllocated().getMean(),
+                    route.getCpu().getMean() / NANOS_PER_MILLI));
+        }
+        return routes;
+    }
+
+    public Map<String, CacheStatistics> getCaches() {
+        Map<String, CacheStatistics> caches = new TreeMap<String, CacheStatistics>();
+        for (Map.Entry<String, ResolutionCache> entry : this.urlInspector.getCaches().entrySet()) {
+            ResolutionCache cache = entry.getValue();
+            caches.put(entry.getKey(), new CacheStatistics(cache.size(), cache.getHits(), cache.getMisses()));
+        }
+        return caches;
+    }
+
+    public Map<String, AdmissionStatistics> getBulkheads() {
+        Map<String, AdmissionStatistics> statistics = new TreeMap<String, AdmissionStatistics>();
+        for (Bulkhead bulkhead : this.bulkheads.getBulkheads()) {
+            statistics.put(bulkhead.getName(), new AdmissionStatistics(bulkhead.getLimit(), bulkhead.getInFlight(), bulkhead.getRejected()));
+        }
+        return statistics;
+    }
+
+    public Map<String, AdmissionStatistics> getLimiters() {
+        Map<String, AdmissionStatistics> statistics = new TreeMap<String, AdmissionStatistics>();
+        for (Limiter limiter : this.limiters.getLimiters()) {
+            statistics.put(limiter.getName(), new AdmissionStatistics(limiter.getLimit(), limiter.getInFlight(), limiter.getRejected()));
+        }
+        return statistics;
+    }
+
+    public Map<String, String> getConfig() {
+        Map<String, String> values = this.config.getValues();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                entry.setValue("");
+            }
+        }
+        return values;
+    }
+
+    public boolean isTiming() {
+        return this.timings.isEnabled();
+    }
+
+    public void setTiming(boolean timing) {
+        LOGGER.info("Timing of requests {}", timing ? "enabled" : "disabled");
+        this.timings.setEnabled(timing);
+    }
+
+    public void clearCaches() {
+        LOGGER.info("Clearing resolution caches");
+        this.urlInspector.clearCaches();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RingBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of the requests slower than 'slow.request.threshold' milliseconds, and of a
+ * random sample ('slow.request.sample') of the other ones, with the route, status,
+ * bytes written and the time spent in every phase.<br>
+ * <br>
+ * Request threads only put their entries in a {@link RingBuffer} of
+ * 'slow.request.buffer' entries, which a daemon thread writes to this class'
+ * logger: slow requests as warnings, sampled ones as info. Entries that don't fit
+ * in the buffer are dropped and counted, so logging never blocks a request.
+ * 
+ * @author agent
+ */
+class SlowRequestLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowRequestLog.class);
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * Time the writer waits when there aren't entries to write.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * A request to log.
+     */
+    private static class Entry {
+        private final long time;
+        private final UrlInfo urlInfo;
+        private final long[] phases;
+        private final int status;
+        private final long bytes;
+        private final String error;
+        private final boolean slow;
+
+        Entry(UrlInfo urlInfo, long[] phases, int status, long bytes, String error, boolean slow) {
+            this.time = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(phases[Phase.REQUEST.ordinal()]);
+            this.urlInfo = urlInfo;
+            this.phases = phases;
+            this.status = status;
+            this.bytes = bytes;
+            this.error = error;
+            this.slow = slow;
+        }
+    }
+
+    private final long threshold;
+    private final double sample;
+    private final RingBuffer<Entry> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor. It starts the thread writing the log.
+     * 
+     * @param threshold
+     *            Milliseconds from which requests are logged, or 0 if requests
+     *            aren't logged because of their duration.
+     * @param sample
+     *            Fraction (0 to 1) of the other requests that are logged.
+     * @param capacity
+     *            Entries waiting to be written that fit in the buffer.
+     */
+    SlowRequestLog(long threshold, double sample, int capacity) {
+        this.threshold = threshold > 0 ? TimeUnit.MILLISECONDS.toNanos(threshold) : Long.MAX_VALUE;
+        this.sample = sample;
+        this.buffer = new RingBuffer<Entry>(capacity);
+        this.writer = new Thread(this::write, "serfj-slow-requests");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        LOGGER.debug("Logging requests slower than {} ms and {} of the others", threshold, sample);
+    }
+
+    /**
+     * Logs a finished request, if it's slow or sampled.
+     * 
+     * @param urlInfo
+     *            Information of the request URL.
+     * @param phases
+     *            Nanoseconds spent in every {@link Phase}, by ordinal. The array
+     *            mustn't be changed after calling this method.
+     * @param status
+     *            HTTP status of the response.
+     * @param bytes
+     *            Bytes serialized or sent.
+     * @param error
+     *            Class of the exception thrown by the action, or null.
+     */
+    void log(UrlInfo urlInfo, long[] phases, int status, long bytes, String error) {
+        boolean slow = phases[Phase.REQUEST.ordinal()] >= this.threshold;
+        if (!slow && (this.sample <= 0 || ThreadLocalRandom.current().nextDouble() >= this.sample)) {
+            return;
+        }
+        if (!this.buffer.offer(new Entry(urlInfo, phases, status, bytes, error, slow))) {
+            this.dropped.increment();
+        }
+    }
+
+    /**
+     * Gets the number of entries written.
+     */
+    long getWritten() {
+        return this.written.sum();
+    }
+
+    /**
+     * Gets the number of entries dropped because the buffer was full.
+     */
+    long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Stops the writer, after writing the entries in the buffer.
+     */
+    void shutdown() {
+        this.running = false;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        long reported = 0;
+        while (this.running) {
+            if (!this.drain()) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            long dropped = this.dropped.sum();
+            if (dropped > reported) {
+                LOGGER.warn("{} slow request entries were dropped because the log couldn't keep up", dropped - reported);
+                reported = dropped;
+            }
+        }
+        this.drain();
+    }
+
+    private boolean drain() {
+        boolean drained = false;
+        Entry entry;
+        while ((entry = this.buffer.poll()) != null) {
+            try {
+                if (entry.slow) {
+                    LOGGER.warn("Slow request {}", this.format(entry));
+                } else {
+                    LOGGER.info("Sampled request {}", this.format(entry));
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Can't log request {}", entry.urlInfo.getUrl(), e);
+            }
+            this.written.increment();
+            drained = true;
+        }
+        return drained;
+    }
+
+    private String format(Entry entry) {
+        StringBuilder line = new StringBuilder(160);
+        line.append(entry.urlInfo.getRequestMethod()).append(' ').append(entry.urlInfo.getUrl());
+        line.append(" (").append(Timings.getRouteName(entry.urlInfo)).append(") at ").append(Instant.ofEpochMilli(entry.time));
+        line.append(": status ").append(entry.status).append(", ").append(entry.bytes).append(" bytes, ");
+        this.appendMillis(line, entry.phases[Phase.REQUEST.ordinal()]);
+        String separator = " [";
+        for (Phase phase : PHASES) {
+            long nanos = entry.phases[phase.ordinal()];
+            if (phase != Phase.REQUEST && nanos > 0) {
+                line.append(separator).append(phase.name().toLowerCase(Locale.ENGLISH)).append(' ');
+                this.appendMillis(line, nanos);
+                separator = ", ";
+            }
+        }
+        if (separator.length() == 2) {
+            line.append(']');
+        }
+        if (entry.error != null) {
+            line.append(", error ").append(entry.error);
+        }
+        return line.toString();
+    }
+
+    private void appendMillis(StringBuilder line, long nanos) {
+        line.append(String.format(Locale.ENGLISH, "%.3f ms", nanos / 1e6));
+    }
+}
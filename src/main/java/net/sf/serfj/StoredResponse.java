@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Copy of a response written by the framework: status, content-type, headers and
+ * body. It's used to serve a request with the response of another one, as
+ * identical requests in flight or retries with the same Idempotency-Key.
+ * 
+ * @author agent
+ */
+public class StoredResponse implements Serializable {
+
+    private static final long serialVersionUID = -2618209327435690143L;
+
+    private int status;
+    private String contentType;
+    private String characterEncoding;
+    private List<String[]> headers;
+    private byte[] body;
+    private String fingerprint;
+
+    /**
+     * Constructor.
+     * 
+     * @param status
+     *            HTTP status code.
+     * @param contentType
+     *            Content-type, it can be null.
+     * @param characterEncoding
+     *            Character encoding, it can be null.
+     * @param headers
+     *            Headers as {name, value} pairs, in the order they were written.
+     * @param body
+     *            Bytes of the body.
+     */
+    public StoredResponse(int status, String contentType, String characterEncoding, List<String[]> headers, byte[] body) {
+        this(status, contentType, characterEncoding, headers, body, null);
+    }
+
+    /**
+     * Constructor of the response given to a particular request.
+     * 
+     * @param fingerprint
+     *            Hash of the request that got the response, it can be null.
+     */
+    public StoredResponse(int status, String contentType, String characterEncoding, List<String[]> headers, byte[] body, String fingerprint) {
+        this.status = status;
+        this.contentType = contentType;
+        this.characterEncoding = characterEncoding;
+        this.headers = new ArrayList<String[]>(headers);
+        this.body = body;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Copies the response, saying the request that got it.
+     * 
+     * @param fingerprint
+     *            Hash of the request.
+     */
+    public StoredResponse withFingerprint(String fingerprint) {
+        return new StoredResponse(this.status, this.contentType, this.characterEncoding, this.headers, this.body, fingerprint);
+    }
+
+    public int getStatus() {
+        return this.status;
+    }
+
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    public String getCharacterEncoding() {
+        return this.characterEncoding;
+    }
+
+    public List<String[]> getHeaders() {
+        return Collections.unmodifiableList(this.headers);
+    }
+
+    public byte[] getBody() {
+        return this.body;
+    }
+
+    /**
+     * Gets the hash of the request that got the response.
+     * 
+     * @return the hash, or null if it isn't known.
+     */
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Writes the copy in a response.
+     */
+    public void replay(HttpServletResponse response) throws IOException {
+        response.setStatus(this.status);
+        for (String[] header : this.headers) {
+            response.addHeader(header[0], header[1]);
+        }
+        if (this.contentType != null) {
+            response.setContentType(this.contentType);
+        }
+        if (this.characterEncoding != null) {
+            response.setCharacterEncoding(this.characterEncoding);
+        }
+        response.setContentLength(this.body.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(this.body);
+        out.flush();
+    }
+}
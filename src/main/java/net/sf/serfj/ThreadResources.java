@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.management.ManagementFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory allocated and CPU time used by the current thread, read from the
+ * com.sun.management.ThreadMXBean of HotSpot and OpenJ9, to account the
+ * resources used by the requests of every route.
+ * 
+ * @author agent
+ */
+class ThreadResources {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadResources.class);
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    private ThreadResources(com.sun.management.ThreadMXBean threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Enables the allocation and CPU time measurement of the JVM, if it can.
+     * 
+     * @return the resources of the threads, or null if the JVM can't measure
+     *         them.
+     */
+    static ThreadResources create() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isCurrentThreadCpuTimeSupported()) {
+                    if (!threads.isThreadAllocatedMemoryEnabled()) {
+                        threads.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    if (!threads.isThreadCpuTimeEnabled()) {
+                        threads.setThreadCpuTimeEnabled(true);
+                    }
+                    return new ThreadResources(threads);
+                }
+            }
+        } catch (LinkageError e) {
+            LOGGER.debug("com.sun.management isn't available", e);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Can't enable thread measurement", e);
+        }
+        LOGGER.warn("This JVM can't measure allocations and CPU time of threads, resources of the requests won't be accounted");
+        return null;
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread since it started.
+     */
+    long getAllocatedBytes() {
+        return this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Gets the CPU time used by the current thread, in nanoseconds.
+     */
+    long getCpuTime() {
+        return this.threads.getCurrentThreadCpuTime();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.serfj.jfr.RequestEvents;
+import net.sf.serfj.metrics.LogTimingReporter;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RouteTimings;
+import net.sf.serfj.metrics.TimingReporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timings of the routes served by a {@link RestServlet}. Every route
+ * (Controller.action) gets a {@link RouteTimings} the first time it's called, where
+ * the duration of every {@link Phase} of its requests is recorded, if 'timing' is
+ * enabled. Requests without controller or action, and the ones of routes beyond
+ * 'timing.max.routes', are recorded in the route {@link #UNMATCHED}, so URLs
+ * can't make the timings grow without bound.<br>
+ * <br>
+ * Timings are published every 'timing.report.interval' seconds by the reporter set
+ * in 'timing.reporter': 'log', or the name of a class implementing
+ * {@link TimingReporter}. The servlet keeps this object in the ServletContext
+ * attribute {@link #ATTRIBUTE}, so the application can read them too.<br>
+ * <br>
+ * If 'jfr' is enabled, every phase emits a Java Flight Recorder event too, lasting
+ * as long as the phase, with the route, controller and action of the request (not
+ * its URL), and requests slower than
+ * 'slow.request.threshold' milliseconds are logged with their phases by a
+ * {@link SlowRequestLog}.<br>
+ * <br>
+ * If 'timing.resources' is enabled, the bytes allocated and the CPU time used by
+ * every request are recorded in its route too: the ones of the container thread,
+ * of the virtual thread running its action and of the thread writing its
+ * asynchronous result, added up. Work done in other threads, as the ones of the
+ * multi-get pool or the ones completing a CompletionStage returned by an action,
+ * isn't accounted.
+ * 
+ * @author agent
+ */
+public class Timings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Timings.class);
+
+    /**
+     * ServletContext attribute with the timings of the application.
+     */
+    public static final String ATTRIBUTE = Timings.class.getName();
+
+    /**
+     * Name of the route of the requests whose route isn't timed on its own.
+     */
+    public static final String UNMATCHED = "unmatched";
+
+    private volatile boolean enabled;
+
+    private RequestEvents events = RequestEvents.NONE;
+
+    private SlowRequestLog slowRequests;
+
+    private ThreadResources resources;
+
+    private int maxRoutes = 1000;
+
+    /**
+     * Controller.action => itself if the controller has the action, so routes
+     * that don't exist are only looked up by reflection once.
+     */
+    private ResolutionCache actions = new ResolutionCache(1024);
+
+    /**
+     * Controller => action => timings, so finding a route doesn't build its name.
+     */
+    private ConcurrentMap<String, ConcurrentMap<String, RouteTimings>> owners = new ConcurrentHashMap<String, ConcurrentMap<String, RouteTimings>>();
+
+    /**
+     * Controller.action => timings.
+     */
+    private ConcurrentMap<String, RouteTimings> routes = new ConcurrentHashMap<String, RouteTimings>();
+
+    private ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Requests aren't timed.
+     */
+    public Timings() {
+        super();
+    }
+
+    public Timings(Config config) {
+        this.enabled = config.getBoolean(Config.TIMING);
+        this.maxRoutes = config.getInt(Config.TIMING_MAX_ROUTES);
+        this.actions = new ResolutionCache(config.getInt(Config.RESOLUTION_CACHE_SIZE));
+        if (config.getBoolean(Config.TIMING_RESOURCES)) {
+            this.resources = ThreadResources.create();
+        }
+        this.events = RequestEvents.create(config.getBoolean(Config.JFR));
+        long threshold = config.getLong(Config.SLOW_REQUEST_THRESHOLD);
+        double sample = Double.parseDouble(config.getString(Config.SLOW_REQUEST_SAMPLE).trim());
+        if (threshold > 0 || sample > 0) {
+            this.slowRequests = new SlowRequestLog(threshold, sample, config.getInt(Config.SLOW_REQUEST_BUFFER));
+        }
+        String name = config.getString(Config.TIMING_REPORTER).trim();
+        TimingReporter reporter = null;
+        if ("log".equals(name)) {
+            reporter = new LogTimingReporter();
+        } else if (name.length() > 0) {
+            try {
+                Class<?> clazz = Class.forName(name);
+                try {
+                    reporter = (TimingReporter) clazz.getConstructor(Config.class).newInstance(config);
+                } catch (NoSuchMethodException e) {
+                    reporter = (TimingReporter) clazz.newInstance();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Can't create timing reporter [{}], timings won't be reported", name, e);
+            }
+        }
+        if (reporter != null) {
+            this.schedule(reporter, config.getLong(Config.TIMING_REPORT_INTERVAL));
+        }
+        LOGGER.debug("Timing: {}, reporter: {}", this.enabled, reporter);
+    }
+
+    private void schedule(final TimingReporter reporter, long interval) {
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "serfj-timing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reporter.report(this.getRoutes());
+            } catch (RuntimeException e) {
+                LOGGER.warn("Can't report timings", e);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops reporting timings and logging slow requests, if they were.
+     */
+    public synchronized void shutdown() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        if (this.slowRequests != null) {
+            this.slowRequests.shutdown();
+        }
+    }
+
+    /**
+     * Says if requests are timed.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Starts or stops timing requests. Timings already recorded are kept.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts timing a request.
+     * 
+     * @return the timer of the request, which doesn't record anything if requests
+     *         aren't timed.
+     */
+    RequestTimer newTimer() {
+        if (this.enabled) {
+            return new RequestTimer(this, this.events, this.slowRequests);
+        }
+        if (this.slowRequests != null || this.events.isEnabled()) {
+            return new RequestTimer(null, this.events, this.slowRequests);
+        }
+        return RequestTimer.DISABLED;
+    }
+
+    /**
+     * Gets the resources of the threads, to account the ones used by every
+     * request.
+     * 
+     * @return the resources, or null if they aren't accounted.
+     */
+    ThreadResources getResources() {
+        return this.resources;
+    }
+
+    /**
+     * Gets the log of slow requests.
+     * 
+     * @return the log, or null if slow requests aren't logged.
+     */
+    SlowRequestLog getSlowRequests() {
+        return this.slowRequests;
+    }
+
+    /**
+     * Gets the timings of the route of a request.
+     */
+    RouteTimings get(UrlInfo urlInfo) {
+        final String owner = urlInfo.getController();
+        String action = urlInfo.getAction();
+        if (owner == null || action == null) {
+            return this.getUnmatched();
+        }
+        ConcurrentMap<String, RouteTimings> actions = this.owners.get(owner);
+        if (actions == null) {
+            actions = this.owners.computeIfAbsent(owner, key -> new ConcurrentHashMap<String, RouteTimings>());
+        }
+        RouteTimings route = actions.get(action);
+        if (route == null) {
+            if (this.routes.size() >= this.maxRoutes || this.actions.get(owner + "." + action, Timings::findAction) == null) {
+                return this.getUnmatched();
+            }
+            route = actions.computeIfAbsent(action, key -> this.routes.computeIfAbsent(getRouteName(owner, key), RouteTimings::new));
+        }
+        return route;
+    }
+
+    private RouteTimings getUnmatched() {
+        RouteTimings route = this.routes.get(UNMATCHED);
+        if (route == null) {
+            route = this.routes.computeIfAbsent(UNMATCHED, RouteTimings::new);
+        }
+        return route;
+    }
+
+    /**
+     * Checks if a controller has an action, so actions taken from URLs that don't
+     * exist aren't timed on their own. A multi-get is answered by show if there
+     * isn't a showMany action.
+     * 
+     * @param route
+     *            Controller.action, with the full name of the controller.
+     * @return the route, or null if the controller hasn't the action.
+     */
+    private static String findAction(String route) {
+        int dot = route.lastIndexOf('.');
+        String action = route.substring(dot + 1);
+        try {
+            for (Method method : Class.forName(route.substring(0, dot)).getMethods()) {
+                if (method.getName().equals(action) || UrlInspector.SHOW_MANY_ACTION.equals(action) && method.getName().equals(UrlInspector.SHOW_ACTION)) {
+                    return route;
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            // Routes without controller aren't timed on their own
+        }
+        return null;
+    }
+
+    /**
+     * Gets the name of the route of a request, like Account.show.
+     */
+    public static String getRouteName(UrlInfo urlInfo) {
+        return getRouteName(getOwner(urlInfo), String.valueOf(urlInfo.getAction()));
+    }
+
+    private static String getOwner(UrlInfo urlInfo) {
+        return urlInfo.getController() != null ? urlInfo.getController() : String.valueOf(urlInfo.getResource());
+    }
+
+    private static String getRouteName(String owner, String action) {
+        return owner.substring(owner.lastIndexOf('.') + 1) + "." + action;
+    }
+
+    /**
+     * Gets the timings of a route.
+     * 
+     * @param name
+     *            Controller.action, like Account.show.
+     * @return the timings, or null if the route hasn't been timed yet.
+     */
+    public RouteTimings getRoute(String name) {
+        return this.routes.get(name);
+    }
+
+    /**
+     * Gets the timings of the routes timed until now.
+     */
+    public Collection<RouteTimings> getRoutes() {
+        return Collections.unmodifiableCollection(this.routes.values());
+    }
+}
@@ -15,16 +15,21 @@
  */
 package net.sf.serfj;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Represents all the information extracted from an URL. The main Identifier,
- * controller, secondary identifiers, serializer, etc...
+ * controller, secondary identifiers, serializer, etc...<br>
+ * Interceptors get it to know the route of the request, but only the framework
+ * can change it.
  * 
  * @author Eduardo Yáñez
  */
-class UrlInfo {
+public class UrlInfo {
 	private String url;
 	private HttpMethod requestMethod;
 	private String resource;
@@ -32,19 +37,20 @@ class UrlInfo {
 	private String controller;
 	private String action;
 	private String extension;
+	private boolean negotiated;
 	private Map<String, String> identifiers;
 
-	public UrlInfo(String url, HttpMethod requestMethod) {
+	UrlInfo(String url, HttpMethod requestMethod) {
 		this.url = url;
 		this.identifiers = new HashMap<String, String>();
 		this.requestMethod = requestMethod;
 	}
 
-	public void addId(String resource, String id) {
+	void addId(String resource, String id) {
 		this.identifiers.put(resource + "_id", id);
 	}
 
-	public void addId(String id) {
+	void addId(String id) {
 		this.identifiers.put("id", id);
 		if (this.resource != null) {
 		    this.addId(this.resource, id);
@@ -52,7 +58,7 @@ class UrlInfo {
 	}
 
 	public Map<String, String> getIdentifiers() {
-		return this.identifiers;
+		return Collections.unmodifiableMap(this.identifiers);
 	}
 
 	public String getId(String resource) {
@@ -63,6 +69,46 @@ class UrlInfo {
 		return this.identifiers.get("id");
 	}
 
+	/**
+	 * Gets the identifiers of a multi-get, as 1, 2 and 3 in /banks/1,2,3.
+	 * 
+	 * @return the identifiers, or null if the main identifier is a single one.
+	 */
+	public String[] getIds() {
+		String id = this.getId();
+		if (id == null || id.indexOf(',') < 0) {
+			return null;
+		}
+		List<String> ids = new ArrayList<String>();
+		for (String single : id.split(",")) {
+			if (single.trim().length() > 0) {
+				ids.add(single.trim());
+			}
+		}
+		return ids.toArray(new String[ids.size()]);
+	}
+
+	/**
+	 * Creates a copy of this information for one of the identifiers of a multi-get.
+	 * 
+	 * @param id
+	 *            Main identifier of the copy.
+	 * @param action
+	 *            Action of the copy.
+	 */
+	UrlInfo forId(String id, String action) {
+		UrlInfo info = new UrlInfo(this.url, this.requestMethod);
+		info.identifiers.putAll(this.identifiers);
+		info.resource = this.resource;
+		info.serializer = this.serializer;
+		info.controller = this.controller;
+		info.extension = this.extension;
+		info.negotiated = this.negotiated;
+		info.addId(id);
+		info.action = action;
+		return info;
+	}
+
 	public String getUrl() {
 		return url;
 	}
@@ -71,7 +117,7 @@ class UrlInfo {
 		return resource;
 	}
 
-	public void setResource(String resource) {
+	void setResource(String resource) {
 		this.resource = resource;
 	}
 
@@ -79,7 +125,7 @@ class UrlInfo {
 		return serializer;
 	}
 
-	public void setSerializer(String serializer) {
+	void setSerializer(String serializer) {
 		this.serializer = serializer;
 	}
 
@@ -87,7 +133,7 @@ class UrlInfo {
 		return controller;
 	}
 
-	public void setController(String controller) {
+	void setController(String controller) {
 		this.controller = controller;
 	}
 
@@ -95,7 +141,7 @@ class UrlInfo {
 		return action;
 	}
 
-	public void setAction(String action) {
+	void setAction(String action) {
 		this.action = action;
 	}
 
@@ -107,7 +153,7 @@ class UrlInfo {
 		return extension;
 	}
 
-	public void setExtension(String extension) {
+	void setExtension(String extension) {
 		if (extension == null) {
 			this.extension = "";
 		} else {
@@ -115,6 +161,18 @@ class UrlInfo {
 		}
 	}
 
+	/**
+	 * Returns true if the serializer was chosen from the Accept header, because the
+	 * URL didn't have an extension.
+	 */
+	public boolean isNegotiated() {
+		return negotiated;
+	}
+
+	void setNegotiated(boolean negotiated) {
+		this.negotiated = negotiated;
+	}
+
 	@Override
 	public String toString() {
 		return "UrlInfo{" + "url='" + url + '\'' + ", requestMethod='" + requestMethod + '\'' + ", identifiers='" + identifiers + '\'' + ", resource='" + resource + '\'' + ", extension='" + extension + '\'' + ", serializer='" + serializer + '\'' + ", controller='" + controller + '\'' + ", action='" + action + '\'' + '}';
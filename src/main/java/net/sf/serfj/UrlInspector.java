@@ -15,6 +15,9 @@
  */
 package net.sf.serfj;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.sf.serfj.finders.ControllerFinder;
 import net.sf.serfj.finders.SerializerFinder;
 import net.sf.serfj.util.UrlUtils;
@@ -33,7 +36,8 @@ class UrlInspector {
 
 	// Standar actions.
 	private static final String INDEX_ACTION = "index";
-	private static final String SHOW_ACTION = "show";
+	protected static final String SHOW_ACTION = "show";
+	protected static final String SHOW_MANY_ACTION = "showMany";
 	private static final String EDIT_ACTION = "edit";
 	private static final String CREATE_ACTION = "create";
 	private static final String UPDATE_ACTION = "update";
@@ -43,10 +47,36 @@ class UrlInspector {
 
 	private UrlUtils utils;
 	private Config config;
+	private ContentNegotiator negotiator;
+
+	/**
+	 * Part of the URL => controller class, or null if it isn't a resource.
+	 */
+	private ResolutionCache controllers;
+
+	/**
+	 * Resource.extension => serializer class.
+	 */
+	private ResolutionCache serializers;
 
 	public UrlInspector(Config config) {
 		this.config = config;
 		this.utils = UrlUtils.getInstance();
+		this.controllers = new ResolutionCache(config.getInt(Config.RESOLUTION_CACHE_SIZE));
+		this.serializers = new ResolutionCache(config.getInt(Config.RESOLUTION_CACHE_SIZE));
+		if (config.getBoolean(Config.CONTENT_NEGOTIATION)) {
+			this.negotiator = new ContentNegotiator(config);
+		}
+	}
+
+	/**
+	 * Gets the information which comes implicit in the URL. If the URL doesn't
+	 * have an extension, the serializer isn't chosen from the Accept header.
+	 * 
+	 * @see #getUrlInfo(String, HttpMethod, String)
+	 */
+	public UrlInfo getUrlInfo(String url, HttpMethod requestMethod) {
+		return this.getUrlInfo(url, requestMethod, null);
 	}
 
 	/**
@@ -63,9 +93,12 @@ class UrlInspector {
 	 *            Url to process.
 	 * @param requestMethod
 	 *            HTTP request method (GET, POST, PUT, DELETE)
+	 * @param accept
+	 *            Accept header of the request, used to choose a serializer when
+	 *            the URL doesn't have an extension. It could be null.
 	 * @return an object with all the information related with the URL.
 	 */
-	public UrlInfo getUrlInfo(String url, HttpMethod requestMethod) {
+	public UrlInfo getUrlInfo(String url, HttpMethod requestMethod, String accept) {
         LOGGER.debug("*** Retreiving information from the URL [{}] with method [{}] ***", url, requestMethod);
 		UrlInfo info = new UrlInfo(url, requestMethod);
 		// Split URL by slash
@@ -79,7 +112,7 @@ class UrlInspector {
 			String split = utils.cleanURL(splits[i]);
 			if (resource == null && isResource(split)) {
 				resource = utils.singularize(split);
-				info.setController(getControllerClass(split));
+				info.setController(this.findController(split));
 			} else if (action == null && !utils.isIdentifier(split) && i == lastElement) {
 				action = split;
 			} else if (utils.isIdentifier(split)) {
@@ -96,9 +129,15 @@ class UrlInspector {
 		info.addId(id);
 		// Puts the REST action
 		info.setAction(deduceAction(id, action, requestMethod));
-		// Puts the result type
-		info.setSerializer(this.getSerializerClass(resource, utils.removeQueryString(splits[lastElement])));
-		info.setExtension(this.utils.getExtension(utils.removeQueryString(splits[lastElement])));
+		// Puts the result type, from the extension or from the Accept header
+		String extension = this.utils.getExtension(utils.removeQueryString(splits[lastElement]));
+		if (extension == null && accept != null && negotiator != null) {
+			extension = negotiator.negotiate(accept);
+			// Only responses whose serializer comes from the Accept header depend on it
+			info.setNegotiated(extension != null);
+		}
+		info.setSerializer(this.findSerializerClass(resource, extension));
+		info.setExtension(extension);
         LOGGER.debug("*** URL information retrieved ***");
 		return info;
 	}
@@ -150,7 +189,7 @@ class UrlInspector {
 	 * count the ID, because it depends on it to know if action is 'show' or
 	 * 'index'.<br/>
 	 * <br/>
-	 * GET: with ID => show, without ID => index.<br/>
+	 * GET: with ID => show, with several IDs (1,2,3) => showMany, without ID => index.<br/>
 	 * POST: create.<br/>
 	 * DELETE: delete.<br/>
 	 * PUT: update.<br/>
@@ -168,6 +207,8 @@ class UrlInspector {
 		if (requestMethod == HttpMethod.GET) {
 			if (id == null) {
 				action = INDEX_ACTION;
+			} else if (id.indexOf(',') > 0) {
+				action = SHOW_MANY_ACTION;
 			} else {
 				action = SHOW_ACTION;
 			}
@@ -190,19 +231,30 @@ class UrlInspector {
 	 * @return true if chunk is a resource.
 	 */
 	Boolean isResource(String resource) {
-		Boolean isResource = false;
-		if (!utils.isIdentifier(resource)) {
-			try {
-				String clazz = getControllerClass(resource);
-				if (clazz != null) {
-					Class.forName(clazz);
-					isResource = true;
-				}
-			} catch (ClassNotFoundException e) {
-				// It isn't a resource because there isn't a controller for it
+		return !utils.isIdentifier(resource) && this.findController(resource) != null;
+	}
+
+	/**
+	 * Gets the controller class for a part of the URL, if it can be loaded. Results
+	 * are cached, so classes are only looked for the first time.
+	 * 
+	 * @return the controller class, or null if the part isn't a resource.
+	 */
+	private String findController(String resource) {
+		return this.controllers.get(resource, this::loadControllerClass);
+	}
+
+	private String loadControllerClass(String resource) {
+		try {
+			String clazz = getControllerClass(resource);
+			if (clazz != null) {
+				Class.forName(clazz);
+				return clazz;
 			}
+		} catch (ClassNotFoundException e) {
+			// It isn't a resource because there isn't a controller for it
 		}
-		return isResource;
+		return null;
 	}
 
 	/**
@@ -235,13 +287,47 @@ class UrlInspector {
 	 *         resource and extension.
 	 */
 	protected String getSerializerClass(String resource, String urlLastElement) {
+		return this.findSerializerClass(resource, this.utils.getExtension(urlLastElement));
+	}
+
+	/**
+	 * Gets serializer class for a resource and an extension.
+	 * 
+	 * @param resource
+	 *            Resource that will managed by the controller class.
+	 * @param extension
+	 *            Extension, it could be null.
+	 * @return The fully qualified name of the serializer class for this
+	 *         resource and extension, or null if there isn't extension.
+	 */
+	private String findSerializerClass(final String resource, final String extension) {
 		String serializerClass = null;
-		String extension = this.utils.getExtension(urlLastElement);
 		if (extension != null) {
-			SerializerFinder finder = new SerializerFinder(config, extension);
-			serializerClass = finder.findResource(resource);
+			serializerClass = this.serializers.get(resource + "." + extension, key -> new SerializerFinder(config, extension).findResource(resource));
 		}
 		return serializerClass;
 	}
 
+	/**
+	 * Gets the caches of names resolved from URLs and Accept headers.
+	 */
+	Map<String, ResolutionCache> getCaches() {
+		Map<String, ResolutionCache> caches = new LinkedHashMap<String, ResolutionCache>();
+		caches.put("controllers", this.controllers);
+		caches.put("serializers", this.serializers);
+		if (this.negotiator != null) {
+			caches.put("negotiation", this.negotiator.getCache());
+		}
+		return caches;
+	}
+
+	/**
+	 * Empties the caches, so controllers and serializers are looked for again.
+	 */
+	void clearCaches() {
+		for (ResolutionCache cache : this.getCaches().values()) {
+			cache.clear();
+		}
+	}
+
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Time budget of the requests served by a controller or an action, counted from
+ * the moment the request arrives. When it runs out, the thread running the action
+ * is interrupted and the client gets a 504 (Gateway Timeout) instead of the
+ * result.<br>
+ * <br>
+ * An annotation on an action takes precedence over the one on its controller.
+ * Deadlines can be set in serfj.properties too ('deadlines'), and those ones take
+ * precedence over annotations. Clients can ask for a shorter deadline with the
+ * X-Request-Timeout header.
+ * 
+ * @author agent
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface Deadline {
+
+    /**
+     * Milliseconds to serve a request.
+     */
+    long value();
+}
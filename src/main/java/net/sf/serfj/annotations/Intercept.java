@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import net.sf.serfj.Interceptor;
+
+/**
+ * Interceptors that run around the actions of a controller, or around an action.
+ * Interceptors set in serfj.properties ('interceptors') run first, then the ones
+ * of the controller and then the ones of the action, in the order they are listed.
+ * 
+ * @author agent
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface Intercept {
+
+    /**
+     * Classes of the interceptors.
+     */
+    Class<? extends Interceptor>[] value();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how many requests a controller, or one of its actions, serves at the same
+ * time, so a slow resource can't take every container thread. Requests over the
+ * limit are rejected at once with 503 (Service Unavailable) and a Retry-After
+ * header.<br>
+ * <br>
+ * A limit on the class is shared by all the actions of the controller. Limits can
+ * be set in serfj.properties too ('bulkheads'), and those ones take precedence.
+ * 
+ * @author agent
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface MaxConcurrency {
+
+    /**
+     * Maximum number of requests served at the same time.
+     */
+    int value();
+}
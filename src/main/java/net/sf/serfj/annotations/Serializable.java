@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class so SerfJ's annotation processor generates a serializer
+ * for it at compile time, for every format in {@link #formats()}.<br>
+ * <br>
+ * Generated classes are named like the ones {@link net.sf.serfj.finders.SerializerFinder}
+ * looks for (ExtensionResourceSuffix), so a model annotated with
+ * <code>@Serializable(packageName = "net.sf.serfj.test.serializers")</code> on a class
+ * called Bank produces net.sf.serfj.test.serializers.JsonBankSerializer and
+ * net.sf.serfj.test.serializers.XmlBankSerializer, which are found without any other
+ * configuration.<br>
+ * <br>
+ * Generated serializers write fields through getters, without reflection, and their
+ * output can be read by the default serializers. Supported field types are primitives,
+ * their wrappers, String, enums and other classes annotated with @Serializable.
+ * Transient and static fields are skipped.
+ *
+ * @author agent
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Serializable {
+
+    /**
+     * Resource name used to build the serializer class name. By default it's the
+     * simple name of the annotated class.
+     */
+    String resource() default "";
+
+    /**
+     * Package where serializers will be generated. By default it's the package of the
+     * annotated class.
+     */
+    String packageName() default "";
+
+    /**
+     * Suffix of the generated classes. It must be the same as 'suffix.serializer' in
+     * serfj.properties.
+     */
+    String suffix() default "Serializer";
+
+    /**
+     * Formats (extensions) to generate serializers for. Supported formats are 'json'
+     * and 'xml'.
+     */
+    String[] formats() default { "json", "xml" };
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import net.sf.serfj.annotations.Serializable;
+import net.sf.serfj.util.UrlUtils;
+
+/**
+ * Annotation processor that generates a serializer for every class annotated with
+ * {@link Serializable}, one for each format requested.<br>
+ * <br>
+ * Generated serializers implement {@link net.sf.serfj.serializers.ObjectSerializer},
+ * {@link net.sf.serfj.serializers.StreamDeserializer},
+ * {@link net.sf.serfj.serializers.ProjectingSerializer} and
+ * {@link net.sf.serfj.serializers.StreamingSerializer}.
+ * They write every field through its getter, so there is no reflection involved when
+ * serializing, getters of fields excluded by a projection aren't even called, and they produce the same layout as the default XStream based
+ * serializers, so deserialization is delegated to them.<br>
+ * <br>
+ * The processor is registered in META-INF/services, so it's enough to have SerfJ in
+ * the compilation classpath.
+ *
+ * @author agent
+ */
+@SupportedAnnotationTypes("net.sf.serfj.annotations.Serializable")
+public class SerializableProcessor extends AbstractProcessor {
+
+    private static final String JSON_FORMAT = "json";
+    private static final String XML_FORMAT = "xml";
+    private static final String PROJECTION = "net.sf.serfj.serializers.Projection";
+
+    /**
+     * Types that are written as they are, without quotes.
+     */
+    private static final Set<String> RAW_TYPES = new HashSet<String>();
+
+    /**
+     * Types that are written as text.
+     */
+    private static final Set<String> TEXT_TYPES = new HashSet<String>();
+
+    /**
+     * Types that can be NaN or infinite, which Json can't represent.
+     */
+    private static final Set<String> DECIMAL_TYPES = new HashSet<String>();
+
+    static {
+        Collections.addAll(RAW_TYPES, "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Integer",
+                "java.lang.Long", "java.math.BigInteger", "java.math.BigDecimal");
+        Collections.addAll(DECIMAL_TYPES, "float", "double", "java.lang.Float", "java.lang.Double");
+        Collections.addAll(TEXT_TYPES, "java.lang.String", "java.lang.Character");
+    }
+
+    /**
+     * How a property is written.
+     */
+    private enum PropertyKind {
+        RAW, DECIMAL, TEXT, ENUM, NESTED
+    };
+
+    /**
+     * A property of the model that will be serialized.
+     */
+    private static class Property {
+        private String name;
+        private String type;
+        private String accessor;
+        private boolean primitive;
+        private PropertyKind kind;
+        private TypeElement nested;
+    }
+
+    private UrlUtils utils = UrlUtils.getInstance();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Serializable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                this.error(element, "@Serializable can only be used on classes");
+                continue;
+            }
+            TypeElement model = (TypeElement) element;
+            List<Property> properties = this.getProperties(model);
+            if (properties == null) {
+                continue;
+            }
+            Serializable serializable = model.getAnnotation(Serializable.class);
+            for (String format : serializable.formats()) {
+                if (JSON_FORMAT.equals(format) || XML_FORMAT.equals(format)) {
+                    this.generate(model, format, properties);
+                } else {
+                    this.error(model, "Format '" + format + "' is not supported by @Serializable, only 'json' and 'xml' are");
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the fully qualified name of the serializer generated for a model and a format.
+     */
+    private String getSerializerName(TypeElement model, String format) {
+        Serializable serializable = model.getAnnotation(Serializable.class);
+        String packageName = serializable.packageName();
+        if (packageName.length() == 0) {
+            packageName = this.getPackage(model).getQualifiedName().toString();
+        }
+        String resource = serializable.resource();
+        if (resource.length() == 0) {
+            resource = model.getSimpleName().toString();
+        }
+        String className = utils.capitalize(format) + utils.capitalize(resource) + utils.capitalize(serializable.suffix());
+        return packageName.length() == 0 ? className : packageName + "." + className;
+    }
+
+    private PackageElement getPackage(Element element) {
+        Element enclosing = element;
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return (PackageElement) enclosing;
+    }
+
+    /**
+     * Collects the serializable properties of a model, superclass' properties first.
+     *
+     * @return the properties, or null if some of them can't be serialized.
+     */
+    private List<Property> getProperties(TypeElement model) {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        TypeElement type = model;
+        while (type != null && !Object.class.getName().equals(type.getQualifiedName().toString())) {
+            hierarchy.add(0, type);
+            TypeMirror superclass = type.getSuperclass();
+            type = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(model));
+        List<Property> properties = new ArrayList<Property>();
+        boolean valid = true;
+        for (TypeElement clazz : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                Property property = this.getProperty(model, field, methods);
+                if (property == null) {
+                    valid = false;
+                } else {
+                    properties.add(property);
+                }
+            }
+        }
+        return valid ? properties : null;
+    }
+
+    private Property getProperty(TypeElement model, VariableElement field, List<ExecutableElement> methods) {
+        Property property = new Property();
+        property.name = field.getSimpleName().toString();
+        TypeMirror type = field.asType();
+        property.type = type.toString();
+        property.primitive = type.getKind().isPrimitive();
+        if (DECIMAL_TYPES.contains(property.type)) {
+            property.kind = PropertyKind.DECIMAL;
+        } else if (property.primitive) {
+            property.kind = type.getKind() == TypeKind.CHAR ? PropertyKind.TEXT : PropertyKind.RAW;
+        } else if (RAW_TYPES.contains(property.type)) {
+            property.kind = PropertyKind.RAW;
+        } else if (TEXT_TYPES.contains(property.type)) {
+            property.kind = PropertyKind.TEXT;
+        } else if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+            property.kind = PropertyKind.ENUM;
+        } else if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).asElement().getAnnotation(Serializable.class) != null) {
+            property.kind = PropertyKind.NESTED;
+            property.nested = (TypeElement) ((DeclaredType) type).asElement();
+        } else {
+            this.error(field, "Type " + property.type + " of field '" + property.name + "' can't be serialized by a generated serializer. "
+                    + "Mark it as transient, or annotate its class with @Serializable");
+            return null;
+        }
+        property.accessor = this.getAccessor(field, type, methods);
+        if (property.accessor == null) {
+            this.error(field, "Field '" + property.name + "' has no public getter");
+            return null;
+        }
+        return property;
+    }
+
+    /**
+     * Gets the expression used to read a field, preferring public getters.
+     */
+    private String getAccessor(VariableElement field, TypeMirror type, List<ExecutableElement> methods) {
+        String name = utils.capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            String methodName = method.getSimpleName().toString();
+            boolean getter = methodName.equals("get" + name) || (type.getKind() == TypeKind.BOOLEAN && methodName.equals("is" + name));
+            if (getter && method.getParameters().isEmpty() && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return methodName + "()";
+            }
+        }
+        if (field.getModifiers().contains(Modifier.PUBLIC)) {
+            return field.getSimpleName().toString();
+        }
+        return null;
+    }
+
+    private void generate(TypeElement model, String format, List<Property> properties) {
+        String serializer = this.getSerializerName(model, format);
+        for (Property property : properties) {
+            if (property.kind == PropertyKind.NESTED && !this.hasFormat(property.nested, format)) {
+                this.error(model, "Field '" + property.name + "' is a " + property.nested.getQualifiedName()
+                        + ", which doesn't generate a " + format + " serializer");
+                return;
+            }
+        }
+        int lastDot = serializer.lastIndexOf('.');
+        String packageName = lastDot > 0 ? serializer.substring(0, lastDot) : null;
+        String simpleName = serializer.substring(lastDot + 1);
+        String modelName = model.getQualifiedName().toString();
+        String alias = processingEnv.getElementUtils().getBinaryName(model).toString();
+        StringBuilder source = new StringBuilder();
+        if (packageName != null) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n");
+        source.append(" * ").append(utils.capitalize(format)).append(" serializer for {@link ").append(modelName).append("}.<br>\n");
+        source.append(" * Generated by ").append(SerializableProcessor.class.getName()).append(", don't modify it.\n");
+        source.append(" */\n");
+        source.append("public class ").append(simpleName).append(" implements net.sf.serfj.serializers.ObjectSerializer,\n");
+        source.append("        net.sf.serfj.serializers.StreamDeserializer, net.sf.serfj.serializers.TypedDeserializer,\n");
+        source.append("        net.sf.serfj.serializers.ProjectingSerializer,\n");
+        source.append("        net.sf.serfj.serializers.StreamingSerializer {\n\n");
+        if (JSON_FORMAT.equals(format)) {
+            this.writeJson(source, modelName, alias, properties);
+        } else {
+            this.writeXml(source, modelName, alias, properties);
+        }
+        source.append("}\n");
+
+        try {
+            Writer writer = processingEnv.getFiler().createSourceFile(serializer, model).openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            this.error(model, "Can't generate " + serializer + ": " + e.getLocalizedMessage());
+        }
+    }
+
+    private boolean hasFormat(TypeElement model, String format) {
+        for (String modelFormat : model.getAnnotation(Serializable.class).formats()) {
+            if (format.equals(modelFormat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeJson(StringBuilder source, String modelName, String alias, List<Property> properties) {
+        source.append("    public String serialize(Object object) {\n");
+        source.append("        return serialize(object, null);\n");
+        source.append("    }\n\n");
+
+        source.append("    public String serialize(Object object, ").append(PROJECTION).append(" projection) {\n");
+        source.append("        StringBuilder out = new StringBuilder(256);\n");
+        source.append("        out.append(\"{\\\"").append(alias).append("\\\":\");\n");
+        source.append("        write((").append(modelName).append(") object, out, projection);\n");
+        source.append("        out.append('}');\n");
+        source.append("        return out.toString();\n");
+        source.append("    }\n\n");
+
+        source.append("    public static void write(").append(modelName).append(" bean, StringBuilder out) {\n");
+        source.append("        write(bean, out, null);\n");
+        source.append("    }\n\n");
+
+        source.append("    public static void write(").append(modelName).append(" bean, StringBuilder out, ").append(PROJECTION).append(" projection) {\n");
+        source.append("        int start = out.length() + 1;\n");
+        source.append("        out.append('{');\n");
+        for (Property property : properties) {
+            source.append("        if (projection == null || projection.includes(\"").append(property.name).append("\")) {\n");
+            source.append("            ").append(property.type).append(" value = bean.").append(property.accessor).append(";\n");
+            String indent = "            ";
+            if (!property.primitive) {
+                source.append("            if (value != null) {\n");
+                indent = "                ";
+            }
+            source.append(indent).append("if (out.length() > start) {\n");
+            source.append(indent).append("    out.append(',');\n");
+            source.append(indent).append("}\n");
+            source.append(indent).append("out.append(\"\\\"").append(property.name).append("\\\":\");\n");
+            switch (property.kind) {
+            case RAW:
+                source.append(indent).append("out.append(value);\n");
+                break;
+            case DECIMAL:
+                source.append(indent).append("net.sf.serfj.serializers.Escaper.appendJson(out, value);\n");
+                break;
+            case TEXT:
+                source.append(indent).append("net.sf.serfj.serializers.Escaper.appendJson(out, String.valueOf(value));\n");
+                break;
+            case ENUM:
+                source.append(indent).append("net.sf.serfj.serializers.Escaper.appendJson(out, value.name());\n");
+                break;
+            default:
+                source.append(indent).append(this.getSerializerName(property.nested, JSON_FORMAT))
+                        .append(".write(value, out, projection == null ? null : projection.get(\"").append(property.name).append("\"));\n");
+            }
+            if (!property.primitive) {
+                source.append("            }\n");
+            }
+            source.append("        }\n");
+        }
+        source.append("        out.append('}');\n");
+        source.append("    }\n\n");
+
+        this.writeStreaming(source, "[", ",", "]");
+
+        source.append("    public Object deserialize(String string) {\n");
+        source.append("        return new net.sf.serfj.serializers.JsonSerializer().deserialize(string);\n");
+        source.append("    }\n\n");
+
+        source.append("    public Object deserialize(java.io.InputStream is, String encoding) throws java.io.IOException {\n");
+        source.append("        return new net.sf.serfj.serializers.JsonSerializer().deserialize(is, encoding);\n");
+        source.append("    }\n\n");
+
+        source.append("    public Object deserialize(java.io.InputStream is, String encoding, net.sf.serfj.serializers.AllowedTypes types)\n");
+        source.append("            throws java.io.IOException {\n");
+        source.append("        return new net.sf.serfj.serializers.JsonSerializer().deserialize(is, encoding, types);\n");
+        source.append("    }\n\n");
+
+        source.append("    public String getContentType() {\n");
+        source.append("        return \"application/json\";\n");
+        source.append("    }\n");
+    }
+
+    private void writeXml(StringBuilder source, String modelName, String alias, List<Property> properties) {
+        source.append("    public String serialize(Object object) {\n");
+        source.append("        return serialize(object, null);\n");
+        source.append("    }\n\n");
+
+        source.append("    public String serialize(Object object, ").append(PROJECTION).append(" projection) {\n");
+        source.append("        StringBuilder out = new StringBuilder(256);\n");
+        source.append("        write((").append(modelName).append(") object, \"").append(this.xmlName(alias)).append("\", out, projection);\n");
+        source.append("        return out.toString();\n");
+        source.append("    }\n\n");
+
+        source.append("    public static void write(").append(modelName).append(" bean, String element, StringBuilder out) {\n");
+        source.append("        write(bean, element, out, null);\n");
+        source.append("    }\n\n");
+
+        source.append("    public static void write(").append(modelName).append(" bean, String element, StringBuilder out, ")
+                .append(PROJECTION).append(" projection) {\n");
+        source.append("        out.append('<').append(element).append('>');\n");
+        for (Property property : properties) {
+            String name = this.xmlName(property.name);
+            source.append("        if (projection == null || projection.includes(\"").append(property.name).append("\")) {\n");
+            source.append("            ").append(property.type).append(" value = bean.").append(property.accessor).append(";\n");
+            String indent = "            ";
+            if (!property.primitive) {
+                source.append("            if (value != null) {\n");
+                indent = "                ";
+            }
+            switch (property.kind) {
+            case RAW:
+            case DECIMAL:
+                source.append(indent).append("out.append(\"<").append(name).append(">\").append(value).append(\"</").append(name).append(">\");\n");
+                break;
+            case TEXT:
+            case ENUM:
+                source.append(indent).append("out.append(\"<").append(name).append(">\");\n");
+                source.append(indent).append("net.sf.serfj.serializers.Escaper.appendXml(out, ")
+                        .append(property.kind == PropertyKind.ENUM ? "value.name()" : "String.valueOf(value)").append(");\n");
+                source.append(indent).append("out.append(\"</").append(name).append(">\");\n");
+                break;
+            default:
+                source.append(indent).append(this.getSerializerName(property.nested, XML_FORMAT)).append(".write(value, \"").append(name)
+                        .append("\", out, projection == null ? null : projection.get(\"").append(property.name).append("\"));\n");
+            }
+            if (!property.primitive) {
+                source.append("            }\n");
+            }
+            source.append("        }\n");
+        }
+        source.append("        out.append(\"</\").append(element).append('>');\n");
+        source.append("    }\n\n");
+
+        this.writeStreaming(source, "<list>", "", "</list>");
+
+        source.append("    public Object deserialize(String string) {\n");
+        source.append("        return new net.sf.serfj.serializers.XmlSerializer().deserialize(string);\n");
+        source.append("    }\n\n");
+
+        source.append("    public Object deserialize(java.io.InputStream is, String encoding) throws java.io.IOException {\n");
+        source.append("        return new net.sf.serfj.serializers.XmlSerializer().deserialize(is, encoding);\n");
+        source.append("    }\n\n");
+
+        source.append("    public Object deserialize(java.io.InputStream is, String encoding, net.sf.serfj.serializers.AllowedTypes types)\n");
+        source.append("            throws java.io.IOException {\n");
+        source.append("        return new net.sf.serfj.serializers.XmlSerializer().deserialize(is, encoding, types);\n");
+        source.append("    }\n\n");
+
+        source.append("    public String getContentType() {\n");
+        source.append("        return \"text/xml\";\n");
+        source.append("    }\n");
+    }
+
+    /**
+     * Writes the methods to serialize lists one object at a time.
+     */
+    private void writeStreaming(StringBuilder source, String start, String separator, String end) {
+        source.append("    public void writeStart(java.io.Writer writer) throws java.io.IOException {\n");
+        source.append("        writer.write(\"").append(start).append("\");\n");
+        source.append("    }\n\n");
+
+        source.append("    public void writeItem(java.io.Writer writer, Object item, int index, ").append(PROJECTION)
+                .append(" projection) throws java.io.IOException {\n");
+        if (separator.length() > 0) {
+            source.append("        if (index > 0) {\n");
+            source.append("            writer.write(\"").append(separator).append("\");\n");
+            source.append("        }\n");
+        }
+        source.append("        writer.write(serialize(item, projection));\n");
+        source.append("    }\n\n");
+
+        source.append("    public void writeEnd(java.io.Writer writer) throws java.io.IOException {\n");
+        source.append("        writer.write(\"").append(end).append("\");\n");
+        source.append("    }\n\n");
+    }
+
+    /**
+     * Encodes a name as XStream does for Xml elements ('$' => '_-', '_' => '__').
+     */
+    private String xmlName(String name) {
+        return name.replace("_", "__").replace("$", "_-");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+}
@@ -29,6 +29,7 @@ import java.net.URLEncoder;
 import java.rmi.ConnectException;
 import java.util.Map;
 
+import net.sf.serfj.ErrorResponse;
 import net.sf.serfj.HttpMethod;
 import net.sf.serfj.finders.SerializerFinder;
 import net.sf.serfj.util.UrlUtils;
@@ -225,12 +226,15 @@ public class Client {
 			if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
 				LOGGER.debug("Reading an OK ({}) response", HttpURLConnection.HTTP_OK);
 				is = conn.getInputStream();
-            } else if (conn.getResponseCode() == HttpURLConnection.HTTP_INTERNAL_ERROR) {
-                LOGGER.debug("Reading an Error ({}) response", conn.getResponseCode());
-                is = conn.getErrorStream();
-            } else if (conn.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+            } else if (conn.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND && !this.isSerialized(conn)) {
                 LOGGER.debug("Reading a Not Found ({}) response", conn.getResponseCode());
                 throw new WebServiceException("Page or Resource Not Found", conn.getResponseCode());
+            } else if (conn.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                LOGGER.debug("Reading an Error ({}) response", conn.getResponseCode());
+                is = conn.getErrorStream();
+                if (is == null) {
+                    throw new WebServiceException("Request failed", conn.getResponseCode());
+                }
 			} else if (conn.getResponseCode() == HttpURLConnection.HTTP_NO_CONTENT) {
 				LOGGER.debug("Returning a No Content (null) ({}) response", HttpURLConnection.HTTP_NO_CONTENT);
 				return null;
@@ -253,6 +257,10 @@ public class Client {
                 return response.toString();
 			} else {
 				LOGGER.debug("Read object in response is: {}", (result != null ? result.toString() : null));
+    			if (result instanceof ErrorResponse) {
+    			    ErrorResponse error = (ErrorResponse) result;
+    			    throw new WebServiceException(error.getType(), error.getMessage(), error.getCode());
+    			}
     			if (result instanceof Exception) {
     				throw new WebServiceException((Exception) result);
     			}
@@ -265,6 +273,15 @@ public class Client {
 		}
 	}
 
+	/**
+	 * Checks if a response has a serialized body, as error responses to exceptions
+	 * thrown by actions, instead of an error page.
+	 */
+	private boolean isSerialized(HttpURLConnection conn) {
+	    String contentType = conn.getContentType();
+	    return contentType != null && !contentType.startsWith("text/html");
+	}
+
 	/**
 	 * Adds params to a query string. It will encode params' values to not get
 	 * errors in the connection.
@@ -25,6 +25,8 @@ public class WebServiceException extends Exception {
 	private static final long serialVersionUID = 5459451496102180297L;
 
 	private int status;
+
+	private String type;
 	
 	/**
 	 * Constructor.
@@ -117,10 +119,34 @@ public class WebServiceException extends Exception {
         this.status = status;
     }
 
+    /**
+     * Constructor for the error response to an exception thrown by an action.
+     * 
+     * @param type
+     *         Class of the exception thrown by the action.
+     * @param message 
+     *         Exception message.
+     * @param status
+     *         HTTP Status Code of the response.
+     */
+    public WebServiceException(String type, String message, int status) {
+        super(message == null ? type : type + ": " + message);
+        this.type = type;
+        this.status = status;
+    }
+
     /**
      * Get the exception's status. It's usually a HTTP Status Code (404, 500, etc.)
      */
     public int getStatus() {
         return this.status;
     }
+
+    /**
+     * Get the class of the exception thrown by the controller's method, if the server
+     * answered with an error response.
+     */
+    public String getType() {
+        return this.type;
+    }
 }
@@ -17,8 +17,12 @@ package net.sf.serfj.config;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +49,11 @@ public class SystemConfig {
      */
     private String configFile = "";
 
+    /**
+     * Parametros que no estan en la configuracion y de los que ya se ha avisado.
+     */
+    private Map<String, Boolean> notFound = new ConcurrentHashMap<String, Boolean>();
+
     /**
      * Constructor.
      */
@@ -111,22 +120,52 @@ public class SystemConfig {
         if (param == null) {
             return null;
         }
-        // Buscamos en las variables del sistema
-        Object obj = System.getProperty(param.getName());
-        // Si no, se busca en el fichero de configuracion
-        if (obj == null) {
-            obj = this.props.get(param.getName());
-        }
-        // Si tampoco esta ahi, y es un valor que tenga un valor por defecto,
+        Object obj = this.find(param);
+        // Si no esta en ningun sitio, y es un valor que tenga un valor por defecto,
         // se devuelve el valor por defecto
         if (obj == null) {
-            log.warn("Property [{}] not found", param.getName());
+            // Se avisa solo la primera vez, porque se lee en cada peticion
+            if (notFound.put(param.getName(), Boolean.TRUE) == null) {
+                log.warn("Property [{}] not found", param.getName());
+            }
             obj = param.getDefaultValue();
         }
         // Se devuelve el valor del parametro
         return (String) obj;
     }
 
+    /**
+     * Devuelve los valores de varios parametros de configuracion, con sus valores por defecto si no estan en la
+     * configuracion, pero sin avisar de ello.
+     * 
+     * @param params - Parametros de los que se quiere obtener el valor.
+     * @return un Map ordenado con el nombre y el valor de cada parametro.
+     */
+    public Map<String, String> getValues(final Collection<ConfigParam> params) {
+        Map<String, String> values = new TreeMap<String, String>();
+        for (ConfigParam param : params) {
+            Object obj = this.find(param);
+            values.put(param.getName(), obj == null ? param.getDefaultValue() : (String) obj);
+        }
+        return values;
+    }
+
+    /**
+     * Busca el valor de un parametro en las variables del sistema y, si no esta, en el fichero de configuracion.
+     * 
+     * @param param - Parametro del que se quiere obtener el valor.
+     * @return el valor del parametro, o null si no esta en ningun sitio.
+     */
+    private Object find(final ConfigParam param) {
+        // Buscamos en las variables del sistema
+        Object obj = System.getProperty(param.getName());
+        // Si no, se busca en el fichero de configuracion
+        if (obj == null) {
+            obj = this.props.get(param.getName());
+        }
+        return obj;
+    }
+
     /**
      * Configuracion de la aplicacion. Se usa en debug.
      * 
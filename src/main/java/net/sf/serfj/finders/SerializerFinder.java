@@ -17,6 +17,7 @@ package net.sf.serfj.finders;
 
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,6 +34,8 @@ import net.sf.serfj.Config;
  * There are some default serializers:<br/>
  * - net.sf.serfj.serializers.JsonSerializer<br/>
  * - net.sf.serfj.serializers.XmlSerializer<br/>
+ * - net.sf.serfj.serializers.NdjsonSerializer<br/>
+ * - net.sf.serfj.serializers.EventsSerializer<br/>
  * - net.sf.serfj.serializers.PageSerializer<br/>
  * <br/>
  * 
@@ -48,42 +51,52 @@ public class SerializerFinder extends ResourceFinder {
 	private static final String B64_EXTENSION = "base64";
     private static final String XML_EXTENSION = "xml";
     private static final String FILE_EXTENSION = "file";
+    private static final String NDJSON_EXTENSION = "ndjson";
+    private static final String EVENTS_EXTENSION = "events";
 
-	private static Map<String, String> contentType2Extension = new HashMap<String, String>(4);
+	private static final Map<String, String> CONTENT_TYPE_2_EXTENSION = new HashMap<String, String>(8);
+
+	static {
+		CONTENT_TYPE_2_EXTENSION.put("application/json", JSON_EXTENSION);
+		CONTENT_TYPE_2_EXTENSION.put("text/xml", XML_EXTENSION);
+		CONTENT_TYPE_2_EXTENSION.put("application/xml", XML_EXTENSION);
+		CONTENT_TYPE_2_EXTENSION.put("application/x-ndjson", NDJSON_EXTENSION);
+		// Base64Serializer and FileSerializer don't share content-type
+		CONTENT_TYPE_2_EXTENSION.put("application/octect-stream", B64_EXTENSION);
+		CONTENT_TYPE_2_EXTENSION.put("application/octet-stream", FILE_EXTENSION);
+	}
 
 	public SerializerFinder(String extension) {
 		super(null, null, (extension == null ? PAGE_EXTENSION : extension), OFF_OPTION, null);
-		this.initExtensionsCache();
 	}
 
 	public SerializerFinder(Config config, String extension) {
 		super(config.getString(Config.MAIN_PACKAGE), config.getString(Config.ALIAS_SERIALIZERS_PACKAGE), 
 		        (extension == null ? PAGE_EXTENSION : extension), config.getString(Config.SUFFIX_SERIALIZER), 
 		        config.getString(Config.PACKAGES_STYLE));
-        this.initExtensionsCache();
 	}
 
-	private void initExtensionsCache() {
-	    if (contentType2Extension.isEmpty()) {
-            contentType2Extension.put("application/json", JSON_EXTENSION);
-            contentType2Extension.put("text/xml", XML_EXTENSION);
-            contentType2Extension.put("application/octect-stream", B64_EXTENSION);
-            contentType2Extension.put("application/octect-stream", FILE_EXTENSION);
-	    }
-	}
-	
 	/**
 	 * Returns a extension from a content-type. If the content-type is not
 	 * valid, then a null will be returned.
 	 * 
 	 * @param contentType
 	 *            A content-type. Valid content-types are: - application/json -
-	 *            text/xml - application/octect-stream
+	 *            text/xml - application/xml - application/x-ndjson -
+	 *            application/octect-stream - application/octet-stream
 	 * 
-	 * @return a extension (json, 64 or xml).
+	 * @return a extension (json, base64, file, ndjson or xml).
 	 */
 	public static String getExtension(String contentType) {
-		return contentType2Extension.get(contentType);
+		return CONTENT_TYPE_2_EXTENSION.get(contentType);
+	}
+
+	/**
+	 * Gets every content-type known by the default serializers, mapped to the
+	 * extension of its serializer.
+	 */
+	public static Map<String, String> getContentTypes() {
+		return Collections.unmodifiableMap(CONTENT_TYPE_2_EXTENSION);
 	}
 
 	@Override
@@ -100,6 +113,8 @@ public class SerializerFinder extends ResourceFinder {
 		if (JSON_EXTENSION.equals(this.getPrefix().toLowerCase()) 
                 || FILE_EXTENSION.equals(this.getPrefix().toLowerCase()) 
                 || B64_EXTENSION.equals(this.getPrefix().toLowerCase()) 
+                || NDJSON_EXTENSION.equals(this.getPrefix().toLowerCase()) 
+                || EVENTS_EXTENSION.equals(this.getPrefix().toLowerCase()) 
 		        || XML_EXTENSION.equals(this.getPrefix().toLowerCase())) {
 			return true;
 		}
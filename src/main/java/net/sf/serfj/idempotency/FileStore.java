@@ -0,0 +1,302 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.idempotency;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.serfj.Config;
+import net.sf.serfj.StoredResponse;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps responses in files, so they survive restarts of a single node. Every
+ * response is a file named after the hash of its key, written to a temporary file
+ * and moved, so readers never see half a response. Every 100 responses stored,
+ * expired files are deleted and, if there are more than the maximum, the oldest
+ * ones too.<br>
+ * <br>
+ * Files only hold data (key, expiration, request fingerprint, status,
+ * content-type, encoding, headers and body), they aren't Java serialized objects, so a file that has been
+ * tampered with can't make the store instantiate classes. The directory is
+ * created readable only by its owner.
+ * 
+ * @author agent
+ */
+public class FileStore implements IdempotencyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileStore.class);
+
+    private static final String SUFFIX = ".response";
+
+    private static final int CLEAN_EVERY = 100;
+
+    /**
+     * First bytes of the files, "SRF" and the version of the format.
+     */
+    private static final int MAGIC = 0x53524602;
+
+    private static class Entry {
+        private String key;
+        private long expires;
+        private StoredResponse response;
+    }
+
+    private final File directory;
+    private final int maxEntries;
+    private final AtomicInteger puts = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * 
+     * @param directory
+     *            Directory of the files, it's created if it doesn't exist.
+     * @param maxEntries
+     *            Maximum number of responses kept.
+     */
+    public FileStore(File directory, int maxEntries) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        if (!directory.isDirectory()) {
+            if (!directory.mkdirs()) {
+                throw new IllegalArgumentException("Can't create directory " + directory);
+            }
+            // Only the owner can read or forge the responses
+            directory.setReadable(false, false);
+            directory.setWritable(false, false);
+            directory.setExecutable(false, false);
+            directory.setReadable(true, true);
+            directory.setWritable(true, true);
+            directory.setExecutable(true, true);
+        }
+    }
+
+    /**
+     * Uses 'idempotency.directory', or serfj-idempotency in the temporary directory
+     * of the JVM if it isn't set.
+     */
+    public FileStore(Config config) {
+        this(config, null);
+    }
+
+    /**
+     * Uses 'idempotency.directory', or serfj-idempotency in a temporary directory
+     * if it isn't set.
+     * 
+     * @param tempDirectory
+     *            Temporary directory of the web application, or null to use the
+     *            one of the JVM.
+     */
+    public FileStore(Config config, File tempDirectory) {
+        this(getDirectory(config, tempDirectory), config.getInt(Config.IDEMPOTENCY_MAX_ENTRIES));
+    }
+
+    private static File getDirectory(Config config, File tempDirectory) {
+        String directory = config.getString(Config.IDEMPOTENCY_DIRECTORY);
+        if (directory == null || directory.trim().length() == 0) {
+            return new File(tempDirectory == null ? new File(System.getProperty("java.io.tmpdir")) : tempDirectory, "serfj-idempotency");
+        }
+        return new File(directory.trim());
+    }
+
+    public StoredResponse get(String key) {
+        File file = this.getFile(key);
+        Entry entry = this.read(file);
+        if (entry == null || !key.equals(entry.key)) {
+            return null;
+        }
+        if (entry.expires <= System.currentTimeMillis()) {
+            file.delete();
+            return null;
+        }
+        return entry.response;
+    }
+
+    public void put(String key, StoredResponse response, long ttl) {
+        Entry entry = new Entry();
+        entry.key = key;
+        entry.expires = System.currentTimeMillis() + ttl;
+        entry.response = response;
+        File file = this.getFile(key);
+        File temp = null;
+        try {
+            temp = File.createTempFile("serfj", ".tmp", this.directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                write(out, entry);
+            } finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Can't store response of {}", key, e);
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+        if (this.puts.incrementAndGet() % CLEAN_EVERY == 0) {
+            this.clean();
+        }
+    }
+
+    /**
+     * Deletes the expired responses, and the oldest ones over the maximum.
+     */
+    public void clean() {
+        File[] files = this.directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int left = files.length;
+        for (int i = 0; i < files.length; i++) {
+            Entry entry = this.read(files[i]);
+            if (entry == null || entry.expires <= now) {
+                files[i].delete();
+                files[i] = null;
+                left--;
+            }
+        }
+        if (left > this.maxEntries) {
+            File[] alive = new File[left];
+            int i = 0;
+            for (File file : files) {
+                if (file != null) {
+                    alive[i++] = file;
+                }
+            }
+            Arrays.sort(alive, Comparator.comparingLong(File::lastModified));
+            for (i = 0; i < alive.length - this.maxEntries; i++) {
+                alive[i].delete();
+            }
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(this.directory, DigestUtils.shaHex(key) + SUFFIX);
+    }
+
+    private Entry read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return read(in, file.length());
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            // Deleted meanwhile, or written by an incompatible version
+            LOGGER.debug("Can't read stored response {}", file, e);
+            return null;
+        }
+    }
+
+    private static void write(DataOutputStream out, Entry entry) throws IOException {
+        StoredResponse response = entry.response;
+        out.writeInt(MAGIC);
+        writeString(out, entry.key);
+        out.writeLong(entry.expires);
+        writeString(out, response.getFingerprint());
+        out.writeInt(response.getStatus());
+        writeString(out, response.getContentType());
+        writeString(out, response.getCharacterEncoding());
+        List<String[]> headers = response.getHeaders();
+        out.writeInt(headers.size());
+        for (String[] header : headers) {
+            writeString(out, header[0]);
+            writeString(out, header[1]);
+        }
+        out.writeInt(response.getBody().length);
+        out.write(response.getBody());
+    }
+
+    /**
+     * Reads an entry, checking every length against the size of the file.
+     */
+    private static Entry read(DataInputStream in, long size) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a stored response");
+        }
+        Entry entry = new Entry();
+        entry.key = readString(in, size);
+        entry.expires = in.readLong();
+        String fingerprint = readString(in, size);
+        int status = in.readInt();
+        String contentType = readString(in, size);
+        String characterEncoding = readString(in, size);
+        int count = readLength(in, size);
+        List<String[]> headers = new ArrayList<String[]>(count);
+        for (int i = 0; i < count; i++) {
+            headers.add(new String[] { readString(in, size), readString(in, size) });
+        }
+        byte[] body = new byte[readLength(in, size)];
+        in.readFully(body);
+        entry.response = new StoredResponse(status, contentType, characterEncoding, headers, body, fingerprint);
+        return entry;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in, long size) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > size) {
+            throw new EOFException("Wrong length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(DataInputStream in, long size) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > size) {
+            throw new EOFException("Wrong length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.idempotency;
+
+import net.sf.serfj.StoredResponse;
+
+/**
+ * Storage of the responses given to requests with an Idempotency-Key, so retries
+ * of those requests get the same response without calling the action again.
+ * Implementations must be thread safe, and they should forget responses when their
+ * time to live passes and keep a bounded number of them.<br>
+ * <br>
+ * Implementations are chosen with 'idempotency.store' in serfj.properties. They
+ * need a public constructor with a {@link net.sf.serfj.Config} argument, or without
+ * arguments.
+ * 
+ * @author agent
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Gets the response stored for a key.
+     * 
+     * @return the response, or null if there isn't any or it has expired.
+     */
+    StoredResponse get(String key);
+
+    /**
+     * Stores the response of a request.
+     * 
+     * @param key
+     *            Key of the request.
+     * @param response
+     *            Response given to the request.
+     * @param ttl
+     *            Milliseconds the response must be kept.
+     */
+    void put(String key, StoredResponse response, long ttl);
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sf.serfj.Config;
+import net.sf.serfj.StoredResponse;
+
+/**
+ * Keeps responses in memory, up to a maximum number of them. When it's full, the
+ * response stored first is forgotten (they are kept in insertion order, reading a
+ * response doesn't make it younger).
+ * 
+ * @author agent
+ */
+public class MemoryStore implements IdempotencyStore {
+
+    private static class Entry {
+        private final StoredResponse response;
+        private final long expires;
+
+        Entry(StoredResponse response, long expires) {
+            this.response = response;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxEntries
+     *            Maximum number of responses kept.
+     */
+    public MemoryStore(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+    }
+
+    public MemoryStore(Config config) {
+        this(config.getInt(Config.IDEMPOTENCY_MAX_ENTRIES));
+    }
+
+    public synchronized StoredResponse get(String key) {
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires <= System.currentTimeMillis()) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry.response;
+    }
+
+    public synchronized void put(String key, StoredResponse response, long ttl) {
+        long now = System.currentTimeMillis();
+        // Entries are in insertion order, so expired ones are usually at the head
+        for (Iterator<Entry> it = this.entries.values().iterator(); it.hasNext();) {
+            if (it.next().expires > now) {
+                break;
+            }
+            it.remove();
+        }
+        this.entries.remove(key);
+        this.entries.put(key, new Entry(response, now + ttl));
+    }
+
+    /**
+     * Gets the number of responses kept, including the expired ones that haven't
+     * been removed yet.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+}
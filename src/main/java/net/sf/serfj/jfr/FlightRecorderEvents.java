@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+import net.sf.serfj.UrlInfo;
+import net.sf.serfj.metrics.Phase;
+
+/**
+ * Emits the events of the requests to Java Flight Recorder. Events are only begun
+ * when a recording has enabled them, so the cost while nothing is recording is the
+ * creation of an event and a check of a flag.
+ * 
+ * @author agent
+ */
+public class FlightRecorderEvents implements RequestEvents {
+
+    /**
+     * Registers the events, so recordings can enable them before they happen.
+     * 
+     * @throws IllegalStateException
+     *             if the JVM can't record.
+     */
+    public FlightRecorderEvents() {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight Recorder is disabled in this JVM");
+        }
+        FlightRecorder.register(RouteResolved.class);
+        FlightRecorder.register(ActionInvoked.class);
+        FlightRecorder.register(Serialized.class);
+        FlightRecorder.register(ViewForwarded.class);
+        FlightRecorder.register(FileSent.class);
+    }
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public Object begin(Phase phase) {
+        RequestEvent event;
+        switch (phase) {
+        case URL:
+            event = new RouteResolved();
+            break;
+        case ACTION:
+            event = new ActionInvoked();
+            break;
+        case SERIALIZE:
+            event = new Serialized();
+            break;
+        case FORWARD:
+            event = new ViewForwarded();
+            break;
+        case WRITE:
+            event = new FileSent();
+            break;
+        default:
+            return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public void routeResolved(Object begun, UrlInfo urlInfo) {
+        RouteResolved event = (RouteResolved) begun;
+        if (event != null && event.shouldCommit()) {
+            event.set(urlInfo);
+            event.method = String.valueOf(urlInfo.getRequestMethod());
+            event.serializer = urlInfo.getSerializer();
+            event.commit();
+        }
+    }
+
+    public void actionInvoked(Object begun, UrlInfo urlInfo) {
+        ActionInvoked event = (ActionInvoked) begun;
+        if (event != null && event.shouldCommit()) {
+            event.set(urlInfo);
+            event.commit();
+        }
+    }
+
+    public void serialized(Object begun, UrlInfo urlInfo, long bytes) {
+        Serialized event = (Serialized) begun;
+        if (event != null && event.shouldCommit()) {
+            event.set(urlInfo);
+            event.serializer = urlInfo.getSerializer();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    public void viewForwarded(Object begun, UrlInfo urlInfo, String page) {
+        ViewForwarded event = (ViewForwarded) begun;
+        if (event != null && event.shouldCommit()) {
+            event.set(urlInfo);
+            event.page = page;
+            event.commit();
+        }
+    }
+
+    public void fileSent(Object begun, UrlInfo urlInfo, String file, long bytes) {
+        FileSent event = (FileSent) begun;
+        if (event != null && event.shouldCommit()) {
+            event.set(urlInfo);
+            event.file = file;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
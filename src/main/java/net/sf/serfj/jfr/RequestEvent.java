@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import net.sf.serfj.Timings;
+import net.sf.serfj.UrlInfo;
+
+/**
+ * Fields shared by the events of a request. Events are begun when their phase
+ * starts and committed when it ends, so their duration is the time the phase took.
+ * They have the route of the request (Controller.action), not its URL, which may
+ * have identifiers or other data of the client.
+ * 
+ * @author agent
+ */
+@Category("SerfJ")
+@StackTrace(false)
+abstract class RequestEvent extends Event {
+
+    @Label("Route")
+    String route;
+
+    @Label("Controller")
+    String controller;
+
+    @Label("Action")
+    String action;
+
+    void set(UrlInfo urlInfo) {
+        this.route = Timings.getRouteName(urlInfo);
+        this.controller = urlInfo.getController();
+        this.action = urlInfo.getAction();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.jfr;
+
+import net.sf.serfj.UrlInfo;
+import net.sf.serfj.metrics.Phase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emits events for the phases of the requests, so recordings of Java Flight
+ * Recorder show the route every request was for. The event of a phase is begun
+ * when the phase starts and given back when it ends, so it has the duration of the
+ * phase. Events are only emitted if
+ * 'jfr' is enabled and the JVM has Flight Recorder (Java 11, or 8u272), otherwise
+ * {@link #NONE} is used, which doesn't load any Flight Recorder class.
+ * 
+ * @author agent
+ */
+public interface RequestEvents {
+
+    /**
+     * Doesn't emit any event.
+     */
+    RequestEvents NONE = new RequestEvents() {
+        public boolean isEnabled() {
+            return false;
+        }
+
+        public Object begin(Phase phase) {
+            return null;
+        }
+
+        public void routeResolved(Object event, UrlInfo urlInfo) {
+            // Nothing to do
+        }
+
+        public void actionInvoked(Object event, UrlInfo urlInfo) {
+            // Nothing to do
+        }
+
+        public void serialized(Object event, UrlInfo urlInfo, long bytes) {
+            // Nothing to do
+        }
+
+        public void viewForwarded(Object event, UrlInfo urlInfo, String page) {
+            // Nothing to do
+        }
+
+        public void fileSent(Object event, UrlInfo urlInfo, String file, long bytes) {
+            // Nothing to do
+        }
+    };
+
+    /**
+     * Says if events are emitted, so their data must be gathered.
+     */
+    boolean isEnabled();
+
+    /**
+     * Begins the event of a phase, when the phase starts: URL for
+     * {@link #routeResolved}, ACTION for {@link #actionInvoked}, SERIALIZE for
+     * {@link #serialized}, FORWARD for {@link #viewForwarded} and WRITE for
+     * {@link #fileSent}.
+     * 
+     * @return the event, to be given to the method of the phase when it ends, or
+     *         null if it isn't being recorded.
+     */
+    Object begin(Phase phase);
+
+    /**
+     * The controller, action and serializer of a request have been found from its
+     * URL.
+     */
+    void routeResolved(Object event, UrlInfo urlInfo);
+
+    /**
+     * The action has been called.
+     */
+    void actionInvoked(Object event, UrlInfo urlInfo);
+
+    /**
+     * The result of the action has been serialized.
+     */
+    void serialized(Object event, UrlInfo urlInfo, long bytes);
+
+    /**
+     * The request has been forwarded to a page.
+     */
+    void viewForwarded(Object event, UrlInfo urlInfo, String page);
+
+    /**
+     * A file has been sent.
+     */
+    void fileSent(Object event, UrlInfo urlInfo, String file, long bytes);
+
+    /**
+     * Creates the events of the servlet.
+     * 
+     * @param enabled
+     *            If events must be emitted.
+     * @return Flight Recorder events, or {@link #NONE} if they aren't enabled or the
+     *         JVM hasn't Flight Recorder.
+     */
+    static RequestEvents create(boolean enabled) {
+        if (!enabled) {
+            return NONE;
+        }
+        try {
+            return (RequestEvents) Class.forName(RequestEvents.class.getPackage().getName() + ".FlightRecorderEvents").newInstance();
+        } catch (Exception | LinkageError e) {
+            Logger logger = LoggerFactory.getLogger(RequestEvents.class);
+            logger.warn("Flight Recorder isn't available, SerfJ events won't be emitted: {}", e.toString());
+            return NONE;
+        }
+    }
+}
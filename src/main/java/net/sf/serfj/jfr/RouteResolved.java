@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The controller, action and serializer of a request were found from its URL.
+ * 
+ * @author agent
+ */
+@Name("net.sf.serfj.RouteResolved")
+@Label("Route Resolved")
+@Description("The controller, action and serializer of a request were found from its URL.")
+public class RouteResolved extends RequestEvent {
+
+    @Label("Method")
+    String method;
+
+    @Label("Serializer")
+    String serializer;
+}
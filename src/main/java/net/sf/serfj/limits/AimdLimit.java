@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.limits;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.serfj.Config;
+
+/**
+ * Additive increase, multiplicative decrease: the limit grows by one while
+ * requests are faster than 'limiter.latency' milliseconds and the route is busy,
+ * and it's cut by 10% for every slower request.
+ * 
+ * @author agent
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private static final double BACKOFF = 0.9;
+
+    private final AtomicInteger limit;
+    private final int min;
+    private final int max;
+    private final long latency;
+
+    /**
+     * Constructor.
+     * 
+     * @param initial
+     *            Initial limit.
+     * @param min
+     *            Minimum limit.
+     * @param max
+     *            Maximum limit.
+     * @param latency
+     *            Milliseconds above which a request means that the route is
+     *            overloaded.
+     */
+    public AimdLimit(int initial, int min, int max, long latency) {
+        this.limit = new AtomicInteger(initial);
+        this.min = min;
+        this.max = max;
+        this.latency = TimeUnit.MILLISECONDS.toNanos(latency);
+    }
+
+    public AimdLimit(Config config) {
+        this(config.getInt(Config.LIMITER_INITIAL), config.getInt(Config.LIMITER_MIN), config.getInt(Config.LIMITER_MAX), config.getLong(Config.LIMITER_LATENCY));
+    }
+
+    public int getLimit() {
+        return this.limit.get();
+    }
+
+    public void onSample(long rtt, int inFlight) {
+        while (true) {
+            int current = this.limit.get();
+            int next;
+            if (rtt > this.latency) {
+                next = Math.max(this.min, (int) (current * BACKOFF));
+            } else if (inFlight * 2 >= current) {
+                next = Math.min(this.max, current + 1);
+            } else {
+                // The route isn't busy enough to know if it can serve more requests
+                return;
+            }
+            if (next == current || this.limit.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AimdLimit [" + this.limit.get() + "]";
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.limits;
+
+/**
+ * Algorithm that decides how many requests a route can serve at the same time,
+ * from the latency of the requests it serves. Every route has its own instance,
+ * which is called from many threads, so implementations must be thread safe, and
+ * they shouldn't block.<br>
+ * <br>
+ * Implementations are chosen with 'limiter' in serfj.properties. They need a
+ * public constructor with a {@link net.sf.serfj.Config} argument, or without
+ * arguments.
+ * 
+ * @author agent
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * Gets the maximum number of requests served at the same time.
+     */
+    int getLimit();
+
+    /**
+     * Updates the limit with the latency of a request.
+     * 
+     * @param rtt
+     *            Nanoseconds the request took.
+     * @param inFlight
+     *            Requests being served when the request started, counting it.
+     */
+    void onSample(long rtt, int inFlight);
+}
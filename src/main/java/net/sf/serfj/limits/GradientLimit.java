@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.limits;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.sf.serfj.Config;
+
+/**
+ * Compares the latency of every request with the average latency of the route.
+ * While they are alike the limit grows by its square root, and when requests get
+ * slower, because they are queuing somewhere, the limit shrinks in the same
+ * proportion (down to a half per sample). Changes are smoothed, so a single slow
+ * request doesn't halve the limit.<br>
+ * <br>
+ * The limit and the average are updated together with a compare-and-set of an
+ * immutable state.
+ * 
+ * @author agent
+ */
+public class GradientLimit implements ConcurrencyLimit {
+
+    /**
+     * Samples in the average latency.
+     */
+    private static final double WINDOW = 600;
+
+    /**
+     * How much slower than the average a request can be without shrinking the limit.
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * Weight of a new limit against the current one.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private static class State {
+        private final double limit;
+        private final double averageRtt;
+
+        State(double limit, double averageRtt) {
+            this.limit = limit;
+            this.averageRtt = averageRtt;
+        }
+    }
+
+    private final AtomicReference<State> state;
+    private final int min;
+    private final int max;
+
+    /**
+     * Constructor.
+     * 
+     * @param initial
+     *            Initial limit.
+     * @param min
+     *            Minimum limit.
+     * @param max
+     *            Maximum limit.
+     */
+    public GradientLimit(int initial, int min, int max) {
+        this.state = new AtomicReference<State>(new State(initial, 0));
+        this.min = min;
+        this.max = max;
+    }
+
+    public GradientLimit(Config config) {
+        this(config.getInt(Config.LIMITER_INITIAL), config.getInt(Config.LIMITER_MIN), config.getInt(Config.LIMITER_MAX));
+    }
+
+    public int getLimit() {
+        return (int) this.state.get().limit;
+    }
+
+    public void onSample(long rtt, int inFlight) {
+        if (rtt <= 0) {
+            return;
+        }
+        while (true) {
+            State current = this.state.get();
+            double averageRtt = current.averageRtt == 0 ? rtt : current.averageRtt + (rtt - current.averageRtt) / WINDOW;
+            if (averageRtt / rtt > 2) {
+                // Latency has dropped a lot, so the average recovers faster
+                averageRtt *= 0.95;
+            }
+            double limit = current.limit;
+            if (inFlight * 2 >= limit) {
+                double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * averageRtt / rtt));
+                double next = limit * gradient + Math.sqrt(limit);
+                limit = Math.max(this.min, Math.min(this.max, limit * (1 - SMOOTHING) + next * SMOOTHING));
+            }
+            if (this.state.compareAndSet(current, new State(limit, averageRtt))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        State current = this.state.get();
+        return "GradientLimit [" + (int) current.limit + ", average rtt: " + (long) current.averageRtt + " ns]";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.management;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Limit, requests in flight and rejected requests of a bulkhead or a concurrency
+ * limiter.
+ * 
+ * @author agent
+ */
+public class AdmissionStatistics {
+
+    private final int limit;
+    private final int inFlight;
+    private final long rejected;
+
+    @ConstructorProperties({ "limit", "inFlight", "rejected" })
+    public AdmissionStatistics(int limit, int inFlight, long rejected) {
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.rejected = rejected;
+    }
+
+    /**
+     * Gets the maximum number of requests served at the same time.
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the number of requests being served.
+     */
+    public int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Gets the number of requests rejected since the application started.
+     */
+    public long getRejected() {
+        return this.rejected;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.management;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Size and hits of a cache.
+ * 
+ * @author agent
+ */
+public class CacheStatistics {
+
+    private final int size;
+    private final long hits;
+    private final long misses;
+
+    @ConstructorProperties({ "size", "hits", "misses" })
+    public CacheStatistics(int size, long hits, long misses) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Gets the fraction of lookups that were hits, from 0 to 1.
+     */
+    public double getHitRate() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.management;
+
+import java.util.Map;
+
+/**
+ * Management interface of a {@link net.sf.serfj.RestServlet}, registered as
+ * net.sf.serfj:type=RestServlet,name=ServletName when 'jmx' is enabled. Reading
+ * its attributes doesn't block the requests being served.
+ * 
+ * @author agent
+ */
+public interface RestServletMXBean {
+
+    /**
+     * Gets the number of requests received since the servlet started.
+     */
+    long getRequests();
+
+    /**
+     * Gets the number of requests being processed.
+     */
+    long getInFlight();
+
+    /**
+     * Gets the number of requests being processed by every controller.
+     */
+    Map<String, Long> getInFlightByController();
+
+    /**
+     * Gets the request count and latency percentiles of every route
+     * (Controller.action), if requests are timed.
+     */
+    Map<String, RouteStatistics> getRoutes();
+
+    /**
+     * Gets the size and hit rate of the caches used to resolve controllers,
+     * serializers and content-types.
+     */
+    Map<String, CacheStatistics> getCaches();
+
+    /**
+     * Gets the limit, requests in flight and rejections of every bulkhead
+     * (Controller or Controller.action) used until now.
+     */
+    Map<String, AdmissionStatistics> getBulkheads();
+
+    /**
+     * Gets the current concurrency limit, requests in flight and rejections of
+     * every route (Controller.action) with a 'limiter' called until now.
+     */
+    Map<String, AdmissionStatistics> getLimiters();
+
+    /**
+     * Gets the value of every parameter of the framework configuration.
+     */
+    Map<String, String> getConfig();
+
+    /**
+     * Says if the phases of the requests are timed.
+     */
+    boolean isTiming();
+
+    /**
+     * Starts or stops timing the phases of the requests.
+     */
+    void setTiming(boolean timing);
+
+    /**
+     * Empties the caches used to resolve controllers, serializers and
+     * content-types.
+     */
+    void clearCaches();
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.management;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Request count and latencies of a route, in milliseconds, and the mean bytes
+ * allocated and CPU time used by its requests, if they're accounted.
+ * 
+ * @author agent
+ */
+public class RouteStatistics {
+
+    private final long requests;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+    private final long allocated;
+    private final double cpu;
+
+    @ConstructorProperties({ "requests", "mean", "p50", "p90", "p99", "max", "allocated", "cpu" })
+    public RouteStatistics(long requests, double mean, double p50, double p90, double p99, double max, long allocated, double cpu) {
+        this.requests = requests;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+        this.allocated = allocated;
+        this.cpu = cpu;
+    }
+
+    public long getRequests() {
+        return this.requests;
+    }
+
+    public double getMean() {
+        return this.mean;
+    }
+
+    public double getP50() {
+        return this.p50;
+    }
+
+    public double getP90() {
+        return this.p90;
+    }
+
+    public double getP99() {
+        return this.p99;
+    }
+
+    public double getMax() {
+        return this.max;
+    }
+
+    /**
+     * Gets the mean bytes allocated by a request.
+     */
+    public long getAllocated() {
+        return this.allocated;
+    }
+
+    /**
+     * Gets the mean CPU time used by a request.
+     */
+    public double getCpu() {
+        return this.cpu;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, which can be recorded from many threads
+ * without locks. Other positive values, like sizes in bytes, can be recorded
+ * too.<br>
+ * <br>
+ * Every power of two is split into 8 buckets, so percentiles are accurate to
+ * 12.5% whatever the duration is, and the histogram takes the same memory (about
+ * 4 KB) for nanoseconds and for hours. Recording a value increments its bucket and
+ * two LongAdders, and only updates the maximum when it grows.
+ * 
+ * @author agent
+ */
+public class Histogram {
+
+    /**
+     * Bits of a value, after the highest one, that choose its bucket.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Buckets for values up to Long.MAX_VALUE.
+     */
+    static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos
+     *            Nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucket(value));
+        this.count.increment();
+        this.total.add(value);
+        long current = this.max.get();
+        while (value > current && !this.max.compareAndSet(current, value)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the sum of the durations recorded, in nanoseconds.
+     */
+    public long getTotal() {
+        return this.total.sum();
+    }
+
+    /**
+     * Gets the mean of the durations recorded, in nanoseconds, or 0 if there isn't
+     * any.
+     */
+    public long getMean() {
+        long recorded = this.count.sum();
+        return recorded == 0 ? 0 : this.total.sum() / recorded;
+    }
+
+    /**
+     * Gets the longest duration recorded, in nanoseconds.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the duration under which a percentage of the durations recorded are.
+     * 
+     * @param percentile
+     *            Percentage, from 0 to 100.
+     * @return the highest duration of the bucket where the percentile is, in
+     *         nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            recorded += counts[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+        long seen = 0;
+        int i = 0;
+        while (i < BUCKETS - 1) {
+            seen += counts[i];
+            if (seen >= rank) {
+                break;
+            }
+            i++;
+        }
+        return Math.min(highest(i), this.getMax());
+    }
+
+    /**
+     * Counts the durations recorded under some limits, in one pass, as cumulative
+     * histograms (e.g. Prometheus ones) need. A bucket is counted under the first
+     * limit that its highest duration doesn't exceed, so limits are as accurate as
+     * the buckets are (12.5%).
+     * 
+     * @param limits
+     *            Limits in nanoseconds, in ascending order.
+     * @param counts
+     *            Array, as long as <code>limits</code>, where the number of
+     *            durations under every limit is written.
+     * @return the number of durations recorded, including the ones over the last
+     *         limit.
+     */
+    public long getCumulativeCounts(long[] limits, long[] counts) {
+        Arrays.fill(counts, 0);
+        long recorded = 0;
+        int limit = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = this.buckets.get(i);
+            if (count == 0) {
+                continue;
+            }
+            recorded += count;
+            while (limit < limits.length && highest(i) > limits[limit]) {
+                limit++;
+            }
+            if (limit < limits.length) {
+                counts[limit] += count;
+            }
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        return recorded;
+    }
+
+    /**
+     * Gets the bucket of a value.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the lowest value of a bucket.
+     */
+    static long lowest(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Gets the highest value of a bucket.
+     */
+    static long highest(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowest(bucket + 1) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + this.getCount() + ", mean=" + this.getMean() + ", p50=" + this.getValueAtPercentile(50) + ", p99="
+                + this.getValueAtPercentile(99) + ", max=" + this.getMax();
+    }
+}
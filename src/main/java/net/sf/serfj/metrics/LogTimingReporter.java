@@ -0,0 +1,39 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the timings of the routes in the log, with INFO level.
+ * 
+ * @author agent
+ */
+public class LogTimingReporter implements TimingReporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogTimingReporter.class);
+
+    public void report(Collection<RouteTimings> routes) {
+        if (LOGGER.isInfoEnabled()) {
+            for (RouteTimings route : routes) {
+                LOGGER.info("Timings (ns) of {}", route);
+            }
+        }
+    }
+}
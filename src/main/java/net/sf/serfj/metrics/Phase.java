@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+/**
+ * Phases of a request timed by the framework.
+ * 
+ * @author agent
+ */
+public enum Phase {
+
+    /**
+     * Parsing the URL to know the controller, action and serializer.
+     */
+    URL,
+
+    /**
+     * Loading the controller class and choosing how its actions are called.
+     */
+    CONTROLLER,
+
+    /**
+     * Calling the action, with its interceptors and concurrency limits.
+     */
+    ACTION,
+
+    /**
+     * Converting the result of the action into text.
+     */
+    SERIALIZE,
+
+    /**
+     * Forwarding the request to a page.
+     */
+    FORWARD,
+
+    /**
+     * Writing serialized results, pages of results, streams and files into the
+     * response.
+     */
+    WRITE,
+
+    /**
+     * The whole request, from the moment the servlet gets it until its response is
+     * written.
+     */
+    REQUEST
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded queue without locks, for many threads adding elements and a single
+ * thread taking them.<br>
+ * <br>
+ * Adding an element claims the next slot with a compare-and-set, so producers
+ * never wait for each other nor for the consumer: if the buffer is full, the
+ * element isn't added and {@link #offer(Object)} returns false.
+ * 
+ * @author agent
+ */
+public class RingBuffer<E> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+
+    /**
+     * Next slot to take.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Next slot to fill.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            Maximum number of elements, rounded up to a power of two.
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element, if there is room for it. It can be called from any thread.
+     * 
+     * @param element
+     *            Element, not null.
+     * @return true if the element was added, false if the buffer is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Null elements can't be added");
+        }
+        while (true) {
+            long slot = this.tail.get();
+            if (slot - this.head.get() >= this.slots.length()) {
+                return false;
+            }
+            if (this.tail.compareAndSet(slot, slot + 1)) {
+                this.slots.lazySet((int) slot & this.mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest element. It must be called from a single thread.
+     * 
+     * @return the element, or null if the buffer is empty or the oldest element
+     *         is still being added.
+     */
+    public E poll() {
+        long slot = this.head.get();
+        int index = (int) slot & this.mask;
+        E element = this.slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        // The slot is released before the head moves, so producers find it empty
+        this.slots.lazySet(index, null);
+        this.head.lazySet(slot + 1);
+        return element;
+    }
+
+    /**
+     * Gets the number of elements in the buffer, approximately if it's being
+     * used.
+     */
+    public int size() {
+        return (int) Math.max(0, this.tail.get() - this.head.get());
+    }
+
+    /**
+     * Gets the maximum number of elements.
+     */
+    public int capacity() {
+        return this.slots.length();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings of the requests served by a route (Controller.action), with a
+ * {@link Histogram} for every {@link Phase}, and counters of their responses:
+ * by status, serialized bytes, and exceptions thrown by the action. If
+ * 'timing.resources' is enabled, the bytes allocated and the CPU time used by
+ * every request are recorded too.
+ * 
+ * @author agent
+ */
+public class RouteTimings {
+
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * Statuses are counted from 0 to 599.
+     */
+    private static final int STATUSES = 600;
+
+    private final String name;
+    private final Histogram[] histograms = new Histogram[PHASES.length];
+    private final Histogram allocated = new Histogram();
+    private final Histogram cpu = new Histogram();
+
+    /**
+     * Status => responses, created the first time a status is written.
+     */
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<LongAdder>(STATUSES);
+
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Exception class => times it was thrown.
+     */
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<String, LongAdder>();
+
+    public RouteTimings(String name) {
+        this.name = name;
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Gets the name of the route, like Account.show.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the durations of a phase.
+     */
+    public Histogram getHistogram(Phase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    /**
+     * Records the duration of a phase.
+     * 
+     * @param phase
+     *            Phase.
+     * @param nanos
+     *            Nanoseconds the phase took.
+     */
+    public void record(Phase phase, long nanos) {
+        this.histograms[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records the resources used by the thread that served a request.
+     * 
+     * @param bytes
+     *            Bytes allocated.
+     * @param nanos
+     *            CPU time, in nanoseconds.
+     */
+    public void recordResources(long bytes, long nanos) {
+        this.allocated.record(bytes);
+        this.cpu.record(nanos);
+    }
+
+    /**
+     * Gets the bytes allocated by every request.
+     */
+    public Histogram getAllocated() {
+        return this.allocated;
+    }
+
+    /**
+     * Gets the CPU time, in nanoseconds, used by every request.
+     */
+    public Histogram getCpu() {
+        return this.cpu;
+    }
+
+    /**
+     * Counts a response.
+     * 
+     * @param status
+     *            HTTP status of the response. Statuses out of range are counted
+     *            as 0.
+     */
+    public void countResponse(int status) {
+        int index = status > 0 && status < STATUSES ? status : 0;
+        LongAdder counter = this.statuses.get(index);
+        if (counter == null) {
+            this.statuses.compareAndSet(index, null, new LongAdder());
+            counter = this.statuses.get(index);
+        }
+        counter.increment();
+    }
+
+    /**
+     * Gets the number of responses with a status.
+     */
+    public long getResponses(int status) {
+        LongAdder counter = status >= 0 && status < STATUSES ? this.statuses.get(status) : null;
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Gets the statuses of the responses counted until now.
+     */
+    public int[] getStatuses() {
+        int count = 0;
+        for (int status = 0; status < STATUSES; status++) {
+            if (this.statuses.get(status) != null) {
+                count++;
+            }
+        }
+        int[] found = new int[count];
+        for (int status = 0, i = 0; status < STATUSES && i < count; status++) {
+            if (this.statuses.get(status) != null) {
+                found[i++] = status;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds the size of a serialized response or a file sent.
+     */
+    public void addBytes(long bytes) {
+        this.bytes.add(bytes);
+    }
+
+    /**
+     * Gets the bytes of the responses serialized and files sent.
+     */
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Counts an exception thrown by the action.
+     * 
+     * @param type
+     *            Exception class.
+     */
+    public void countError(String type) {
+        LongAdder counter = this.errors.get(type);
+        if (counter == null) {
+            counter = this.errors.computeIfAbsent(type, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Gets the classes of the exceptions thrown by the action until now.
+     */
+    public Set<String> getErrorTypes() {
+        return Collections.unmodifiableSet(this.errors.keySet());
+    }
+
+    /**
+     * Gets the times an exception was thrown by the action.
+     */
+    public long getErrors(String type) {
+        LongAdder counter = this.errors.get(type);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(this.name);
+        for (Phase phase : PHASES) {
+            Histogram histogram = this.getHistogram(phase);
+            if (histogram.getCount() > 0) {
+                sb.append("\n  ").append(phase).append(": ").append(histogram);
+            }
+        }
+        if (this.cpu.getCount() > 0) {
+            sb.append("\n  CPU: ").append(this.cpu);
+            sb.append("\n  ALLOCATED (bytes): ").append(this.allocated);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import java.util.Collection;
+
+/**
+ * Publishes the timings of the routes, e.g. to a log or a monitoring system. It's
+ * called periodically from a single thread, every 'timing.report.interval'
+ * seconds.<br>
+ * <br>
+ * Implementations are chosen with 'timing.reporter' in serfj.properties. They need
+ * a public constructor with a {@link net.sf.serfj.Config} argument, or without
+ * arguments.
+ * 
+ * @author agent
+ */
+public interface TimingReporter {
+
+    /**
+     * Publishes the timings of the routes called until now. Histograms aren't
+     * reset, so durations are the ones recorded since the servlet started.
+     * 
+     * @param routes
+     *            Timings of the routes.
+     */
+    void report(Collection<RouteTimings> routes);
+}
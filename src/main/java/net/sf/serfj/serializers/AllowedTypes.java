@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
+import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+import com.thoughtworks.xstream.mapper.Mapper;
+import com.thoughtworks.xstream.mapper.MapperWrapper;
+
+/**
+ * Classes that a request body can instantiate when it's deserialized. Bodies come
+ * from clients, so deserializers mustn't build any class the body names, only the
+ * type of the action's parameter, the types of its fields (recursively) and some
+ * harmless JDK types: primitives and their wrappers, String, BigDecimal,
+ * BigInteger, Date and the usual collections.<br>
+ * <br>
+ * Other classes can be allowed with 'body.allowed.types', a comma separated list of
+ * class names, or packages ending with '.*'.<br>
+ * <br>
+ * Types are checked while the body is read, before the object is created, by the
+ * mapper of XStream and by {@link #newObjectInputStream(InputStream)} for Java
+ * serialization.
+ * 
+ * @author agent
+ */
+public final class AllowedTypes {
+
+    private static final Set<Class<?>> JDK_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(Boolean.class, Byte.class,
+            Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class, String.class, BigDecimal.class,
+            BigInteger.class, Date.class, ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+            HashSet.class, LinkedHashSet.class, TreeSet.class, Collections.EMPTY_LIST.getClass(), Collections.EMPTY_MAP.getClass(),
+            Collections.EMPTY_SET.getClass(), Mapper.Null.class));
+
+    private final Set<Class<?>> types = new HashSet<Class<?>>();
+    private final List<String> patterns = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     * 
+     * @param type
+     *            Type expected in the body, with its generic arguments, or
+     *            Object.class if it isn't known.
+     * @param others
+     *            Comma separated list of other classes, or packages ending with
+     *            '.*', that are allowed. It can be null.
+     */
+    public AllowedTypes(Type type, String others) {
+        this.add(type);
+        if (others != null) {
+            for (String pattern : others.split(",")) {
+                if (pattern.trim().length() > 0) {
+                    this.patterns.add(pattern.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * Says if a class can be instantiated.
+     */
+    public boolean allows(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        // Constants of enums with a body are subclasses of the enum
+        if (!clazz.isEnum() && clazz.getSuperclass() != null && clazz.getSuperclass().isEnum()) {
+            clazz = clazz.getSuperclass();
+        }
+        if (clazz.isPrimitive() || JDK_TYPES.contains(clazz) || this.types.contains(clazz)) {
+            return true;
+        }
+        String name = clazz.getName();
+        for (String pattern : this.patterns) {
+            if (pattern.endsWith(".*") ? name.startsWith(pattern.substring(0, pattern.length() - 1)) && name.indexOf('.', pattern.length() - 1) < 0
+                    : name.equals(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a XStream that only instantiates the allowed types.
+     * 
+     * @param driver
+     *            Driver of the format.
+     */
+    XStream newXStream(HierarchicalStreamDriver driver) {
+        // The enclosing instance is set before the super constructor runs, and it wraps the mapper
+        return new XStream(driver) {
+            @Override
+            protected MapperWrapper wrapMapper(MapperWrapper next) {
+                return new MapperWrapper(next) {
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Class realClass(String elementName) {
+                        Class clazz = super.realClass(elementName);
+                        if (!AllowedTypes.this.allows(clazz)) {
+                            throw new CannotResolveClassException(clazz.getName() + " isn't allowed in request bodies");
+                        }
+                        return clazz;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Creates an ObjectInputStream that only reads the allowed types.
+     * 
+     * @param is
+     *            Stream with the serialized objects.
+     * @throws IOException
+     *             if the stream header can't be read.
+     */
+    ObjectInputStream newObjectInputStream(InputStream is) throws IOException {
+        return new ObjectInputStream(is) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+                Class<?> clazz = super.resolveClass(description);
+                // Numbers are read through their superclass
+                if (clazz != Number.class && clazz != Enum.class && !AllowedTypes.this.allows(clazz)) {
+                    throw new InvalidClassException(clazz.getName(), "it isn't allowed in request bodies");
+                }
+                return clazz;
+            }
+
+            @Override
+            protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+                throw new InvalidClassException("Proxies aren't allowed in request bodies");
+            }
+        };
+    }
+
+    /**
+     * Adds a type, and the types of its fields.
+     */
+    private void add(Type type) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            // JDK types are only allowed if they're in the list of harmless ones
+            if (clazz.isPrimitive() || clazz.getName().startsWith("java.") || clazz.getName().startsWith("javax.")
+                    || !this.types.add(clazz)) {
+                return;
+            }
+            for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+                this.types.add(current);
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        this.add(field.getGenericType());
+                    }
+                }
+            }
+        } else if (type instanceof ParameterizedType) {
+            this.add(((ParameterizedType) type).getRawType());
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                this.add(argument);
+            }
+        } else if (type instanceof GenericArrayType) {
+            this.add(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                this.add(bound);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                this.add(bound);
+            }
+        }
+    }
+}
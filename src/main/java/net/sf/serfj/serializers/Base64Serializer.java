@@ -18,10 +18,12 @@ package net.sf.serfj.serializers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +32,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author Eduardo Yáñez
  */
-public class Base64Serializer implements ObjectSerializer {
+public class Base64Serializer implements ObjectSerializer, StreamDeserializer, TypedDeserializer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(Base64Serializer.class);
 
@@ -95,6 +97,37 @@ public class Base64Serializer implements ObjectSerializer {
 		}
 	}
 
+	/**
+	 * Deserializes base 64 encoded data to Object, decoding it while it's read from the stream.
+	 */
+	public Object deserialize(InputStream is, String encoding) throws IOException {
+		ObjectInputStream ois = new ObjectInputStream(new Base64InputStream(is));
+		try {
+			return ois.readObject();
+		} catch (ClassNotFoundException e) {
+			LOGGER.error("Can't deserialize data from Base64", e);
+			throw new IllegalArgumentException(e);
+		} finally {
+			ois.close();
+		}
+	}
+
+	/**
+	 * Deserializes base 64 encoded data to Object, decoding it while it's read from
+	 * the stream, and refusing any class that isn't allowed before it's instantiated.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException {
+		ObjectInputStream ois = types.newObjectInputStream(new Base64InputStream(is));
+		try {
+			return ois.readObject();
+		} catch (ClassNotFoundException e) {
+			LOGGER.error("Can't deserialize data from Base64", e);
+			throw new IllegalArgumentException(e);
+		} finally {
+			ois.close();
+		}
+	}
+
 	/**
 	 * @see net.sf.serfj.serializers.Serializer#getContentType()
 	 */
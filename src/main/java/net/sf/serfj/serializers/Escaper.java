@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+/**
+ * Escapes text values for Json and Xml. It's used by serializers generated from
+ * {@link net.sf.serfj.annotations.Serializable} classes.
+ *
+ * @author agent
+ */
+public final class Escaper {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Escaper() {
+        super();
+    }
+
+    /**
+     * Appends a value as a quoted Json string.
+     *
+     * @param out
+     *            Buffer where the value is written.
+     * @param value
+     *            Value to write.
+     */
+    public static void appendJson(StringBuilder out, CharSequence value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            case '\b':
+                out.append("\\b");
+                break;
+            case '\f':
+                out.append("\\f");
+                break;
+            default:
+                if (c < 0x20) {
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends a number as a Json value. NaN and infinite numbers, which Json can't
+     * represent, are written as null.
+     *
+     * @param out
+     *            Buffer where the value is written.
+     * @param value
+     *            Value to write.
+     */
+    public static void appendJson(StringBuilder out, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Appends a number as a Json value. NaN and infinite numbers, which Json can't
+     * represent, are written as null.
+     *
+     * @param out
+     *            Buffer where the value is written.
+     * @param value
+     *            Value to write.
+     */
+    public static void appendJson(StringBuilder out, float value) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Appends a value as Xml text, the same way XStream does.
+     *
+     * @param out
+     *            Buffer where the value is written.
+     * @param value
+     *            Value to write.
+     */
+    public static void appendXml(StringBuilder out, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '&':
+                out.append("&amp;");
+                break;
+            case '<':
+                out.append("&lt;");
+                break;
+            case '>':
+                out.append("&gt;");
+                break;
+            case '"':
+                out.append("&quot;");
+                break;
+            case '\'':
+                out.append("&apos;");
+                break;
+            case '\r':
+                out.append("&#xd;");
+                break;
+            default:
+                out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Server-Sent Events serializer (.events extension, text/event-stream). Objects
+ * are written as the data of an event, serialized to Json.<br>
+ * <br>
+ * When an action returns a {@link net.sf.serfj.EventPublisher}, the response is
+ * kept open and every published object is written as an event. Otherwise the
+ * object is written as a single event.
+ * 
+ * @author agent
+ */
+public class EventsSerializer implements ObjectSerializer, TypedDeserializer, ProjectingSerializer {
+
+	public static final String CONTENT_TYPE = "text/event-stream";
+
+	private JsonSerializer json = new JsonSerializer();
+
+	/**
+	 * Builds an event.
+	 * 
+	 * @param id
+	 *            Event id, null for none.
+	 * @param name
+	 *            Event name, null for the default one ('message').
+	 * @param data
+	 *            Data of the event, it can have several lines.
+	 * @return the event, ended by a blank line.
+	 */
+	public static String frame(Long id, String name, String data) {
+		StringBuilder frame = new StringBuilder(data.length() + 32);
+		if (id != null) {
+			frame.append("id: ").append(id).append('\n');
+		}
+		if (name != null) {
+			frame.append("event: ").append(name).append('\n');
+		}
+		for (String line : data.split("\r\n|\r|\n", -1)) {
+			frame.append("data: ").append(line).append('\n');
+		}
+		return frame.append('\n').toString();
+	}
+
+	/**
+	 * Serializes an object as the data of an event.
+	 */
+	public String serializeData(Object object, Projection projection) {
+		return this.json.serialize(object, projection);
+	}
+
+	/**
+	 * Serializes an object as a single event.
+	 */
+	public String serialize(Object object) {
+		return this.serialize(object, null);
+	}
+
+	/**
+	 * Serializes the fields of an object included in a projection as a single event.
+	 */
+	public String serialize(Object object, Projection projection) {
+		return frame(null, null, this.serializeData(object, projection));
+	}
+
+	/**
+	 * Deserializes the data of an event.
+	 */
+	public Object deserialize(String string) {
+		return this.json.deserialize(string);
+	}
+
+	/**
+	 * Deserializes the data of an event read from a stream, instantiating only
+	 * allowed types.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException {
+		return this.json.deserialize(is, encoding, types);
+	}
+
+	/**
+	 * Returns "text/event-stream" content-type.
+	 */
+	public String getContentType() {
+		return CONTENT_TYPE;
+	}
+}
@@ -15,6 +15,13 @@
  */
 package net.sf.serfj.serializers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,11 +29,18 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.json.JettisonMappedXmlDriver;
 
 /**
- * Default Json serializer/deserializer.
+ * Default Json serializer/deserializer.<br>
+ * <br>
+ * Lists written one by one (pages and lazy results) are Json arrays where every
+ * object is written as if it were serialized alone, like
+ * <code>[{"Office":{...}},{"Office":{...}}]</code>. XStream's own representation
+ * of a java.util.List (<code>{"list":[...]}</code>) groups the objects by class,
+ * so it can't be written while the objects are produced, and it loses objects when
+ * it's read back. {@link #deserialize(String)} reads both as a java.util.List.
  * 
  * @author Eduardo Yáñez
  */
-public class JsonSerializer implements ObjectSerializer {
+public class JsonSerializer implements ObjectSerializer, StreamDeserializer, TypedDeserializer, ProjectingSerializer, StreamingSerializer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(JsonSerializer.class);
 
@@ -45,6 +59,43 @@ public class JsonSerializer implements ObjectSerializer {
 		return json;
 	}
 
+	/**
+	 * Serializes to Json only the fields of an object included in a projection.
+	 */
+	public String serialize(Object object, Projection projection) {
+		if (projection == null) {
+			return this.serialize(object);
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Serializing fields {} of object to Json", projection);
+		}
+		return ProjectingMarshaller.toXML(new JettisonMappedXmlDriver(), object, projection);
+	}
+
+	/**
+	 * Starts a Json array.
+	 */
+	public void writeStart(Writer writer) throws IOException {
+		writer.write('[');
+	}
+
+	/**
+	 * Writes an object of a Json array.
+	 */
+	public void writeItem(Writer writer, Object item, int index, Projection projection) throws IOException {
+		if (index > 0) {
+			writer.write(',');
+		}
+		writer.write(this.serialize(item, projection));
+	}
+
+	/**
+	 * Ends a Json array.
+	 */
+	public void writeEnd(Writer writer) throws IOException {
+		writer.write(']');
+	}
+
 	/**
 	 * Deserializes a Json string representation to an object.
 	 */
@@ -52,6 +103,9 @@ public class JsonSerializer implements ObjectSerializer {
 		if (LOGGER.isDebugEnabled()) {
 			LOGGER.debug("Deserializing Json object");
 		}
+		if (jsonObject.trim().startsWith("[")) {
+			return this.deserializeArray(jsonObject);
+		}
 		XStream xstream = new XStream(new JettisonMappedXmlDriver());
 		Object obj = xstream.fromXML(jsonObject);
 		if (LOGGER.isDebugEnabled()) {
@@ -60,6 +114,73 @@ public class JsonSerializer implements ObjectSerializer {
 		return obj;
 	}
 
+	/**
+	 * Deserializes a Json array written by {@link #writeStart(Writer)},
+	 * {@link #writeItem(Writer, Object, int, Projection)} and
+	 * {@link #writeEnd(Writer)}.
+	 * 
+	 * @return a java.util.List with the objects of the array.
+	 */
+	private List<Object> deserializeArray(String array) {
+		XStream xstream = new XStream(new JettisonMappedXmlDriver());
+		List<Object> objects = new ArrayList<Object>();
+		int depth = 0;
+		int start = -1;
+		boolean quoted = false;
+		for (int i = 0; i < array.length(); i++) {
+			char c = array.charAt(i);
+			if (quoted) {
+				if (c == '\\') {
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == '{' || c == '[') {
+				if (depth++ == 1 && c == '{') {
+					start = i;
+				}
+			} else if (c == '}' || c == ']') {
+				if (--depth == 1 && start >= 0) {
+					objects.add(xstream.fromXML(array.substring(start, i + 1)));
+					start = -1;
+				}
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * Deserializes a Json representation read from a stream.
+	 */
+	public Object deserialize(InputStream is, String encoding) throws IOException {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Deserializing Json object from a stream");
+		}
+		XStream xstream = new XStream(new JettisonMappedXmlDriver());
+		return xstream.fromXML(new InputStreamReader(is, encoding));
+	}
+
+	/**
+	 * Deserializes a Json representation read from a stream, instantiating only
+	 * allowed types.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Deserializing Json object from a stream");
+		}
+		XStream xstream = types.newXStream(new JettisonMappedXmlDriver());
+		return xstream.fromXML(new InputStreamReader(is, encoding));
+	}
+
+	/**
+	 * Deserializes a Json string representation, instantiating only allowed types.
+	 */
+	Object deserialize(String jsonObject, AllowedTypes types) {
+		return types.newXStream(new JettisonMappedXmlDriver()).fromXML(jsonObject);
+	}
+
 	/**
 	 * Returns "application/json" content-type.
 	 */
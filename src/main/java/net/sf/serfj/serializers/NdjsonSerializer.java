@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Newline delimited Json serializer (.ndjson extension). Every object is written
+ * in a line, as {@link JsonSerializer} does, so lists can be streamed and read
+ * line by line.
+ * 
+ * @author agent
+ */
+public class NdjsonSerializer implements ObjectSerializer, TypedDeserializer, ProjectingSerializer, StreamingSerializer {
+
+	private JsonSerializer json = new JsonSerializer();
+
+	/**
+	 * Serializes an object to a line of Json.
+	 */
+	public String serialize(Object object) {
+		return this.serialize(object, null);
+	}
+
+	/**
+	 * Serializes to a line of Json the fields of an object included in a projection.
+	 */
+	public String serialize(Object object, Projection projection) {
+		return this.json.serialize(object, projection) + "\n";
+	}
+
+	/**
+	 * Nothing is written before the objects.
+	 */
+	public void writeStart(Writer writer) throws IOException {
+		// Lines aren't enclosed
+	}
+
+	/**
+	 * Writes an object in a line.
+	 */
+	public void writeItem(Writer writer, Object item, int index, Projection projection) throws IOException {
+		writer.write(this.serialize(item, projection));
+	}
+
+	/**
+	 * Nothing is written after the objects.
+	 */
+	public void writeEnd(Writer writer) throws IOException {
+		// Lines aren't enclosed
+	}
+
+	/**
+	 * Deserializes every line of Json.
+	 * 
+	 * @return a java.util.List with an object for every line.
+	 */
+	public Object deserialize(String string) {
+		List<Object> objects = new ArrayList<Object>();
+		for (String line : string.split("\n")) {
+			if (line.trim().length() > 0) {
+				objects.add(this.json.deserialize(line));
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * Deserializes every line of Json read from a stream, instantiating only allowed
+	 * types.
+	 * 
+	 * @return a java.util.List with an object for every line.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException {
+		List<Object> objects = new ArrayList<Object>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(is, encoding));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.trim().length() > 0) {
+				objects.add(this.json.deserialize(line, types));
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * Returns "application/x-ndjson" content-type.
+	 */
+	public String getContentType() {
+		return "application/x-ndjson";
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProviderWrapper;
+import com.thoughtworks.xstream.core.JVM;
+import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.WriterWrapper;
+
+/**
+ * Serializes objects with XStream applying a {@link Projection}.<br>
+ * <br>
+ * The writer keeps the projection of every open node, and the reflection provider
+ * asks for it when XStream visits the fields of an object, so excluded fields are
+ * dropped before they're converted, and their values are never walked. Nodes that
+ * aren't fields (elements of collections, for example) keep the projection of their
+ * parent.
+ * 
+ * @author agent
+ */
+class ProjectingMarshaller {
+
+    private ProjectingMarshaller() {
+        super();
+    }
+
+    /**
+     * Serializes an object.
+     * 
+     * @param driver
+     *            XStream driver for the format.
+     * @param object
+     *            Object to serialize.
+     * @param projection
+     *            Fields to serialize.
+     * @return the object serialized.
+     */
+    public static String toXML(HierarchicalStreamDriver driver, Object object, Projection projection) {
+        StringWriter out = new StringWriter();
+        final ProjectingWriter writer = new ProjectingWriter(driver.createWriter(out), projection);
+        ReflectionProvider provider = new ReflectionProviderWrapper(new JVM().bestReflectionProvider()) {
+            @Override
+            public void visitSerializableFields(Object object, final Visitor visitor) {
+                final Projection fields = writer.enterObject();
+                if (fields == null) {
+                    super.visitSerializableFields(object, visitor);
+                } else {
+                    super.visitSerializableFields(object, new Visitor() {
+                        @SuppressWarnings("rawtypes")
+                        public void visit(String name, Class type, Class definedIn, Object value) {
+                            if (fields.includes(name)) {
+                                visitor.visit(name, type, definedIn, value);
+                            }
+                        }
+                    });
+                }
+            }
+        };
+        XStream xstream = new XStream(provider, driver);
+        try {
+            xstream.marshal(object, writer);
+        } finally {
+            writer.flush();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writer that tracks the projection of the open nodes.
+     */
+    private static class ProjectingWriter extends WriterWrapper {
+
+        private List<Projection> projections = new ArrayList<Projection>();
+
+        /**
+         * Whether each open node is an object whose fields are being written.
+         */
+        private List<Boolean> objects = new ArrayList<Boolean>();
+
+        public ProjectingWriter(HierarchicalStreamWriter writer, Projection projection) {
+            super(writer);
+            this.projections.add(projection);
+            this.objects.add(Boolean.FALSE);
+        }
+
+        /**
+         * Marks the current node as an object whose fields will be written.
+         * 
+         * @return the projection for its fields.
+         */
+        public Projection enterObject() {
+            int top = this.objects.size() - 1;
+            this.objects.set(top, Boolean.TRUE);
+            return this.projections.get(top);
+        }
+
+        @Override
+        public void startNode(String name) {
+            this.push(name);
+            super.startNode(name);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void startNode(String name, Class clazz) {
+            this.push(name);
+            super.startNode(name, clazz);
+        }
+
+        @Override
+        public void endNode() {
+            this.projections.remove(this.projections.size() - 1);
+            this.objects.remove(this.objects.size() - 1);
+            super.endNode();
+        }
+
+        private void push(String name) {
+            int top = this.objects.size() - 1;
+            Projection projection = this.projections.get(top);
+            if (projection != null && this.objects.get(top)) {
+                projection = projection.get(name);
+            }
+            this.projections.add(projection);
+            this.objects.add(Boolean.FALSE);
+        }
+    }
+}
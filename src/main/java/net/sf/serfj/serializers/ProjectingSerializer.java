@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+/**
+ * Serializer that can write only some fields of an object, walking just the
+ * parts of the graph that a {@link Projection} includes.
+ * 
+ * @author agent
+ */
+public interface ProjectingSerializer {
+
+    /**
+     * Serializes the fields of an object included in a projection.
+     * 
+     * @param object
+     *            Object to serialize.
+     * @param projection
+     *            Fields to serialize, null to serialize all of them.
+     * @return the object serialized.
+     */
+    String serialize(Object object, Projection projection);
+}
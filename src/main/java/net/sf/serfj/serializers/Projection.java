@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fields of an object that must be serialized, as a tree compiled from a list of
+ * field paths like "id,name,accounts.balance".<br>
+ * <br>
+ * Every node has the fields included at its level, and for each of them, the
+ * projection that applies to its value. A null projection means that the whole
+ * value is included, so a field named alone (accounts) includes all its fields,
+ * while a path (accounts.balance) includes only some of them. A projection over
+ * a collection applies to each of its elements.<br>
+ * <br>
+ * Projections are immutable, and compiled ones are cached by their definition.
+ * 
+ * @author agent
+ */
+public final class Projection {
+
+    /**
+     * Maximum number of definitions cached.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    private static final Map<String, Projection> CACHE = new ConcurrentHashMap<String, Projection>();
+
+    /**
+     * Field => projection of its value, null if it's included whole.
+     */
+    private Map<String, Projection> fields = new LinkedHashMap<String, Projection>();
+
+    private Projection() {
+        super();
+    }
+
+    /**
+     * Compiles a comma separated list of field paths, whose levels are separated
+     * by dots.
+     * 
+     * @param definition
+     *            Fields to include, for example: id,name,accounts.balance
+     * @return the projection, or null if the definition is empty, that is, all
+     *         fields must be serialized.
+     */
+    public static Projection compile(String definition) {
+        if (definition == null) {
+            return null;
+        }
+        Projection projection = CACHE.get(definition);
+        if (projection == null) {
+            projection = new Projection();
+            for (String path : definition.split(",")) {
+                path = path.trim();
+                if (path.length() > 0) {
+                    projection.add(path.split("\\."), 0);
+                }
+            }
+            if (projection.fields.isEmpty()) {
+                return null;
+            }
+            projection.seal();
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(definition, projection);
+        }
+        return projection;
+    }
+
+    /**
+     * Checks if a field must be serialized.
+     */
+    public boolean includes(String field) {
+        return this.fields.containsKey(field);
+    }
+
+    /**
+     * Gets the projection for the value of a field.
+     * 
+     * @return the projection, or null if the value must be serialized whole (or
+     *         the field isn't included).
+     */
+    public Projection get(String field) {
+        return this.fields.get(field);
+    }
+
+    /**
+     * Gets the fields included at this level.
+     */
+    public Set<String> getFields() {
+        return this.fields.keySet();
+    }
+
+    private void add(String[] path, int level) {
+        String field = path[level].trim();
+        if (field.length() == 0) {
+            return;
+        }
+        if (level == path.length - 1) {
+            // The whole field, even if only some of its fields were included before
+            this.fields.put(field, null);
+        } else if (!this.fields.containsKey(field) || this.fields.get(field) != null) {
+            Projection child = this.fields.get(field);
+            if (child == null) {
+                child = new Projection();
+                this.fields.put(field, child);
+            }
+            child.add(path, level + 1);
+        }
+    }
+
+    private void seal() {
+        for (Projection child : this.fields.values()) {
+            if (child != null) {
+                child.seal();
+            }
+        }
+        this.fields = Collections.unmodifiableMap(this.fields);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (Map.Entry<String, Projection> field : this.fields.entrySet()) {
+            if (string.length() > 0) {
+                string.append(',');
+            }
+            string.append(field.getKey());
+            if (field.getValue() != null) {
+                string.append('(').append(field.getValue()).append(')');
+            }
+        }
+        return string.toString();
+    }
+}
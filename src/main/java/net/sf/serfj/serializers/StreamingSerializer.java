@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Serializer that can write a list of objects one by one, so the list never has
+ * to be in memory, nor its serialized representation.<br>
+ * <br>
+ * The framework calls {@link #writeStart(Writer)}, then
+ * {@link #writeItem(Writer, Object, int, Projection)} for every object, and
+ * finally {@link #writeEnd(Writer)}.
+ * 
+ * @author agent
+ */
+public interface StreamingSerializer {
+
+	/**
+	 * Writes the beginning of the list.
+	 */
+	public void writeStart(Writer writer) throws IOException;
+
+	/**
+	 * Writes an object of the list.
+	 * 
+	 * @param writer
+	 *            Response writer.
+	 * @param item
+	 *            Object to write.
+	 * @param index
+	 *            Position of the object in the list, starting at 0.
+	 * @param projection
+	 *            Fields to write, null to write all of them.
+	 */
+	public void writeItem(Writer writer, Object item, int index, Projection projection) throws IOException;
+
+	/**
+	 * Writes the end of the list.
+	 */
+	public void writeEnd(Writer writer) throws IOException;
+}
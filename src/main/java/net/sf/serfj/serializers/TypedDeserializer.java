@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Interface for deserializers that only instantiate the types allowed for the body
+ * of an action, so a request body can't make them build other classes.<br><br>
+ * The framework uses it, instead of {@link StreamDeserializer}, to deserialize
+ * request bodies.
+ * 
+ * @author agent
+ */
+public interface TypedDeserializer {
+	/**
+	 * Deserialize an object from a stream.
+	 * 
+	 * @param is
+	 *            Stream with the serialized object.
+	 * @param encoding
+	 *            Character encoding of the stream, for text formats.
+	 * @param types
+	 *            Types that can be instantiated.
+	 * @return an Object.
+	 * @throws IOException
+	 *             if the stream can't be read.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException;
+}
@@ -15,14 +15,20 @@
  */
 package net.sf.serfj.serializers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.XppDriver;
 
 /**
  * Default XML serializer/deserializer.
  * 
  * @author Eduardo Yáñez
  */
-public class XmlSerializer implements ObjectSerializer {
+public class XmlSerializer implements ObjectSerializer, StreamDeserializer, TypedDeserializer, ProjectingSerializer, StreamingSerializer {
 
 	/**
 	 * Serializes an object to XML using the default XStream converter.
@@ -32,6 +38,38 @@ public class XmlSerializer implements ObjectSerializer {
 		return xstream.toXML(object);
 	}
 
+	/**
+	 * Serializes to XML only the fields of an object included in a projection.
+	 */
+	public String serialize(Object object, Projection projection) {
+		if (projection == null) {
+			return this.serialize(object);
+		}
+		return ProjectingMarshaller.toXML(new XppDriver(), object, projection);
+	}
+
+	/**
+	 * Starts a list, the same element XStream uses for lists, so it can be read as
+	 * a java.util.List.
+	 */
+	public void writeStart(Writer writer) throws IOException {
+		writer.write("<list>");
+	}
+
+	/**
+	 * Writes an object of a list.
+	 */
+	public void writeItem(Writer writer, Object item, int index, Projection projection) throws IOException {
+		writer.write(this.serialize(item, projection));
+	}
+
+	/**
+	 * Ends a list.
+	 */
+	public void writeEnd(Writer writer) throws IOException {
+		writer.write("</list>");
+	}
+
 	/**
 	 * Deserializes a XML (default XStream representation) representation of an
 	 * object.
@@ -41,6 +79,23 @@ public class XmlSerializer implements ObjectSerializer {
 		return xstream.fromXML(string);
 	}
 
+	/**
+	 * Deserializes a XML representation of an object while reading it from a stream.
+	 */
+	public Object deserialize(InputStream is, String encoding) throws IOException {
+		XStream xstream = new XStream();
+		return xstream.fromXML(new InputStreamReader(is, encoding));
+	}
+
+	/**
+	 * Deserializes a XML representation of an object while reading it from a stream,
+	 * instantiating only allowed types.
+	 */
+	public Object deserialize(InputStream is, String encoding, AllowedTypes types) throws IOException {
+		XStream xstream = types.newXStream(new XppDriver());
+		return xstream.fromXML(new InputStreamReader(is, encoding));
+	}
+
 	/**
 	 * Returns "text/xml" content-type.
 	 */
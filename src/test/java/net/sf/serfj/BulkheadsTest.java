@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import net.sf.serfj.annotations.MaxConcurrency;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class BulkheadsTest {
+
+    @MaxConcurrency(2)
+    public static class Limited {
+        @MaxConcurrency(1)
+        public void show() {
+        }
+
+        public void index() {
+        }
+    }
+
+    public static class Unlimited {
+        public void index() {
+        }
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("bulkheads");
+    }
+
+    @Test
+    public void testBulkhead() {
+        Bulkhead bulkhead = new Bulkhead("Limited", 2);
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(2, bulkhead.getInFlight());
+        assertEquals(1, bulkhead.getRejected());
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    public void testAnnotations() throws Exception {
+        Bulkheads bulkheads = new Bulkheads();
+        Bulkhead[] show = bulkheads.get(Limited.class, Limited.class.getMethod("show"));
+        Bulkhead[] index = bulkheads.get(Limited.class, Limited.class.getMethod("index"));
+        assertEquals(2, show.length);
+        assertEquals(1, index.length);
+        assertEquals(0, bulkheads.get(Unlimited.class, Unlimited.class.getMethod("index")).length);
+
+        bulkheads.acquire(show);
+        assertEquals(1, bulkheads.getInFlight("Limited"));
+        assertEquals(1, bulkheads.getInFlight("Limited.show"));
+        try {
+            bulkheads.acquire(show);
+            fail("Limited.show only serves a request at the same time");
+        } catch (RequestRejectedException e) {
+            assertEquals(503, e.getStatus());
+            assertEquals(1, e.getRetryAfter());
+        }
+        // The controller's permit is given back when the action's bulkhead is full
+        assertEquals(1, bulkheads.getInFlight("Limited"));
+        bulkheads.acquire(index);
+        try {
+            bulkheads.acquire(index);
+            fail("Limited only serves two requests at the same time");
+        } catch (RequestRejectedException e) {
+            assertEquals(2, bulkheads.getInFlight("Limited"));
+        }
+        bulkheads.release(show, show.length);
+        bulkheads.release(index, index.length);
+        assertEquals(0, bulkheads.getInFlight("Limited"));
+        assertEquals(2, bulkheads.getBulkheads().size());
+    }
+
+    @Test
+    public void testConfig() throws Exception {
+        System.setProperty("bulkheads", "Limited.show=3, Unlimited=1, wrong");
+        Bulkheads bulkheads = new Bulkheads(new Config("/config/serfj.properties"));
+        Bulkhead[] show = bulkheads.get(Limited.class, Limited.class.getMethod("show"));
+        assertEquals(2, show[0].getLimit());
+        assertEquals(3, show[1].getLimit());
+        assertEquals(1, bulkheads.get(Unlimited.class, Unlimited.class.getMethod("index"))[0].getLimit());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ContentNegotiatorTest {
+
+    private ContentNegotiator negotiator;
+
+    @Before
+    public void setUp() throws Exception {
+        negotiator = new ContentNegotiator(new Config("/config/serfj.properties"));
+    }
+
+    @Test
+    public void testNegotiate() {
+        assertEquals("json", negotiator.negotiate("application/json"));
+        assertEquals("xml", negotiator.negotiate("application/json;q=0.5, text/xml"));
+        assertEquals("json", negotiator.negotiate("text/xml;q=0.2, application/json;q=0.9, */*;q=0.1"));
+        assertEquals("base64", negotiator.negotiate("application/octect-stream"));
+        assertEquals("file", negotiator.negotiate("application/octet-stream"));
+        assertEquals("json", negotiator.negotiate("image/png, application/json; charset=UTF-8"));
+    }
+
+    @Test
+    public void testPagesAndWildcards() {
+        assertNull(negotiator.negotiate("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        assertNull(negotiator.negotiate("*/*"));
+        assertNull(negotiator.negotiate("application/*, application/json;q=0.5"));
+        assertNull(negotiator.negotiate("image/png"));
+        assertNull(negotiator.negotiate("application/json;q=0"));
+        // Cached result
+        assertNull(negotiator.negotiate("*/*"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+
+import net.sf.serfj.serializers.JsonSerializer;
+import net.sf.serfj.serializers.XmlSerializer;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ErrorsTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty("errors.status");
+        System.clearProperty("errors.trace");
+    }
+
+    @Test
+    public void testStatus() throws Exception {
+        Errors errors = new Errors(new Config("/config/serfj.properties"));
+        assertEquals(400, errors.getStatus(new NumberFormatException()));
+        assertEquals(404, errors.getStatus(new NoSuchElementException()));
+        assertEquals(500, errors.getStatus(new IllegalStateException()));
+        assertEquals(503, errors.getStatus(new RequestRejectedException(503, "Busy", 1)));
+
+        System.setProperty("errors.status", "java.lang.IllegalStateException=409");
+        errors = new Errors(new Config("/config/serfj.properties"));
+        assertEquals(409, errors.getStatus(new IllegalStateException()));
+        assertEquals(500, errors.getStatus(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void testTrace() throws Exception {
+        System.setProperty("errors.trace", "true");
+        Errors errors = new Errors(new Config("/config/serfj.properties"));
+        String json = errors.toJson(errors.toResponse(new IllegalArgumentException("Wrong \"id\"")));
+        ErrorResponse error = (ErrorResponse) new JsonSerializer().deserialize(json);
+        assertEquals("Wrong \"id\"", error.getMessage());
+        assertEquals(400, error.getCode());
+        assertNotNull(error.getTrace());
+        assertTrue(error.getTrace().indexOf("ErrorsTest.testTrace") > 0);
+    }
+
+    @Test
+    public void testXml() throws Exception {
+        Errors errors = new Errors(new Config("/config/serfj.properties"));
+        String xml = errors.toXml(errors.toResponse(new UnsupportedOperationException("<Not> & 'yet'")));
+        ErrorResponse error = (ErrorResponse) new XmlSerializer().deserialize(xml);
+        assertEquals(UnsupportedOperationException.class.getName(), error.getType());
+        assertEquals("<Not> & 'yet'", error.getMessage());
+        assertEquals(501, error.getCode());
+        assertNull(error.getTrace());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import net.sf.serfj.serializers.EventsSerializer;
+import net.sf.serfj.serializers.JsonSerializer;
+import net.sf.serfj.serializers.XmlSerializer;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class EventPublisherTest {
+
+    @Test
+    public void testFrame() {
+        assertEquals("data: text\n\n", EventsSerializer.frame(null, null, "text"));
+        assertEquals("id: 7\nevent: update\ndata: <a>\ndata:   1\ndata: </a>\n\n", EventsSerializer.frame(7L, "update", "<a>\n  1\r\n</a>"));
+    }
+
+    @Test
+    public void testBatchesAndHeartbeats() {
+        EventPublisher<String> publisher = new EventPublisher<String>();
+        StringWriter json = new StringWriter();
+        StringWriter xml = new StringWriter();
+        EventSubscriber jsonSubscriber = new EventSubscriber(publisher, new PrintWriter(json), new JsonSerializer(), null, 10);
+        EventSubscriber xmlSubscriber = new EventSubscriber(publisher, new PrintWriter(xml), new XmlSerializer(), null, 10);
+        publisher.subscribe(jsonSubscriber);
+        publisher.subscribe(xmlSubscriber);
+        publisher.publish("one");
+        publisher.publish("two");
+        // Nothing is written until the dispatcher flushes
+        assertEquals("", json.toString());
+        assertTrue(jsonSubscriber.flush(0, 1000));
+        assertTrue(xmlSubscriber.flush(0, 1000));
+        assertEquals("id: 1\ndata: {\"string\":\"one\"}\n\nid: 2\ndata: {\"string\":\"two\"}\n\n", json.toString());
+        assertEquals("id: 1\ndata: <string>one</string>\n\nid: 2\ndata: <string>two</string>\n\n", xml.toString());
+
+        // Idle subscribers receive heartbeats
+        assertTrue(jsonSubscriber.flush(500, 1000));
+        assertTrue(jsonSubscriber.flush(1000, 1000));
+        assertTrue(json.toString().endsWith("two\"}\n\n:\n\n"));
+    }
+
+    @Test
+    public void testBlockedSubscriber() throws Exception {
+        System.setProperty("events.write.timeout", "200");
+        System.setProperty("events.flush.interval", "20");
+        EventDispatcher.shutdown();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            EventDispatcher dispatcher = EventDispatcher.getInstance(new Config("/config/serfj.properties"));
+            EventPublisher<String> publisher = new EventPublisher<String>();
+            Writer blocking = new StringWriter() {
+                @Override
+                public void write(String text, int offset, int length) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            EventSubscriber blocked = new EventSubscriber(publisher, new PrintWriter(blocking), new JsonSerializer(), null, 1000);
+            StringWriter json = new StringWriter();
+            EventSubscriber reader = new EventSubscriber(publisher, new PrintWriter(json), new JsonSerializer(), null, 1000);
+            for (EventSubscriber subscriber : new EventSubscriber[] { blocked, reader }) {
+                publisher.subscribe(subscriber);
+                dispatcher.add(subscriber);
+            }
+            publisher.publish("one");
+            for (int i = 0; i < 100 && !blocked.isClosed(); i++) {
+                Thread.sleep(20);
+                publisher.publish("more");
+            }
+            assertTrue(blocked.isClosed());
+            assertFalse(reader.isClosed());
+            assertTrue(json.toString().startsWith("id: 1\ndata: {\"string\":\"one\"}\n\n"));
+            assertTrue(json.toString().contains("id: 3\n"));
+        } finally {
+            release.countDown();
+            EventDispatcher.shutdown();
+            System.clearProperty("events.write.timeout");
+            System.clearProperty("events.flush.interval");
+        }
+    }
+
+    @Test
+    public void testSlowSubscriber() {
+        EventPublisher<String> publisher = new EventPublisher<String>();
+        EventSubscriber subscriber = new EventSubscriber(publisher, new PrintWriter(new StringWriter()), new JsonSerializer(), null, 2);
+        publisher.subscribe(subscriber);
+        publisher.publish("one");
+        publisher.publish("two");
+        assertFalse(subscriber.isClosed());
+        publisher.publish("three");
+        assertTrue(subscriber.isClosed());
+        assertEquals(0, publisher.getSubscribers());
+    }
+}
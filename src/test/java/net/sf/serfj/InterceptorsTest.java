@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.serfj.test.account.controllers.Account;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class InterceptorsTest {
+
+    /**
+     * Counts the requests that go through it.
+     */
+    public static class Counting implements Interceptor {
+        public static final AtomicInteger CALLS = new AtomicInteger();
+
+        public Object intercept(UrlInfo urlInfo, ResponseHelper response, Chain chain) throws Exception {
+            CALLS.incrementAndGet();
+            return chain.proceed();
+        }
+    }
+
+    /**
+     * Answers without calling the action.
+     */
+    public static class Cached implements Interceptor {
+        public Object intercept(UrlInfo urlInfo, ResponseHelper response, Chain chain) {
+            return "Cached " + urlInfo.getAction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("interceptors");
+    }
+
+    private static UrlInfo newUrlInfo(String action) {
+        UrlInfo info = new UrlInfo("/accounts/" + action, HttpMethod.GET);
+        info.setController(Account.class.getName());
+        info.setAction(action);
+        return info;
+    }
+
+    @Test
+    public void testAnnotations() throws Exception {
+        Interceptors interceptors = new Interceptors();
+        assertEquals(0, interceptors.get(newUrlInfo("show")).length);
+        Interceptor[] chain = interceptors.get(newUrlInfo("rates"));
+        assertEquals(1, chain.length);
+        assertTrue(chain[0] instanceof Cached);
+        // Chains are resolved once
+        assertSame(chain, interceptors.get(newUrlInfo("rates")));
+        assertEquals(0, interceptors.get(newUrlInfo("doesNotExist")).length);
+    }
+
+    @Test
+    public void testChain() throws Exception {
+        System.setProperty("interceptors", Counting.class.getName());
+        Interceptors interceptors = new Interceptors(new Config("/config/serfj.properties"));
+        Interceptor[] chain = interceptors.get(newUrlInfo("show"));
+        assertEquals(1, chain.length);
+        int calls = Counting.CALLS.get();
+        assertEquals("Shown", Interceptors.invoke(chain, newUrlInfo("show"), null, () -> "Shown"));
+        assertEquals(calls + 1, Counting.CALLS.get());
+
+        // Interceptors of the configuration go first, and Cached doesn't let the action run
+        chain = interceptors.get(newUrlInfo("rates"));
+        assertEquals(2, chain.length);
+        assertTrue(chain[0] instanceof Counting);
+        assertEquals("Cached rates", Interceptors.invoke(chain, newUrlInfo("rates"), null, () -> {
+            throw new IllegalStateException("The action mustn't be called");
+        }));
+        assertEquals(calls + 2, Counting.CALLS.get());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+
+import net.sf.serfj.limits.ConcurrencyLimit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class LimitersTest {
+
+    /**
+     * Lets two requests in, whatever their latency.
+     */
+    public static class TwoRequests implements ConcurrencyLimit {
+        public int getLimit() {
+            return 2;
+        }
+
+        public void onSample(long rtt, int inFlight) {
+            // Fixed
+        }
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("limiter");
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertNull(new Limiters().get(LimitersTest.class, LimitersTest.class.getMethod("testDisabled")));
+        assertNull(new Limiters(new Config("/config/serfj.properties")).get(LimitersTest.class, LimitersTest.class.getMethod("testDisabled")));
+    }
+
+    @Test
+    public void testLimiter() throws Exception {
+        System.setProperty("limiter", TwoRequests.class.getName());
+        Limiters limiters = new Limiters(new Config("/config/serfj.properties"));
+        Method method = LimitersTest.class.getMethod("testLimiter");
+        Limiter limiter = limiters.get(LimitersTest.class, method);
+        assertSame(limiter, limiters.getLimiter("LimitersTest.testLimiter"));
+        limiters.acquire(limiter);
+        limiters.acquire(limiter);
+        try {
+            limiters.acquire(limiter);
+            fail("Only two requests at the same time");
+        } catch (RequestRejectedException e) {
+            assertEquals(503, e.getStatus());
+        }
+        limiter.release(System.nanoTime(), 2);
+        limiters.acquire(limiter);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void testAlgorithms() throws Exception {
+        System.setProperty("limiter", "aimd");
+        Method method = LimitersTest.class.getMethod("testAlgorithms");
+        assertEquals(20, new Limiters(new Config("/config/serfj.properties")).get(LimitersTest.class, method).getLimit());
+        System.setProperty("limiter", "gradient");
+        assertEquals(20, new Limiters(new Config("/config/serfj.properties")).get(LimitersTest.class, method).getLimit());
+        System.setProperty("limiter", "net.sf.serfj.DoesNotExist");
+        assertNull(new Limiters(new Config("/config/serfj.properties")).get(LimitersTest.class, method));
+    }
+}
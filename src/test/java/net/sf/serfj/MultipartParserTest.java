@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class MultipartParserTest {
+
+    private static final String BOUNDARY = "----SerfjBoundary7MA4YWxk";
+
+    @Test
+    public void testGetBoundary() {
+        assertEquals(BOUNDARY, MultipartParser.getBoundary("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("a b", MultipartParser.getBoundary("multipart/form-data; charset=UTF-8; BOUNDARY=\"a b\""));
+        assertNull(MultipartParser.getBoundary("multipart/form-data"));
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            file.append("line ").append(i).append("\r\n--");
+        }
+        String body = "preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"city\"\r\n\r\n"
+                + "Sevilla\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"upload\"; filename=\"C:\\\\tmp\\\\accounts.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + file + "\r\n--" + BOUNDARY + "--\r\n";
+        List<Part> parts = this.parse(body, 1024);
+        try {
+            assertEquals(2, parts.size());
+            Part city = parts.get(0);
+            assertEquals("city", city.getName());
+            assertFalse(city.isFile());
+            assertTrue(city.isInMemory());
+            assertEquals("Sevilla", city.getString());
+
+            Part upload = parts.get(1);
+            assertEquals("upload", upload.getName());
+            assertEquals("accounts.txt", upload.getFilename());
+            assertEquals("text/plain", upload.getContentType());
+            assertFalse(upload.isInMemory());
+            assertEquals(file.length(), upload.getSize());
+            assertEquals(file.toString(), upload.getString());
+
+            File copy = File.createTempFile("serfj", ".test");
+            upload.transferTo(copy);
+            assertEquals(file.length(), copy.length());
+            assertTrue(copy.delete());
+        } finally {
+            for (Part part : parts) {
+                part.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        try {
+            this.parse("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"city\"\r\n\r\nSevi", 1024);
+            fail("Body is truncated");
+        } catch (RequestBodyException e) {
+            assertEquals(400, e.getStatus());
+        }
+    }
+
+    private List<Part> parse(String body, int threshold) throws Exception {
+        // A stream that reads a few bytes every time, so boundaries are split between reads
+        InputStream is = new ByteArrayInputStream(body.getBytes("UTF-8")) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 37));
+            }
+        };
+        return new MultipartParser(is, BOUNDARY, "UTF-8", threshold, null).parse();
+    }
+}
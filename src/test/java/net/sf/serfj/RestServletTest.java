@@ -16,7 +16,31 @@
 package net.sf.serfj;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import net.sf.serfj.management.CacheStatistics;
+import net.sf.serfj.management.RestServletMXBean;
+import net.sf.serfj.metrics.Phase;
+import net.sf.serfj.metrics.RouteTimings;
+import net.sf.serfj.serializers.JsonSerializer;
+import net.sf.serfj.test.account.controllers.Account;
+import net.sf.serfj.test.models.Office;
 
 import junit.framework.TestCase;
 import net.sf.serfj.serializers.Base64Serializer;
@@ -28,8 +52,11 @@ import org.slf4j.LoggerFactory;
 
 import com.meterware.httpunit.GetMethodWebRequest;
 import com.meterware.httpunit.HttpNotFoundException;
+import com.meterware.httpunit.HttpUnitOptions;
+import com.meterware.httpunit.PostMethodWebRequest;
 import com.meterware.httpunit.WebRequest;
 import com.meterware.httpunit.WebResponse;
+import com.meterware.servletunit.InvocationContext;
 import com.meterware.servletunit.ServletRunner;
 import com.meterware.servletunit.ServletUnitClient;
 
@@ -64,6 +91,637 @@ public class RestServletTest extends TestCase {
         testGet64("banks/1/accounts/1/balance.base64", "Balance object to serialize", "application/octect-stream");
 	}
 
+    @Test
+    public void testBodyBinding() throws Exception {
+        Office office = new Office();
+        office.setCity("Sevilla");
+        InputStream body = new ByteArrayInputStream(new JsonSerializer().serialize(office).getBytes("UTF-8"));
+        WebRequest request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts.json", body, "application/json; charset=UTF-8");
+        WebResponse response = sr.newClient().getResponse(request);
+        assertEquals("application/json", response.getContentType());
+        assertTrue(response.getText().indexOf("Sevilla") > 0);
+    }
+
+    @Test
+    public void testBodyTypes() throws Exception {
+        String file = new JsonSerializer().serialize(new java.io.File("/tmp"));
+        assertEquals(400, this.postBody(file.getBytes("UTF-8"), "application/json"));
+        String list = new Base64Serializer().serialize(new java.util.ArrayList<Object>());
+        assertEquals(415, this.postBody(list.getBytes("UTF-8"), "application/octect-stream"));
+    }
+
+    private int postBody(byte[] body, String contentType) throws Exception {
+        WebRequest request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts.json", new ByteArrayInputStream(body), contentType);
+        InvocationContext ic = sr.newClient().newInvocation(request);
+        final int[] status = new int[1];
+        HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+            @Override
+            public void sendError(int sc, String msg) {
+                status[0] = sc;
+            }
+        };
+        ic.getServlet().service(ic.getRequest(), response);
+        return status[0];
+    }
+
+    @Test
+    public void testBulkheadBeforeBody() throws Exception {
+        System.setProperty("bulkheads", "Account.create=0");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            // The body would be answered with 400, but it isn't read
+            String file = new JsonSerializer().serialize(new java.io.File("/tmp"));
+            assertEquals(503, this.postBody(file.getBytes("UTF-8"), "application/json"));
+        } finally {
+            System.clearProperty("bulkheads");
+        }
+    }
+
+    @Test
+    public void testBodyTooLarge() throws Exception {
+        System.setProperty("max.body.size", "16");
+        try {
+            InputStream body = new ByteArrayInputStream(new JsonSerializer().serialize(new Office()).getBytes("UTF-8"));
+            WebRequest request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts.json", body, "application/json");
+            InvocationContext ic = sr.newClient().newInvocation(request);
+            final int[] status = new int[1];
+            HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+                @Override
+                public void sendError(int sc, String msg) {
+                    status[0] = sc;
+                }
+            };
+            ic.getServlet().service(ic.getRequest(), response);
+            assertEquals(413, status[0]);
+        } finally {
+            System.clearProperty("max.body.size");
+        }
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        System.setProperty("bulkheads", "Account.balance=0");
+        try {
+            // Bulkheads are read when the servlet starts
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            InvocationContext ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/balance.json");
+            final int[] status = new int[1];
+            final String[] retryAfter = new String[1];
+            HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+                @Override
+                public void setHeader(String name, String value) {
+                    if ("Retry-After".equals(name)) {
+                        retryAfter[0] = value;
+                    }
+                    super.setHeader(name, value);
+                }
+
+                @Override
+                public void sendError(int sc, String msg) {
+                    status[0] = sc;
+                }
+            };
+            ic.getServlet().service(ic.getRequest(), response);
+            assertEquals(503, status[0]);
+            assertEquals("1", retryAfter[0]);
+            Bulkheads bulkheads = (Bulkheads) ic.getServlet().getServletConfig().getServletContext().getAttribute(Bulkheads.ATTRIBUTE);
+            assertEquals(1, bulkheads.getBulkhead("Account.balance").getRejected());
+            assertEquals(0, bulkheads.getInFlight("Account.balance"));
+        } finally {
+            System.clearProperty("bulkheads");
+        }
+    }
+
+    @Test
+    public void testPagination() throws Exception {
+        ServletUnitClient sc = sr.newClient();
+        WebResponse response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts.json?limit=20"));
+        assertEquals("application/json", response.getContentType());
+        String page = response.getText();
+        assertTrue(page.startsWith("[{"));
+        assertTrue(page.indexOf("\"employees\":19") > 0);
+        assertEquals(-1, page.indexOf("\"employees\":20"));
+        List<?> offices = (List<?>) new JsonSerializer().deserialize(page);
+        assertEquals(20, offices.size());
+        assertEquals(19, ((Office) offices.get(19)).getEmployees());
+        String link = response.getHeaderField("Link");
+        assertTrue(link.endsWith(">; rel=\"next\""));
+        String next = link.substring(1, link.indexOf('>'));
+        assertTrue(next.startsWith("/banks/1/accounts.json?cursor="));
+
+        response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com" + next));
+        assertTrue(response.getText().indexOf("\"employees\":20") > 0);
+        next = response.getHeaderField("Link");
+        next = next.substring(1, next.indexOf('>'));
+        response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com" + next));
+        assertTrue(response.getText().indexOf("\"employees\":44") > 0);
+        assertNull(response.getHeaderField("Link"));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        ServletUnitClient sc = sr.newClient();
+        WebResponse response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/history.ndjson"));
+        assertEquals("application/x-ndjson", response.getContentType());
+        String[] lines = response.getText().split("\n");
+        assertEquals(250, lines.length);
+        assertEquals(249, ((Office) new JsonSerializer().deserialize(lines[249])).getEmployees());
+
+        response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/history.json?fields=employees"));
+        assertEquals("application/json", response.getContentType());
+        String json = response.getText();
+        assertTrue(json.startsWith("[{"));
+        assertTrue(json.endsWith("\"employees\":249}}]"));
+        assertEquals(-1, json.indexOf("open"));
+    }
+
+    @Test
+    public void testAsyncResults() throws Exception {
+        ServletUnitClient sc = sr.newClient();
+        WebResponse response = sc.getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/headquarters.json"));
+        assertEquals("Madrid", ((Office) new JsonSerializer().deserialize(response.getText())).getCity());
+
+        response = this.getErrorResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/closed.json"));
+        assertEquals(500, response.getResponseCode());
+        ErrorResponse error = (ErrorResponse) new JsonSerializer().deserialize(response.getText());
+        assertEquals(IllegalStateException.class.getName(), error.getType());
+        assertEquals("Account closed", error.getMessage());
+        assertEquals(500, error.getCode());
+        assertNull(error.getTrace());
+    }
+
+    @Test
+    public void testLegacyErrors() throws Exception {
+        System.setProperty("errors.legacy", "true");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            WebResponse response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/closed.json"));
+            assertEquals(200, response.getResponseCode());
+            Object exception = new JsonSerializer().deserialize(response.getText());
+            assertTrue(exception instanceof IllegalStateException);
+        } finally {
+            System.clearProperty("errors.legacy");
+        }
+    }
+
+    /**
+     * Gets a response whose status is an error, which servletunit would throw.
+     */
+    private WebResponse getErrorResponse(WebRequest request) throws Exception {
+        HttpUnitOptions.setExceptionsThrownOnErrorStatus(false);
+        try {
+            return sr.newClient().getResponse(request);
+        } finally {
+            HttpUnitOptions.setExceptionsThrownOnErrorStatus(true);
+        }
+    }
+
+    @Test
+    public void testAsyncTimeout() throws Exception {
+        System.setProperty("async.timeout", "50");
+        try {
+            InvocationContext ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/pending.json");
+            final int[] status = new int[1];
+            HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+                @Override
+                public void sendError(int sc, String msg) {
+                    status[0] = sc;
+                }
+            };
+            ic.getServlet().service(ic.getRequest(), response);
+            assertEquals(504, status[0]);
+        } finally {
+            System.clearProperty("async.timeout");
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        long start = System.currentTimeMillis();
+        assertEquals(504, this.getErrorStatus(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/slow.json")));
+        // The action was interrupted
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        WebRequest request = new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/pending.json");
+        request.setHeaderField("X-Request-Timeout", "50");
+        assertEquals(504, this.getErrorStatus(request));
+    }
+
+    /**
+     * Gets the status of an error response, which servletunit can't render.
+     */
+    private int getErrorStatus(WebRequest request) throws Exception {
+        InvocationContext ic = sr.newClient().newInvocation(request);
+        final int[] status = new int[1];
+        HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+            @Override
+            public void sendError(int sc, String msg) {
+                status[0] = sc;
+            }
+        };
+        ic.getServlet().service(ic.getRequest(), response);
+        return status[0];
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        System.setProperty("coalescing", "true");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            final CountDownLatch start = new CountDownLatch(1);
+            final String[] responses = new String[5];
+            Thread[] clients = new Thread[responses.length];
+            for (int i = 0; i < clients.length; i++) {
+                final int client = i;
+                clients[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            responses[client] = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/branches.json")).getText();
+                        } catch (Exception e) {
+                            LOGGER.error(e.getLocalizedMessage(), e);
+                        }
+                    }
+                };
+                clients[i].start();
+            }
+            int calls = Account.BRANCHES_CALLS.get();
+            start.countDown();
+            for (Thread client : clients) {
+                client.join(5000);
+            }
+            assertEquals(calls + 1, Account.BRANCHES_CALLS.get());
+            for (String response : responses) {
+                assertEquals(responses[0], response);
+            }
+            assertEquals(calls + 1, ((Office) new JsonSerializer().deserialize(responses[0])).getEmployees());
+        } finally {
+            System.clearProperty("coalescing");
+        }
+    }
+
+    @Test
+    public void testCoalescingTimeout() throws Exception {
+        System.setProperty("coalescing", "true");
+        System.setProperty("async.timeout", "50");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            Thread leader = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/branches.json"));
+                    } catch (Exception e) {
+                        LOGGER.error(e.getLocalizedMessage(), e);
+                    }
+                }
+            };
+            int calls = Account.BRANCHES_CALLS.get();
+            leader.start();
+            Thread.sleep(100);
+            // The leader takes 300 ms, so this one stops waiting and calls the action
+            sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/branches.json"));
+            leader.join(5000);
+            assertEquals(calls + 2, Account.BRANCHES_CALLS.get());
+        } finally {
+            System.clearProperty("coalescing");
+            System.clearProperty("async.timeout");
+        }
+    }
+
+    @Test
+    public void testIdempotency() throws Exception {
+        System.setProperty("idempotency", "true");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            Office office = new Office();
+            office.setCity("Sevilla");
+            String json = new JsonSerializer().serialize(office);
+            int deposits = Account.DEPOSITS.get();
+            WebResponse[] responses = new WebResponse[3];
+            for (int i = 0; i < responses.length; i++) {
+                WebRequest request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/deposit.json",
+                        new ByteArrayInputStream(json.getBytes("UTF-8")), "application/json");
+                request.setHeaderField("Idempotency-Key", "deposit-1");
+                responses[i] = sr.newClient().getResponse(request);
+            }
+            assertEquals(deposits + 1, Account.DEPOSITS.get());
+            assertNull(responses[0].getHeaderField("Idempotent-Replayed"));
+            assertEquals("true", responses[2].getHeaderField("Idempotent-Replayed"));
+            assertEquals(responses[0].getText(), responses[2].getText());
+            assertEquals("application/json", responses[2].getContentType());
+
+            // Another key calls the action again
+            WebRequest request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/deposit.json",
+                    new ByteArrayInputStream(json.getBytes("UTF-8")), "application/json");
+            request.setHeaderField("Idempotency-Key", "deposit-2");
+            sr.newClient().getResponse(request);
+            assertEquals(deposits + 2, Account.DEPOSITS.get());
+
+            // Keys belong to a client
+            request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/deposit.json",
+                    new ByteArrayInputStream(json.getBytes("UTF-8")), "application/json");
+            request.setHeaderField("Idempotency-Key", "deposit-2");
+            request.setHeaderField("Authorization", "Bearer another");
+            WebResponse other = sr.newClient().getResponse(request);
+            assertNull(other.getHeaderField("Idempotent-Replayed"));
+            assertEquals(deposits + 3, Account.DEPOSITS.get());
+
+            // A key can't be reused for another payload
+            office.setCity("Madrid");
+            request = new PostMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/deposit.json",
+                    new ByteArrayInputStream(new JsonSerializer().serialize(office).getBytes("UTF-8")), "application/json");
+            request.setHeaderField("Idempotency-Key", "deposit-1");
+            InvocationContext ic = sr.newClient().newInvocation(request);
+            final int[] status = new int[1];
+            HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+                @Override
+                public void sendError(int sc, String msg) {
+                    status[0] = sc;
+                }
+            };
+            ic.getServlet().service(ic.getRequest(), response);
+            assertEquals(422, status[0]);
+            assertEquals(deposits + 3, Account.DEPOSITS.get());
+        } finally {
+            System.clearProperty("idempotency");
+        }
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        System.setProperty("batch.path", "/batch");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            Office office = new Office();
+            office.setCity("Sevilla");
+            String batch = "[{\"url\": \"/banks/1/accounts/1.json\"},"
+                    + "{\"method\": \"POST\", \"url\": \"/banks/1/accounts.json\", \"body\": " + new JsonSerializer().serialize(office) + "},"
+                    + "{\"url\": \"/banks/1/accounts/1/closed.json\"},"
+                    + "{\"url\": \"banks\"}]";
+            WebRequest request = new PostMethodWebRequest("http://test.meterware.com/batch", new ByteArrayInputStream(batch.getBytes("UTF-8")),
+                    "application/json");
+            WebResponse response = sr.newClient().getResponse(request);
+            assertEquals("application/json", response.getContentType());
+            String text = response.getText();
+            LOGGER.debug("Batch response: {}", text);
+            assertTrue(text.startsWith("[{\"status\":200,\"contentType\":\"application/json\",\"body\":"));
+            assertTrue(text.indexOf("Account object to serialize") > 0);
+            assertTrue(text.indexOf("Sevilla") > 0);
+            assertTrue(text.indexOf("Account closed") > 0);
+            assertTrue(text.endsWith("{\"status\":400,\"body\":\"Request URL must start with '/'\"}]"));
+        } finally {
+            System.clearProperty("batch.path");
+        }
+    }
+
+    @Test
+    public void testMultiGet() throws Exception {
+        // Account hasn't a showMany action, so show is called for every Id
+        WebResponse response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1,2,3.json"));
+        String text = response.getText();
+        assertEquals(3, text.split("Account object to serialize", -1).length - 1);
+        assertTrue(text.indexOf("Account object to serialize") > text.indexOf('['));
+
+        // Holder has a showMany action
+        response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/holders/4,5.json"));
+        assertTrue(response.getText().indexOf("Holders 4-5") > 0);
+    }
+
+    @Test
+    public void testMultiGetBulkhead() throws Exception {
+        System.setProperty("bulkheads", "Account.show=1");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            // The multi-get takes one permit, not one per Id
+            WebResponse response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1,2,3.json"));
+            assertEquals(3, response.getText().split("Account object to serialize", -1).length - 1);
+            Bulkheads bulkheads = (Bulkheads) sr.newClient().newInvocation("http://test.meterware.com/banks").getServlet().getServletConfig().getServletContext()
+                    .getAttribute(Bulkheads.ATTRIBUTE);
+            assertEquals(0, bulkheads.getBulkhead("Account.show").getRejected());
+            assertEquals(0, bulkheads.getInFlight("Account.show"));
+        } finally {
+            System.clearProperty("bulkheads");
+        }
+    }
+
+    @Test
+    public void testInterceptors() throws Exception {
+        WebResponse response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/rates.json"));
+        assertTrue(response.getText().indexOf("Cached rates") > 0);
+    }
+
+    @Test
+    public void testTimings() throws Exception {
+        InvocationContext ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/balance.json");
+        ic.getServlet().service(ic.getRequest(), ic.getResponse());
+        Timings timings = (Timings) ic.getServlet().getServletConfig().getServletContext().getAttribute(Timings.ATTRIBUTE);
+        RouteTimings route = timings.getRoute("Account.balance");
+        for (Phase phase : new Phase[] { Phase.URL, Phase.CONTROLLER, Phase.ACTION, Phase.SERIALIZE, Phase.WRITE, Phase.REQUEST }) {
+            assertEquals(phase.toString(), 1, route.getHistogram(phase).getCount());
+        }
+        assertEquals(0, route.getHistogram(Phase.FORWARD).getCount());
+        assertTrue(route.getHistogram(Phase.REQUEST).getMax() >= route.getHistogram(Phase.ACTION).getMax());
+
+        // Actions that don't exist aren't timed on their own
+        ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/doesNotExist.json");
+        ic.getServlet().service(ic.getRequest(), ic.getResponse());
+        assertNull(timings.getRoute("Account.doesNotExist"));
+        assertEquals(1, timings.getRoute(Timings.UNMATCHED).getHistogram(Phase.REQUEST).getCount());
+
+        timings.setEnabled(false);
+        ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/balance.json");
+        ic.getServlet().service(ic.getRequest(), ic.getResponse());
+        assertEquals(1, route.getHistogram(Phase.REQUEST).getCount());
+    }
+
+    @Test
+    public void testManagement() throws Exception {
+        sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/balance.json"));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = server.queryNames(new ObjectName("net.sf.serfj:type=RestServlet,*"), null);
+        assertEquals(1, names.size());
+        RestServletMXBean bean = JMX.newMXBeanProxy(server, names.iterator().next(), RestServletMXBean.class);
+        assertTrue(bean.getRequests() >= 1);
+        assertEquals(0, bean.getInFlight());
+        assertEquals(Long.valueOf(0), bean.getInFlightByController().get(Account.class.getName()));
+        assertEquals(1, bean.getRoutes().get("Account.balance").getRequests());
+        assertEquals("UTF-8", bean.getConfig().get("encoding"));
+        assertTrue(bean.getLimiters().isEmpty());
+
+        CacheStatistics controllers = bean.getCaches().get("controllers");
+        assertTrue(controllers.getSize() > 0);
+        assertTrue(controllers.getHits() > 0);
+        bean.clearCaches();
+        assertEquals(0, bean.getCaches().get("controllers").getSize());
+
+        bean.setTiming(false);
+        assertFalse(bean.isTiming());
+        sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/balance.json"));
+        assertEquals(1, bean.getRoutes().get("Account.balance").getRequests());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        System.setProperty("metrics.path", "/metrics");
+        System.setProperty("bulkheads", "Account.balance=5");
+        System.setProperty("limiter", "aimd");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/balance.json"));
+            getErrorResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/closed.json"));
+            WebResponse response = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/metrics"));
+            assertEquals("text/plain", response.getContentType());
+            String text = response.getText();
+            assertTrue(text, text.contains("serfj_requests_total{route=\"Account.balance\",status=\"200\"} 1\n"));
+            assertTrue(text, text.contains("serfj_request_duration_seconds_bucket{route=\"Account.balance\",le=\"+Inf\"} 1\n"));
+            assertTrue(text, text.contains("serfj_request_duration_seconds_count{route=\"Account.balance\"} 1\n"));
+            assertTrue(text, text.contains("serfj_phase_duration_seconds_count{route=\"Account.balance\",phase=\"serialize\"} 1\n"));
+            assertTrue(text, text.contains("serfj_serialized_bytes_total{route=\"Account.balance\"} "));
+            assertTrue(text, text.contains("serfj_errors_total{route=\"Account.closed\",exception=\"java.lang.IllegalStateException\"} 1\n"));
+            assertTrue(text, text.contains("serfj_bulkhead_limit{bulkhead=\"Account.balance\"} 5\n"));
+            assertTrue(text, text.contains("serfj_bulkhead_in_flight{bulkhead=\"Account.balance\"} 0\n"));
+            assertTrue(text, text.contains("serfj_limiter_limit{route=\"Account.balance\"} 20\n"));
+            assertTrue(text, text.contains("serfj_limiter_in_flight{route=\"Account.balance\"} 0\n"));
+            assertTrue(text, text.contains("serfj_limiter_rejected_total{route=\"Account.balance\"} 0\n"));
+        } finally {
+            System.clearProperty("metrics.path");
+            System.clearProperty("bulkheads");
+            System.clearProperty("limiter");
+        }
+    }
+
+    @Test
+    public void testResources() throws Exception {
+        System.setProperty("timing.resources", "true");
+        System.setProperty("metrics.path", "/metrics");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            InvocationContext ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/balance.json");
+            ic.getServlet().service(ic.getRequest(), ic.getResponse());
+            Timings timings = (Timings) ic.getServlet().getServletConfig().getServletContext().getAttribute(Timings.ATTRIBUTE);
+            RouteTimings route = timings.getRoute("Account.balance");
+            assertEquals(1, route.getAllocated().getCount());
+            assertTrue(route.getAllocated().getTotal() > 0);
+            assertEquals(1, route.getCpu().getCount());
+            String text = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/metrics")).getText();
+            assertTrue(text, text.contains("serfj_request_allocated_bytes{route=\"Account.balance\",quantile=\"0.99\"} "));
+            assertTrue(text, text.contains("serfj_request_allocated_bytes_count{route=\"Account.balance\"} 1\n"));
+            assertTrue(text, text.contains("serfj_request_cpu_seconds_count{route=\"Account.balance\"} 1\n"));
+
+            // A request finished by another thread is recorded when both are done
+            final RequestTimer timer = timings.newTimer();
+            long[] segment = timer.startSegment();
+            final UrlInfo urlInfo = new UrlInfo("/banks/1/accounts/1/balance.json", HttpMethod.GET);
+            urlInfo.setController(Account.class.getName());
+            urlInfo.setAction("balance");
+            Thread other = new Thread(() -> {
+                long[] own = timer.startSegment();
+                byte[][] garbage = new byte[64][];
+                for (int i = 0; i < garbage.length; i++) {
+                    garbage[i] = new byte[1024];
+                }
+                timer.finish(urlInfo, garbage.length > 0 ? 200 : 500);
+                timer.endSegment(own);
+            });
+            other.start();
+            other.join();
+            assertEquals(1, route.getAllocated().getCount());
+            timer.endSegment(segment);
+            assertEquals(2, route.getAllocated().getCount());
+            assertTrue(route.getAllocated().getMax() >= 64 * 1024);
+        } finally {
+            System.clearProperty("timing.resources");
+            System.clearProperty("metrics.path");
+        }
+    }
+
+    @Test
+    public void testSlowRequests() throws Exception {
+        System.setProperty("slow.request.sample", "1");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            InvocationContext ic = sr.newClient().newInvocation("http://test.meterware.com/banks/1/accounts/1/balance.json");
+            ic.getServlet().service(ic.getRequest(), ic.getResponse());
+            Timings timings = (Timings) ic.getServlet().getServletConfig().getServletContext().getAttribute(Timings.ATTRIBUTE);
+            SlowRequestLog log = timings.getSlowRequests();
+            for (int i = 0; i < 100 && log.getWritten() == 0; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, log.getWritten());
+            assertEquals(0, log.getDropped());
+        } finally {
+            System.clearProperty("slow.request.sample");
+        }
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        System.setProperty("jfr", "true");
+        File dump = File.createTempFile("serfj", ".jfr");
+        try {
+            sr = new ServletRunner(this.getClass().getResourceAsStream("/web.xml"));
+            Recording recording = new Recording();
+            recording.enable("net.sf.serfj.RouteResolved");
+            recording.enable("net.sf.serfj.ActionInvoked");
+            recording.enable("net.sf.serfj.Serialized");
+            recording.start();
+            sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/balance.json"));
+            recording.stop();
+            recording.dump(dump.toPath());
+            recording.close();
+            Set<String> events = new HashSet<String>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(dump.toPath())) {
+                assertEquals("balance", event.getString("action"));
+                assertEquals("Account.balance", event.getString("route"));
+                assertTrue(event.getDuration().toNanos() > 0);
+                events.add(event.getEventType().getName());
+                if ("net.sf.serfj.Serialized".equals(event.getEventType().getName())) {
+                    assertTrue(event.getLong("bytes") > 0);
+                    assertNotNull(event.getString("serializer"));
+                }
+            }
+            assertEquals(3, events.size());
+        } finally {
+            System.clearProperty("jfr");
+            dump.delete();
+        }
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        final WebResponse[] response = new WebResponse[1];
+        Thread subscriber = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    response[0] = sr.newClient().getResponse(new GetMethodWebRequest("http://test.meterware.com/banks/1/accounts/1/news.events"));
+                } catch (Exception e) {
+                    LOGGER.error(e.getLocalizedMessage(), e);
+                }
+            }
+        };
+        subscriber.start();
+        for (int i = 0; i < 100 && Account.NEWS.getSubscribers() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, Account.NEWS.getSubscribers());
+        Office office = new Office();
+        office.setCity("Sevilla");
+        Account.NEWS.publish(office);
+        Account.NEWS.publish("closed", office);
+        Thread.sleep(300);
+        Account.NEWS.close();
+        subscriber.join(5000);
+        assertEquals("text/event-stream", response[0].getContentType());
+        String events = response[0].getText();
+        assertTrue(events.indexOf("id: 1\ndata: {\"net.sf.serfj.test.models.Office\":{\"city\":\"Sevilla\"") > 0);
+        assertTrue(events.indexOf("id: 2\nevent: closed\ndata: ") > 0);
+        assertEquals(0, Account.NEWS.getSubscribers());
+    }
+
     /**
      * Tests a GET request. Receives an URL to test, and the page that
      * controller must respond.
@@ -60,6 +60,14 @@ public class UrlInspectorTest extends TestCase {
 		assertEquals("net.sf.serfj.test.controllers.Bank", info.getController());
 		assertEquals("net.sf.serfj.test.serializers.JsonBankSerializer", info.getSerializer());
 
+		info = inspector.getUrlInfo("/bank/1,2,3.json", HttpMethod.GET);
+		assertEquals("showMany", info.getAction());
+		assertEquals("1,2,3", info.getId());
+		assertEquals(3, info.getIds().length);
+		assertEquals("3", info.getIds()[2]);
+		assertEquals("show", info.forId("2", "show").getAction());
+		assertEquals("2", info.forId("2", "show").getId("bank"));
+
 		info = inspector.getUrlInfo("/bank/1", HttpMethod.DELETE);
 		assertEquals("bank", info.getResource());
 		assertEquals("1", info.getId());
@@ -144,6 +152,22 @@ public class UrlInspectorTest extends TestCase {
 		assertEquals("net.sf.serfj.test.account.controllers.Account", info.getController());
 		assertNull(info.getSerializer());
 
+		info = inspector.getUrlInfo("/bank/1", HttpMethod.GET, "text/xml;q=0.8, application/json");
+		assertEquals("show", info.getAction());
+		assertEquals("json", info.getExtension());
+		assertEquals("net.sf.serfj.test.serializers.JsonBankSerializer", info.getSerializer());
+		assertTrue(info.isNegotiated());
+
+		// Browsers ask for pages, which don't depend on the Accept header
+		info = inspector.getUrlInfo("/bank/1", HttpMethod.GET, "text/html,application/xhtml+xml,*/*;q=0.8");
+		assertNull(info.getSerializer());
+		assertFalse(info.isNegotiated());
+
+		info = inspector.getUrlInfo("/bank/1.xml", HttpMethod.GET, "application/json");
+		assertEquals("xml", info.getExtension());
+		assertFalse(info.isNegotiated());
+		assertEquals("net.sf.serfj.serializers.XmlSerializer", info.getSerializer());
+
 		info = inspector.getUrlInfo("/banks/new", HttpMethod.GET);
 		assertEquals("bank", info.getResource());
 		assertNull(info.getId());
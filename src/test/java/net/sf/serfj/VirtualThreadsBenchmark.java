@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import com.meterware.servletunit.InvocationContext;
+import com.meterware.servletunit.ServletRunner;
+
+/**
+ * Compares the two ways RestServlet can run blocking actions: in the container
+ * threads, or handing them to virtual threads ('actions.virtual.threads').<br>
+ * <br>
+ * A pool of platform threads plays the container, sending every request through
+ * RestServlet to an action that blocks for a while, as one waiting on a database
+ * (Account.statement). ServletUnit doesn't support asynchronous requests, so they
+ * get a minimal AsyncContext that frees the container thread the same way. Run it
+ * with 'mvn -Pbenchmark test -DskipTests'. Requests, container threads and
+ * blocking milliseconds can be changed with -Dbenchmark.requests,
+ * -Dbenchmark.threads and -Dbenchmark.block.
+ * 
+ * @author agent
+ */
+public class VirtualThreadsBenchmark {
+
+    public static final long BLOCK = Long.getLong("benchmark.block", 50);
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 10000);
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 200);
+    private static final String URL = "http://test.meterware.com/banks/1/accounts/1/statement.json";
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%d concurrent requests blocking %d ms, %d container threads%n", REQUESTS, BLOCK, THREADS);
+        benchmark("Container threads", false);
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            benchmark("Virtual threads", true);
+        } catch (NoSuchMethodException e) {
+            System.out.println("Virtual threads: not available, they need Java 21");
+        }
+    }
+
+    private static void benchmark(String mode, boolean virtualThreads) throws Exception {
+        System.setProperty(Config.ACTIONS_VIRTUAL_THREADS.getName(), String.valueOf(virtualThreads));
+        ServletRunner sr = new ServletRunner(VirtualThreadsBenchmark.class.getResourceAsStream("/web.xml"));
+        try {
+            // Warm up before measuring
+            run(sr, REQUESTS / 10);
+            report(mode, REQUESTS, run(sr, REQUESTS));
+        } finally {
+            sr.shutDown();
+            System.clearProperty(Config.ACTIONS_VIRTUAL_THREADS.getName());
+        }
+    }
+
+    /**
+     * Sends the requests at once to the container, whose threads call the servlet.
+     * 
+     * @return nanoseconds until the last response and the failed requests.
+     */
+    private static long[] run(final ServletRunner sr, int requests) throws InterruptedException {
+        ExecutorService container = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch responses = new CountDownLatch(requests);
+        final AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            container.execute(new Runnable() {
+                public void run() {
+                    try {
+                        call(sr, responses, failures);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        responses.countDown();
+                    }
+                }
+            });
+        }
+        responses.await();
+        long elapsed = System.nanoTime() - start;
+        container.shutdown();
+        container.awaitTermination(1, TimeUnit.MINUTES);
+        return new long[] { elapsed, failures.get() };
+    }
+
+    /**
+     * Calls the servlet the way an asynchronous container would: the request is
+     * done when the servlet returns, unless it was put in asynchronous mode, then
+     * it's done when the context is completed.
+     */
+    private static void call(ServletRunner sr, final CountDownLatch responses, final AtomicInteger failures) throws Exception {
+        InvocationContext ic = sr.newClient().newInvocation(URL);
+        HttpServletResponse response = new HttpServletResponseWrapper(ic.getResponse()) {
+            @Override
+            public void sendError(int sc) throws IOException {
+                failures.incrementAndGet();
+            }
+
+            @Override
+            public void sendError(int sc, String msg) throws IOException {
+                failures.incrementAndGet();
+            }
+        };
+        Request request = new Request(ic.getRequest(), response, responses);
+        ic.getServlet().service(request, response);
+        if (!request.isAsyncStarted()) {
+            responses.countDown();
+        }
+    }
+
+    private static void report(String mode, int requests, long[] result) {
+        double seconds = result[0] / 1e9;
+        System.out.printf("%s: %.2f s, %.0f requests/s, %d failed%n", mode, seconds, requests / seconds, result[1]);
+    }
+
+    /**
+     * Request that can be put in asynchronous mode.
+     */
+    private static class Request extends HttpServletRequestWrapper implements AsyncContext {
+        private final HttpServletResponse response;
+        private final CountDownLatch responses;
+        private volatile boolean started;
+        private long timeout;
+
+        public Request(HttpServletRequest request, HttpServletResponse response, CountDownLatch responses) {
+            super(request);
+            this.response = response;
+            this.responses = responses;
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean isAsyncStarted() {
+            return this.started;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            this.started = true;
+            return this;
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            return this.startAsync();
+        }
+
+        @Override
+        public AsyncContext getAsyncContext() {
+            return this;
+        }
+
+        public ServletRequest getRequest() {
+            return this;
+        }
+
+        public ServletResponse getResponse() {
+            return this.response;
+        }
+
+        public boolean hasOriginalRequestAndResponse() {
+            return true;
+        }
+
+        public void dispatch() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void dispatch(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void dispatch(ServletContext context, String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void complete() {
+            this.responses.countDown();
+        }
+
+        public void start(Runnable run) {
+            new Thread(run).start();
+        }
+
+        public void addListener(AsyncListener listener) {
+            // Asynchronous requests never time out here
+        }
+
+        public void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+            // Asynchronous requests never time out here
+        }
+
+        public <T extends AsyncListener> T createListener(Class<T> clazz) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getTimeout() {
+            return this.timeout;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.annotations.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import net.sf.serfj.Config;
+import net.sf.serfj.finders.SerializerFinder;
+import net.sf.serfj.serializers.JsonSerializer;
+import net.sf.serfj.serializers.ObjectSerializer;
+import net.sf.serfj.serializers.Projection;
+import net.sf.serfj.serializers.XmlSerializer;
+import net.sf.serfj.test.models.Manager;
+import net.sf.serfj.test.models.Office;
+import net.sf.serfj.test.serializers.JsonOfficeSerializer;
+import net.sf.serfj.test.serializers.XmlOfficeSerializer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for serializers generated by {@link SerializableProcessor}.
+ * 
+ * @author agent
+ */
+public class SerializableProcessorTest {
+
+    private Office office;
+
+    @Before
+    public void setUp() throws Exception {
+        Manager manager = new Manager();
+        manager.setFull_name("John \"Doe\" <jd@bank.com>");
+        office = new Office();
+        office.setCity("Madrid");
+        office.setEmployees(12);
+        office.setOpen(true);
+        office.setArea(120.5);
+        office.setKind(Office.Kind.BRANCH);
+        office.setManager(manager);
+    }
+
+    @Test
+    public void testFinderFindsGeneratedSerializers() throws Exception {
+        Config config = new Config("/config/serfj.properties");
+        assertEquals(JsonOfficeSerializer.class.getName(), new SerializerFinder(config, "json").findResource("office"));
+        assertEquals(XmlOfficeSerializer.class.getName(), new SerializerFinder(config, "xml").findResource("office"));
+    }
+
+    @Test
+    public void testJsonIsReadableByDefaultSerializer() {
+        ObjectSerializer serializer = new JsonOfficeSerializer();
+        assertEquals(new JsonSerializer().serialize(office), serializer.serialize(office));
+        this.assertOffice((Office) serializer.deserialize(serializer.serialize(office)));
+    }
+
+    @Test
+    public void testXmlIsReadableByDefaultSerializer() {
+        ObjectSerializer serializer = new XmlOfficeSerializer();
+        this.assertOffice((Office) new XmlSerializer().deserialize(serializer.serialize(office)));
+    }
+
+    @Test
+    public void testNonFiniteNumbers() {
+        office.setArea(Double.NaN);
+        String json = new JsonOfficeSerializer().serialize(office, Projection.compile("area"));
+        assertEquals("{\"net.sf.serfj.test.models.Office\":{\"area\":null}}", json);
+        office.setArea(Double.POSITIVE_INFINITY);
+        assertEquals(json, new JsonOfficeSerializer().serialize(office, Projection.compile("area")));
+    }
+
+    @Test
+    public void testProjection() {
+        Projection projection = Projection.compile("city,manager.full_name");
+        String json = new JsonOfficeSerializer().serialize(office, projection);
+        assertEquals(new JsonSerializer().serialize(office, projection), json);
+        assertEquals("{\"net.sf.serfj.test.models.Office\":{\"city\":\"Madrid\",\"manager\":{\"full_name\":"
+                + "\"John \\\"Doe\\\" <jd@bank.com>\"}}}", json);
+        Office deserialized = (Office) new XmlSerializer().deserialize(new XmlOfficeSerializer().serialize(office, projection));
+        assertEquals("Madrid", deserialized.getCity());
+        assertEquals(0, deserialized.getEmployees());
+        assertNull(deserialized.getKind());
+        assertEquals(office.getManager().getFull_name(), deserialized.getManager().getFull_name());
+    }
+
+    private void assertOffice(Office deserialized) {
+        assertEquals("Madrid", deserialized.getCity());
+        assertEquals(12, deserialized.getEmployees());
+        assertEquals(true, deserialized.isOpen());
+        assertEquals(120.5, deserialized.getArea(), 0);
+        assertEquals(Office.Kind.BRANCH, deserialized.getKind());
+        assertEquals(office.getManager().getFull_name(), deserialized.getManager().getFull_name());
+        assertNull(deserialized.getManager().getPhone());
+    }
+}
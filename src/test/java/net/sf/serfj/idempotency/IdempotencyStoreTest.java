@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.idempotency;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.serfj.StoredResponse;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class IdempotencyStoreTest {
+
+    private static StoredResponse newResponse(String body) throws Exception {
+        List<String[]> headers = new ArrayList<String[]>();
+        headers.add(new String[] { "Location", "/banks/1" });
+        return new StoredResponse(201, "application/json", "UTF-8", headers, body.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testMemoryStore() throws Exception {
+        MemoryStore store = new MemoryStore(2);
+        assertNull(store.get("POST /banks 1"));
+        store.put("POST /banks 1", newResponse("{\"id\":1}"), 60000);
+        assertEquals(201, store.get("POST /banks 1").getStatus());
+        store.put("POST /banks 2", newResponse("{\"id\":2}"), 60000);
+        store.put("POST /banks 3", newResponse("{\"id\":3}"), 60000);
+        // The oldest response is forgotten
+        assertEquals(2, store.size());
+        assertNull(store.get("POST /banks 1"));
+        assertNotNull(store.get("POST /banks 3"));
+        store.put("POST /banks 4", newResponse("{\"id\":4}"), 0);
+        assertNull(store.get("POST /banks 4"));
+    }
+
+    @Test
+    public void testFileStore() throws Exception {
+        File directory = Files.createTempDirectory("serfj").toFile();
+        try {
+            FileStore store = new FileStore(directory, 2);
+            assertNull(store.get("POST /banks 1"));
+            store.put("POST /banks 1", newResponse("{\"id\":1}"), 60000);
+            StoredResponse stored = new FileStore(directory, 2).get("POST /banks 1");
+            assertEquals(201, stored.getStatus());
+            assertEquals("application/json", stored.getContentType());
+            assertEquals("UTF-8", stored.getCharacterEncoding());
+            assertArrayEquals(new String[] { "Location", "/banks/1" }, stored.getHeaders().get(0));
+            assertEquals("{\"id\":1}", new String(stored.getBody(), "UTF-8"));
+
+            store.put("POST /banks 2", newResponse("{\"id\":2}"), 0);
+            assertNull(store.get("POST /banks 2"));
+            store.put("POST /banks 3", newResponse("{\"id\":3}"), 0);
+            store.put("POST /banks 4", newResponse("{\"id\":4}"), 60000);
+            store.put("POST /banks 5", newResponse("{\"id\":5}"), 60000);
+            store.clean();
+            assertEquals(2, directory.list().length);
+
+            // Files that aren't stored responses are ignored
+            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(new File(directory, DigestUtils.shaHex("POST /banks 6") + ".response")));
+            out.writeObject(newResponse("{\"id\":6}"));
+            out.close();
+            assertNull(store.get("POST /banks 6"));
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.limits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    @Test
+    public void testAimd() {
+        AimdLimit limit = new AimdLimit(10, 2, 12, 500);
+        // Not busy, so there's nothing to learn
+        limit.onSample(FAST, 1);
+        assertEquals(10, limit.getLimit());
+        limit.onSample(FAST, 5);
+        assertEquals(11, limit.getLimit());
+        limit.onSample(FAST, 11);
+        limit.onSample(FAST, 12);
+        assertEquals(12, limit.getLimit());
+        limit.onSample(SLOW, 12);
+        assertEquals(10, limit.getLimit());
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(SLOW, 1);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testGradient() {
+        GradientLimit limit = new GradientLimit(20, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, limit.getLimit());
+        }
+        int grown = limit.getLimit();
+        assertTrue("Limit should grow with steady latency: " + grown, grown > 20);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(SLOW, limit.getLimit());
+        }
+        assertTrue("Limit should shrink when latency grows: " + limit, limit.getLimit() < grown / 2);
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(SLOW, limit.getLimit());
+        }
+        assertEquals(1, new GradientLimit(1, 1, 100).getLimit());
+        assertTrue(limit.getLimit() >= 1);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[] { 0, 1, 7, 8, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE }) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(value + " below its bucket", Histogram.lowest(bucket) <= value);
+            assertTrue(value + " above its bucket", Histogram.highest(bucket) >= value);
+        }
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucket(Long.MAX_VALUE));
+        for (int bucket = 1; bucket < Histogram.BUCKETS; bucket++) {
+            assertEquals(Histogram.highest(bucket - 1) + 1, Histogram.lowest(bucket));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean());
+        assertEquals(1000000, histogram.getMax());
+        assertNear(500000, histogram.getValueAtPercentile(50));
+        assertNear(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testCumulativeCounts() {
+        Histogram histogram = new Histogram();
+        histogram.record(500);
+        histogram.record(5000);
+        histogram.record(6000);
+        histogram.record(1000000);
+        long[] counts = new long[3];
+        assertEquals(4, histogram.getCumulativeCounts(new long[] { 1000, 10000, 100000 }, counts));
+        assertEquals(1, counts[0]);
+        assertEquals(3, counts[1]);
+        assertEquals(3, counts[2]);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        histogram.record(j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9999, histogram.getMax());
+    }
+
+    private static void assertNear(long expected, long value) {
+        assertTrue(value + " isn't near " + expected, Math.abs(value - expected) <= expected / 8);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class RingBufferTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        RingBuffer<Integer> buffer = new RingBuffer<Integer>(3);
+        assertEquals(4, buffer.capacity());
+        assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final RingBuffer<Integer> buffer = new RingBuffer<Integer>(64);
+        final AtomicInteger rejected = new AtomicInteger();
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    if (!buffer.offer(j)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        long taken = 0;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread producer : producers) {
+                running |= producer.isAlive();
+            }
+            while (buffer.poll() != null) {
+                taken++;
+            }
+        }
+        while (buffer.poll() != null) {
+            taken++;
+        }
+        assertEquals(40000, taken + rejected.get());
+        assertEquals(0, buffer.size());
+    }
+}
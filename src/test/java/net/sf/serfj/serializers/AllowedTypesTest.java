@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.serfj.test.models.Manager;
+import net.sf.serfj.test.models.Office;
+
+import org.junit.Test;
+
+import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+
+/**
+ * @author agent
+ */
+public class AllowedTypesTest {
+
+    /**
+     * Field of type List<Office>, to get its generic type.
+     */
+    List<Office> offices;
+
+    @Test
+    public void testReachableTypes() throws Exception {
+        AllowedTypes types = new AllowedTypes(Office.class, null);
+        assertTrue(types.allows(Office.class));
+        assertTrue(types.allows(Manager.class));
+        assertTrue(types.allows(Office.Kind.class));
+        assertTrue(types.allows(ArrayList.class));
+        assertFalse(types.allows(File.class));
+        assertFalse(types.allows(Thread.class));
+
+        types = new AllowedTypes(this.getClass().getDeclaredField("offices").getGenericType(), null);
+        assertTrue(types.allows(Office.class));
+        types = new AllowedTypes(Object.class, "java.io.File, net.sf.serfj.test.models.*");
+        assertTrue(types.allows(File.class));
+        assertTrue(types.allows(Office.class));
+        assertFalse(types.allows(AllowedTypesTest.class));
+    }
+
+    @Test
+    public void testXStreamRefusesOtherTypes() throws Exception {
+        Office office = new Office();
+        office.setCity("Sevilla");
+        String json = new JsonSerializer().serialize(office);
+        AllowedTypes types = new AllowedTypes(Office.class, null);
+        Office read = (Office) new JsonSerializer().deserialize(new ByteArrayInputStream(json.getBytes("UTF-8")), "UTF-8", types);
+        assertEquals("Sevilla", read.getCity());
+        try {
+            String xml = new XmlSerializer().serialize(new File("/tmp"));
+            new XmlSerializer().deserialize(new ByteArrayInputStream(xml.getBytes("UTF-8")), "UTF-8", types);
+            fail("java.io.File was deserialized");
+        } catch (CannotResolveClassException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("java.io.File"));
+        }
+        try {
+            String proxy = "<dynamic-proxy><interface>java.lang.Comparable</interface><handler class=\"java.beans.EventHandler\"/></dynamic-proxy>";
+            new XmlSerializer().deserialize(new ByteArrayInputStream(proxy.getBytes("UTF-8")), "UTF-8", types);
+            fail("A dynamic proxy was deserialized");
+        } catch (CannotResolveClassException e) {
+            // Refused
+        }
+    }
+
+    @Test
+    public void testJavaSerializationRefusesOtherTypes() throws Exception {
+        AllowedTypes types = new AllowedTypes(Object.class, null);
+        List<Integer> numbers = new ArrayList<Integer>();
+        numbers.add(1);
+        String data = new Base64Serializer().serialize(numbers);
+        assertEquals(numbers, new Base64Serializer().deserialize(new ByteArrayInputStream(data.getBytes("UTF-8")), "UTF-8", types));
+        try {
+            data = new Base64Serializer().serialize(new File("/tmp"));
+            new Base64Serializer().deserialize(new ByteArrayInputStream(data.getBytes("UTF-8")), "UTF-8", types);
+            fail("java.io.File was deserialized");
+        } catch (InvalidClassException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("java.io.File"));
+        }
+    }
+}
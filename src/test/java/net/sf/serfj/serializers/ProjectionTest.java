@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.serializers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.serfj.test.models.Manager;
+import net.sf.serfj.test.models.Office;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ProjectionTest {
+
+    @Test
+    public void testCompile() {
+        Projection projection = Projection.compile("id, name,accounts.balance,accounts.id,owner.address.city");
+        assertEquals("id,name,accounts(balance,id),owner(address(city))", projection.toString());
+        assertTrue(projection.includes("accounts"));
+        assertFalse(projection.includes("balance"));
+        assertNull(projection.get("name"));
+        assertSame(projection, Projection.compile("id, name,accounts.balance,accounts.id,owner.address.city"));
+        // A field named alone is included whole
+        assertEquals("accounts", Projection.compile("accounts.balance,accounts").toString());
+        assertEquals("accounts", Projection.compile("accounts,accounts.balance").toString());
+        assertNull(Projection.compile(" , "));
+        assertNull(Projection.compile(null));
+    }
+
+    @Test
+    public void testXStreamSerializers() {
+        Manager manager = new Manager();
+        manager.setFull_name("John Doe");
+        manager.setPhone(5551234L);
+        List<Office> offices = new ArrayList<Office>();
+        for (String city : new String[] { "Madrid", "Sevilla" }) {
+            Office office = new Office();
+            office.setCity(city);
+            office.setEmployees(12);
+            office.setManager(manager);
+            offices.add(office);
+        }
+        Projection projection = Projection.compile("city,manager.phone");
+        String json = new JsonSerializer().serialize(offices, projection);
+        assertTrue(json.indexOf("{\"city\":\"Madrid\",\"manager\":{\"phone\":5551234}}") > 0);
+        assertEquals(-1, json.indexOf("employees"));
+        String xml = new XmlSerializer().serialize(offices, projection);
+        assertTrue(xml.indexOf("<city>Sevilla</city>") > 0);
+        assertEquals(-1, xml.indexOf("full__name"));
+        @SuppressWarnings("unchecked")
+        List<Office> deserialized = (List<Office>) new XmlSerializer().deserialize(xml);
+        assertEquals(2, deserialized.size());
+        assertEquals("Madrid", deserialized.get(0).getCity());
+        assertEquals(0, deserialized.get(0).getEmployees());
+        assertNull(deserialized.get(0).getManager().getFull_name());
+    }
+}
@@ -16,18 +16,41 @@
 package net.sf.serfj.test.account.controllers;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.sf.serfj.EventPublisher;
+import net.sf.serfj.InterceptorsTest;
+import net.sf.serfj.PageSource;
 import net.sf.serfj.ResponseHelper;
+import net.sf.serfj.VirtualThreadsBenchmark;
+import net.sf.serfj.annotations.Deadline;
 import net.sf.serfj.annotations.GET;
+import net.sf.serfj.annotations.Intercept;
+import net.sf.serfj.annotations.POST;
+import net.sf.serfj.test.models.Office;
 
 
 /**
  * @author Eduardo Yáñez
  */
 public class Account {
+    public static final EventPublisher<Office> NEWS = new EventPublisher<Office>();
+
+    public static final AtomicInteger BRANCHES_CALLS = new AtomicInteger();
+
+    public static final AtomicInteger DEPOSITS = new AtomicInteger();
+
     @GET
     public void index(ResponseHelper response, Map<String, String> params) throws IOException {
+        if (response.getSerializer() != null) {
+            response.serialize(new OfficePages(45));
+        }
     }
 
     @GET
@@ -50,4 +73,99 @@ public class Account {
 			response.renderPage("balance");
 		}
 	}
+
+	@POST
+	public String create(Office office) {
+		return office.getCity();
+	}
+
+	@POST
+	public Office deposit(Office office) {
+		office.setEmployees(DEPOSITS.incrementAndGet());
+		return office;
+	}
+
+	@GET
+	@Intercept(InterceptorsTest.Cached.class)
+	public String rates() {
+		throw new IllegalStateException("Rates are cached");
+	}
+
+	@GET
+	public EventPublisher<Office> news() {
+		return NEWS;
+	}
+
+	@GET
+	public CompletionStage<Office> headquarters() {
+		return CompletableFuture.supplyAsync(() -> {
+			Office office = new Office();
+			office.setCity("Madrid");
+			return office;
+		});
+	}
+
+	@GET
+	public CompletionStage<Office> closed() {
+		CompletableFuture<Office> office = new CompletableFuture<Office>();
+		office.completeExceptionally(new IllegalStateException("Account closed"));
+		return office;
+	}
+
+	@GET
+	public CompletionStage<Office> pending() {
+		return new CompletableFuture<Office>();
+	}
+
+	@GET
+	public Office branches() throws InterruptedException {
+		Office office = new Office();
+		office.setEmployees(BRANCHES_CALLS.incrementAndGet());
+		Thread.sleep(300);
+		return office;
+	}
+
+	@GET
+	public String statement() throws InterruptedException {
+		Thread.sleep(VirtualThreadsBenchmark.BLOCK);
+		return "Statement";
+	}
+
+	@GET
+	@Deadline(100)
+	public String slow() throws InterruptedException {
+		Thread.sleep(10000);
+		return "Too late";
+	}
+
+	@GET
+	public Iterator<Office> history() {
+		return new OfficePages(250).fetch(null, 250);
+	}
+
+	/**
+	 * Offices paged by their position.
+	 */
+	private static class OfficePages implements PageSource<Office> {
+		private int size;
+
+		public OfficePages(int size) {
+			this.size = size;
+		}
+
+		public Iterator<Office> fetch(String cursor, int limit) {
+			int from = cursor == null ? 0 : Integer.parseInt(cursor) + 1;
+			List<Office> offices = new ArrayList<Office>();
+			for (int i = from; i < size && offices.size() < limit; i++) {
+				Office office = new Office();
+				office.setEmployees(i);
+				offices.add(office);
+			}
+			return offices.iterator();
+		}
+
+		public String getCursor(Office office) {
+			return String.valueOf(office.getEmployees());
+		}
+	}
 }
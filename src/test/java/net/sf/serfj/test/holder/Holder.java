@@ -15,8 +15,15 @@
  */
 package net.sf.serfj.test.holder;
 
+import net.sf.serfj.ResponseHelper;
+import net.sf.serfj.annotations.GET;
+
 /**
  * @author Eduardo Yáñez
  */
 public class Holder {
+    @GET
+    public String showMany(ResponseHelper response) {
+        return "Holders " + String.join("-", response.getIds());
+    }
 }
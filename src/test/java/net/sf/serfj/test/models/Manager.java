@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.serfj.test.models;
+
+import net.sf.serfj.annotations.Serializable;
+
+/**
+ * Model nested into {@link Office}.
+ * 
+ * @author agent
+ */
+@Serializable
+public class Manager {
+    private String full_name;
+    private Long phone;
+
+    public String getFull_name() {
+        return full_name;
+    }
+
+    public void setFull_name(String fullName) {
+        this.full_name = fullName;
+    }
+
+    public Long getPhone() {
+        return phone;
+    }
+
+    public void setPhone(Long phone) {
+        this.phone = phone;
+    }
+}